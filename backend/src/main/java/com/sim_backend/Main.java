@@ -1,10 +1,19 @@
 package com.sim_backend;
 
+import com.sim_backend.charger.BootRampController;
 import com.sim_backend.charger.Charger;
+import com.sim_backend.config.BootRampConfiguration;
+import com.sim_backend.config.FleetConfiguration;
 import com.sim_backend.rest.TestMessageController;
 import com.sim_backend.rest.controllers.ControllerBase;
+import com.sim_backend.rest.controllers.FleetController;
 import com.sim_backend.rest.controllers.MessageController;
+import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.transport.NioWebSocketTransport;
+import com.sim_backend.websockets.transport.TransportType;
+import com.sim_backend.websockets.transport.WebSocketTransport;
 import io.javalin.Javalin;
+import java.nio.file.Path;
 
 /** The entry into our program. */
 public final class Main {
@@ -17,21 +26,58 @@ public final class Main {
     // Start Javalin server
     Javalin app = initializeFrontendAPI(config);
 
-    int numberOfChargers = 3;
+    // Build the message codecs before the first frame needs them
+    GsonUtilities.warmUp();
+
+    // Determine how many chargers to run and how they are configured
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+    int numberOfChargers = fleet.getChargerCount();
+    WebSocketTransport transport =
+        fleet.getTransport() == TransportType.NIO ? NioWebSocketTransport.getShared() : null;
 
     // Create chargers
     Charger[] chargers = new Charger[numberOfChargers];
     for (int i = 0; i < numberOfChargers; i++) {
-      chargers[i] = new Charger(i + 1); // id starts at 1
+      int id = i + 1; // id starts at 1
+      chargers[i] =
+          fleet.isFleetMode() ? new Charger(id, fleet.createConfiguration(id)) : new Charger(id);
+      chargers[i].setTransport(transport);
+      chargers[i].setPipelineWindow(fleet.getPipelineWindow());
+      chargers[i].setBatchedFlush(fleet.isBatchedFlush());
+      chargers[i].setMessageLogCapacity(fleet.getMessageLogCapacity());
+      chargers[i].setTrustOutbound(fleet.isTrustOutbound());
+      chargers[i].setDuplicateIdWindow(fleet.getDuplicateIdWindow());
+      chargers[i].setDuplicateIdCapacity(fleet.getDuplicateIdCapacity());
+      if (fleet.getJournalDirectory() != null) {
+        chargers[i].setJournalDirectory(Path.of(fleet.getJournalDirectory()));
+      }
+      if (fleet.getTrafficDirectory() != null) {
+        chargers[i].setTrafficDirectory(Path.of(fleet.getTrafficDirectory()));
+      }
+      chargers[i].setTrafficSegmentBytes(fleet.getTrafficSegmentBytes());
+      chargers[i].setTrafficSegments(fleet.getTrafficSegments());
     }
 
+    // Boot the chargers in the background, paced so the Central System is not flooded
+    BootRampController bootRamp =
+        new BootRampController(chargers, BootRampConfiguration.loadConfiguration());
+
     // Register REST API controllers and routes
-    registerRoutes(app, chargers);
+    registerRoutes(app, chargers, bootRamp);
 
-    // Start the charger
-    for (Charger charger : chargers) {
-      charger.boot();
-    }
+    // Close every charger's connection and journals when the simulator exits
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  for (Charger charger : chargers) {
+                    charger.shutdown();
+                  }
+                },
+                "charger-shutdown"));
+
+    // Start the chargers
+    bootRamp.start();
   }
 
   /**
@@ -75,10 +121,13 @@ public final class Main {
    *
    * @param app the Javalin app
    * @param chargers the array of Charger instances
+   * @param bootRamp the ramp booting the chargers
    */
-  private static void registerRoutes(Javalin app, Charger[] chargers) {
+  private static void registerRoutes(Javalin app, Charger[] chargers, BootRampController bootRamp) {
     ControllerBase messageController = new MessageController(app, chargers);
     messageController.registerRoutes(app);
+    ControllerBase fleetController = new FleetController(app, bootRamp);
+    fleetController.registerRoutes(app);
     TestMessageController.registerRoutes(app);
   }
 
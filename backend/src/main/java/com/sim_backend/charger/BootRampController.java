@@ -0,0 +1,289 @@
+package com.sim_backend.charger;
+
+import com.sim_backend.config.BootRampConfiguration;
+import com.sim_backend.state.ChargerState;
+import com.sim_backend.state.ChargerStateMachine;
+import com.sim_backend.state.StateObserver;
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Boots a fleet of chargers at a configured rate. Chargers connect in the background, so a slow
+ * Central System does not hold up the chargers behind it, while the rate, a random jitter and a
+ * bound on concurrent handshakes keep the fleet from sending every BootNotification at once.
+ */
+@Slf4j
+public class BootRampController {
+
+  /** A snapshot of the ramp's progress. */
+  @Getter
+  @AllArgsConstructor
+  public static class BootProgress {
+    /** The number of chargers in the fleet. */
+    private final int total;
+
+    /** The number of chargers booted so far. */
+    private final int booted;
+
+    /**
+     * The number of chargers that connected to the Central System, on their first connect or a
+     * later reconnect.
+     */
+    private final int connected;
+
+    /** The number of chargers that failed to connect and have not booted since. */
+    private final int failed;
+
+    /** The number of chargers that reached Available. */
+    private final int available;
+
+    /** The time since the ramp started, in milliseconds. */
+    private final long elapsedMillis;
+
+    /** The time it took every charger to reach Available, null until they have. */
+    private final Long timeToAllAvailableMillis;
+  }
+
+  /** The chargers to boot, in order. */
+  private final Charger[] chargers;
+
+  /** How fast chargers are booted. */
+  private final BootRampConfiguration config;
+
+  /** Permits for concurrent handshakes, null when unbounded. */
+  private final Semaphore handshakes;
+
+  private final AtomicInteger booted = new AtomicInteger();
+  private final AtomicInteger connected = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicInteger available = new AtomicInteger();
+
+  /** When the ramp started, only valid once started. */
+  private volatile long startNanos;
+
+  /** Whether the ramp has been started. */
+  private final AtomicBoolean started = new AtomicBoolean(false);
+
+  /** When the last charger reached Available, -1 until then. */
+  private volatile long allAvailableNanos = -1;
+
+  /**
+   * Create a boot ramp.
+   *
+   * @param chargers The chargers to boot, in order.
+   * @param config How fast chargers are booted.
+   */
+  public BootRampController(Charger[] chargers, BootRampConfiguration config) {
+    this.chargers = chargers;
+    this.config = config;
+    this.handshakes =
+        config.getMaxConcurrentHandshakes() > 0
+            ? new Semaphore(config.getMaxConcurrentHandshakes())
+            : null;
+  }
+
+  /**
+   * Start booting the chargers on a virtual thread.
+   *
+   * @return The thread running the ramp.
+   * @throws IllegalStateException If the ramp was already started.
+   */
+  public Thread start() {
+    if (!started.compareAndSet(false, true)) {
+      throw new IllegalStateException("Boot ramp already started");
+    }
+    startNanos = System.nanoTime();
+    log.info(
+        "Booting {} chargers at {} per second, jitter {}ms, at most {} handshakes",
+        chargers.length,
+        config.getChargersPerSecond(),
+        config.getJitterMillis(),
+        config.getMaxConcurrentHandshakes());
+    return Thread.ofVirtual().name("boot-ramp").start(this::run);
+  }
+
+  /** Boot every charger, pacing them by the configured rate. */
+  private void run() {
+    long interval = config.getBootIntervalNanos();
+    try {
+      for (int i = 0; i < chargers.length; i++) {
+        parkUntil(startNanos + i * interval + jitterNanos());
+        if (handshakes != null) {
+          handshakes.acquire();
+        }
+        bootCharger(chargers[i]);
+      }
+    } catch (InterruptedException e) {
+      log.warn("Boot ramp interrupted after {} chargers", booted.get());
+      return;
+    }
+    log.info(
+        "Booted {} chargers in {}ms",
+        chargers.length,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+  }
+
+  /**
+   * Boot a single charger and follow its connection and state.
+   *
+   * @param charger The charger to boot.
+   */
+  private void bootCharger(Charger charger) {
+    try {
+      charger.boot();
+    } catch (RuntimeException e) {
+      // Such as a malformed Central System URL, the chargers behind it still boot
+      log.error("Failed to boot charger {}", charger.getId(), e);
+      releaseHandshake();
+      failed.incrementAndGet();
+      return;
+    }
+    booted.incrementAndGet();
+
+    OCPPWebSocketClient client = charger.getWsClient();
+    ChargerStateMachine stateMachine = charger.getStateMachine();
+    if (client == null || stateMachine == null) {
+      // Another boot or reboot was in progress
+      releaseHandshake();
+      failed.incrementAndGet();
+      return;
+    }
+
+    Outcome outcome = new Outcome(stateMachine);
+    stateMachine.addObserver(outcome);
+    outcome.onStateChanged(stateMachine.getCurrentState());
+
+    client
+        .getConnectFuture()
+        .whenComplete(
+            (open, exception) -> {
+              releaseHandshake();
+              outcome.connectFinished(Boolean.TRUE.equals(open));
+            });
+  }
+
+  /**
+   * Follows a booted charger until it is Available. A charger whose first connect failed is counted
+   * as failed only until it boots through a reconnect, and the observer is removed once the charger
+   * is Available as there is nothing left to count.
+   */
+  private final class Outcome implements StateObserver {
+    private final ChargerStateMachine stateMachine;
+    private boolean countedConnected;
+    private boolean countedFailed;
+    private boolean countedAvailable;
+
+    private Outcome(ChargerStateMachine stateMachine) {
+      this.stateMachine = stateMachine;
+    }
+
+    /**
+     * Count the result of the charger's first connect.
+     *
+     * @param open If it connected.
+     */
+    synchronized void connectFinished(boolean open) {
+      if (open) {
+        this.countConnected();
+      } else if (!countedConnected && !countedFailed) {
+        countedFailed = true;
+        failed.incrementAndGet();
+      }
+    }
+
+    @Override
+    public synchronized void onStateChanged(ChargerState state) {
+      if (countedAvailable) {
+        return;
+      }
+      if (state != ChargerState.BootingUp && state != ChargerState.PoweredOff) {
+        // Only a connected charger gets past booting
+        this.countConnected();
+      }
+      if (state == ChargerState.Available) {
+        countedAvailable = true;
+        onAvailable();
+        stateMachine.removeObserver(this);
+      }
+    }
+
+    private void countConnected() {
+      if (countedConnected) {
+        return;
+      }
+      countedConnected = true;
+      connected.incrementAndGet();
+      if (countedFailed) {
+        countedFailed = false;
+        failed.decrementAndGet();
+      }
+    }
+  }
+
+  /** Called the first time a charger reaches Available. */
+  private void onAvailable() {
+    if (available.incrementAndGet() == chargers.length) {
+      allAvailableNanos = System.nanoTime();
+      log.info(
+          "All {} chargers Available after {}ms",
+          chargers.length,
+          TimeUnit.NANOSECONDS.toMillis(allAvailableNanos - startNanos));
+    }
+  }
+
+  private void releaseHandshake() {
+    if (handshakes != null) {
+      handshakes.release();
+    }
+  }
+
+  private long jitterNanos() {
+    long jitterMillis = config.getJitterMillis();
+    if (jitterMillis <= 0) {
+      return 0;
+    }
+    return TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+  }
+
+  /**
+   * Park until a point in time.
+   *
+   * @param deadline The {@link System#nanoTime()} to wait for.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  private static void parkUntil(long deadline) throws InterruptedException {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * Get the ramp's progress.
+   *
+   * @return A snapshot of the progress.
+   */
+  public BootProgress getProgress() {
+    long elapsed = started.get() ? System.nanoTime() - startNanos : 0;
+    long allAvailable = allAvailableNanos;
+    return new BootProgress(
+        chargers.length,
+        booted.get(),
+        connected.get(),
+        failed.get(),
+        available.get(),
+        TimeUnit.NANOSECONDS.toMillis(elapsed),
+        allAvailable < 0 ? null : TimeUnit.NANOSECONDS.toMillis(allAvailable - startNanos));
+  }
+}
@@ -6,7 +6,12 @@ import com.sim_backend.electrical.ElectricalTransition;
 import com.sim_backend.state.ChargerState;
 import com.sim_backend.state.ChargerStateMachine;
 import com.sim_backend.transactions.TransactionHandler;
+import com.sim_backend.websockets.DuplicateIdFilter;
+import com.sim_backend.websockets.MessageLog;
+import com.sim_backend.websockets.MessageQueue;
 import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.OutboundJournal;
+import com.sim_backend.websockets.TrafficJournal;
 import com.sim_backend.websockets.enums.ChargePointErrorCode;
 import com.sim_backend.websockets.enums.Reason;
 import com.sim_backend.websockets.observers.BootNotificationObserver;
@@ -19,15 +24,21 @@ import com.sim_backend.websockets.observers.RemoteStopTransactionObserver;
 import com.sim_backend.websockets.observers.SetChargingProfileObserver;
 import com.sim_backend.websockets.observers.StatusNotificationObserver;
 import com.sim_backend.websockets.observers.TriggerMessageObserver;
+import com.sim_backend.websockets.transport.WebSocketTransport;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.locks.ReentrantLock;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Represents a simulated EV charger. The Charger contains a state machine, electrical transition,
  * WebSocket client, and transaction handler
  */
+@Slf4j
 @Getter
 public class Charger {
   /** The simulator's ID for this charger. */
@@ -45,7 +56,7 @@ public class Charger {
   /** The electrical transition for tracking charging parameters */
   private ElectricalTransition elec;
 
-  /** The thread running the charger loop */
+  /** The virtual thread running the charger loop */
   private Thread chargerThread;
 
   /** The handler for transaction-related operations */
@@ -57,6 +68,47 @@ public class Charger {
   /** A lock to ensure that only one Boot() or Reboot() operation can run at a time */
   private final ReentrantLock bootRebootLock = new ReentrantLock();
 
+  /** The websocket transport to connect with, null to use the default transport */
+  @Setter private WebSocketTransport transport;
+
+  /** The number of calls the websocket client sends before waiting for an answer */
+  @Getter @Setter private int pipelineWindow = MessageQueue.DEFAULT_PIPELINE_WINDOW;
+
+  /** Whether the websocket client sends the frames of one pass over its queue in one write */
+  @Getter @Setter private boolean batchedFlush;
+
+  /** The number of frames the websocket client keeps in its message log */
+  @Getter @Setter private int messageLogCapacity = MessageLog.DEFAULT_CAPACITY;
+
+  /**
+   * Whether the websocket client sends the messages the simulator builds without validating them
+   */
+  @Getter @Setter private boolean trustOutbound;
+
+  /** The time the websocket client remembers a received message ID for at least */
+  @Getter @Setter private Duration duplicateIdWindow = DuplicateIdFilter.DEFAULT_WINDOW;
+
+  /** The number of received message IDs the websocket client remembers per window */
+  @Getter @Setter private int duplicateIdCapacity = DuplicateIdFilter.DEFAULT_CAPACITY;
+
+  /** The directory of the outbound journal, null to not journal transaction messages */
+  @Setter private Path journalDirectory;
+
+  /** The journal of unanswered transaction messages, kept open across reboots */
+  @Getter private OutboundJournal journal;
+
+  /** The directory of the traffic journals, null to not journal every frame */
+  @Setter private Path trafficDirectory;
+
+  /** The journal of every frame sent and received, kept open across reboots */
+  @Getter private TrafficJournal trafficJournal;
+
+  /** The size a segment of the traffic journal is rolled over at */
+  @Getter @Setter private int trafficSegmentBytes = TrafficJournal.DEFAULT_SEGMENT_BYTES;
+
+  /** The number of segments of the traffic journal kept */
+  @Getter @Setter private int trafficSegments = TrafficJournal.DEFAULT_MAX_SEGMENTS;
+
   /** A flag to mark if our charger should be unavailable on reboot */
   @Getter @Setter private boolean available = true;
 
@@ -74,8 +126,18 @@ public class Charger {
 
   /** Constructs a new Charger instance */
   public Charger(int id) {
+    this(id, ConfigurationRegistry.loadConfiguration(id));
+  }
+
+  /**
+   * Constructs a new Charger instance with an already loaded configuration.
+   *
+   * @param id The simulator's ID for this charger.
+   * @param config The configuration for this charger.
+   */
+  public Charger(int id, ConfigurationRegistry config) {
     this.id = id;
-    this.config = ConfigurationRegistry.loadConfiguration(id);
+    this.config = config;
   }
 
   /**
@@ -91,7 +153,7 @@ public class Charger {
   /**
    * Boots the charger. This method initializes the charger's components, including the state
    * machine, electrical transition, WebSocket client, and transaction handler. It also starts the
-   * charger loop in a separate thread
+   * charger loop in a virtual thread, so an idle charger does not hold on to an OS thread
    */
   public void boot() {
     // If another Boot/Reboot is in progress, do nothing
@@ -109,7 +171,17 @@ public class Charger {
       wsClient =
           new OCPPWebSocketClient(
               URI.create(config.getCentralSystemUrl() + "/" + config.getIdTag()),
-              statusNotificationObserver);
+              statusNotificationObserver,
+              transport);
+      wsClient.setPipelineWindow(pipelineWindow);
+      wsClient.setBatchedFlush(batchedFlush);
+      wsClient.setMessageLogCapacity(messageLogCapacity);
+      wsClient.setDuplicateIdLimits(duplicateIdWindow, duplicateIdCapacity);
+      wsClient.setTrustOutbound(trustOutbound);
+      wsClient.setJournal(this.openJournal());
+      wsClient.setTrafficJournal(this.openTrafficJournal());
+      // Connect in the background, the charger loop holds its messages until connected
+      wsClient.connectAsync();
       elec = new ElectricalTransition(stateMachine, wsClient);
       transactionHandler = new TransactionHandler(this);
       elec.setChargingProfileHandler(new ChargingProfileHandler(transactionHandler, wsClient));
@@ -141,15 +213,50 @@ public class Charger {
       // Transition the state machine to the BootingUp state
       stateMachine.transition(ChargerState.BootingUp);
 
-      // Start the charger loop in its own thread
+      // Start the charger loop in its own virtual thread
       chargerLoop = new ChargerLoop(this);
-      chargerThread = new Thread(chargerLoop);
-      chargerThread.start();
+      chargerThread = Thread.ofVirtual().name("charger-" + id).start(chargerLoop);
     } finally {
       bootRebootLock.unlock();
     }
   }
 
+  /**
+   * Open the outbound journal on the first boot, the same journal is handed to the websocket client
+   * of every boot after.
+   *
+   * @return The journal, or null if journalling is disabled or the journal cannot be opened.
+   */
+  private OutboundJournal openJournal() {
+    if (journal == null && journalDirectory != null) {
+      Path path = journalDirectory.resolve("charger-" + id + ".journal");
+      try {
+        journal = OutboundJournal.open(path);
+      } catch (IOException e) {
+        log.error("Failed to open the outbound journal {}, not journalling: ", path, e);
+      }
+    }
+    return journal;
+  }
+
+  /**
+   * Open the traffic journal on the first boot, the same journal is handed to the websocket client
+   * of every boot after, so the traffic of every boot is kept together.
+   *
+   * @return The journal, or null if journalling is disabled or the journal cannot be opened.
+   */
+  private TrafficJournal openTrafficJournal() {
+    if (trafficJournal == null && trafficDirectory != null) {
+      Path path = trafficDirectory.resolve("charger-" + id);
+      try {
+        trafficJournal = TrafficJournal.open(path, trafficSegmentBytes, trafficSegments);
+      } catch (IOException e) {
+        log.error("Failed to open the traffic journal {}, not journalling: ", path, e);
+      }
+    }
+    return trafficJournal;
+  }
+
   /**
    * Reboots the charger. This method stops any in-progress charging session, shuts down the charger
    * loop, resets the internal components, and then calls {@link #boot()} to restart the charger
@@ -164,18 +271,10 @@ public class Charger {
       transactionHandler.forceStopCharging(Reason.REBOOT);
       stateMachine.transition(ChargerState.PoweredOff);
 
-      // Signal the charger loop to stop and interrupt its thread
-      if (chargerThread != null) {
-        chargerLoop.requestStop();
-        chargerThread.interrupt();
-        try {
-          chargerThread.join();
-        } catch (InterruptedException e) {
-        }
-      }
+      this.stopChargerLoop();
 
       // As per RFC 6455, 1001 indicates the endpoint is "going away"
-      wsClient.close(1001, "Charger rebooting");
+      wsClient.shutdown(1001, "Charger rebooting");
       wsClient = null;
       transactionHandler = null;
       stateMachine = null;
@@ -195,6 +294,48 @@ public class Charger {
     }
   }
 
+  /**
+   * Shuts the charger down for good as the simulator exits. This method stops the charger loop,
+   * closes the WebSocket connection and flushes and closes the journals, which are kept open across
+   * reboots.
+   */
+  public void shutdown() {
+    // Wait for a Boot/Reboot in progress rather than racing it
+    bootRebootLock.lock();
+    try {
+      this.stopChargerLoop();
+      if (wsClient != null) {
+        wsClient.setJournal(null);
+        wsClient.setTrafficJournal(null);
+        wsClient.shutdown(1001, "Charger shutting down");
+      }
+      try {
+        if (journal != null) {
+          journal.close();
+        }
+        if (trafficJournal != null) {
+          trafficJournal.close();
+        }
+      } catch (IOException e) {
+        log.error("Failed to close the journals of charger {}: ", id, e);
+      }
+    } finally {
+      bootRebootLock.unlock();
+    }
+  }
+
+  /** Signal the charger loop to stop, interrupt its thread and wait for it to end. */
+  private void stopChargerLoop() {
+    if (chargerThread != null) {
+      chargerLoop.requestStop();
+      chargerThread.interrupt();
+      try {
+        chargerThread.join();
+      } catch (InterruptedException e) {
+      }
+    }
+  }
+
   /**
    * Puts the charger in a faulted state. A POST to /api/{chargerId}/charger/clear-fault, a call to
    * ClearFault() or a Reboot is required to return to normal operation.
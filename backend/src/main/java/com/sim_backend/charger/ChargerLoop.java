@@ -2,14 +2,22 @@ package com.sim_backend.charger;
 
 import com.sim_backend.websockets.OCPPWebSocketClient;
 import com.sim_backend.websockets.exceptions.OCPPMessageFailure;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents the main loop of the Charger. This loop is responsible for scheduling and processing
- * messages for the WebSocket client associated with the Charger. It runs in its own thread and can
- * be stopped by setting a flag or interrupting the thread
+ * messages for the WebSocket client associated with the Charger. It runs in its own virtual thread
+ * and can be stopped by setting a flag or interrupting the thread. Between iterations the loop
+ * parks until the WebSocket client signals new work
  */
 public class ChargerLoop implements Runnable {
 
+  /**
+   * The longest the loop parks without a signal, the loop also wakes when the next request in
+   * flight times out
+   */
+  public static final long MAX_IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
   /** A flag indicating when the loop should stop */
   private volatile boolean stopRequested = false;
 
@@ -28,6 +36,10 @@ public class ChargerLoop implements Runnable {
   /** Requests that the loop stops processing */
   public void requestStop() {
     stopRequested = true;
+    OCPPWebSocketClient wsClient = charger.getWsClient();
+    if (wsClient != null) {
+      wsClient.signalWork();
+    }
   }
 
   /**
@@ -56,12 +68,12 @@ public class ChargerLoop implements Runnable {
   public void run() {
     while (!stopRequested && !Thread.currentThread().isInterrupted()) {
       if (!process()) break;
-      try {
-        // A small delay to prevent the loop from running too fast,
-        // allowing the WebSocket client to process messages
-        Thread.sleep(100);
-      } catch (InterruptedException e) {
-        break;
+      // Park until a message is pushed, a response frees the queue, a scheduled job is due or a
+      // request times out
+      OCPPWebSocketClient wsClient = charger.getWsClient();
+      if (wsClient != null) {
+        long timeout = wsClient.getQueue().getNanosUntilNextTimeout();
+        wsClient.getWakeup().await(Math.min(MAX_IDLE_NANOS, timeout));
       }
     }
     process();
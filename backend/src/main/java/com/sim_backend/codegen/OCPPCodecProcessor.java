@@ -0,0 +1,685 @@
+package com.sim_backend.codegen;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a codec for every class annotated with {@code @OCPPMessageInfo}. The codec of {@code
+ * Foo} is {@code FooCodec} in the same package, a Gson TypeAdapter that reads and writes the
+ * message's fields through method handles it looks up once, constructs the message the way Gson
+ * does, and writes the OCPP-J frame directly. See {@code com.sim_backend.websockets.gson.OCPPCodec}
+ * for the runtime side.
+ *
+ * <p>The processor only depends on the JDK so it can be compiled on its own, before the sources it
+ * processes. A class it cannot generate a codec for is left to Gson's reflective binding.
+ */
+@SupportedAnnotationTypes(OCPPCodecProcessor.MESSAGE_INFO)
+public class OCPPCodecProcessor extends AbstractProcessor {
+  /** The annotation marking an OCPP message. */
+  static final String MESSAGE_INFO = "com.sim_backend.websockets.annotations.OCPPMessageInfo";
+
+  /** The suffix of a generated codec, matching {@code OCPPCodecFactory.CODEC_SUFFIX}. */
+  static final String CODEC_SUFFIX = "Codec";
+
+  /** Gson's field name annotation. */
+  private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+
+  /** Gson's custom adapter annotation, which the generated codecs do not support. */
+  private static final String JSON_ADAPTER = "com.google.gson.annotations.JsonAdapter";
+
+  /** The call ID of a request, matching {@code OCPPMessage.CALL_ID_REQUEST}. */
+  private static final int CALL_ID_REQUEST = 2;
+
+  /** A serialized field of a message. */
+  private record Field(
+      VariableElement element, TypeElement owner, String name, List<String> jsonNames) {}
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (element.getKind() != ElementKind.CLASS) {
+          continue;
+        }
+        TypeElement type = (TypeElement) element;
+        String reason = this.unsupportedReason(type);
+        if (reason != null) {
+          processingEnv
+              .getMessager()
+              .printMessage(
+                  Diagnostic.Kind.NOTE,
+                  "No codec generated, " + reason + "; it is bound reflectively",
+                  type);
+          continue;
+        }
+
+        try {
+          this.generate(type);
+        } catch (IOException | IllegalArgumentException exception) {
+          processingEnv
+              .getMessager()
+              .printMessage(
+                  Diagnostic.Kind.WARNING,
+                  "Could not generate a codec: " + exception.getMessage(),
+                  type);
+        }
+      }
+    }
+    // Leave the annotation to the other processors
+    return false;
+  }
+
+  /**
+   * Check if a codec can be generated for a class.
+   *
+   * @param type The annotated class.
+   * @return Why no codec can be generated, or null if one can.
+   */
+  private String unsupportedReason(TypeElement type) {
+    if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+      return "the class is nested";
+    }
+    if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+      return "the class is abstract";
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      return "the class is generic";
+    }
+    if (this.findAnnotation(type, JSON_ADAPTER) != null) {
+      return "the class has a @JsonAdapter";
+    }
+
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+    Set<String> names = new HashSet<>();
+    for (Field field : this.collectFields(type)) {
+      if (this.findAnnotation(field.element(), JSON_ADAPTER) != null) {
+        return "field " + field.name() + " has a @JsonAdapter";
+      }
+      if (!this.isAccessible(field.element().asType(), pkg)) {
+        return "the type of field " + field.name() + " is not accessible";
+      }
+      for (String name : field.jsonNames()) {
+        if (!names.add(name)) {
+          return "the json name " + name + " is used twice";
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Check if generated code in a package can name a type.
+   *
+   * @param type The type.
+   * @param pkg The package of the generated code.
+   * @return If the type can be named.
+   */
+  private boolean isAccessible(TypeMirror type, PackageElement pkg) {
+    switch (type.getKind()) {
+      case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> {
+        return true;
+      }
+      case ARRAY -> {
+        return this.isAccessible(((ArrayType) type).getComponentType(), pkg);
+      }
+      case WILDCARD -> {
+        WildcardType wildcard = (WildcardType) type;
+        TypeMirror bound =
+            wildcard.getExtendsBound() != null
+                ? wildcard.getExtendsBound()
+                : wildcard.getSuperBound();
+        return bound == null || this.isAccessible(bound, pkg);
+      }
+      case DECLARED -> {
+        DeclaredType declared = (DeclaredType) type;
+        boolean samePackage =
+            processingEnv.getElementUtils().getPackageOf(declared.asElement()).equals(pkg);
+        for (Element element = declared.asElement();
+            element instanceof TypeElement;
+            element = element.getEnclosingElement()) {
+          Set<Modifier> modifiers = element.getModifiers();
+          if (modifiers.contains(Modifier.PRIVATE)
+              || (!modifiers.contains(Modifier.PUBLIC) && !samePackage)) {
+            return false;
+          }
+        }
+        for (TypeMirror argument : declared.getTypeArguments()) {
+          if (!this.isAccessible(argument, pkg)) {
+            return false;
+          }
+        }
+        return true;
+      }
+      default -> {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Collect the fields Gson serializes, in the order Gson writes them: the class's own fields in
+   * declaration order, then those of its superclasses.
+   *
+   * @param type The message class.
+   * @return The serialized fields.
+   */
+  private List<Field> collectFields(TypeElement type) {
+    List<Field> fields = new ArrayList<>();
+    TypeElement current = type;
+    while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+      for (Element member : current.getEnclosedElements()) {
+        if (member.getKind() != ElementKind.FIELD
+            || member.getModifiers().contains(Modifier.STATIC)
+            || member.getModifiers().contains(Modifier.TRANSIENT)) {
+          continue;
+        }
+        VariableElement field = (VariableElement) member;
+        String name = field.getSimpleName().toString();
+        fields.add(new Field(field, current, name, this.jsonNames(field, name)));
+      }
+      TypeMirror superclass = current.getSuperclass();
+      current =
+          superclass.getKind() == TypeKind.DECLARED
+              ? (TypeElement) ((DeclaredType) superclass).asElement()
+              : null;
+    }
+    return fields;
+  }
+
+  /**
+   * Get the json names of a field, its serialized name first and then its alternates.
+   *
+   * @param field The field.
+   * @param name The field's name.
+   * @return The json names.
+   */
+  private List<String> jsonNames(VariableElement field, String name) {
+    List<String> names = new ArrayList<>();
+    AnnotationMirror serializedName = this.findAnnotation(field, SERIALIZED_NAME);
+    if (serializedName == null) {
+      names.add(name);
+      return names;
+    }
+
+    Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+        processingEnv.getElementUtils().getElementValuesWithDefaults(serializedName);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        values.entrySet()) {
+      String key = entry.getKey().getSimpleName().toString();
+      if (key.equals("value")) {
+        names.addFirst((String) entry.getValue().getValue());
+      } else if (key.equals("alternate")) {
+        @SuppressWarnings("unchecked")
+        List<? extends AnnotationValue> alternates =
+            (List<? extends AnnotationValue>) entry.getValue().getValue();
+        for (AnnotationValue alternate : alternates) {
+          names.add((String) alternate.getValue());
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Find an annotation on an element.
+   *
+   * @param element The element.
+   * @param name The qualified name of the annotation.
+   * @return The annotation, or null if it is not present.
+   */
+  private AnnotationMirror findAnnotation(Element element, String name) {
+    for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+      TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(name)) {
+        return mirror;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get a value of the message's {@code @OCPPMessageInfo}.
+   *
+   * @param type The message class.
+   * @param key The annotation member.
+   * @return The value.
+   */
+  private Object messageInfo(TypeElement type, String key) {
+    AnnotationMirror info = this.findAnnotation(type, MESSAGE_INFO);
+    for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        processingEnv.getElementUtils().getElementValuesWithDefaults(info).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(key)) {
+        return entry.getValue().getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Write a type as source, without type annotations.
+   *
+   * @param type The type.
+   * @return The type's source.
+   */
+  private String typeName(TypeMirror type) {
+    switch (type.getKind()) {
+      case BOOLEAN, BYTE, SHORT, INT, LONG, CHAR, FLOAT, DOUBLE -> {
+        return type.getKind().name().toLowerCase();
+      }
+      case ARRAY -> {
+        return this.typeName(((ArrayType) type).getComponentType()) + "[]";
+      }
+      case WILDCARD -> {
+        WildcardType wildcard = (WildcardType) type;
+        if (wildcard.getExtendsBound() != null) {
+          return "? extends " + this.typeName(wildcard.getExtendsBound());
+        }
+        if (wildcard.getSuperBound() != null) {
+          return "? super " + this.typeName(wildcard.getSuperBound());
+        }
+        return "?";
+      }
+      case DECLARED -> {
+        DeclaredType declared = (DeclaredType) type;
+        String name = ((TypeElement) declared.asElement()).getQualifiedName().toString();
+        if (declared.getTypeArguments().isEmpty()) {
+          return name;
+        }
+        StringJoiner arguments = new StringJoiner(", ", "<", ">");
+        for (TypeMirror argument : declared.getTypeArguments()) {
+          arguments.add(this.typeName(argument));
+        }
+        return name + arguments;
+      }
+      default -> throw new IllegalArgumentException("unsupported field type " + type);
+    }
+  }
+
+  /**
+   * Write a type as source, boxing primitives.
+   *
+   * @param type The type.
+   * @return The boxed type's source.
+   */
+  private String boxedName(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return this.typeName(processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).asType());
+    }
+    return this.typeName(type);
+  }
+
+  /**
+   * Get the class literal of a type's erasure.
+   *
+   * @param type The type.
+   * @return The class literal.
+   */
+  private String classLiteral(TypeMirror type) {
+    return this.typeName(processingEnv.getTypeUtils().erasure(type)) + ".class";
+  }
+
+  /**
+   * Check if the codec reads and writes a field itself rather than through a Gson adapter.
+   *
+   * @param type The field's type.
+   * @return If the field is read and written directly.
+   */
+  private static boolean isDirect(TypeMirror type) {
+    return switch (type.getKind()) {
+      case INT, LONG, BOOLEAN -> true;
+      case DECLARED ->
+          ((TypeElement) ((DeclaredType) type).asElement())
+              .getQualifiedName()
+              .contentEquals("java.lang.String");
+      default -> false;
+    };
+  }
+
+  /**
+   * Get the default value of a field's type.
+   *
+   * @param type The field's type.
+   * @return The default value's source.
+   */
+  private static String defaultValue(TypeMirror type) {
+    return switch (type.getKind()) {
+      case BOOLEAN -> "false";
+      case CHAR -> "'\\0'";
+      case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> "0";
+      default -> "null";
+    };
+  }
+
+  /**
+   * Quote a string as a java literal.
+   *
+   * @param value The string.
+   * @return The literal.
+   */
+  private static String literal(String value) {
+    StringBuilder builder = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      switch (c) {
+        case '"' -> builder.append("\\\"");
+        case '\\' -> builder.append("\\\\");
+        case '\n' -> builder.append("\\n");
+        case '\r' -> builder.append("\\r");
+        case '\t' -> builder.append("\\t");
+        default -> {
+          if (c < 0x20 || c > 0x7e) {
+            builder.append(String.format("\\u%04x", (int) c));
+          } else {
+            builder.append(c);
+          }
+        }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  /**
+   * Generate the codec of a message class.
+   *
+   * @param type The message class.
+   * @throws IOException If the source cannot be written.
+   */
+  private void generate(TypeElement type) throws IOException {
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+    String packageName = pkg.getQualifiedName().toString();
+    String message = type.getQualifiedName().toString();
+    String codec = type.getSimpleName() + CODEC_SUFFIX;
+    List<Field> fields = this.collectFields(type);
+
+    Object callId = this.messageInfo(type, "messageCallID");
+    Object messageName = this.messageInfo(type, "messageName");
+    int call = callId instanceof Integer id ? id : CALL_ID_REQUEST;
+    String name = messageName instanceof String text ? text : "";
+
+    StringBuilder src = new StringBuilder();
+    if (!packageName.isEmpty()) {
+      src.append("package ").append(packageName).append(";\n\n");
+    }
+    src.append("/** The generated codec of {@link ").append(message).append("}. */\n");
+    src.append("@javax.annotation.processing.Generated(\"")
+        .append(OCPPCodecProcessor.class.getName())
+        .append("\")\n");
+    src.append("@SuppressWarnings(\"unchecked\")\n");
+    src.append("public final class ")
+        .append(codec)
+        .append(" extends com.sim_backend.websockets.gson.OCPPCodec<")
+        .append(message)
+        .append("> {\n");
+
+    // Field handles and the allocator
+    for (int i = 0; i < fields.size(); i++) {
+      src.append("  private static final java.lang.invoke.VarHandle GET_").append(i).append(";\n");
+      src.append("  private static final java.lang.invoke.MethodHandle SET_")
+          .append(i)
+          .append(";\n");
+    }
+    src.append("  private static final java.lang.invoke.MethodHandle ALLOCATOR;\n\n");
+    src.append("  static {\n");
+    src.append("    try {\n");
+    src.append("      java.lang.invoke.MethodHandles.Lookup lookup =\n");
+    src.append("          java.lang.invoke.MethodHandles.privateLookupIn(")
+        .append(message)
+        .append(".class, java.lang.invoke.MethodHandles.lookup());\n");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      String owner = field.owner().getQualifiedName().toString();
+      String ownerLookup =
+          field.owner().equals(type)
+              ? "lookup"
+              : "java.lang.invoke.MethodHandles.privateLookupIn(" + owner + ".class, lookup)";
+      src.append("      GET_")
+          .append(i)
+          .append(" = ")
+          .append(ownerLookup)
+          .append(".findVarHandle(")
+          .append(owner)
+          .append(".class, ")
+          .append(literal(field.name()))
+          .append(", ")
+          .append(this.classLiteral(field.element().asType()))
+          .append(");\n");
+      src.append("      SET_")
+          .append(i)
+          .append(" = findSetter(")
+          .append(ownerLookup)
+          .append(", ")
+          .append(owner)
+          .append(".class, ")
+          .append(literal(field.name()))
+          .append(");\n");
+    }
+    src.append("      ALLOCATOR = findAllocator(lookup, ").append(message).append(".class);\n");
+    src.append("    } catch (ReflectiveOperationException exception) {\n");
+    src.append("      throw new ExceptionInInitializerError(exception);\n");
+    src.append("    }\n");
+    src.append("  }\n\n");
+
+    // Adapters of the fields the codec does not handle itself
+    for (int i = 0; i < fields.size(); i++) {
+      TypeMirror fieldType = fields.get(i).element().asType();
+      if (!isDirect(fieldType)) {
+        src.append("  private final com.google.gson.TypeAdapter<")
+            .append(this.boxedName(fieldType))
+            .append("> adapter")
+            .append(i)
+            .append(";\n");
+      }
+    }
+    src.append("\n");
+
+    // Constructor
+    src.append("  public ")
+        .append(codec)
+        .append("(com.google.gson.Gson gson, com.google.gson.TypeAdapter<")
+        .append(message)
+        .append("> fallback) {\n");
+    src.append("    super(gson, fallback, ")
+        .append(call)
+        .append(", ")
+        .append(literal(name))
+        .append(");\n");
+    for (int i = 0; i < fields.size(); i++) {
+      TypeMirror fieldType = fields.get(i).element().asType();
+      if (isDirect(fieldType)) {
+        continue;
+      }
+      src.append("    this.adapter").append(i).append(" = gson.getAdapter(");
+      if (fieldType.getKind() == TypeKind.DECLARED
+          && !((DeclaredType) fieldType).getTypeArguments().isEmpty()) {
+        src.append("new com.google.gson.reflect.TypeToken<")
+            .append(this.typeName(fieldType))
+            .append(">() {}");
+      } else {
+        src.append(this.classLiteral(fieldType));
+      }
+      src.append(");\n");
+    }
+    src.append("  }\n\n");
+
+    // isDecodable
+    src.append("  @Override\n");
+    src.append("  public boolean isDecodable() {\n");
+    src.append("    return ALLOCATOR != null");
+    for (int i = 0; i < fields.size(); i++) {
+      src.append(" && SET_").append(i).append(" != null");
+    }
+    src.append(";\n");
+    src.append("  }\n\n");
+
+    // writePayload
+    src.append("  @Override\n");
+    src.append("  protected void writePayload(com.google.gson.stream.JsonWriter out, ")
+        .append(message)
+        .append(" value)\n");
+    src.append("      throws java.io.IOException {\n");
+    src.append("    out.beginObject();\n");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      TypeMirror fieldType = field.element().asType();
+      String jsonName = literal(field.jsonNames().getFirst());
+      if (fieldType.getKind().isPrimitive() && isDirect(fieldType)) {
+        src.append("    out.name(")
+            .append(jsonName)
+            .append(").value((")
+            .append(this.typeName(fieldType))
+            .append(") GET_")
+            .append(i)
+            .append(".get(value));\n");
+      } else if (isDirect(fieldType)) {
+        src.append("    {\n");
+        src.append("      String field = (String) GET_").append(i).append(".get(value);\n");
+        src.append("      out.name(").append(jsonName).append(");\n");
+        src.append("      if (field == null) {\n");
+        src.append("        out.nullValue();\n");
+        src.append("      } else {\n");
+        src.append("        out.value(field);\n");
+        src.append("      }\n");
+        src.append("    }\n");
+      } else {
+        src.append("    out.name(").append(jsonName).append(");\n");
+        src.append("    adapter")
+            .append(i)
+            .append(".write(out, (")
+            .append(this.boxedName(fieldType))
+            .append(") GET_")
+            .append(i)
+            .append(".get(value));\n");
+      }
+    }
+    src.append("    out.endObject();\n");
+    src.append("  }\n\n");
+
+    // readPayload
+    src.append("  @Override\n");
+    src.append("  protected ")
+        .append(message)
+        .append(" readPayload(com.google.gson.stream.JsonReader in)\n");
+    src.append("      throws java.io.IOException {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      TypeMirror fieldType = fields.get(i).element().asType();
+      src.append("    ")
+          .append(this.typeName(fieldType))
+          .append(" field")
+          .append(i)
+          .append(" = ")
+          .append(defaultValue(fieldType))
+          .append(";\n");
+      src.append("    boolean present").append(i).append(" = false;\n");
+    }
+    src.append("    in.beginObject();\n");
+    src.append("    while (in.hasNext()) {\n");
+    src.append("      switch (in.nextName()) {\n");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      TypeMirror fieldType = field.element().asType();
+      StringJoiner labels = new StringJoiner(", ");
+      for (String jsonName : field.jsonNames()) {
+        labels.add(literal(jsonName));
+      }
+      src.append("        case ").append(labels).append(" -> {\n");
+      if (fieldType.getKind().isPrimitive()) {
+        // Gson leaves a primitive field alone when its value is null
+        String read =
+            switch (fieldType.getKind()) {
+              case INT -> "readInt(in)";
+              case LONG -> "readLong(in)";
+              case BOOLEAN -> "readBoolean(in)";
+              default -> "adapter" + i + ".read(in)";
+            };
+        src.append("          if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n");
+        src.append("            in.nextNull();\n");
+        src.append("          } else {\n");
+        src.append("            field").append(i).append(" = ").append(read).append(";\n");
+        src.append("            present").append(i).append(" = true;\n");
+        src.append("          }\n");
+      } else {
+        if (isDirect(fieldType)) {
+          src.append("          if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n");
+          src.append("            in.nextNull();\n");
+          src.append("          } else {\n");
+          src.append("            field").append(i).append(" = readString(in);\n");
+          src.append("          }\n");
+        } else {
+          src.append("          field")
+              .append(i)
+              .append(" = adapter")
+              .append(i)
+              .append(".read(in);\n");
+        }
+        src.append("          present").append(i).append(" = true;\n");
+      }
+      src.append("        }\n");
+    }
+    src.append("        default -> in.skipValue();\n");
+    src.append("      }\n");
+    src.append("    }\n");
+    src.append("    in.endObject();\n\n");
+    src.append("    try {\n");
+    src.append("      ")
+        .append(message)
+        .append(" value = (")
+        .append(message)
+        .append(") (Object) ALLOCATOR.invokeExact();\n");
+    for (int i = 0; i < fields.size(); i++) {
+      Field field = fields.get(i);
+      String receiver =
+          field.owner().equals(type) ? "value" : "(" + field.owner().getQualifiedName() + ") value";
+      src.append("      if (present").append(i).append(") {\n");
+      src.append("        SET_")
+          .append(i)
+          .append(".invokeExact(")
+          .append(receiver)
+          .append(", field")
+          .append(i)
+          .append(");\n");
+      src.append("      }\n");
+    }
+    src.append("      return value;\n");
+    src.append("    } catch (Throwable exception) {\n");
+    src.append("      throw constructionFailed(exception);\n");
+    src.append("    }\n");
+    src.append("  }\n");
+    src.append("}\n");
+
+    try (Writer writer =
+        processingEnv.getFiler().createSourceFile(packageName + "." + codec, type).openWriter()) {
+      writer.write(src.toString());
+    }
+  }
+}
@@ -0,0 +1,5 @@
+/**
+ * This package contains the compile time code generation for the EV Charger Simulator. It is
+ * compiled before the rest of the sources, which it then processes.
+ */
+package com.sim_backend.codegen;
@@ -0,0 +1,94 @@
+package com.sim_backend.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Boot Ramp Configuration describes how fast the simulator boots its chargers, so a large fleet
+ * does not send every BootNotification to the Central System at once.
+ */
+@Getter
+@AllArgsConstructor
+public class BootRampConfiguration {
+
+  /** The default number of chargers booted per second. */
+  public static final double DEFAULT_CHARGERS_PER_SECOND = 50;
+
+  /** The default upper bound of the random delay added to each boot. */
+  public static final long DEFAULT_JITTER_MILLIS = 100;
+
+  /** The default number of connections that may be handshaking at once. */
+  public static final int DEFAULT_MAX_CONCURRENT_HANDSHAKES = 100;
+
+  private static final String PROP_CHARGERS_PER_SECOND = "bootRate";
+  private static final String PROP_JITTER_MILLIS = "bootJitterMillis";
+  private static final String PROP_MAX_CONCURRENT_HANDSHAKES = "bootMaxHandshakes";
+
+  /** The number of chargers booted per second, 0 boots them all at once. */
+  private final double chargersPerSecond;
+
+  /** The upper bound of the random delay added to each boot. */
+  private final long jitterMillis;
+
+  /** The number of connections that may be handshaking at once, 0 for no limit. */
+  private final int maxConcurrentHandshakes;
+
+  /**
+   * Load the boot ramp configuration from the command line, every property is optional.
+   *
+   * @return The loaded boot ramp configuration.
+   */
+  public static BootRampConfiguration loadConfiguration() {
+    double chargersPerSecond = DEFAULT_CHARGERS_PER_SECOND;
+    String cmdRate = System.getProperty(PROP_CHARGERS_PER_SECOND);
+    if (cmdRate != null && !cmdRate.isEmpty()) {
+      try {
+        chargersPerSecond = Double.parseDouble(cmdRate);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid bootRate: " + cmdRate, e);
+      }
+      if (chargersPerSecond < 0 || Double.isNaN(chargersPerSecond)) {
+        throw new IllegalArgumentException("bootRate must not be negative: " + cmdRate);
+      }
+    }
+
+    long jitterMillis = loadCount(PROP_JITTER_MILLIS, DEFAULT_JITTER_MILLIS);
+    int maxConcurrentHandshakes =
+        (int) loadCount(PROP_MAX_CONCURRENT_HANDSHAKES, DEFAULT_MAX_CONCURRENT_HANDSHAKES);
+
+    return new BootRampConfiguration(chargersPerSecond, jitterMillis, maxConcurrentHandshakes);
+  }
+
+  /**
+   * Load a non-negative whole number from the command line.
+   *
+   * @param property The property to load.
+   * @param defaultValue The value used when the property is not given.
+   * @return The loaded value.
+   */
+  private static long loadCount(String property, long defaultValue) {
+    String cmdValue = System.getProperty(property);
+    if (cmdValue == null || cmdValue.isEmpty()) {
+      return defaultValue;
+    }
+    long value;
+    try {
+      value = Integer.parseInt(cmdValue);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + property + ": " + cmdValue, e);
+    }
+    if (value < 0) {
+      throw new IllegalArgumentException(property + " must not be negative: " + cmdValue);
+    }
+    return value;
+  }
+
+  /**
+   * Get the time between two boots.
+   *
+   * @return The interval in nanoseconds, 0 when chargers are booted all at once.
+   */
+  public long getBootIntervalNanos() {
+    return chargersPerSecond == 0 ? 0 : (long) (1_000_000_000L / chargersPerSecond);
+  }
+}
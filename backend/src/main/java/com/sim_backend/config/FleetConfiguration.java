@@ -0,0 +1,243 @@
+package com.sim_backend.config;
+
+import com.sim_backend.websockets.DuplicateIdFilter;
+import com.sim_backend.websockets.MessageLog;
+import com.sim_backend.websockets.MessageQueue;
+import com.sim_backend.websockets.TrafficJournal;
+import com.sim_backend.websockets.transport.TransportType;
+import java.time.Duration;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Fleet Configuration describes how many chargers the simulator runs and how each of them connects
+ * and records its traffic, loaded once at startup from system properties:
+ *
+ * <ul>
+ *   <li>{@code fleetSize} enables fleet mode, with the {@code fleetIdTagTemplate} and {@code
+ *       fleetCentralSystemUrlTemplate} each charger's identity is derived from. When fleet mode is
+ *       disabled the simulator falls back to the per charger properties loaded by {@link
+ *       ConfigurationRegistry#loadConfiguration(int)}.
+ *   <li>{@code transport}, the websocket transport every charger connects with.
+ *   <li>{@code pipelineWindow} and {@code batchedFlush}, how each charger sends its calls.
+ *   <li>{@code trustOutbound}, whether each charger skips validating the messages it builds.
+ *   <li>{@code messageLogCapacity}, the frames each charger keeps in memory.
+ *   <li>{@code duplicateIdWindow} (seconds) and {@code duplicateIdCapacity}, how long and how many
+ *       received message IDs each charger remembers to reject duplicates.
+ *   <li>{@code journalDir} and {@code trafficDir}, where each charger journals its unanswered
+ *       transaction messages and its traffic, with {@code trafficSegmentBytes} and {@code
+ *       trafficSegments} bounding the traffic kept.
+ * </ul>
+ */
+@Getter
+@Builder
+public class FleetConfiguration {
+
+  /** The placeholder replaced with a charger's id in the templates. */
+  public static final String ID_PLACEHOLDER = "{id}";
+
+  /** The number of chargers run when fleet mode is not enabled. */
+  public static final int DEFAULT_CHARGER_COUNT = 3;
+
+  /** The default idTag template used in fleet mode. */
+  public static final String DEFAULT_ID_TAG_TEMPLATE = "CP" + ID_PLACEHOLDER;
+
+  /** The default Central System url template used in fleet mode. */
+  public static final String DEFAULT_CENTRAL_SYSTEM_URL_TEMPLATE = "ws://host.docker.internal:9000";
+
+  private static final String PROP_FLEET_SIZE = "fleetSize";
+  private static final String PROP_PIPELINE_WINDOW = "pipelineWindow";
+  private static final String PROP_JOURNAL_DIR = "journalDir";
+  private static final String PROP_TRAFFIC_DIR = "trafficDir";
+  private static final String PROP_TRAFFIC_SEGMENT_BYTES = "trafficSegmentBytes";
+  private static final String PROP_TRAFFIC_SEGMENTS = "trafficSegments";
+  private static final String PROP_BATCHED_FLUSH = "batchedFlush";
+  private static final String PROP_MESSAGE_LOG_CAPACITY = "messageLogCapacity";
+  private static final String PROP_TRUST_OUTBOUND = "trustOutbound";
+  private static final String PROP_DUPLICATE_ID_WINDOW = "duplicateIdWindow";
+  private static final String PROP_DUPLICATE_ID_CAPACITY = "duplicateIdCapacity";
+  private static final String PROP_TRANSPORT = "transport";
+  private static final String PROP_ID_TAG_TEMPLATE = "fleetIdTagTemplate";
+  private static final String PROP_CENTRAL_SYSTEM_URL_TEMPLATE = "fleetCentralSystemUrlTemplate";
+
+  /** Whether the chargers are generated from templates. */
+  private final boolean fleetMode;
+
+  /** The number of chargers to run. */
+  @Builder.Default private final int chargerCount = DEFAULT_CHARGER_COUNT;
+
+  /** The template for each charger's idTag. */
+  @Builder.Default private final String idTagTemplate = DEFAULT_ID_TAG_TEMPLATE;
+
+  /** The template for each charger's Central System url. */
+  @Builder.Default
+  private final String centralSystemUrlTemplate = DEFAULT_CENTRAL_SYSTEM_URL_TEMPLATE;
+
+  /** The websocket transport every charger connects with. */
+  @Builder.Default private final TransportType transport = TransportType.DEFAULT;
+
+  /** The number of calls each charger sends before waiting for an answer, 1 follows OCPP 1.6. */
+  @Builder.Default private final int pipelineWindow = MessageQueue.DEFAULT_PIPELINE_WINDOW;
+
+  /** The directory of the chargers' outbound journals, null to not journal. */
+  private final String journalDirectory;
+
+  /** Whether each charger sends the frames of one pass over its queue in one write. */
+  private final boolean batchedFlush;
+
+  /** The number of frames each charger keeps in its message log. */
+  @Builder.Default private final int messageLogCapacity = MessageLog.DEFAULT_CAPACITY;
+
+  /** Whether each charger sends the messages the simulator builds without validating them. */
+  private final boolean trustOutbound;
+
+  /** The time each charger remembers a received message ID for at least. */
+  @Builder.Default private final Duration duplicateIdWindow = DuplicateIdFilter.DEFAULT_WINDOW;
+
+  /** The number of received message IDs each charger remembers per window. */
+  @Builder.Default private final int duplicateIdCapacity = DuplicateIdFilter.DEFAULT_CAPACITY;
+
+  /** The directory of the chargers' traffic journals, null to not journal every frame. */
+  private final String trafficDirectory;
+
+  /** The size a segment of each charger's traffic journal is rolled over at. */
+  @Builder.Default private final int trafficSegmentBytes = TrafficJournal.DEFAULT_SEGMENT_BYTES;
+
+  /** The number of segments of each charger's traffic journal kept. */
+  @Builder.Default private final int trafficSegments = TrafficJournal.DEFAULT_MAX_SEGMENTS;
+
+  /**
+   * Load the fleet configuration from the command line. Fleet mode is enabled by providing a fleet
+   * size, every other setting is optional.
+   *
+   * @return The loaded fleet configuration.
+   */
+  public static FleetConfiguration loadConfiguration() {
+    FleetConfigurationBuilder builder =
+        FleetConfiguration.builder()
+            .transport(loadTransport())
+            .pipelineWindow(
+                loadPositiveInt(PROP_PIPELINE_WINDOW, MessageQueue.DEFAULT_PIPELINE_WINDOW))
+            .messageLogCapacity(
+                loadPositiveInt(PROP_MESSAGE_LOG_CAPACITY, MessageLog.DEFAULT_CAPACITY))
+            .duplicateIdWindow(
+                Duration.ofSeconds(
+                    loadPositiveInt(
+                        PROP_DUPLICATE_ID_WINDOW,
+                        (int) DuplicateIdFilter.DEFAULT_WINDOW.toSeconds())))
+            .duplicateIdCapacity(
+                loadPositiveInt(PROP_DUPLICATE_ID_CAPACITY, DuplicateIdFilter.DEFAULT_CAPACITY))
+            .journalDirectory(loadDirectory(PROP_JOURNAL_DIR))
+            .trafficDirectory(loadDirectory(PROP_TRAFFIC_DIR))
+            .trafficSegmentBytes(
+                loadPositiveInt(PROP_TRAFFIC_SEGMENT_BYTES, TrafficJournal.DEFAULT_SEGMENT_BYTES))
+            .trafficSegments(
+                loadPositiveInt(PROP_TRAFFIC_SEGMENTS, TrafficJournal.DEFAULT_MAX_SEGMENTS))
+            .batchedFlush(Boolean.parseBoolean(System.getProperty(PROP_BATCHED_FLUSH)))
+            .trustOutbound(Boolean.parseBoolean(System.getProperty(PROP_TRUST_OUTBOUND)));
+    String cmdFleetSize = System.getProperty(PROP_FLEET_SIZE);
+    if (cmdFleetSize == null || cmdFleetSize.isEmpty()) {
+      return builder.build();
+    }
+
+    int fleetSize;
+    try {
+      fleetSize = Integer.parseInt(cmdFleetSize);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid fleetSize: " + cmdFleetSize, e);
+    }
+    if (fleetSize < 1) {
+      throw new IllegalArgumentException("fleetSize must be positive: " + fleetSize);
+    }
+
+    String idTagTemplate = System.getProperty(PROP_ID_TAG_TEMPLATE);
+    if (idTagTemplate != null && !idTagTemplate.isEmpty()) {
+      builder.idTagTemplate(idTagTemplate);
+    }
+    String centralSystemUrlTemplate = System.getProperty(PROP_CENTRAL_SYSTEM_URL_TEMPLATE);
+    if (centralSystemUrlTemplate != null && !centralSystemUrlTemplate.isEmpty()) {
+      builder.centralSystemUrlTemplate(centralSystemUrlTemplate);
+    }
+
+    return builder.fleetMode(true).chargerCount(fleetSize).build();
+  }
+
+  /**
+   * Load the websocket transport from the command line.
+   *
+   * @return The configured transport, the default transport if none is given.
+   */
+  private static TransportType loadTransport() {
+    String cmdTransport = System.getProperty(PROP_TRANSPORT);
+    if (cmdTransport == null || cmdTransport.isEmpty()) {
+      return TransportType.DEFAULT;
+    }
+    try {
+      return TransportType.valueOf(cmdTransport.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid transport: " + cmdTransport, e);
+    }
+  }
+
+  /**
+   * Load a directory from the command line, such as the journal directory.
+   *
+   * @param property The name of the property.
+   * @return The configured directory, null if none is given.
+   */
+  private static String loadDirectory(String property) {
+    String directory = System.getProperty(property);
+    if (directory == null || directory.isBlank()) {
+      return null;
+    }
+    return directory;
+  }
+
+  /**
+   * Load a positive number from the command line, such as the pipeline window.
+   *
+   * @param property The name of the property.
+   * @param defaultValue The value if none is given.
+   * @return The configured value, the default value if none is given.
+   */
+  private static int loadPositiveInt(String property, int defaultValue) {
+    String cmdValue = System.getProperty(property);
+    if (cmdValue == null || cmdValue.isEmpty()) {
+      return defaultValue;
+    }
+    int value;
+    try {
+      value = Integer.parseInt(cmdValue);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + property + ": " + cmdValue, e);
+    }
+    if (value < 1) {
+      throw new IllegalArgumentException(property + " must be positive: " + value);
+    }
+    return value;
+  }
+
+  /**
+   * Create the configuration for a single charger of the fleet. Unlike {@link
+   * ConfigurationRegistry#loadConfiguration(int)} this never touches the configuration file, so
+   * creating thousands of chargers stays cheap.
+   *
+   * @param id The simulator's id for the charger.
+   * @return The charger's configuration.
+   */
+  public ConfigurationRegistry createConfiguration(int id) {
+    return new ConfigurationRegistry(
+        applyTemplate(idTagTemplate, id), applyTemplate(centralSystemUrlTemplate, id));
+  }
+
+  /**
+   * Replace the id placeholder in a template.
+   *
+   * @param template The template to fill in.
+   * @param id The charger's id.
+   * @return The filled in template.
+   */
+  static String applyTemplate(String template, int id) {
+    return template.replace(ID_PLACEHOLDER, String.valueOf(id));
+  }
+}
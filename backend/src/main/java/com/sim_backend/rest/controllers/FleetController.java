@@ -0,0 +1,48 @@
+package com.sim_backend.rest.controllers;
+
+import com.sim_backend.charger.BootRampController;
+import com.sim_backend.websockets.ReconnectMetrics;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+/** Controller class reporting on the fleet of chargers as a whole. */
+public class FleetController extends ControllerBase {
+
+  /** The ramp booting the fleet. */
+  private final BootRampController bootRamp;
+
+  /**
+   * Constructor that initializes the controller with the Javalin app and the fleet's boot ramp.
+   *
+   * @param app the Javalin application instance
+   * @param bootRamp the ramp booting the fleet
+   */
+  public FleetController(Javalin app, BootRampController bootRamp) {
+    super(app);
+    this.bootRamp = bootRamp;
+  }
+
+  /**
+   * Returns the boot progress of the fleet as JSON.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void bootProgress(Context ctx) {
+    ctx.json(bootRamp.getProgress());
+  }
+
+  /**
+   * Returns the reconnects of the fleet as JSON.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void reconnects(Context ctx) {
+    ctx.json(ReconnectMetrics.getShared().snapshot());
+  }
+
+  @Override
+  public void registerRoutes(Javalin app) {
+    app.get("/api/fleet/boot-progress", this::bootProgress);
+    app.get("/api/fleet/reconnects", this::reconnects);
+  }
+}
@@ -13,17 +13,26 @@ import com.google.gson.JsonParser;
 import com.sim_backend.charger.Charger;
 import com.sim_backend.state.ChargerState;
 import com.sim_backend.state.ChargerStateMachine;
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.TrafficJournal;
 import com.sim_backend.websockets.enums.ChargePointErrorCode;
 import com.sim_backend.websockets.enums.ChargePointStatus;
 import com.sim_backend.websockets.messages.*;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
+import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import lombok.Getter;
 
 @Getter
 public class MessageController extends ControllerBase {
 
+  /** The number of frames on a page of the traffic journal when no limit is given */
+  public static final int DEFAULT_TRAFFIC_PAGE_SIZE = 100;
+
   /** Array holding the charger instances managed by this controller */
   private final Charger[] chargers;
 
@@ -366,6 +375,142 @@ public class MessageController extends ControllerBase {
     ctx.json(charger.getWsClient().getReceivedMessages()); // Return received messages as JSON
   }
 
+  /**
+   * Returns the pipelining window of the charger, its requests in flight, the answer latencies per
+   * window and the depth of each send queue priority as JSON.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void getPipeline(Context ctx) {
+    Charger charger = getChargerID(ctx);
+    if (charger == null) return;
+    if (!checkWsClient(charger, ctx)) return;
+    OCPPWebSocketClient client = charger.getWsClient();
+    Map<String, Object> pipeline = new LinkedHashMap<>();
+    pipeline.put("window", client.getPipelineWindow());
+    pipeline.put("inFlight", client.getInFlightCount());
+    pipeline.put("oldestInFlightMillis", client.getOldestInFlightAge().toMillis());
+    pipeline.put("latency", client.getLatencyStatistics());
+    pipeline.put("queueDepths", client.getQueueDepths());
+    pipeline.put("batchedFlush", client.isBatchedFlush());
+    pipeline.put("flush", client.getFlushStatistics().snapshot());
+    ctx.json(pipeline);
+  }
+
+  /**
+   * Reports the sizes of what the charger's client keeps by message ID, to check memory stays level
+   * in long runs.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void getCorrelations(Context ctx) {
+    Charger charger = getChargerID(ctx);
+    if (charger == null) return;
+    if (!checkWsClient(charger, ctx)) return;
+    ctx.json(charger.getWsClient().getCorrelationSizes());
+  }
+
+  /**
+   * Returns a page of the charger's traffic journal as JSON, oldest first. The optional query
+   * parameters {@code from} and {@code to} (ISO-8601 times), {@code action} and {@code messageId}
+   * filter the frames, {@code cursor} continues from the previous page and {@code limit} caps the
+   * page.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void getTraffic(Context ctx) {
+    Charger charger = getChargerID(ctx);
+    if (charger == null) return;
+    TrafficJournal journal = charger.getTrafficJournal();
+    if (!checkTrafficJournal(journal, ctx)) return;
+
+    TrafficJournal.Page page;
+    try {
+      String limit = ctx.queryParam("limit");
+      page =
+          journal.query(
+              parseInstant(ctx.queryParam("from")),
+              parseInstant(ctx.queryParam("to")),
+              ctx.queryParam("action"),
+              ctx.queryParam("messageId"),
+              ctx.queryParam("cursor"),
+              limit == null ? DEFAULT_TRAFFIC_PAGE_SIZE : Integer.parseInt(limit));
+    } catch (IllegalArgumentException | DateTimeParseException e) {
+      ctx.status(400).result("Error: " + e.getMessage());
+      return;
+    }
+    ctx.json(page);
+  }
+
+  /**
+   * Returns the number of segments, frames and bytes of the charger's traffic journal and the time
+   * range it covers as JSON.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void getTrafficSummary(Context ctx) {
+    Charger charger = getChargerID(ctx);
+    if (charger == null) return;
+    TrafficJournal journal = charger.getTrafficJournal();
+    if (!checkTrafficJournal(journal, ctx)) return;
+    ctx.json(journal.getSummary());
+  }
+
+  /**
+   * Checks if the charger keeps a traffic journal.
+   *
+   * @param journal the charger's traffic journal, null if it does not keep one
+   * @param ctx the HTTP context used to return an error message if it does not
+   * @return true if the journal is available; false otherwise
+   */
+  private boolean checkTrafficJournal(TrafficJournal journal, Context ctx) {
+    if (journal == null) {
+      ctx.status(404).result("Traffic journal is not enabled");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Parses an optional ISO-8601 time query parameter.
+   *
+   * @param value the parameter, or null
+   * @return the time, or null if the parameter is not given
+   */
+  private static Instant parseInstant(String value) {
+    return value == null || value.isEmpty() ? null : Instant.parse(value);
+  }
+
+  /**
+   * Sets the number of calls the charger sends before waiting for an answer. A window above one
+   * breaks OCPP 1.6 and is only meant for stress testing a Central System.
+   *
+   * @param ctx the HTTP context representing the request/response
+   */
+  public void setPipelineWindow(Context ctx) {
+    Charger charger = getChargerID(ctx);
+    if (charger == null) return;
+    if (!checkWsClient(charger, ctx)) return;
+
+    int window;
+    try {
+      JsonObject json = JsonParser.parseString(ctx.body()).getAsJsonObject();
+      window = json.get("window").getAsInt();
+    } catch (RuntimeException e) {
+      ctx.status(400).result("Error: Missing or invalid window.");
+      return;
+    }
+    if (window < 1) {
+      ctx.status(400).result("Error: window must be at least 1.");
+      return;
+    }
+
+    // Keep the window on the charger so it survives a reboot
+    charger.setPipelineWindow(window);
+    charger.getWsClient().setPipelineWindow(window);
+    ctx.result("OK");
+  }
+
   /**
    * Starts a charging transaction on the charger.
    *
@@ -514,6 +659,15 @@ public class MessageController extends ControllerBase {
     app.get("/api/{chargerId}/log/sentmessage", this::getSentMessages);
     app.get("/api/{chargerId}/log/receivedmessage", this::getReceivedMessages);
 
+    // Pipelining window endpoints
+    app.get("/api/{chargerId}/pipeline", this::getPipeline);
+    app.post("/api/{chargerId}/pipeline/window", this::setPipelineWindow);
+    app.get("/api/{chargerId}/correlations", this::getCorrelations);
+
+    // Traffic journal endpoints
+    app.get("/api/{chargerId}/traffic", this::getTraffic);
+    app.get("/api/{chargerId}/traffic/summary", this::getTrafficSummary);
+
     // Transaction control endpoints
     app.post("/api/{chargerId}/transaction/start-charge", this::startCharge);
     app.post("/api/{chargerId}/transaction/stop-charge", this::stopCharge);
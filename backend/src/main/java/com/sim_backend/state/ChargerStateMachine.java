@@ -1,6 +1,7 @@
 package com.sim_backend.state;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.Getter;
 
 /**
@@ -10,7 +11,7 @@ import lombok.Getter;
 public class ChargerStateMachine {
   @Getter private ChargerState currentState;
 
-  private List<StateObserver> observers = new ArrayList<>();
+  private List<StateObserver> observers = new CopyOnWriteArrayList<>();
   private Map<ChargerState, Set<ChargerState>> validTransitions =
       Map.of(
           ChargerState.PoweredOff,
@@ -100,6 +101,15 @@ public class ChargerStateMachine {
     observers.add(newObserver);
   }
 
+  /**
+   * Removes a state observer, it may be called from the observer itself.
+   *
+   * @param observer the state observer to remove.
+   */
+  public void removeObserver(StateObserver observer) {
+    observers.remove(observer);
+  }
+
   /** Notifies all registered state observers about a state transition. */
   private void notifyObservers() {
     for (StateObserver observer : observers) {
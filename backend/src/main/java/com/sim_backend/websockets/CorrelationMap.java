@@ -0,0 +1,164 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+
+/**
+ * Values kept by message ID until the exchange they belong to is over, such as the names of the
+ * requests we have to answer. An entry is removed once its exchange ends, and expires after its
+ * lifetime if it never does, so entries of exchanges that were never finished do not pile up.
+ *
+ * <p>Entries are kept in the order they were put, which is also the order they expire in, so
+ * expiring only looks at the oldest entries. Expired entries are dropped whenever an entry is put
+ * or the size is read.
+ *
+ * @param <V> The type of the values.
+ */
+public class CorrelationMap<V> {
+
+  /** An entry and when it was put. */
+  private record Entry<V>(V value, long putAtNanos) {}
+
+  /** How long an entry is kept at most. */
+  @Getter private final Duration lifetime;
+
+  /** The lifetime in nanoseconds. */
+  private final long lifetimeNanos;
+
+  /** The current time in nanoseconds. */
+  private final LongSupplier clock;
+
+  /** The entries by message ID, oldest first. */
+  private final Map<String, Entry<V>> entries = new LinkedHashMap<>();
+
+  /** The number of entries that expired. */
+  private long expired;
+
+  /**
+   * Create a map.
+   *
+   * @param lifetime How long an entry is kept at most.
+   */
+  public CorrelationMap(Duration lifetime) {
+    this(lifetime, System::nanoTime);
+  }
+
+  /**
+   * Create a map with its own clock.
+   *
+   * @param lifetime How long an entry is kept at most.
+   * @param clock The current time in nanoseconds.
+   */
+  @VisibleForTesting
+  CorrelationMap(Duration lifetime, LongSupplier clock) {
+    if (lifetime.isNegative() || lifetime.isZero()) {
+      throw new IllegalArgumentException("The lifetime must be positive: " + lifetime);
+    }
+    this.lifetime = lifetime;
+    this.lifetimeNanos = lifetime.toNanos();
+    this.clock = clock;
+  }
+
+  /**
+   * Keep a value for a message ID, replacing any kept for it and restarting its lifetime.
+   *
+   * @param messageId The message ID.
+   * @param value The value.
+   */
+  public synchronized void put(String messageId, V value) {
+    long now = clock.getAsLong();
+    this.expire(now);
+    // Removed first so the entry moves to the end of the expiry order
+    entries.remove(messageId);
+    entries.put(messageId, new Entry<>(value, now));
+  }
+
+  /**
+   * Get the value kept for a message ID.
+   *
+   * @param messageId The message ID.
+   * @return The value, or null if there is none or it expired.
+   */
+  public synchronized V get(String messageId) {
+    Entry<V> entry = entries.get(messageId);
+    if (entry == null || this.isExpired(entry, clock.getAsLong())) {
+      return null;
+    }
+    return entry.value();
+  }
+
+  /**
+   * Check if a value is kept for a message ID.
+   *
+   * @param messageId The message ID.
+   * @return True if one is kept and did not expire.
+   */
+  public boolean containsKey(String messageId) {
+    return this.get(messageId) != null;
+  }
+
+  /**
+   * Remove the value of a message ID, as its exchange is over.
+   *
+   * @param messageId The message ID.
+   * @return The value, or null if there was none or it expired.
+   */
+  public synchronized V remove(String messageId) {
+    Entry<V> entry = entries.remove(messageId);
+    if (entry == null || this.isExpired(entry, clock.getAsLong())) {
+      return null;
+    }
+    return entry.value();
+  }
+
+  /**
+   * Get the number of entries kept.
+   *
+   * @return The entries that did not expire.
+   */
+  public synchronized int size() {
+    this.expire(clock.getAsLong());
+    return entries.size();
+  }
+
+  /**
+   * Get the number of entries that expired so far.
+   *
+   * @return The entries that were dropped as their exchange never ended.
+   */
+  public synchronized long getExpired() {
+    return expired;
+  }
+
+  /**
+   * Drop the entries whose lifetime is over.
+   *
+   * @param now The current time in nanoseconds.
+   */
+  private void expire(long now) {
+    Iterator<Entry<V>> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      if (!this.isExpired(iterator.next(), now)) {
+        return;
+      }
+      iterator.remove();
+      expired++;
+    }
+  }
+
+  /**
+   * Check if an entry's lifetime is over.
+   *
+   * @param entry The entry.
+   * @param now The current time in nanoseconds.
+   * @return True if it expired.
+   */
+  private boolean isExpired(Entry<V> entry, long now) {
+    return now - entry.putAtNanos() >= lifetimeNanos;
+  }
+}
@@ -0,0 +1,145 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+
+/**
+ * The message IDs received recently, to reject a message whose ID was already received without
+ * keeping every ID of a days-long run.
+ *
+ * <p>The IDs are kept in two sets. New IDs go into the current one, and once it has been filled for
+ * a window, either {@link #getWindow()} or {@link #getCapacity()} IDs, whichever comes first, it
+ * becomes the previous one and the old previous one is cleared and reused. An ID is so remembered
+ * for at least one window and at most two, and memory stays at two sets of the capacity.
+ */
+public class DuplicateIdFilter {
+
+  /** The default time an ID is remembered for at least, unless the capacity is reached first. */
+  public static final Duration DEFAULT_WINDOW = Duration.ofHours(1);
+
+  /** The default number of IDs a window holds at most. */
+  public static final int DEFAULT_CAPACITY = 10_000;
+
+  /** The time an ID is remembered for at least. */
+  @Getter private final Duration window;
+
+  /** The number of IDs a window holds at most. */
+  @Getter private final int capacity;
+
+  /** The window in nanoseconds. */
+  private final long windowNanos;
+
+  /** The current time in nanoseconds. */
+  private final LongSupplier clock;
+
+  /** The IDs received in this window. */
+  private Set<String> current = new HashSet<>();
+
+  /** The IDs received in the previous window. */
+  private Set<String> previous = new HashSet<>();
+
+  /** When this window started. */
+  private long windowStart;
+
+  /** Create a filter with the default window and capacity. */
+  public DuplicateIdFilter() {
+    this(DEFAULT_WINDOW, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a filter.
+   *
+   * @param window The time an ID is remembered for at least.
+   * @param capacity The number of IDs a window holds at most.
+   */
+  public DuplicateIdFilter(Duration window, int capacity) {
+    this(window, capacity, System::nanoTime);
+  }
+
+  /**
+   * Create a filter with its own clock.
+   *
+   * @param window The time an ID is remembered for at least.
+   * @param capacity The number of IDs a window holds at most.
+   * @param clock The current time in nanoseconds.
+   */
+  @VisibleForTesting
+  DuplicateIdFilter(Duration window, int capacity, LongSupplier clock) {
+    if (window.isNegative() || window.isZero() || capacity < 1) {
+      throw new IllegalArgumentException(
+          "Duplicate ID window and capacity must be positive: " + window + ", " + capacity);
+    }
+    this.window = window;
+    this.capacity = capacity;
+    this.windowNanos = window.toNanos();
+    this.clock = clock;
+    this.windowStart = clock.getAsLong();
+  }
+
+  /**
+   * Remember a received message ID.
+   *
+   * @param messageId The message ID.
+   * @return False if it was already received within the window, so the message is a duplicate.
+   */
+  public synchronized boolean add(String messageId) {
+    this.rotateIfDue();
+    if (previous.contains(messageId)) {
+      return false;
+    }
+    return current.add(messageId);
+  }
+
+  /**
+   * Check if a message ID was received within the window.
+   *
+   * @param messageId The message ID.
+   * @return True if it is remembered.
+   */
+  public synchronized boolean contains(String messageId) {
+    return current.contains(messageId) || previous.contains(messageId);
+  }
+
+  /**
+   * Forget a message ID, so a message with it is accepted again.
+   *
+   * @param messageId The message ID.
+   * @return True if it was remembered.
+   */
+  public synchronized boolean remove(String messageId) {
+    boolean removed = current.remove(messageId);
+    return previous.remove(messageId) || removed;
+  }
+
+  /**
+   * Get the number of remembered IDs.
+   *
+   * @return The IDs of this window and the previous one.
+   */
+  public synchronized int size() {
+    return current.size() + previous.size();
+  }
+
+  /** Start a new window if this one is full or over. */
+  private void rotateIfDue() {
+    long now = clock.getAsLong();
+    long elapsed = now - windowStart;
+    if (current.size() < capacity && elapsed < windowNanos) {
+      return;
+    }
+    // Reuse the oldest set, its table is already sized for a window
+    Set<String> oldest = previous;
+    oldest.clear();
+    previous = current;
+    current = oldest;
+    if (elapsed >= 2 * windowNanos) {
+      // Nothing was received for a whole window, the previous one is over too
+      previous.clear();
+    }
+    windowStart = now;
+  }
+}
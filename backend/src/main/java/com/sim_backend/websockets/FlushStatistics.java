@@ -0,0 +1,66 @@
+package com.sim_backend.websockets;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** The frames a client wrote per batched flush, so the effect of batching can be observed. */
+public class FlushStatistics {
+
+  /** A copy of the statistics at one point in time. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Snapshot {
+    /** The number of batched writes. */
+    private final long flushes;
+
+    /** The number of frames written by them. */
+    private final long frames;
+
+    /** The mean number of frames per write. */
+    private final double meanFramesPerFlush;
+
+    /** The most frames written at once. */
+    private final int maxFramesPerFlush;
+
+    /** The number of batches put back in the queue as we were not connected. */
+    private final long failures;
+  }
+
+  /** The number of batched writes. */
+  private long flushes;
+
+  /** The number of frames written by them. */
+  private long frames;
+
+  /** The most frames written at once. */
+  private int maxFramesPerFlush;
+
+  /** The number of batches put back in the queue. */
+  private long failures;
+
+  /**
+   * Record a batched write.
+   *
+   * @param batchSize The number of frames written.
+   */
+  public synchronized void record(int batchSize) {
+    flushes++;
+    frames += batchSize;
+    maxFramesPerFlush = Math.max(maxFramesPerFlush, batchSize);
+  }
+
+  /** Record a batch that could not be written. */
+  public synchronized void recordFailure() {
+    failures++;
+  }
+
+  /**
+   * Take a copy of the statistics.
+   *
+   * @return The statistics so far.
+   */
+  public synchronized Snapshot snapshot() {
+    double mean = flushes == 0 ? 0 : (double) frames / flushes;
+    return new Snapshot(flushes, frames, mean, maxFramesPerFlush, failures);
+  }
+}
@@ -3,28 +3,82 @@ package com.sim_backend.websockets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.sim_backend.websockets.gson.OCPPCodec;
+import com.sim_backend.websockets.gson.OCPPCodecFactory;
 import com.sim_backend.websockets.gson.ZonedDateTimeDeserializer;
 import com.sim_backend.websockets.gson.ZonedDateTimeSerializer;
+import com.sim_backend.websockets.types.OCPPMessage;
 import java.time.ZonedDateTime;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
 
-/** Gson Utilities to make working with Gson easier. */
+/**
+ * Gson Utilities to make working with Gson easier. A single Gson instance is shared by every
+ * charger, Gson is thread safe and caches the type adapters it builds, so sharing it saves
+ * rebuilding them for every frame.
+ */
+@Slf4j
 public abstract class GsonUtilities {
+  /** The Gson instance shared by every charger. */
+  private static final Gson GSON = createGson();
+
   /** You cannot create this. */
   private GsonUtilities() {}
 
   /**
-   * Get a Gson Object with our custom TypeAdapters installed.
+   * Create a Gson Object with our custom TypeAdapters installed.
    *
    * @return The Gson Object.
    */
-  public static Gson getGson() {
+  private static Gson createGson() {
     GsonBuilder gsonBuilder = new GsonBuilder();
     gsonBuilder.registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeSerializer());
     gsonBuilder.registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer());
+    gsonBuilder.registerTypeAdapterFactory(new OCPPCodecFactory());
 
     return gsonBuilder.create();
   }
 
+  /**
+   * Get the shared Gson Object with our custom TypeAdapters installed.
+   *
+   * @return The Gson Object.
+   */
+  public static Gson getGson() {
+    return GSON;
+  }
+
+  /**
+   * Build the type adapters of every OCPP message up front, so the first frame of each type does
+   * not pay for reflecting over its class.
+   *
+   * @return The number of message classes warmed.
+   */
+  public static int warmUp() {
+    Set<Class<?>> classes = OCPPMessageRegistry.getShared().getMessageClasses();
+    for (Class<?> messageClass : classes) {
+      GSON.getAdapter(messageClass);
+    }
+    log.debug("Warmed Gson adapters for {} message classes", classes.size());
+    return classes.size();
+  }
+
+  /**
+   * Write a message as its OCPP-J frame, directly through its generated codec when it has one.
+   *
+   * @param message The message.
+   * @return The frame.
+   */
+  @SuppressWarnings("unchecked")
+  public static String toFrame(final OCPPMessage message) {
+    TypeAdapter<? extends OCPPMessage> adapter = GSON.getAdapter(message.getClass());
+    if (adapter instanceof OCPPCodec<?> codec) {
+      return ((OCPPCodec<OCPPMessage>) codec).encodeFrame(message);
+    }
+    return toString(message.generateMessage());
+  }
+
   /**
    * Converts a JsonElement to a JSON Formatted String.
    *
@@ -32,7 +86,6 @@ public abstract class GsonUtilities {
    * @return The JsonElement converted to a String.
    */
   public static String toString(final JsonElement json) {
-    Gson gson = getGson();
-    return gson.toJson(json, JsonElement.class);
+    return GSON.toJson(json, JsonElement.class);
   }
 }
@@ -0,0 +1,207 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The requests we have sent and not had an answer to, indexed by message ID and ordered by the
+ * {@link System#nanoTime()} deadline of their answer. Finding the next request to time out is
+ * cheap, and timed out requests are taken in the order they expire, so checking for timeouts does
+ * not walk every request in flight.
+ */
+public class InFlightTracker {
+
+  /** A request in flight. */
+  @Getter
+  @AllArgsConstructor
+  public static final class InFlight {
+    /** The request. */
+    private final OCPPMessage message;
+
+    /** When the request was sent, in {@link System#nanoTime()}. */
+    private final long sentAtNanos;
+
+    /** When the answer is due, in {@link System#nanoTime()}. */
+    private final long deadlineNanos;
+
+    /** The pipelining window the request was sent under. */
+    private final int window;
+  }
+
+  /** The position of a request in the deadline order, unique among requests due at once. */
+  private record DeadlineKey(long deadlineNanos, long sequence) implements Comparable<DeadlineKey> {
+    @Override
+    public int compareTo(DeadlineKey other) {
+      // nanoTime values are only comparable through their difference
+      int byDeadline = Long.signum(deadlineNanos - other.deadlineNanos);
+      return byDeadline != 0 ? byDeadline : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  /** How long a request may wait for its answer. */
+  private final long timeoutNanos;
+
+  /** The requests in flight by message ID. */
+  private final Map<String, DeadlineKey> byId = new ConcurrentHashMap<>();
+
+  /** The requests in flight by deadline. */
+  private final ConcurrentSkipListMap<DeadlineKey, InFlight> byDeadline =
+      new ConcurrentSkipListMap<>();
+
+  /** Orders requests sharing a deadline. */
+  private final AtomicLong sequence = new AtomicLong();
+
+  /**
+   * Create a tracker.
+   *
+   * @param timeoutNanos How long a request may wait for its answer.
+   */
+  public InFlightTracker(long timeoutNanos) {
+    this.timeoutNanos = timeoutNanos;
+  }
+
+  /**
+   * Track a request sent now, replacing a request with the same message ID.
+   *
+   * @param message The request.
+   * @param window The pipelining window it was sent under.
+   */
+  public void add(OCPPMessage message, int window) {
+    this.add(message, window, System.nanoTime());
+  }
+
+  /**
+   * Track a request, replacing a request with the same message ID.
+   *
+   * @param message The request.
+   * @param window The pipelining window it was sent under.
+   * @param sentAtNanos When it was sent, in {@link System#nanoTime()}.
+   */
+  @VisibleForTesting
+  void add(OCPPMessage message, int window, long sentAtNanos) {
+    long deadlineNanos = sentAtNanos + timeoutNanos;
+    DeadlineKey key = new DeadlineKey(deadlineNanos, sequence.getAndIncrement());
+    byDeadline.put(key, new InFlight(message, sentAtNanos, deadlineNanos, window));
+    DeadlineKey replaced = byId.put(message.getMessageID(), key);
+    if (replaced != null) {
+      byDeadline.remove(replaced);
+    }
+  }
+
+  /**
+   * Get a request in flight.
+   *
+   * @param messageId The message ID of the request.
+   * @return The request, or null if it is not in flight.
+   */
+  public OCPPMessage get(String messageId) {
+    DeadlineKey key = byId.get(messageId);
+    if (key == null) {
+      return null;
+    }
+    InFlight inFlight = byDeadline.get(key);
+    return inFlight == null ? null : inFlight.message;
+  }
+
+  /**
+   * Stop tracking a request.
+   *
+   * @param messageId The message ID of the request.
+   * @return The request, or null if it was not in flight.
+   */
+  public InFlight remove(String messageId) {
+    DeadlineKey key = byId.remove(messageId);
+    return key == null ? null : byDeadline.remove(key);
+  }
+
+  /**
+   * Take the request that expired first, if any has.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return The expired request, or null if no request has expired.
+   */
+  public InFlight pollExpired(long nowNanos) {
+    while (true) {
+      Map.Entry<DeadlineKey, InFlight> first = byDeadline.firstEntry();
+      if (first == null || nowNanos - first.getKey().deadlineNanos() <= 0) {
+        return null;
+      }
+      if (byDeadline.remove(first.getKey(), first.getValue())) {
+        byId.remove(first.getValue().message.getMessageID(), first.getKey());
+        return first.getValue();
+      }
+    }
+  }
+
+  /**
+   * Get how long until the first request in flight expires.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return The nanoseconds until {@link #pollExpired(long)} takes it, 0 if it has expired, or
+   *     {@link Long#MAX_VALUE} if no request is in flight.
+   */
+  public long getNanosUntilFirstExpiry(long nowNanos) {
+    Map.Entry<DeadlineKey, InFlight> first = byDeadline.firstEntry();
+    if (first == null) {
+      return Long.MAX_VALUE;
+    }
+    // A request expires once its deadline has passed
+    return Math.max(0, first.getKey().deadlineNanos() - nowNanos + 1);
+  }
+
+  /**
+   * Check if any request is still waiting for its answer.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return True if a request in flight has not expired.
+   */
+  public boolean hasPending(long nowNanos) {
+    Map.Entry<DeadlineKey, InFlight> last = byDeadline.lastEntry();
+    return last != null && nowNanos - last.getKey().deadlineNanos() <= 0;
+  }
+
+  /**
+   * Count the requests still waiting for their answer, from the latest deadline back.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @param limit Stop counting at this many.
+   * @return The number of requests that have not expired, at most limit.
+   */
+  public int countPending(long nowNanos, int limit) {
+    int pending = 0;
+    for (DeadlineKey key : byDeadline.descendingKeySet()) {
+      if (pending >= limit || nowNanos - key.deadlineNanos() > 0) {
+        break;
+      }
+      pending++;
+    }
+    return pending;
+  }
+
+  /**
+   * Get the number of requests in flight, including expired ones not yet taken.
+   *
+   * @return The number of requests.
+   */
+  public int size() {
+    return byId.size();
+  }
+
+  /**
+   * Get how long the oldest request in flight has waited. All requests share a timeout, so the
+   * oldest is the first to expire.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return The age in nanoseconds, or 0 if no request is in flight.
+   */
+  public long getOldestAgeNanos(long nowNanos) {
+    Map.Entry<DeadlineKey, InFlight> first = byDeadline.firstEntry();
+    return first == null ? 0 : nowNanos - first.getValue().sentAtNanos;
+  }
+}
@@ -0,0 +1,129 @@
+package com.sim_backend.websockets;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Response latencies of requests, kept in power of two microsecond buckets so recording is cheap
+ * and memory is fixed. Percentiles are the upper bound of the bucket they fall in, so they are
+ * within a factor of two of the exact value.
+ */
+public class LatencyHistogram {
+
+  /** A copy of the statistics at one point in time, in milliseconds. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Snapshot {
+    /** The number of answered requests. */
+    private final long count;
+
+    /** The number of requests that timed out. */
+    private final long timeouts;
+
+    /** The fastest answer. */
+    private final double minMillis;
+
+    /** The mean answer time. */
+    private final double meanMillis;
+
+    /** The median answer time. */
+    private final double p50Millis;
+
+    /** The 90th percentile answer time. */
+    private final double p90Millis;
+
+    /** The 99th percentile answer time. */
+    private final double p99Millis;
+
+    /** The slowest answer. */
+    private final double maxMillis;
+  }
+
+  /** Bucket i counts latencies below 2^i microseconds, the last one everything above. */
+  private static final int BUCKETS = 40;
+
+  /** Nanoseconds in a microsecond. */
+  private static final long NANOS_PER_MICRO = 1_000;
+
+  /** Nanoseconds in a millisecond. */
+  private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+  /** The number of latencies in each bucket. */
+  private final long[] buckets = new long[BUCKETS];
+
+  /** The number of answered requests. */
+  private long count;
+
+  /** The number of requests that timed out. */
+  private long timeouts;
+
+  /** The sum of all latencies. */
+  private long totalNanos;
+
+  /** The fastest latency. */
+  private long minNanos = Long.MAX_VALUE;
+
+  /** The slowest latency. */
+  private long maxNanos;
+
+  /**
+   * Record the latency of an answered request.
+   *
+   * @param latencyNanos The time between sending it and its answer.
+   */
+  public synchronized void record(long latencyNanos) {
+    long nanos = Math.max(0, latencyNanos);
+    long micros = nanos / NANOS_PER_MICRO;
+    int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    buckets[bucket]++;
+    count++;
+    totalNanos += nanos;
+    minNanos = Math.min(minNanos, nanos);
+    maxNanos = Math.max(maxNanos, nanos);
+  }
+
+  /** Record a request that timed out. */
+  public synchronized void recordTimeout() {
+    timeouts++;
+  }
+
+  /**
+   * Take a snapshot of the statistics.
+   *
+   * @return The snapshot, all zero if no request was answered.
+   */
+  public synchronized Snapshot snapshot() {
+    if (count == 0) {
+      return new Snapshot(0, timeouts, 0, 0, 0, 0, 0, 0);
+    }
+    return new Snapshot(
+        count,
+        timeouts,
+        minNanos / NANOS_PER_MILLI,
+        totalNanos / (double) count / NANOS_PER_MILLI,
+        this.percentile(0.50) / NANOS_PER_MILLI,
+        this.percentile(0.90) / NANOS_PER_MILLI,
+        this.percentile(0.99) / NANOS_PER_MILLI,
+        maxNanos / NANOS_PER_MILLI);
+  }
+
+  /**
+   * Estimate a percentile of the recorded latencies, must hold the lock.
+   *
+   * @param quantile The percentile as a fraction.
+   * @return The upper bound of its bucket clamped to the recorded range, or the slowest latency if
+   *     it falls in the last bucket, in nanoseconds.
+   */
+  private long percentile(double quantile) {
+    long rank = (long) Math.ceil(quantile * count);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets[i];
+      if (seen >= rank && i < BUCKETS - 1) {
+        long upperNanos = (1L << i) * NANOS_PER_MICRO;
+        return Math.max(minNanos, Math.min(maxNanos, upperNanos));
+      }
+    }
+    return maxNanos;
+  }
+}
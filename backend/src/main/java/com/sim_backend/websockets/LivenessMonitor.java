@@ -0,0 +1,220 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks the liveness of every websocket connection in the process from a single timer on the
+ * shared {@link TimerWheel}. Connections are spread over a number of slots and each timer tick only
+ * visits one slot, so the pings of a large fleet are spread evenly across the interval instead of
+ * all firing at once.
+ *
+ * <p>Each visit pings the connection, a connection that has not answered for one and a half
+ * intervals is reported as lost. This matches the connection lost timer of Java-WebSocket, which
+ * needs a thread per client. The ping and the report are handed to {@link Target#execute}, so a
+ * connection that blocks does not hold up the wheel's thread and every other timer of the process.
+ */
+@Slf4j
+public class LivenessMonitor {
+  /** The default number of slots the interval is split into. */
+  public static final int DEFAULT_SLOTS = 50;
+
+  /** Lazily created monitor shared by every client. */
+  private static final class SharedMonitor {
+    private static final LivenessMonitor INSTANCE =
+        new LivenessMonitor(
+            TimeUnit.SECONDS.toNanos(OCPPWebSocketClient.CONNECTION_LOST_TIMER),
+            DEFAULT_SLOTS,
+            TimerWheel.getShared(),
+            System::nanoTime);
+  }
+
+  /** A connection watched by the monitor. */
+  public interface Target {
+    /**
+     * Check if the connection is open.
+     *
+     * @return true if the connection is open.
+     */
+    boolean isOpen();
+
+    /** Send a ping over the connection. */
+    void sendPing();
+
+    /** Called once the connection stopped answering our pings. */
+    void onLivenessLost();
+
+    /**
+     * Run a ping or a report of the monitor. The default runs it right away on the wheel's thread.
+     *
+     * @param action The action.
+     */
+    default void execute(Runnable action) {
+      action.run();
+    }
+  }
+
+  /** A connection registered with the monitor. */
+  public final class Registration {
+    private final Target target;
+    private final int slot;
+    private volatile long lastSeen;
+
+    private Registration(Target target, int slot) {
+      this.target = target;
+      this.slot = slot;
+      this.lastSeen = clock.getAsLong();
+    }
+
+    /** Record that the connection is alive, called whenever it answers. */
+    public void alive() {
+      lastSeen = clock.getAsLong();
+    }
+
+    /** Stop watching the connection. */
+    public void cancel() {
+      slots.get(slot).remove(this);
+    }
+
+    private void check(long now) {
+      if (!target.isOpen()) {
+        // Start counting again once the connection reopens
+        lastSeen = now;
+        return;
+      }
+      if (now - lastSeen > deadNanos) {
+        log.warn("Connection did not answer a ping in time");
+        lastSeen = now;
+        target.execute(() -> safely(target::onLivenessLost));
+        return;
+      }
+      target.execute(() -> safely(target::sendPing));
+    }
+
+    private void safely(Runnable action) {
+      try {
+        action.run();
+      } catch (Exception e) {
+        log.debug("Liveness check failed: ", e);
+      }
+    }
+  }
+
+  /** The connections of each slot. */
+  private final List<Set<Registration>> slots;
+
+  /** The time between two pings of a connection. */
+  private final long intervalNanos;
+
+  /** The time between two timer ticks. */
+  private final long slotNanos;
+
+  /** How long a connection may stay silent before it is reported as lost. */
+  private final long deadNanos;
+
+  private final TimerWheel wheel;
+  private final LongSupplier clock;
+
+  /** The slot a new connection is placed in. */
+  private final AtomicInteger nextSlot = new AtomicInteger();
+
+  /** The slot visited by the next tick, only used on the wheel's thread. */
+  private int cursor;
+
+  /** When the next tick is due, only used on the wheel's thread. */
+  private long nextTickAt;
+
+  /**
+   * Create and start a monitor.
+   *
+   * @param intervalNanos The time between two pings of a connection.
+   * @param slotCount The number of slots the interval is split into.
+   * @param wheel The wheel our timer runs on.
+   * @param clock Nanosecond clock used to track answers.
+   */
+  @VisibleForTesting
+  LivenessMonitor(long intervalNanos, int slotCount, TimerWheel wheel, LongSupplier clock) {
+    if (intervalNanos <= 0 || slotCount <= 0) {
+      throw new IllegalArgumentException("Interval and slot count must be positive");
+    }
+    this.intervalNanos = intervalNanos;
+    this.slotNanos = Math.max(1, intervalNanos / slotCount);
+    this.deadNanos = intervalNanos + intervalNanos / 2;
+    this.wheel = wheel;
+    this.clock = clock;
+    this.slots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      slots.add(ConcurrentHashMap.newKeySet());
+    }
+    this.nextTickAt = clock.getAsLong();
+    scheduleTick();
+  }
+
+  /**
+   * Get the monitor shared by every client in this process.
+   *
+   * @return The shared monitor.
+   */
+  public static LivenessMonitor getShared() {
+    return SharedMonitor.INSTANCE;
+  }
+
+  /**
+   * Start watching a connection.
+   *
+   * @param target The connection to watch.
+   * @return The registration, used to report answers and to stop watching.
+   */
+  public Registration register(Target target) {
+    Registration registration =
+        new Registration(target, Math.floorMod(nextSlot.getAndIncrement(), slots.size()));
+    slots.get(registration.slot).add(registration);
+    return registration;
+  }
+
+  /**
+   * Get the number of watched connections.
+   *
+   * @return The number of connections.
+   */
+  public int getRegisteredCount() {
+    int count = 0;
+    for (Set<Registration> slot : slots) {
+      count += slot.size();
+    }
+    return count;
+  }
+
+  /** Schedule the next tick against a fixed rate, so late ticks do not add up. */
+  private void scheduleTick() {
+    long now = clock.getAsLong();
+    nextTickAt += slotNanos;
+    if (nextTickAt < now - intervalNanos) {
+      // We fell far behind, skip ahead rather than racing through the missed ticks
+      nextTickAt = now;
+    }
+    wheel.newTimeout(this::tick, Math.max(0, nextTickAt - now), TimeUnit.NANOSECONDS);
+  }
+
+  /** Visit the connections of the current slot, runs on the wheel's thread. */
+  private void tick() {
+    long now = clock.getAsLong();
+    Set<Registration> slot = slots.get(cursor);
+    cursor = (cursor + 1) % slots.size();
+    for (Registration registration : slot) {
+      try {
+        registration.check(now);
+      } catch (Exception e) {
+        log.debug("Liveness check failed: ", e);
+      }
+    }
+    scheduleTick();
+  }
+}
@@ -0,0 +1,283 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The last frames a client sent and received, shown by {@code /api/{chargerId}/log/...}.
+ *
+ * <p>The log is a ring of a fixed capacity shared by both directions, the newest frame overwriting
+ * the oldest, so recording a frame neither copies nor allocates anything but its timestamp. Frames
+ * are kept as they were sent or received, with the name of their message, and are only formatted
+ * for the log when it is read.
+ */
+@Slf4j
+public class MessageLog {
+
+  /** The default number of frames kept. */
+  public static final int DEFAULT_CAPACITY = 100;
+
+  /** Nanoseconds in a second. */
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  /** The index in the JsonArray of a CALL's message name. */
+  private static final int NAME_INDEX = 2;
+
+  /** Where the timestamps come from. */
+  private final Clock clock;
+
+  /** The frames, by slot. */
+  private String[] frames;
+
+  /** The names of the frames' messages, by slot. */
+  private String[] names;
+
+  /** When the frames were recorded in nanoseconds since the epoch, by slot. */
+  private long[] timestamps;
+
+  /** If the frames were sent rather than received, by slot. */
+  private boolean[] sent;
+
+  /** The slot the next frame is recorded in. */
+  private int next;
+
+  /** The number of frames kept. */
+  private int size;
+
+  /** Create a log of the default capacity. */
+  public MessageLog() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Create a log.
+   *
+   * @param capacity The number of frames kept.
+   */
+  public MessageLog(int capacity) {
+    this(capacity, Clock.systemUTC());
+  }
+
+  /**
+   * Create a log with its own clock.
+   *
+   * @param capacity The number of frames kept.
+   * @param clock Where the timestamps come from.
+   */
+  @VisibleForTesting
+  MessageLog(int capacity, Clock clock) {
+    this.clock = clock;
+    this.allocate(capacity);
+  }
+
+  /**
+   * Record a sent frame.
+   *
+   * @param frame The frame as it was sent.
+   * @param requestName The name of the request a CALLRESULT answers, shown with it, or null.
+   */
+  public void recordSent(String frame, String requestName) {
+    this.record(frame, requestName, true);
+  }
+
+  /**
+   * Record a received frame.
+   *
+   * @param frame The frame as it was received.
+   * @param messageName The name of its message.
+   */
+  public void recordReceived(String frame, String messageName) {
+    this.record(frame, messageName, false);
+  }
+
+  /**
+   * Get the sent frames formatted for the log, as {@code ["<timestamp>", <frame>...]} with the
+   * request name after the message ID of a CALLRESULT.
+   *
+   * @return The sent frames, oldest first.
+   */
+  public List<String> getSentMessages() {
+    List<String> messages = new ArrayList<>();
+    for (Entry entry : this.entries(true)) {
+      messages.add(formatSent(entry));
+    }
+    return messages;
+  }
+
+  /**
+   * Get the received frames formatted for the log, as {@code ["<name>", "<timestamp>", <frame>...]}
+   * without the message name of a CALL. Frames that cannot be parsed are left out.
+   *
+   * @return The received frames, oldest first.
+   */
+  public List<String> getReceivedMessages() {
+    List<String> messages = new ArrayList<>();
+    for (Entry entry : this.entries(false)) {
+      String formatted = formatReceived(entry);
+      if (formatted != null) {
+        messages.add(formatted);
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Get the number of frames kept.
+   *
+   * @return The capacity of the log.
+   */
+  public synchronized int getCapacity() {
+    return frames.length;
+  }
+
+  /**
+   * Change the number of frames kept, dropping what was recorded.
+   *
+   * @param capacity The number of frames kept.
+   */
+  public synchronized void setCapacity(int capacity) {
+    this.allocate(capacity);
+  }
+
+  /**
+   * Get the number of frames recorded.
+   *
+   * @return The frames of both directions.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /** A recorded frame, copied out of the ring to be formatted. */
+  private record Entry(String frame, String name, long timestamp) {}
+
+  /**
+   * Record a frame in the next slot.
+   *
+   * @param frame The frame.
+   * @param name The name of its message.
+   * @param isSent If it was sent.
+   */
+  private void record(String frame, String name, boolean isSent) {
+    Instant now = clock.instant();
+    long timestamp = now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+    synchronized (this) {
+      frames[next] = frame;
+      names[next] = name;
+      timestamps[next] = timestamp;
+      sent[next] = isSent;
+      next = (next + 1) % frames.length;
+      size = Math.min(size + 1, frames.length);
+    }
+  }
+
+  /**
+   * Copy the frames of one direction out of the ring.
+   *
+   * @param isSent If the sent frames are wanted.
+   * @return The frames, oldest first.
+   */
+  private synchronized List<Entry> entries(boolean isSent) {
+    List<Entry> entries = new ArrayList<>();
+    int first = (next - size + frames.length) % frames.length;
+    for (int i = 0; i < size; i++) {
+      int slot = (first + i) % frames.length;
+      if (sent[slot] == isSent) {
+        entries.add(new Entry(frames[slot], names[slot], timestamps[slot]));
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Replace the ring with an empty one.
+   *
+   * @param capacity The number of frames kept.
+   */
+  private void allocate(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Message log capacity must be positive: " + capacity);
+    }
+    frames = new String[capacity];
+    names = new String[capacity];
+    timestamps = new long[capacity];
+    sent = new boolean[capacity];
+    next = 0;
+    size = 0;
+  }
+
+  /**
+   * Format a sent frame for the log.
+   *
+   * @param entry The frame.
+   * @return The formatted frame.
+   */
+  private static String formatSent(Entry entry) {
+    String frame = entry.frame();
+    if (entry.name() != null && frame.startsWith("[" + OCPPMessage.CALL_ID_RESPONSE + ",")) {
+      Gson gson = GsonUtilities.getGson();
+      JsonArray array = gson.fromJson(frame, JsonArray.class);
+      frame =
+          gson.toJson(
+              OCPPWebSocketClient.insertElementAt(
+                  array, NAME_INDEX, new JsonPrimitive(entry.name())));
+    }
+    return "[\"" + formatTimestamp(entry.timestamp()) + "\", " + frame.substring(1);
+  }
+
+  /**
+   * Format a received frame for the log.
+   *
+   * @param entry The frame.
+   * @return The formatted frame, or null if it could not be parsed.
+   */
+  private static String formatReceived(Entry entry) {
+    String frame = entry.frame();
+    Gson gson = GsonUtilities.getGson();
+    JsonArray array;
+    try {
+      array = gson.fromJson(frame, JsonArray.class);
+    } catch (JsonParseException exception) {
+      array = null;
+    }
+    if (array == null) {
+      log.error("Failed to parse message: " + frame);
+      return null;
+    }
+
+    String result = frame;
+    if (array.get(0).getAsInt() == OCPPMessage.CALL_ID_REQUEST) {
+      // Remove the extra message name
+      array.remove(NAME_INDEX);
+      result = gson.toJson(array);
+    }
+    int start = result.indexOf('[');
+    return result.substring(0, start)
+        + "[\""
+        + entry.name()
+        + "\", \""
+        + formatTimestamp(entry.timestamp())
+        + "\", "
+        + result.substring(start + 1);
+  }
+
+  /**
+   * Format a timestamp as the log shows it.
+   *
+   * @param epochNanos The time in nanoseconds since the epoch.
+   * @return The ISO-8601 time in UTC.
+   */
+  private static String formatTimestamp(long epochNanos) {
+    return Instant.ofEpochSecond(0, epochNanos).atZone(ZoneOffset.UTC).toString();
+  }
+}
@@ -0,0 +1,46 @@
+package com.sim_backend.websockets;
+
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.messages.StatusNotification;
+import com.sim_backend.websockets.types.OCPPMessage;
+import com.sim_backend.websockets.types.OCPPMessageError;
+import com.sim_backend.websockets.types.OCPPMessageResponse;
+
+/** The classes of the send queue, from the first to be sent to the last. */
+public enum MessagePriority {
+  /** CALLRESULTs and CALLERRORs, the Central System is waiting on them. */
+  RESPONSE,
+
+  /** Boot and status notifications, which tell the Central System what state we are in. */
+  CONTROL,
+
+  /**
+   * Authorizations and transactions, including the meter values of a transaction, and any other
+   * call. Transaction messages share a priority so they are sent in the order they were pushed.
+   */
+  TRANSACTION,
+
+  /** Meter values outside a transaction and heartbeats, periodic and the least urgent. */
+  TELEMETRY;
+
+  /**
+   * Get the class a message is queued in.
+   *
+   * @param message The message.
+   * @return Its priority.
+   */
+  public static MessagePriority of(OCPPMessage message) {
+    return switch (message) {
+      case OCPPMessageResponse ignored -> RESPONSE;
+      case OCPPMessageError ignored -> RESPONSE;
+      case BootNotification ignored -> CONTROL;
+      case StatusNotification ignored -> CONTROL;
+      case MeterValues meterValues ->
+          meterValues.getTransactionId() != null ? TRANSACTION : TELEMETRY;
+      case Heartbeat ignored -> TELEMETRY;
+      default -> TRANSACTION;
+    };
+  }
+}
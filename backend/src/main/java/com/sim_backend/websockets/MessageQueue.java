@@ -1,93 +1,246 @@
 package com.sim_backend.websockets;
 
-import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.google.common.annotations.VisibleForTesting;
 import com.sim_backend.websockets.exceptions.OCPPMessageFailure;
+import com.sim_backend.websockets.types.DedupKey;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageRequest;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import lombok.AllArgsConstructor;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.java_websocket.exceptions.WebsocketNotConnectedException;
 
-/** A class for handling an OCPP Message Queue. */
+/**
+ * A class for handling an OCPP Message Queue.
+ *
+ * <p>Messages are queued by {@link MessagePriority}, first in first out within each priority. The
+ * highest priority with a message is sent first, but a waiting message gains a priority every
+ * {@link #AGING_STEP} so the lower priorities are not starved. Calls are held while the pipelining
+ * window is full, answers are sent around them.
+ *
+ * <p>Messages may be pushed from any thread, the WebSocket read thread, REST handlers and the
+ * charger loop, without locking. Only the charger loop pops them. A message claims its {@link
+ * DedupKey} before it is queued, so concurrent pushes of the same key queue it once, and it gives
+ * the key up only once it was sent. A newer message of a key that keeps the latest takes the place
+ * of the queued one, or is queued behind it if it is being sent.
+ */
 @Slf4j
 public class MessageQueue {
-  @Getter
-  @AllArgsConstructor
-  static class TimedMessage {
-    private final OCPPMessage message;
-    private final Instant timestamp;
+  /** The number of reattempts to resend a message. */
+  public static final int MAX_REATTEMPTS = 5;
+
+  /** The time we consider a Request Message not valid anymore */
+  public static final int RESPONSE_TIME_OUT = 30;
+
+  /** The default number of calls in flight at once, the one OCPP 1.6 allows. */
+  public static final int DEFAULT_PIPELINE_WINDOW = 1;
+
+  /** How long a message waits before it is raised a priority. */
+  public static final Duration AGING_STEP = Duration.ofSeconds(5);
+
+  /** The priorities, from the first to be sent. */
+  private static final MessagePriority[] PRIORITIES = MessagePriority.values();
+
+  /** A queued message, its key and when it was queued. */
+  private static final class Queued {
+    /** The key the message claimed. */
+    private final DedupKey key;
+
+    /** When it was queued. */
+    private final long queuedAtNanos;
 
-    public TimedMessage(OCPPMessage message) {
+    /** The message, replaced by a newer one of its key until it is taken to be sent. */
+    private OCPPMessage message;
+
+    /** If the message was taken to be sent. */
+    private boolean taken;
+
+    /**
+     * Create a queued message.
+     *
+     * @param key The key the message claimed.
+     * @param message The message.
+     * @param queuedAtNanos When it was queued.
+     */
+    Queued(DedupKey key, OCPPMessage message, long queuedAtNanos) {
+      this.key = key;
       this.message = message;
-      this.timestamp = Instant.now();
+      this.queuedAtNanos = queuedAtNanos;
+    }
+
+    /**
+     * Get the queued message.
+     *
+     * @return The message.
+     */
+    synchronized OCPPMessage message() {
+      return message;
+    }
+
+    /**
+     * Replace the message with a newer one of its key, unless it was taken to be sent.
+     *
+     * @param newer The newer message.
+     * @return True if it was replaced.
+     */
+    synchronized boolean replace(OCPPMessage newer) {
+      if (taken) {
+        return false;
+      }
+      message = newer;
+      return true;
+    }
+
+    /**
+     * Take the message to be sent, it is not replaced anymore.
+     *
+     * @return The message.
+     */
+    synchronized OCPPMessage take() {
+      taken = true;
+      return message;
+    }
+
+    /** Put the message back as it could not be sent. */
+    synchronized void release() {
+      taken = false;
     }
   }
 
-  /** The number of reattempts to resend a message. */
-  public static final int MAX_REATTEMPTS = 5;
+  /** The requests we have sent and wait for an answer to. */
+  @Getter
+  private final InFlightTracker inFlight =
+      new InFlightTracker(TimeUnit.SECONDS.toNanos(RESPONSE_TIME_OUT));
 
-  /** The time we consider a Request Message not valid anymore */
-  public static final int RESPONSE_TIME_OUT = 30;
+  /**
+   * The number of calls we send before waiting for an answer. Anything above one breaks OCPP 1.6's
+   * single outstanding call and is only meant for stress testing a Central System.
+   */
+  @Getter private volatile int pipelineWindow = DEFAULT_PIPELINE_WINDOW;
+
+  /** The answer latencies of our calls, by the pipelining window they were sent under. */
+  private final Map<Integer, LatencyHistogram> latencyByWindow = new ConcurrentHashMap<>();
 
-  /** The previous messages we have sent. */
-  private final Map<String, TimedMessage> previousMessages = new ConcurrentHashMap<>();
+  /** The queue of each priority, by ordinal, pushed to by any thread and popped by the loop. */
+  private final List<Deque<Queued>> queues;
 
-  /** The OCPP Message Queue. */
-  @Getter private final Deque<OCPPMessage> queue = new LinkedList<>();
+  /** How long a message waits before it is raised a priority, in nanoseconds. */
+  private final long agingStepNanos;
 
-  /** Unique hashes to check for uniqueness */
-  @Getter private final Set<OCPPMessage> queueSet = new HashSet<>();
+  /** The queued messages by the key they claimed. */
+  private final Map<DedupKey, Queued> claimed = new ConcurrentHashMap<>();
 
   /** Create an OCPPMessage Queue. */
-  public MessageQueue() {}
+  public MessageQueue() {
+    this(AGING_STEP.toNanos());
+  }
 
   /**
-   * Add a OCPPMessage to our send queue.
+   * Create an OCPPMessage Queue with its own aging step.
    *
-   * @param message the message to be sent.
+   * @param agingStepNanos How long a message waits before it is raised a priority.
    */
-  public boolean pushMessage(final OCPPMessage message) {
-    if (queueSet.contains(message)) {
-      return false;
+  @VisibleForTesting
+  MessageQueue(long agingStepNanos) {
+    if (agingStepNanos <= 0) {
+      throw new IllegalArgumentException("The aging step must be positive: " + agingStepNanos);
+    }
+    this.agingStepNanos = agingStepNanos;
+    List<Deque<Queued>> byPriority = new ArrayList<>(PRIORITIES.length);
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      byPriority.add(new ConcurrentLinkedDeque<>());
     }
+    this.queues = List.copyOf(byPriority);
+  }
 
-    queue.add(message);
-    queueSet.add(message);
-    return true;
+  /**
+   * Add a OCPPMessage to the back of its priority in our send queue.
+   *
+   * @param message the message to be sent.
+   */
+  public boolean pushMessage(final OCPPMessage message) {
+    return push(message, false);
   }
 
   /**
-   * Add a OCPPMessage to the front of our send queue.
+   * Add a OCPPMessage to the front of its priority in our send queue.
    *
    * @param prioMessage the message to be sent.
    */
   public boolean pushPriorityMessage(final OCPPMessage prioMessage) {
-    if (queueSet.contains(prioMessage)) {
-      return false;
+    return push(prioMessage, true);
+  }
+
+  /**
+   * Claim a message's key and add it to its priority in our send queue.
+   *
+   * @param message the message to be sent.
+   * @param first If it goes to the front of its priority.
+   * @return false if a message of its key is queued and is kept.
+   */
+  private boolean push(final OCPPMessage message, boolean first) {
+    DedupKey key = message.getDedupKey();
+    Queued entry = new Queued(key, message, System.nanoTime());
+    while (true) {
+      Queued existing = claimed.putIfAbsent(key, entry);
+      if (existing == null) {
+        break;
+      }
+      if (!key.latest()) {
+        return false;
+      }
+      if (existing.replace(message)) {
+        return true;
+      }
+      // The queued one is being sent, this one goes after it
+      if (claimed.replace(key, existing, entry)) {
+        break;
+      }
     }
 
-    queue.addFirst(prioMessage);
-    queueSet.add(prioMessage);
+    Deque<Queued> queue = queueOf(message);
+    if (first) {
+      queue.addFirst(entry);
+    } else {
+      queue.addLast(entry);
+    }
     return true;
   }
 
   /**
-   * Return the size of the send queue.
+   * Get the keys claimed by the queued messages and the message being sent.
+   *
+   * @return A view of the keys.
+   */
+  public Set<DedupKey> getQueuedKeys() {
+    return Collections.unmodifiableSet(claimed.keySet());
+  }
+
+  /**
+   * Return the size of the send queue. This walks the queue, and is only exact while no message is
+   * pushed at the same time.
    *
    * @return size in int.
    */
   public int size() {
-    return queue.size();
+    int size = 0;
+    for (Deque<Queued> queue : queues) {
+      size += queue.size();
+    }
+    return size;
   }
 
   /**
@@ -96,40 +249,95 @@ public class MessageQueue {
    * @return true if empty.
    */
   public boolean isEmpty() {
-    return queue.isEmpty();
+    for (Deque<Queued> queue : queues) {
+      if (!queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Return the number of queued messages of every priority. Like {@link #size()} this walks the
+   * queue.
+   *
+   * @return The depth of each priority.
+   */
+  public Map<MessagePriority, Integer> getQueueDepths() {
+    Map<MessagePriority, Integer> depths = new EnumMap<>(MessagePriority.class);
+    for (MessagePriority priority : PRIORITIES) {
+      depths.put(priority, queues.get(priority.ordinal()).size());
+    }
+    return depths;
+  }
+
+  /**
+   * Return the message IDs of the queued messages. Like {@link #size()} this walks the queue.
+   *
+   * @return The message IDs.
+   */
+  public Set<String> getQueuedMessageIds() {
+    Set<String> messageIds = new HashSet<>();
+    for (Deque<Queued> queue : queues) {
+      for (Queued queued : queue) {
+        messageIds.add(queued.message().getMessageID());
+      }
+    }
+    return messageIds;
   }
 
   /**
-   * Pop and send the message on top of the send queue.
+   * Return the message that would be sent next if no call were held back.
+   *
+   * @return The message, or null if the queue is empty.
+   */
+  public OCPPMessage peekMessage() {
+    Deque<Queued> queue = selectQueue(System.nanoTime());
+    Queued next = queue == null ? null : queue.peekFirst();
+    return next == null ? null : next.message();
+  }
+
+  /**
+   * Pop and send the next message of our send queue. Only one thread may pop at a time. A message
+   * that cannot be sent as we are not connected is put back and a reconnect is scheduled.
    *
    * @param client The WebsocketClient to send it through.
-   * @return The Send OCPP Message.
+   * @return The Send OCPP Message, or null if there was nothing we could send.
    */
   public OCPPMessage popMessage(final OCPPWebSocketClient client)
       throws OCPPMessageFailure, InterruptedException {
     // Before sending a new message, check for any timed-out previous messages
     checkTimeouts(client);
 
-    OCPPMessage message = queue.poll();
-    if (message != null) {
-      if (message instanceof OCPPMessageRequest && isBusy()) {
-        queue.addLast(message);
-        return null;
-      }
+    Deque<Queued> queue = selectQueue(System.nanoTime());
+    if (queue == null) {
+      return null;
+    }
+    Queued next = queue.peekFirst();
+    if (next != null && next.message() instanceof OCPPMessageRequest && isBusy()) {
+      // Hold the calls where they are, but answers do not wait for the window
+      queue = queues.get(MessagePriority.RESPONSE.ordinal());
+    }
 
-      try {
-        message.sendMessage(client);
-        client.recordTxMessage(message.toJsonString());
-        queueSet.remove(message);
-      } catch (WebsocketNotConnectedException ex) {
-        if (message.incrementTries() >= MAX_REATTEMPTS) {
-          throw new OCPPMessageFailure(message, ex);
-        } else {
-          client.reconnectBlocking();
-          queue.addFirst(message);
-          return this.popMessage(client);
-        }
+    Queued queued = queue.pollFirst();
+    if (queued == null) {
+      return null;
+    }
+    OCPPMessage message = queued.take();
+    try {
+      message.sendMessage(client);
+      client.recordTxMessage(message);
+      claimed.remove(queued.key, queued);
+    } catch (WebsocketNotConnectedException ex) {
+      if (message.incrementTries() >= MAX_REATTEMPTS) {
+        claimed.remove(queued.key, queued);
+        throw new OCPPMessageFailure(message, ex);
       }
+      // Keep it first in line, the client reconnects in the background and we send it after
+      queued.release();
+      queue.addFirst(queued);
+      client.scheduleReconnect();
+      return null;
     }
     return message;
   }
@@ -138,13 +346,112 @@ public class MessageQueue {
    * Pop the entire send queue.
    *
    * @param client The WebsocketClient to send it through.
+   * @return The sent messages, in the order they were sent.
    */
-  public void popAllMessages(final OCPPWebSocketClient client)
+  public List<OCPPMessage> popAllMessages(final OCPPWebSocketClient client)
       throws OCPPMessageFailure, InterruptedException {
-    int size = queue.size();
+    int size = size();
+    List<OCPPMessage> sent = new ArrayList<>();
     for (int i = 0; i < size; i++) {
-      popMessage(client);
+      OCPPMessage message = popMessage(client);
+      if (message == null) {
+        // Nothing more can be sent until an answer or a reconnect
+        break;
+      }
+      sent.add(message);
+    }
+    return sent;
+  }
+
+  /**
+   * Put messages that were popped but never reached the wire back first in line, as when a batched
+   * write finds us disconnected. Their calls are no longer in flight, and a message whose key keeps
+   * the latest is dropped if a newer one was queued since. Each counts as a try, as a failed single
+   * send does, and a message out of tries is dropped instead.
+   *
+   * @param messages The messages, in the order they were popped.
+   * @param cause Why they could not be written.
+   * @throws OCPPMessageFailure For the first message dropped as out of tries, once the others are
+   *     back in line.
+   */
+  public void requeue(final List<OCPPMessage> messages, final WebsocketNotConnectedException cause)
+      throws OCPPMessageFailure {
+    OCPPMessage failed = null;
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      OCPPMessage message = messages.get(i);
+      if (message instanceof OCPPMessageRequest) {
+        inFlight.remove(message.getMessageID());
+      }
+      if (message.incrementTries() >= MAX_REATTEMPTS) {
+        log.warn("Dropping {} after {} tries", message.getMessageID(), MAX_REATTEMPTS);
+        failed = message;
+        continue;
+      }
+      DedupKey key = message.getDedupKey();
+      if (key.latest() && claimed.containsKey(key)) {
+        // A newer one was pushed meanwhile
+        continue;
+      }
+      push(message, true);
+    }
+    if (failed != null) {
+      throw new OCPPMessageFailure(failed, cause);
+    }
+  }
+
+  /**
+   * Take a queued message out of the send queue, as when it is put back in another place.
+   *
+   * @param messageId The message ID of the message.
+   * @return The message, or null if it is not queued or is being sent.
+   */
+  public OCPPMessage withdraw(final String messageId) {
+    for (Deque<Queued> queue : queues) {
+      for (Queued queued : queue) {
+        if (queued.message().getMessageID().equals(messageId) && queue.remove(queued)) {
+          // Taken, so a newer message of its key is queued on its own
+          OCPPMessage message = queued.take();
+          claimed.remove(queued.key, queued);
+          return message;
+        }
+      }
     }
+    return null;
+  }
+
+  /**
+   * Get the queue a message belongs in.
+   *
+   * @param message The message.
+   * @return The queue of its priority.
+   */
+  private Deque<Queued> queueOf(OCPPMessage message) {
+    return queues.get(MessagePriority.of(message).ordinal());
+  }
+
+  /**
+   * Select the queue to send from: the one whose first message has the highest priority once raised
+   * by how long it has waited, the higher priority on a tie.
+   *
+   * @param nowNanos The current {@link System#nanoTime()}.
+   * @return The queue, or null if every queue is empty.
+   */
+  private Deque<Queued> selectQueue(long nowNanos) {
+    Deque<Queued> selected = null;
+    long selectedRank = Long.MAX_VALUE;
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      Deque<Queued> queue = queues.get(i);
+      Queued first = queue.peekFirst();
+      if (first == null) {
+        continue;
+      }
+      long rank = i - (nowNanos - first.queuedAtNanos) / agingStepNanos;
+      if (rank < selectedRank) {
+        selected = queue;
+        selectedRank = rank;
+      }
+    }
+    return selected;
   }
 
   /**
@@ -153,14 +460,45 @@ public class MessageQueue {
    * @return if we are busy.
    */
   public boolean isBusy() {
-    boolean isReady = true;
-    for (Map.Entry<String, TimedMessage> message : previousMessages.entrySet()) {
-      Duration duration = Duration.between(message.getValue().timestamp, Instant.now());
-      if (duration.getSeconds() <= RESPONSE_TIME_OUT) {
-        isReady = false;
-      }
+    int window = pipelineWindow;
+    long now = System.nanoTime();
+    if (window == DEFAULT_PIPELINE_WINDOW) {
+      return inFlight.hasPending(now);
     }
-    return !isReady;
+    return inFlight.countPending(now, window) >= window;
+  }
+
+  /**
+   * Set the number of calls we send before waiting for an answer.
+   *
+   * @param window The window, one to follow OCPP 1.6.
+   */
+  public void setPipelineWindow(int window) {
+    if (window < 1) {
+      throw new IllegalArgumentException("The pipeline window must be positive: " + window);
+    }
+    this.pipelineWindow = window;
+  }
+
+  /**
+   * Get the answer latencies of our calls so far.
+   *
+   * @return A snapshot for every pipelining window calls were sent under, by window.
+   */
+  public SortedMap<Integer, LatencyHistogram.Snapshot> getLatencyStatistics() {
+    SortedMap<Integer, LatencyHistogram.Snapshot> statistics = new TreeMap<>();
+    latencyByWindow.forEach((window, histogram) -> statistics.put(window, histogram.snapshot()));
+    return statistics;
+  }
+
+  /**
+   * Get the latencies of the calls sent under a pipelining window.
+   *
+   * @param window The window.
+   * @return Its latencies.
+   */
+  private LatencyHistogram latencies(int window) {
+    return latencyByWindow.computeIfAbsent(window, ignored -> new LatencyHistogram());
   }
 
   /**
@@ -170,8 +508,7 @@ public class MessageQueue {
    */
   public void addPreviousMessage(final OCPPMessage msg) {
     if (msg instanceof OCPPMessageRequest) {
-      TimedMessage timedMessage = new TimedMessage(msg);
-      this.previousMessages.put(msg.getMessageID(), timedMessage);
+      this.inFlight.add(msg, pipelineWindow);
     }
   }
 
@@ -182,60 +519,77 @@ public class MessageQueue {
    * @return The found message or null
    */
   public OCPPMessage getPreviousMessage(final String messageID) {
-    TimedMessage timedMessage = previousMessages.get(messageID);
-
-    if (timedMessage != null) {
-      return timedMessage.message;
-    }
-
-    return null;
+    return inFlight.get(messageID);
   }
 
-  /** Clear a previously sent message from the previous message */
+  /** Clear a previously sent message from the previous message, as it has been answered */
   public void clearPreviousMessage(final OCPPMessage msg) {
     if (msg instanceof OCPPMessageRequest) {
-      this.previousMessages.remove(msg.getMessageID());
+      InFlightTracker.InFlight answered = this.inFlight.remove(msg.getMessageID());
+      if (answered != null) {
+        latencies(answered.getWindow()).record(System.nanoTime() - answered.getSentAtNanos());
+      }
     }
   }
 
   /**
-   * Check for any timed-out previous messages and call onTimeout() on their associated listeners.
+   * Get the number of requests waiting for an answer.
    *
-   * @param client The OCPPWebSocketClient instance.
+   * @return The number of requests in flight.
    */
-  public void checkTimeouts(OCPPWebSocketClient client) {
-    Instant now = Instant.now();
-    Iterator<Map.Entry<String, TimedMessage>> iterator = previousMessages.entrySet().iterator();
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
 
-    while (iterator.hasNext()) {
-      Map.Entry<String, TimedMessage> entry = iterator.next();
-      TimedMessage timedMessage = entry.getValue();
-      Duration duration = Duration.between(timedMessage.timestamp, now);
+  /**
+   * Get how long the oldest request in flight has waited for its answer.
+   *
+   * @return The age, zero if no request is in flight.
+   */
+  public Duration getOldestInFlightAge() {
+    return Duration.ofNanos(inFlight.getOldestAgeNanos(System.nanoTime()));
+  }
+
+  /**
+   * Get how long until the next request in flight times out.
+   *
+   * @return The nanoseconds until it times out, or {@link Long#MAX_VALUE} if none is in flight.
+   */
+  public long getNanosUntilNextTimeout() {
+    return inFlight.getNanosUntilFirstExpiry(System.nanoTime());
+  }
 
-      // Not needed but there might be a rare chance we receive an error while iterating.
-      if (timedMessage.message.isErrored()) {
-        iterator.remove();
+  /**
+   * Call onTimeout() on the listeners of every previous message that timed out, in the order they
+   * timed out.
+   *
+   * @param client The OCPPWebSocketClient instance.
+   */
+  public void checkTimeouts(OCPPWebSocketClient client) {
+    long now = System.nanoTime();
+    InFlightTracker.InFlight expired;
+    while ((expired = inFlight.pollExpired(now)) != null) {
+      OCPPMessage message = expired.getMessage();
+      // Not needed but there might be a rare chance we receive an error while waiting.
+      if (message.isErrored()) {
         continue;
       }
+      latencies(expired.getWindow()).recordTimeout();
 
-      if (duration.getSeconds() > RESPONSE_TIME_OUT) {
-        // Map the timed-out message to its complementary message.
-        Class<?> complementClass;
-        try {
-          complementClass = getComplementMessageClass(timedMessage.message.getClass());
-        } catch (ClassNotFoundException e) {
-          log.error("Handled Exception: ", e);
-          continue;
-        }
+      // Map the timed-out message to its complementary message.
+      Class<?> complementClass;
+      try {
+        complementClass = getComplementMessageClass(message.getClass());
+      } catch (ClassNotFoundException e) {
+        log.error("Handled Exception: ", e);
+        continue;
+      }
 
-        // Notify all listeners registered for the complementary message type.
-        if (client.onReceiveMessage.containsKey(complementClass)) {
-          for (var listener : client.onReceiveMessage.get(complementClass)) {
-            listener.onTimeout();
-          }
+      // Notify all listeners registered for the complementary message type.
+      if (client.onReceiveMessage.containsKey(complementClass)) {
+        for (var listener : client.onReceiveMessage.get(complementClass)) {
+          listener.onTimeout();
         }
-        // Remove the timed-out message.
-        iterator.remove();
       }
     }
   }
@@ -247,28 +601,15 @@ public class MessageQueue {
    * @param messageClass The class to "invert"
    */
   private Class<?> getComplementMessageClass(Class<?> messageClass) throws ClassNotFoundException {
-    OCPPMessageInfo info = messageClass.getAnnotation(OCPPMessageInfo.class);
-    if (info == null) {
+    OCPPMessageRegistry registry = OCPPMessageRegistry.getShared();
+    if (registry.getInfo(messageClass) == null) {
       throw new ClassNotFoundException(
           messageClass.toString() + " annotation not defined correctly");
     }
 
-    // For a request, add "Response" to the message name
-    if (info.messageCallID() == OCPPMessage.CALL_ID_REQUEST) {
-      String responseName = info.messageName() + "Response";
-      Class<?> complement = OCPPMessage.getMessageByName(responseName);
-      if (complement != null) {
-        return complement;
-      }
-    }
-    // For a response, remove "Response" from the message name
-    else if (info.messageCallID() == OCPPMessage.CALL_ID_RESPONSE) {
-      String reqName = info.messageName();
-      reqName = reqName.substring(0, reqName.length() - "Response".length());
-      Class<?> complement = OCPPMessage.getMessageByName(reqName);
-      if (complement != null) {
-        return complement;
-      }
+    Class<?> complement = registry.getComplement(messageClass);
+    if (complement != null) {
+      return complement;
     }
 
     // This class is not setup correctly
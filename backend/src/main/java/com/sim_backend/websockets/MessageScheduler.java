@@ -2,15 +2,20 @@ package com.sim_backend.websockets;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.sim_backend.websockets.types.*;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.*;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-/** An OCPPMessageScheduler. */
+/**
+ * An OCPPMessageScheduler. Tasks are placed on the process wide {@link TimerWheel}, which hands
+ * them back once they are due and wake the charger's loop, which runs them on its next tick.
+ */
 @Slf4j
 public class MessageScheduler {
   /** Our Synchronized Time. */
@@ -19,8 +24,17 @@ public class MessageScheduler {
   /** The OCPPWebSocket we will send our messages through. */
   private final OCPPWebSocketClient client;
 
-  /** Our scheduled tasks. */
-  @VisibleForTesting final CopyOnWriteArrayList<TimedTask> tasks = new CopyOnWriteArrayList<>();
+  /** The timer wheel our tasks wait on. */
+  private final TimerWheel wheel;
+
+  /** Our scheduled tasks, including those that are due but have not run yet. */
+  @VisibleForTesting final Set<TimedTask> tasks = ConcurrentHashMap.newKeySet();
+
+  /** The wheel timeouts of our tasks that are not due yet. */
+  private final Map<TimedTask, TimerWheel.Timeout> timeouts = new ConcurrentHashMap<>();
+
+  /** Tasks handed back by the wheel, waiting for our next tick. */
+  private final Queue<TimedTask> dueTasks = new ConcurrentLinkedQueue<>();
 
   /**
    * An OCPPMessage Scheduler.
@@ -28,17 +42,66 @@ public class MessageScheduler {
    * @param targetClient The client to send our messages through.
    */
   public MessageScheduler(OCPPWebSocketClient targetClient) {
+    this(targetClient, TimerWheel.getShared());
+  }
+
+  /**
+   * An OCPPMessage Scheduler using a specific timer wheel.
+   *
+   * @param targetClient The client to send our messages through.
+   * @param wheel The timer wheel to schedule our tasks on.
+   */
+  @VisibleForTesting
+  MessageScheduler(OCPPWebSocketClient targetClient, TimerWheel wheel) {
     this.client = targetClient;
+    this.wheel = wheel;
     this.time = new OCPPTime(targetClient);
   }
 
   /**
-   * Sets the OCPPTime to match that of the Central Server
+   * Sets the OCPPTime to match that of the Central Server. Tasks that are not due yet are placed
+   * back on the wheel relative to the new time.
    *
    * @param time The time of the Central Server to synchronize to
    */
   public void synchronizeTime(ZonedDateTime time) {
     this.time.setOffset(time);
+
+    for (Map.Entry<TimedTask, TimerWheel.Timeout> entry : new ArrayList<>(timeouts.entrySet())) {
+      // A timeout that already expired has been handed back and runs on our next tick
+      if (entry.getValue().cancel()) {
+        timeouts.remove(entry.getKey(), entry.getValue());
+        schedule(entry.getKey());
+      }
+    }
+  }
+
+  /**
+   * Schedule a task on the timer wheel, tasks that are already due are run on our next tick.
+   *
+   * @param task The task to schedule.
+   */
+  @VisibleForTesting
+  void schedule(TimedTask task) {
+    tasks.add(task);
+    long delay = Duration.between(getTime().getSynchronizedTime(), task.time).toNanos();
+    if (delay <= 0) {
+      dueTasks.add(task);
+      client.signalWork();
+      return;
+    }
+    timeouts.put(task, wheel.newTimeout(() -> onDue(task), delay, TimeUnit.NANOSECONDS));
+  }
+
+  /**
+   * Called from the wheel's thread once a task is due.
+   *
+   * @param task The due task.
+   */
+  private void onDue(TimedTask task) {
+    timeouts.remove(task);
+    dueTasks.add(task);
+    client.signalWork();
   }
 
   /**
@@ -66,7 +129,7 @@ public class MessageScheduler {
             timeUnit.toChronoUnit(),
             message,
             client);
-    tasks.add(task);
+    schedule(task);
     return task;
   }
 
@@ -95,7 +158,7 @@ public class MessageScheduler {
             timeUnit.toChronoUnit(),
             task,
             client);
-    tasks.add(repeatingTask);
+    schedule(repeatingTask);
     return repeatingTask;
   }
 
@@ -118,7 +181,7 @@ public class MessageScheduler {
     OCPPTimedTask task =
         new OCPPTimedTask(
             getTime().getSynchronizedTime().plus(delay, timeUnit.toChronoUnit()), message, client);
-    tasks.add(task);
+    schedule(task);
     return task;
   }
 
@@ -134,10 +197,32 @@ public class MessageScheduler {
     }
 
     OCPPTimedTask task = new OCPPTimedTask(timeToSend, message, client);
-    tasks.add(task);
+    schedule(task);
     return task;
   }
 
+  /**
+   * Register a function job to run once after a delay.
+   *
+   * @param delay The delay before it runs, zero to run it on our next tick.
+   * @param timeUnit The time units you wish to use.
+   * @param task The Runnable function to execute.
+   * @return The scheduled task.
+   */
+  public TimedTask registerFunctionJob(long delay, TimeUnit timeUnit, Runnable task) {
+    if (task == null) {
+      throw new IllegalArgumentException("Task must not be null");
+    }
+    if (delay < 0) {
+      throw new IllegalArgumentException("Delay must not be negative");
+    }
+
+    TimedTask timedTask =
+        new TimedTask(getTime().getSynchronizedTime().plus(delay, timeUnit.toChronoUnit()), task);
+    schedule(timedTask);
+    return timedTask;
+  }
+
   /**
    * Kill a Registered Job.
    *
@@ -148,26 +233,28 @@ public class MessageScheduler {
       repeatingTask.cancel();
     }
     tasks.remove(task);
+    TimerWheel.Timeout timeout = timeouts.remove(task);
+    if (timeout != null) {
+      timeout.cancel();
+    }
   }
 
-  /** Tick our scheduler to check for messages to be sent. */
+  /** Tick our scheduler to run the tasks the wheel has handed back. */
   public void tick() {
     if (!client.isOnline()) return;
 
-    tasks.sort(Comparator.comparing(a -> a.time));
-
-    ZonedDateTime currentTime = getTime().getSynchronizedTime();
-    List<TimedTask> toExecute = new ArrayList<>();
-
-    for (TimedTask task : tasks) {
-      if (task.time.isBefore(currentTime)) {
-        toExecute.add(task);
+    // Only run what is due now, tasks rescheduled while running wait for the next tick
+    int due = dueTasks.size();
+    for (int i = 0; i < due; i++) {
+      TimedTask task = dueTasks.poll();
+      if (task == null) {
+        break;
+      }
+      // Skip tasks that were killed after becoming due
+      timeouts.remove(task);
+      if (!tasks.remove(task)) {
+        continue;
       }
-    }
-
-    tasks.removeAll(toExecute);
-
-    for (TimedTask task : toExecute) {
       // Skip execution if this repeating task has been cancelled
       if (task instanceof RepeatingTimedTask repeatingTask && repeatingTask.isCancelled()) {
         continue;
@@ -176,7 +263,7 @@ public class MessageScheduler {
       if (task instanceof RepeatingTask repeatingTask) {
         TimedTask newTask = repeatingTask.repeatTask();
         if (newTask != null) { // Only add if not cancelled
-          tasks.add(newTask);
+          schedule(newTask);
         }
       }
     }
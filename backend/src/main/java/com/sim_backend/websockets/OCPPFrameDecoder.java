@@ -0,0 +1,96 @@
+package com.sim_backend.websockets;
+
+import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Decodes well formed CALL and CALLRESULT frames in a single pass, reading the envelope with a
+ * {@link JsonReader} and binding the payload straight into its message class. Anything else, a
+ * CALLERROR, a malformed frame or an unknown action, is left to the caller's tree based parsing so
+ * its error reporting does not change.
+ */
+final class OCPPFrameDecoder {
+
+  /** A decoded frame. */
+  @Getter
+  @AllArgsConstructor
+  static final class DecodedFrame {
+    /** The call ID of the frame. */
+    private final int callId;
+
+    /** The message ID of the frame. */
+    private final String messageId;
+
+    /** The action of a CALL, or null for a CALLRESULT. */
+    private final String action;
+
+    /** The class the payload was bound to. */
+    private final Class<? extends OCPPMessage> messageClass;
+
+    /** The bound payload. */
+    private final OCPPMessage message;
+  }
+
+  /** You cannot create this. */
+  private OCPPFrameDecoder() {}
+
+  /**
+   * Decode a frame.
+   *
+   * @param json The received frame.
+   * @param responseClass Maps the message ID of a CALLRESULT to the class to bind it to, or to null
+   *     if no request is waiting for it.
+   * @return The decoded frame, or null if the frame has to be parsed the slow way.
+   */
+  static DecodedFrame decode(
+      String json, Function<String, Class<? extends OCPPMessage>> responseClass) {
+    Gson gson = GsonUtilities.getGson();
+    try (JsonReader reader = gson.newJsonReader(new StringReader(json))) {
+      // Match Gson.fromJson(String), which the tree based parsing uses.
+      reader.setStrictness(Strictness.LENIENT);
+      if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+        return null;
+      }
+      reader.beginArray();
+
+      int callId = reader.nextInt();
+      String messageId = reader.nextString();
+      String action = null;
+      Class<? extends OCPPMessage> messageClass;
+      switch (callId) {
+        case OCPPMessage.CALL_ID_REQUEST -> {
+          action = reader.nextString();
+          messageClass = OCPPMessageRegistry.getShared().getMessageClass(action);
+        }
+        case OCPPMessage.CALL_ID_RESPONSE -> messageClass = responseClass.apply(messageId);
+        default -> messageClass = null;
+      }
+
+      if (messageClass == null || reader.peek() != JsonToken.BEGIN_OBJECT) {
+        return null;
+      }
+      OCPPMessage message = gson.getAdapter(messageClass).read(reader);
+
+      if (message == null || reader.peek() != JsonToken.END_ARRAY) {
+        return null;
+      }
+      reader.endArray();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        return null;
+      }
+
+      return new DecodedFrame(callId, messageId, action, messageClass, message);
+    } catch (IOException | RuntimeException ignored) {
+      // Let the tree based parsing report it
+      return null;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package com.sim_backend.websockets;
+
+import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.reflections.Reflections;
+
+/**
+ * An immutable index of every OCPP message class, built from a single classpath scan. It maps
+ * message names to classes, classes to their {@link OCPPMessageInfo} and requests to their
+ * responses and back, so none of those lookups scan the classpath or read annotations per frame.
+ */
+@Slf4j
+public final class OCPPMessageRegistry {
+  /** The suffix a response's message name adds to its request's. */
+  public static final String RESPONSE_SUFFIX = "Response";
+
+  /** Message name to message class, for both requests and responses. */
+  private final Map<String, Class<? extends OCPPMessage>> byName;
+
+  /** Message class to its annotation. */
+  private final Map<Class<?>, OCPPMessageInfo> infoByClass;
+
+  /** Request class to response class and response class to request class. */
+  private final Map<Class<?>, Class<? extends OCPPMessage>> complements;
+
+  /** Holds the shared registry so the scan runs on first use. */
+  private static final class Holder {
+    /** The registry of {@link OCPPWebSocketClient#MESSAGE_PACKAGE}. */
+    private static final OCPPMessageRegistry SHARED =
+        new OCPPMessageRegistry(
+            new Reflections(OCPPWebSocketClient.MESSAGE_PACKAGE)
+                .getTypesAnnotatedWith(OCPPMessageInfo.class));
+  }
+
+  /**
+   * Build a registry of the given classes. Classes that are not OCPP messages are ignored.
+   *
+   * @param classes The classes annotated with {@link OCPPMessageInfo}.
+   * @throws IllegalStateException If two classes share a message name.
+   */
+  OCPPMessageRegistry(Collection<Class<?>> classes) {
+    Map<String, Class<? extends OCPPMessage>> names = new HashMap<>();
+    Map<Class<?>, OCPPMessageInfo> infos = new HashMap<>();
+    for (Class<?> messageClass : classes) {
+      OCPPMessageInfo info = messageClass.getAnnotation(OCPPMessageInfo.class);
+      if (info == null || !OCPPMessage.class.isAssignableFrom(messageClass)) {
+        continue;
+      }
+
+      Class<? extends OCPPMessage> existing =
+          names.putIfAbsent(info.messageName(), messageClass.asSubclass(OCPPMessage.class));
+      if (existing != null) {
+        throw new IllegalStateException(
+            String.format(
+                "%s and %s share the message name %s", existing, messageClass, info.messageName()));
+      }
+      infos.put(messageClass, info);
+    }
+
+    Map<Class<?>, Class<? extends OCPPMessage>> pairs = new HashMap<>();
+    for (Map.Entry<Class<?>, OCPPMessageInfo> entry : infos.entrySet()) {
+      OCPPMessageInfo info = entry.getValue();
+      if (info.messageCallID() != OCPPMessage.CALL_ID_REQUEST) {
+        continue;
+      }
+
+      Class<? extends OCPPMessage> response = names.get(info.messageName() + RESPONSE_SUFFIX);
+      if (response != null) {
+        pairs.put(entry.getKey(), response);
+        pairs.put(response, entry.getKey().asSubclass(OCPPMessage.class));
+      }
+    }
+
+    this.byName = Map.copyOf(names);
+    this.infoByClass = Map.copyOf(infos);
+    this.complements = Map.copyOf(pairs);
+    log.debug("Registered {} OCPP message classes", this.byName.size());
+  }
+
+  /**
+   * Get the registry of every message class in {@link OCPPWebSocketClient#MESSAGE_PACKAGE}.
+   *
+   * @return The shared registry.
+   */
+  public static OCPPMessageRegistry getShared() {
+    return Holder.SHARED;
+  }
+
+  /**
+   * Get a message class by its message name.
+   *
+   * @param messageName The message name, e.g. Heartbeat or HeartbeatResponse.
+   * @return The message class, or null if there is none.
+   */
+  public Class<? extends OCPPMessage> getMessageClass(String messageName) {
+    return messageName == null ? null : byName.get(messageName);
+  }
+
+  /**
+   * Get the annotation of a message class.
+   *
+   * @param messageClass The message class.
+   * @return Its OCPPMessageInfo, or null if it is not a registered message.
+   */
+  public OCPPMessageInfo getInfo(Class<?> messageClass) {
+    return infoByClass.get(messageClass);
+  }
+
+  /**
+   * Get the response class of a request class, or the request class of a response class.
+   *
+   * @param messageClass The message class to "invert".
+   * @return The complementary class, or null if there is none.
+   */
+  public Class<? extends OCPPMessage> getComplement(Class<?> messageClass) {
+    return complements.get(messageClass);
+  }
+
+  /**
+   * Get every registered message class.
+   *
+   * @return An immutable set of the message classes.
+   */
+  public Set<Class<?>> getMessageClasses() {
+    return infoByClass.keySet();
+  }
+}
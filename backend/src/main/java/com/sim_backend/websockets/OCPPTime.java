@@ -12,8 +12,6 @@ import com.sim_backend.websockets.types.OCPPRepeatingTimedTask;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import lombok.Getter;
@@ -39,18 +37,26 @@ public class OCPPTime implements AutoCloseable {
   /** The client we are listening on. */
   private OCPPWebSocketClient client = null;
 
-  /** A list of sent OCPP Messages */
-  @VisibleForTesting Set<String> heartbeats = ConcurrentHashMap.newKeySet();
+  /**
+   * The message IDs of the heartbeats we sent and have no answer to. An ID is kept from when its
+   * heartbeat is written to the connection, not when it is pushed, so time spent offline or queued
+   * does not count against it. A superseded heartbeat is kept so its late answer is not taken for a
+   * bad one, until its answer would have timed out.
+   */
+  @VisibleForTesting
+  final CorrelationMap<Boolean> heartbeats =
+      new CorrelationMap<>(Duration.ofSeconds(MessageQueue.RESPONSE_TIME_OUT));
 
   /** Our last sent heartbeat. */
   @VisibleForTesting String lastHeartbeat = "";
 
+  /** Our stored listener for when a heartbeat is sent. */
   @VisibleForTesting
-  final OnPushOCPPMessageListener pushListener =
+  final OnPushOCPPMessageListener sendListener =
       message -> {
-        Heartbeat beat = (Heartbeat) message.getMessage();
-        this.heartbeats.add(beat.getMessageID());
-        lastHeartbeat = beat.getMessageID();
+        String messageId = message.getMessage().getMessageID();
+        this.heartbeats.put(messageId, Boolean.TRUE);
+        lastHeartbeat = messageId;
       };
 
   /** Our stored OCPPMessageListener. */
@@ -60,7 +66,7 @@ public class OCPPTime implements AutoCloseable {
         HeartbeatResponse response = (HeartbeatResponse) message.getMessage();
         String responseMessageId = response.getMessageID();
 
-        if (!this.heartbeats.contains(responseMessageId)) {
+        if (this.heartbeats.remove(responseMessageId) == null) {
           log.error(
               String.format("Heartbeat listener received old message ID %s", responseMessageId));
           OCPPMessageError error =
@@ -75,7 +81,6 @@ public class OCPPTime implements AutoCloseable {
         }
 
         if (responseMessageId.equals(lastHeartbeat)) {
-          this.heartbeats.remove(responseMessageId);
           setOffset(response.getCurrentTime());
         }
       };
@@ -92,7 +97,7 @@ public class OCPPTime implements AutoCloseable {
 
     this.client = currClient;
     this.client.onReceiveMessage(HeartbeatResponse.class, listener);
-    this.client.onPushMessage(Heartbeat.class, pushListener);
+    this.client.onSendMessage(Heartbeat.class, sendListener);
   }
 
   /**
@@ -125,6 +130,15 @@ public class OCPPTime implements AutoCloseable {
     offset.set(calculatedOffset);
   }
 
+  /**
+   * Get the number of heartbeats we keep waiting for an answer to.
+   *
+   * @return The heartbeats sent whose answer did not arrive or time out yet.
+   */
+  public int getPendingHeartbeatCount() {
+    return heartbeats.size();
+  }
+
   /**
    * Called when this is destroyed in a try catch.
    *
@@ -6,7 +6,6 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
 import com.sim_backend.websockets.enums.ErrorCode;
@@ -24,31 +23,55 @@ import com.sim_backend.websockets.exceptions.OCPPUnsupportedMessage;
 import com.sim_backend.websockets.exceptions.OCPPUnsupportedProtocol;
 import com.sim_backend.websockets.messages.MessageValidator;
 import com.sim_backend.websockets.observers.StatusNotificationObserver;
+import com.sim_backend.websockets.transport.NioWebSocketTransport;
+import com.sim_backend.websockets.transport.TransportConnection;
+import com.sim_backend.websockets.transport.TransportListener;
+import com.sim_backend.websockets.transport.WebSocketTransport;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageError;
+import com.sim_backend.websockets.types.OCPPMessageResponse;
+import com.sim_backend.websockets.types.TimedTask;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
 import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.drafts.Draft;
 import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
 import org.java_websocket.handshake.ServerHandshake;
 
-/** A WebSocket client for handling OCPP Messages. */
+/**
+ * A WebSocket client for handling OCPP Messages. The connection is carried by the Java-WebSocket
+ * client we extend, unless a {@link WebSocketTransport} is given.
+ */
 @Slf4j
-public class OCPPWebSocketClient extends WebSocketClient {
+public class OCPPWebSocketClient extends WebSocketClient
+    implements TransportListener, LivenessMonitor.Target {
 
   @Getter
   @AllArgsConstructor
@@ -57,7 +80,7 @@ public class OCPPWebSocketClient extends WebSocketClient {
     JsonObject data;
   }
 
-  /** The time to wait to try to reconnect. */
+  /** The time between two liveness pings, in seconds. */
   public static final int CONNECTION_LOST_TIMER = 5;
 
   /** The Connect Timeout. */
@@ -82,7 +105,19 @@ public class OCPPWebSocketClient extends WebSocketClient {
   @Getter final MessageQueue queue = new MessageQueue();
 
   /** Our online status */
-  @Getter private boolean Online = true;
+  @Getter private volatile boolean Online = true;
+
+  /** The messages pushed while offline, sent once we go back online. */
+  @Getter private final OfflineBuffer offlineBuffer = new OfflineBuffer();
+
+  /** If pushed messages are sent without validating them, as the simulator built them itself. */
+  @Getter @Setter private volatile boolean trustOutbound;
+
+  /** The journal of our unanswered transaction messages, null to not journal them. */
+  @Getter @Setter private volatile OutboundJournal journal;
+
+  /** The journal of every frame we send and receive, null to not journal them. */
+  @Getter @Setter private volatile TrafficJournal trafficJournal;
 
   /** Subscribe to when we receive an OCPP message. */
   @VisibleForTesting
@@ -94,21 +129,64 @@ public class OCPPWebSocketClient extends WebSocketClient {
   public final Map<Class<?>, CopyOnWriteArrayList<OnPushOCPPMessageListener>> onPushMessage =
       new ConcurrentHashMap<>();
 
+  /** Subscribe to when an OCPP message is written to the connection. */
+  @VisibleForTesting
+  public final Map<Class<?>, CopyOnWriteArrayList<OnPushOCPPMessageListener>> onSendMessage =
+      new ConcurrentHashMap<>();
+
   /** Our message scheduler. */
   @Getter private MessageScheduler scheduler = null;
 
+  /** The transport carrying our connection, null when using the inherited one. */
+  @Getter private final WebSocketTransport transport;
+
+  /** Our connection when using a transport. */
+  private volatile TransportConnection connection;
+
+  /** Our registration with the liveness monitor, null while not watched. */
+  @VisibleForTesting volatile LivenessMonitor.Registration liveness;
+
+  /** The last connect started by {@link #connectAsync()}. */
+  @Getter
+  private volatile CompletableFuture<Boolean> connectFuture =
+      CompletableFuture.completedFuture(false);
+
+  /** The delays between our reconnect attempts. */
+  @Getter private final ReconnectBackoff backoff = new ReconnectBackoff();
+
+  /** The scheduled reconnect attempt, null when none is waiting. */
+  private TimedTask reconnectTask;
+
+  /** If we lost our connection and have not reconnected yet. */
+  private boolean disconnected;
+
+  /** If we were shut down, after which we never connect again. */
+  private boolean shutDown;
+
+  /** If the frames of one pass over the send queue are written together. */
+  @Getter @Setter private volatile boolean batchedFlush;
+
+  /** The frames of the pass being batched, set only on the thread popping the queue. */
+  private final ThreadLocal<List<String>> batch = new ThreadLocal<>();
+
+  /** The frames written per batched flush. */
+  @Getter private final FlushStatistics flushStatistics = new FlushStatistics();
+
+  /** Wakes the charger loop when there is work for it. */
+  @Getter private final WakeupSignal wakeup = new WakeupSignal();
+
   /** The headers we send with our Websocket connection */
   public static final Map<String, String> headers = Map.of("Sec-WebSocket-Protocol", "ocpp1.6");
 
-  /** List to store transmitted messages. */
-  private final List<String> txMessages = new CopyOnWriteArrayList<>();
+  /** The last frames we sent and received. */
+  @Getter private final MessageLog messageLog = new MessageLog();
 
-  /** List to store received messages. */
-  private final List<String> rxMessages = new CopyOnWriteArrayList<>();
+  /** How long the name of a received request is kept if we never answer it. */
+  public static final Duration REQUEST_NAME_LIFETIME = Duration.ofMinutes(10);
 
-  /** Store Rx CallRequest message names. */
+  /** The names of the received requests, until we send their answer. */
   @VisibleForTesting
-  public final ConcurrentHashMap<String, String> rxRequestNames = new ConcurrentHashMap<>();
+  public final CorrelationMap<String> rxRequestNames = new CorrelationMap<>(REQUEST_NAME_LIFETIME);
 
   /**
    * Inserts a JsonElement at the specified index in the JsonArray.
@@ -135,51 +213,56 @@ public class OCPPWebSocketClient extends WebSocketClient {
   /** StatusNotification Observer */
   private final StatusNotificationObserver statusNotificationObserver;
 
-  /** List of already received IDs. */
-  public final Set<String> receivedIDs = ConcurrentHashMap.newKeySet();
+  /** The message IDs received recently, to reject duplicates. */
+  @Getter private volatile DuplicateIdFilter receivedIds = new DuplicateIdFilter();
 
   /**
-   * Record a transmitted message.
+   * Set how long and how many received message IDs are remembered to reject duplicates, forgetting
+   * the IDs received so far.
    *
-   * @param message The transmitted message.
+   * @param window The time an ID is remembered for at least.
+   * @param capacity The number of IDs a window holds at most.
    */
-  public void recordTxMessage(String message) {
-    if (message == null) {
-      log.error("Sent null message");
-      return;
-    }
+  public void setDuplicateIdLimits(Duration window, int capacity) {
+    receivedIds = new DuplicateIdFilter(window, capacity);
+  }
 
-    Gson gson = GsonUtilities.getGson();
-    JsonArray array = gson.fromJson(message, JsonArray.class);
-    if (array == null) {
-      log.error("Failed to parse message: " + message);
+  /**
+   * Record a sent message from the frame it was sent as, without parsing the frame back.
+   *
+   * @param message The sent message.
+   */
+  public void recordTxMessage(OCPPMessage message) {
+    if (batch.get() != null) {
+      // Not written yet, flushBatch records it once the batch is
       return;
     }
-
-    String result;
-    if (array.get(0).getAsInt() == 3) {
-      String msgId = array.get(MESSAGE_ID_INDEX).getAsString();
-      String rxRequestName = rxRequestNames.get(msgId);
-      if (rxRequestName == null) {
-        log.error("Failed to find the CallRequest Name for message ID: " + msgId);
-        return;
+    this.notifySendListeners(message);
+    String frame = message.toJsonString();
+    if (!(message instanceof OCPPMessageResponse)) {
+      String requestName = null;
+      if (message instanceof OCPPMessageError) {
+        // A CALLERROR answers the request just as a CALLRESULT does
+        requestName = rxRequestNames.remove(message.getMessageID());
       }
-      JsonElement MsgName = new JsonPrimitive(rxRequestName);
-      JsonArray newArray = insertElementAt(array, 2, MsgName);
-      result = gson.toJson(newArray);
-    } else {
-      result = message;
+      this.journalTraffic(TrafficJournal.Direction.SENT, frame, requestName);
+      messageLog.recordSent(frame, null);
+      return;
     }
-    String timestamp = ZonedDateTime.now(ZoneOffset.UTC).toString();
-    String messageWithTimestamp = result.replaceFirst("\\[", "[\"" + timestamp + "\", ");
-    txMessages.add(messageWithTimestamp);
-    if (txMessages.size() > 50) {
-      txMessages.removeFirst();
+
+    String msgId = message.getMessageID();
+    String rxRequestName = rxRequestNames.remove(msgId);
+    this.journalTraffic(TrafficJournal.Direction.SENT, frame, rxRequestName);
+    if (rxRequestName == null) {
+      log.error("Failed to find the CallRequest Name for message ID: " + msgId);
+      return;
     }
+    messageLog.recordSent(frame, rxRequestName);
   }
 
   /**
-   * Record a received message.
+   * Record a received message. It is only formatted for the log when the log is read, so receiving
+   * a message does not parse it a second time.
    *
    * @param message The received message.
    */
@@ -193,28 +276,36 @@ public class OCPPWebSocketClient extends WebSocketClient {
       messageName = "Unknown";
     }
 
-    Gson gson = GsonUtilities.getGson();
-    JsonArray array = gson.fromJson(message, JsonArray.class);
-    if (array == null) {
-      log.error("Failed to parse message: " + message);
+    messageLog.recordReceived(message, messageName);
+    this.journalTraffic(TrafficJournal.Direction.RECEIVED, message, messageName);
+  }
+
+  /**
+   * Journal a frame we sent or received if we keep a traffic journal.
+   *
+   * @param direction If the frame was sent or received.
+   * @param frame The frame.
+   * @param action The action of the frame, or null to read it from a CALL.
+   */
+  private void journalTraffic(TrafficJournal.Direction direction, String frame, String action) {
+    TrafficJournal current = trafficJournal;
+    if (current == null) {
       return;
     }
-
-    String result;
-    if (array.get(0).getAsInt() == 2) { // remove the extra Message name
-      array.remove(NAME_INDEX);
-      result = gson.toJson(array);
-    } else {
-      result = message;
+    try {
+      current.append(direction, frame, action);
+    } catch (UncheckedIOException e) {
+      log.error("Failed to journal traffic: ", e);
     }
+  }
 
-    String timestamp = ZonedDateTime.now(ZoneOffset.UTC).toString();
-    String modifiedMessage =
-        result.replaceFirst("\\[", "[\"" + messageName + "\", \"" + timestamp + "\", ");
-    rxMessages.add(modifiedMessage);
-    if (rxMessages.size() > 50) {
-      rxMessages.removeFirst();
-    }
+  /**
+   * Set the number of frames kept in our message log, dropping what was recorded.
+   *
+   * @param capacity The number of frames of both directions.
+   */
+  public void setMessageLogCapacity(int capacity) {
+    messageLog.setCapacity(capacity);
   }
 
   /**
@@ -223,7 +314,7 @@ public class OCPPWebSocketClient extends WebSocketClient {
    * @return List of transmitted messages.
    */
   public List<String> getSentMessages() {
-    return txMessages;
+    return messageLog.getSentMessages();
   }
 
   /**
@@ -232,17 +323,37 @@ public class OCPPWebSocketClient extends WebSocketClient {
    * @return List of received messages.
    */
   public List<String> getReceivedMessages() {
-    return rxMessages;
+    return messageLog.getReceivedMessages();
   }
 
   /**
-   * Create an OCPP WebSocket Client.
+   * Create an OCPP WebSocket Client. The client does not connect until {@link #connectAsync()} or
+   * {@link #connectBlocking()} is called.
    *
    * @param serverUri The Websocket Address.
    */
   public OCPPWebSocketClient(
       final URI serverUri, StatusNotificationObserver statusNotificationObserver) {
+    this(serverUri, statusNotificationObserver, null);
+  }
+
+  /**
+   * Create an OCPP WebSocket Client using a specific transport.
+   *
+   * @param serverUri The Websocket Address.
+   * @param statusNotificationObserver The StatusNotification observer.
+   * @param transport The transport to connect with, null to use the default transport.
+   */
+  public OCPPWebSocketClient(
+      final URI serverUri,
+      StatusNotificationObserver statusNotificationObserver,
+      WebSocketTransport transport) {
     super(serverUri, new Draft_6455(), headers, CONNECT_TIMEOUT);
+    if (transport instanceof NioWebSocketTransport && !NioWebSocketTransport.supports(serverUri)) {
+      log.info("{} is not supported by the NIO transport, using the default transport", serverUri);
+      transport = null;
+    }
+    this.transport = transport;
     scheduler = new MessageScheduler(this);
 
     // Setup SSL if connecting over TLS
@@ -260,17 +371,350 @@ public class OCPPWebSocketClient extends WebSocketClient {
       }
     }
 
-    try {
-      this.connectBlocking();
-    } catch (InterruptedException e) {
-      // Do nothing, there are reconnectBlocking() calls later when sending messages
-    }
-    this.setConnectionLostTimeout(CONNECTION_LOST_TIMER);
     this.startConnectionLostTimer();
 
     this.statusNotificationObserver = statusNotificationObserver;
   }
 
+  /**
+   * Connect on a virtual thread, so booting many chargers does not wait on each connection. The
+   * queue holds its messages until the connect finished.
+   *
+   * @return Completed with whether the connection opened.
+   */
+  public CompletableFuture<Boolean> connectAsync() {
+    return this.connectInBackground("connect-", this::connectBlocking, false);
+  }
+
+  /**
+   * Connect on a virtual thread, reconnecting with backoff if it fails.
+   *
+   * @param name The prefix of the thread's name.
+   * @param connect Opens the connection, returning whether it opened.
+   * @param attempt If it is a reconnect attempt, counted in the {@link ReconnectMetrics}.
+   * @return Completed with whether the connection opened.
+   */
+  private CompletableFuture<Boolean> connectInBackground(
+      String name, Callable<Boolean> connect, boolean attempt) {
+    CompletableFuture<Boolean> future = new CompletableFuture<>();
+    connectFuture = future;
+    Thread.ofVirtual()
+        .name(name + getURI())
+        .start(
+            () -> {
+              boolean connected = false;
+              try {
+                connected = connect.call();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              } catch (Exception e) {
+                log.warn("Failed to connect to {}: ", getURI(), e);
+              } finally {
+                this.onConnectFinished(connected, attempt);
+                future.complete(connected);
+                // Send what was queued while connecting
+                signalWork();
+              }
+            });
+    return future;
+  }
+
+  /**
+   * Schedule a reconnect attempt after the next backoff delay, unless one is already scheduled or
+   * running. Until it connected the queue holds its messages.
+   */
+  public void scheduleReconnect() {
+    if (this.isConnecting()) {
+      // The connect in progress schedules one if it fails
+      return;
+    }
+    this.scheduleNextAttempt();
+  }
+
+  /** Schedule a reconnect attempt after the next backoff delay, unless one is already scheduled. */
+  private void scheduleNextAttempt() {
+    synchronized (this) {
+      if (shutDown || reconnectTask != null) {
+        return;
+      }
+      if (!disconnected) {
+        disconnected = true;
+        ReconnectMetrics.getShared().connectionLost();
+      }
+      long delay = backoff.nextDelayNanos();
+      log.info("Reconnecting to {} in {} ms", getURI(), TimeUnit.NANOSECONDS.toMillis(delay));
+      reconnectTask =
+          scheduler.registerFunctionJob(delay, TimeUnit.NANOSECONDS, this::attemptReconnect);
+    }
+  }
+
+  /**
+   * Check if we are waiting to reconnect or reconnecting.
+   *
+   * @return true until a scheduled reconnect connected.
+   */
+  public synchronized boolean isReconnecting() {
+    return reconnectTask != null || (disconnected && this.isConnecting());
+  }
+
+  /** Start the scheduled reconnect attempt, run by the scheduler on our charger loop. */
+  @VisibleForTesting
+  void attemptReconnect() {
+    synchronized (this) {
+      reconnectTask = null;
+      if (shutDown) {
+        return;
+      }
+      ReconnectMetrics.getShared().attemptStarted();
+      this.connectInBackground("reconnect-", this::reconnectBlocking, true);
+    }
+  }
+
+  /**
+   * Called once a connect finished, to reset the backoff or schedule the next attempt.
+   *
+   * @param connected If it connected.
+   * @param attempt If it was a reconnect attempt.
+   */
+  private void onConnectFinished(boolean connected, boolean attempt) {
+    if (attempt) {
+      ReconnectMetrics.getShared().attemptFinished(connected);
+    }
+    if (this.isShutDown()) {
+      if (connected) {
+        // The connect was already running when we were shut down
+        this.close(CloseFrame.GOING_AWAY, "Client shut down");
+      }
+      return;
+    }
+    if (!connected) {
+      this.scheduleNextAttempt();
+      return;
+    }
+    synchronized (this) {
+      backoff.reset();
+      if (disconnected) {
+        disconnected = false;
+        ReconnectMetrics.getShared().reconnected();
+      }
+    }
+  }
+
+  /**
+   * Check if a connect started by {@link #connectAsync()} has not finished yet.
+   *
+   * @return true while connecting.
+   */
+  public boolean isConnecting() {
+    return !connectFuture.isDone();
+  }
+
+  @Override
+  public boolean connectBlocking() throws InterruptedException {
+    if (transport == null) {
+      return super.connectBlocking();
+    }
+    connection = transport.connect(getURI(), headers, this);
+    return connection.isOpen();
+  }
+
+  @Override
+  public boolean reconnectBlocking() throws InterruptedException {
+    if (transport == null) {
+      return super.reconnectBlocking();
+    }
+    TransportConnection previous = connection;
+    if (previous != null) {
+      previous.close(CloseFrame.NORMAL, "Reconnecting");
+    }
+    return connectBlocking();
+  }
+
+  @Override
+  public void send(String text) {
+    List<String> frames = batch.get();
+    if (frames != null) {
+      if (!isOpen()) {
+        throw new WebsocketNotConnectedException();
+      }
+      frames.add(text);
+      return;
+    }
+    if (transport == null) {
+      super.send(text);
+      return;
+    }
+    TransportConnection current = connection;
+    if (current == null) {
+      throw new WebsocketNotConnectedException();
+    }
+    current.send(text);
+  }
+
+  /**
+   * Send text frames in one write, as one buffer handed to the connection's write thread or the
+   * transport.
+   *
+   * @param texts The texts to send, in order.
+   * @throws WebsocketNotConnectedException If we are not connected.
+   */
+  public void sendBatch(List<String> texts) {
+    if (transport != null) {
+      TransportConnection current = connection;
+      if (current == null) {
+        throw new WebsocketNotConnectedException();
+      }
+      current.sendBatch(texts);
+      return;
+    }
+    if (!super.isOpen() || !(getConnection() instanceof WebSocketImpl impl)) {
+      throw new WebsocketNotConnectedException();
+    }
+    Draft draft = impl.getDraft();
+    List<ByteBuffer> encoded = new ArrayList<>();
+    int size = 0;
+    for (String text : texts) {
+      for (Framedata frame : draft.createFrames(text, true)) {
+        ByteBuffer buffer = draft.createBinaryFrame(frame);
+        size += buffer.remaining();
+        encoded.add(buffer);
+      }
+    }
+    ByteBuffer frames = ByteBuffer.allocate(size);
+    encoded.forEach(frames::put);
+    impl.outQueue.add(frames.flip());
+  }
+
+  @Override
+  public boolean isOpen() {
+    if (transport == null) {
+      return super.isOpen();
+    }
+    TransportConnection current = connection;
+    return current != null && current.isOpen();
+  }
+
+  @Override
+  public void close() {
+    if (transport == null) {
+      super.close();
+      return;
+    }
+    close(CloseFrame.NORMAL, "");
+  }
+
+  /**
+   * Close our connection for good, as when the charger reboots and replaces us with a new client.
+   * The scheduled reconnect is cancelled, a connect still running is closed once it opens, and we
+   * no longer count as waiting to reconnect.
+   *
+   * @param code The websocket close code.
+   * @param message The close reason.
+   */
+  public void shutdown(int code, String message) {
+    synchronized (this) {
+      shutDown = true;
+      if (reconnectTask != null) {
+        scheduler.killJob(reconnectTask);
+        reconnectTask = null;
+      }
+      if (disconnected) {
+        disconnected = false;
+        ReconnectMetrics.getShared().reconnectAbandoned();
+      }
+    }
+    this.stopConnectionLostTimer();
+    this.close(code, message);
+  }
+
+  /**
+   * Check if we were shut down.
+   *
+   * @return true once {@link #shutdown(int, String)} was called.
+   */
+  public synchronized boolean isShutDown() {
+    return shutDown;
+  }
+
+  @Override
+  public void close(int code, String message) {
+    if (transport == null) {
+      super.close(code, message);
+      return;
+    }
+    TransportConnection current = connection;
+    if (current != null) {
+      current.close(code, message);
+    }
+  }
+
+  /**
+   * Watch our connection with the shared {@link LivenessMonitor}, replacing the per client timer
+   * thread of Java-WebSocket.
+   */
+  @Override
+  protected synchronized void startConnectionLostTimer() {
+    if (liveness == null) {
+      liveness = LivenessMonitor.getShared().register(this);
+    }
+  }
+
+  /** Stop watching our connection. */
+  @Override
+  protected synchronized void stopConnectionLostTimer() {
+    if (liveness != null) {
+      liveness.cancel();
+      liveness = null;
+    }
+  }
+
+  @Override
+  public void sendPing() {
+    if (transport == null) {
+      super.sendPing();
+      return;
+    }
+    TransportConnection current = connection;
+    if (current == null) {
+      throw new WebsocketNotConnectedException();
+    }
+    current.sendPing();
+  }
+
+  @Override
+  public void onWebsocketPong(WebSocket conn, Framedata f) {
+    super.onWebsocketPong(conn, f);
+    onPong();
+  }
+
+  @Override
+  public void onPong() {
+    LivenessMonitor.Registration current = liveness;
+    if (current != null) {
+      current.alive();
+    }
+  }
+
+  /** Run the pings and reports of the liveness monitor on our charger loop, off its wheel. */
+  @Override
+  public void execute(Runnable action) {
+    scheduler.registerFunctionJob(0, TimeUnit.NANOSECONDS, action);
+  }
+
+  @Override
+  public void onLivenessLost() {
+    // Drop the connection, its close schedules a reconnect
+    String reason = "The server did not respond with a pong in time";
+    if (transport == null) {
+      closeConnection(CloseFrame.ABNORMAL_CLOSE, reason);
+      return;
+    }
+    TransportConnection current = connection;
+    if (current != null) {
+      current.close(CloseFrame.ABNORMAL_CLOSE, reason);
+    }
+  }
+
   @Override
   public void onOpen(ServerHandshake serverHandshake) {
     String protocol = serverHandshake.getFieldValue("Sec-WebSocket-Protocol");
@@ -278,6 +722,11 @@ public class OCPPWebSocketClient extends WebSocketClient {
       log.error("Handshake failed no supported protocols provided: {}", protocol);
       throw new OCPPUnsupportedProtocol(protocol);
     }
+    // Java-WebSocket starts it itself, the NIO transport does not
+    if (Online) {
+      this.startConnectionLostTimer();
+    }
+    replayJournal();
   }
 
   /**
@@ -313,6 +762,100 @@ public class OCPPWebSocketClient extends WebSocketClient {
    */
   @VisibleForTesting
   void handleMessage(final String json) throws Exception {
+    OCPPFrameDecoder.DecodedFrame frame =
+        OCPPFrameDecoder.decode(json, this::getExpectedResponseClass);
+    if (frame == null || !this.handleDecodedFrame(json, frame)) {
+      this.parseMessage(json);
+    }
+  }
+
+  /**
+   * Get the class a response to one of our requests is bound to.
+   *
+   * @param msgId The message ID of the response.
+   * @return The response class, or null if no request is waiting for it.
+   */
+  private Class<? extends OCPPMessage> getExpectedResponseClass(final String msgId) {
+    OCPPMessage prevMessage = this.queue.getPreviousMessage(msgId);
+    if (prevMessage == null) {
+      return null;
+    }
+    return OCPPMessageRegistry.getShared().getComplement(prevMessage.getClass());
+  }
+
+  /**
+   * Handle a frame the streaming decoder has already bound, with the same checks and side effects
+   * as {@link #parseMessage(String)}.
+   *
+   * @param json The received message as a string.
+   * @param frame The decoded frame.
+   * @return False if the frame has to be parsed the slow way after all.
+   * @throws OCPPBadID The message ID was already received.
+   */
+  private boolean handleDecodedFrame(final String json, final OCPPFrameDecoder.DecodedFrame frame)
+      throws OCPPBadID {
+    String msgId = frame.getMessageId();
+    boolean isRequest = frame.getCallId() == OCPPMessage.CALL_ID_REQUEST;
+    OCPPMessage prevMessage = null;
+    if (!isRequest) {
+      prevMessage = this.queue.getPreviousMessage(msgId);
+      if (prevMessage == null) {
+        // It timed out since the decoder looked for it
+        return false;
+      }
+    }
+
+    if (!this.receivedIds.add(msgId)) {
+      log.error("Received duplicate ID {}", msgId);
+      throw new OCPPBadID(msgId, json);
+    }
+
+    if (isRequest) {
+      this.recordRxMessage(json, frame.getAction());
+      rxRequestNames.put(msgId, frame.getAction());
+    } else {
+      this.clearPreviousMessage(prevMessage);
+      OCPPMessageInfo info = OCPPMessageRegistry.getShared().getInfo(prevMessage.getClass());
+      this.recordRxMessage(json, info.messageName());
+    }
+
+    this.dispatchMessage(msgId, isRequest, frame.getMessageClass(), frame.getMessage());
+    return true;
+  }
+
+  /**
+   * Validate a received message and hand it to its listeners.
+   *
+   * @param msgId The message ID.
+   * @param isRequest If the message is a request.
+   * @param messageClass The class of the message.
+   * @param message The message.
+   */
+  private void dispatchMessage(
+      final String msgId,
+      final boolean isRequest,
+      final Class<?> messageClass,
+      final OCPPMessage message) {
+    message.setMessageID(msgId);
+
+    String violations = MessageValidator.findViolations(message);
+    if (violations != null) {
+      if (isRequest) {
+        this.pushCallError(ErrorCode.FormatViolation, violations, msgId);
+      }
+      return;
+    }
+
+    this.handleReceivedMessage(messageClass, message);
+  }
+
+  /**
+   * Parse and handle an OCPP Message through a JsonElement tree, for frames the streaming decoder
+   * leaves alone such as errors and malformed frames.
+   *
+   * @param json The received message as a string.
+   */
+  private void parseMessage(final String json) throws Exception {
     Gson gson = GsonUtilities.getGson();
     try {
       JsonElement element = gson.fromJson(json, JsonElement.class);
@@ -330,13 +873,11 @@ public class OCPPWebSocketClient extends WebSocketClient {
       JsonArray array = element.getAsJsonArray();
       String msgId = array.get(MESSAGE_ID_INDEX).getAsString();
 
-      if (this.receivedIDs.contains(msgId)) {
+      if (!this.receivedIds.add(msgId)) {
         log.error("Received duplicate ID {}", msgId);
         throw new OCPPBadID(msgId, json);
       }
 
-      this.receivedIDs.add(msgId);
-
       ParseResults results;
       int callId = array.get(CALL_ID_INDEX).getAsInt();
       boolean isRequest = callId == OCPPMessage.CALL_ID_REQUEST;
@@ -360,7 +901,8 @@ public class OCPPWebSocketClient extends WebSocketClient {
         return;
       }
 
-      Class<?> messageClass = OCPPMessage.getMessageByName(results.getMessageType());
+      Class<?> messageClass =
+          OCPPMessageRegistry.getShared().getMessageClass(results.getMessageType());
       if (messageClass == null) {
         log.warn(
             "Could not find matching class for message name {}: {}",
@@ -373,17 +915,7 @@ public class OCPPWebSocketClient extends WebSocketClient {
       }
 
       OCPPMessage message = (OCPPMessage) gson.fromJson(results.getData(), messageClass);
-      message.setMessageID(msgId);
-
-      if (!MessageValidator.isValid(message)) {
-        if (isRequest) {
-          this.pushCallError(
-              ErrorCode.FormatViolation, MessageValidator.log_message(message), msgId);
-        }
-        return;
-      }
-
-      this.handleReceivedMessage(messageClass, message);
+      this.dispatchMessage(msgId, isRequest, messageClass, message);
     } catch (JsonSyntaxException exception) {
       log.warn("Failed to parse message: {}", json, exception);
     }
@@ -392,6 +924,15 @@ public class OCPPWebSocketClient extends WebSocketClient {
   @Override
   public void onClose(int i, String s, boolean b) {
     log.info("Connection closed by {}: {} {}", (b ? "remote" : "local"), i, s);
+    // Java-WebSocket stops it itself, a closed NIO connection would stay watched
+    this.stopConnectionLostTimer();
+    // Their answers cannot arrive anymore, they are replayed once we reconnect
+    this.releaseJournalledInFlight();
+    if (!b && (i == CloseFrame.NORMAL || i == CloseFrame.GOING_AWAY)) {
+      // We closed it on purpose
+      return;
+    }
+    this.scheduleReconnect();
   }
 
   @Override
@@ -455,8 +996,8 @@ public class OCPPWebSocketClient extends WebSocketClient {
       return null;
     }
 
-    this.queue.clearPreviousMessage(prevMessage);
-    OCPPMessageInfo info = prevMessage.getClass().getAnnotation(OCPPMessageInfo.class);
+    this.clearPreviousMessage(prevMessage);
+    OCPPMessageInfo info = OCPPMessageRegistry.getShared().getInfo(prevMessage.getClass());
 
     String messageName = info.messageName() + "Response";
     this.recordRxMessage(json, info.messageName());
@@ -491,7 +1032,7 @@ public class OCPPWebSocketClient extends WebSocketClient {
       }
 
       Class<?> complementClass = prevMessage.getClass();
-      this.queue.clearPreviousMessage(prevMessage);
+      this.clearPreviousMessage(prevMessage);
       prevMessage.setErrored(true);
       if (this.onReceiveMessage.containsKey(complementClass)) {
         for (var listener : this.onReceiveMessage.get(complementClass)) {
@@ -515,7 +1056,7 @@ public class OCPPWebSocketClient extends WebSocketClient {
       this.handleReceivedMessage(OCPPMessageError.class, error);
       log.warn("Received OCPPError {}", error);
 
-      OCPPMessageInfo info = prevMessage.getClass().getAnnotation(OCPPMessageInfo.class);
+      OCPPMessageInfo info = OCPPMessageRegistry.getShared().getInfo(prevMessage.getClass());
       this.recordRxMessage(json, info.messageName());
 
     } catch (IllegalArgumentException exception) {
@@ -596,6 +1137,26 @@ public class OCPPWebSocketClient extends WebSocketClient {
         .add(onReceiveMessageListener);
   }
 
+  /**
+   * Register a listener for when an OCPP Message is written to the connection, which may be long
+   * after it was pushed if it waited offline or in the queue.
+   *
+   * @param currClass The class we want to set a listener for.
+   * @param onSendMessageListener The listener.
+   * @throws OCPPBadClass Class given was not a OCPPMessage.
+   */
+  public void onSendMessage(
+      final Class<?> currClass, final OnPushOCPPMessageListener onSendMessageListener)
+      throws OCPPBadClass {
+    if (!OCPPMessage.class.isAssignableFrom(currClass)) {
+      log.warn("Bad Class given to onSendMessage: {}", currClass);
+      throw new OCPPBadClass();
+    }
+    this.onSendMessage
+        .computeIfAbsent(currClass, k -> new CopyOnWriteArrayList<>())
+        .add(onSendMessageListener);
+  }
+
   /**
    * Remove all listeners for an OCPP message name.
    *
@@ -638,35 +1199,190 @@ public class OCPPWebSocketClient extends WebSocketClient {
   }
 
   /**
-   * Add a OCPPMessage to our send queue.
+   * Add a OCPPMessage to our send queue. The message is validated first unless this client trusts
+   * its outbound messages.
    *
    * @param message the message to be sent.
    */
   public boolean pushMessage(final OCPPMessage message) {
-    if (!MessageValidator.isValid(message)) {
-      throw new IllegalArgumentException(MessageValidator.log_message(message));
+    if (!trustOutbound) {
+      String violations = MessageValidator.findViolations(message);
+      if (violations != null) {
+        throw new IllegalArgumentException(violations);
+      }
+    }
+
+    if (!Online) {
+      return this.pushOfflineMessage(message);
     }
 
     boolean success = queue.pushMessage(message);
     if (success) {
-      Optional.ofNullable(this.onPushMessage.get(message.getClass()))
-          .ifPresent(
-              listeners ->
-                  listeners.forEach(
-                      listener -> {
-                        listener.onPush(new OnPushOCPPMessage(message, this));
-                      }));
+      this.journalMessage(message);
+      this.notifyPushListeners(message);
+      signalWork();
     }
     return success;
   }
 
+  /**
+   * Hold a message pushed while offline in the offline buffer until we go back online.
+   *
+   * @param message the message to be sent.
+   * @return false if an equal message is already buffered.
+   */
+  private boolean pushOfflineMessage(final OCPPMessage message) {
+    OCPPMessage buffered = offlineBuffer.offer(message);
+    if (buffered == null) {
+      return false;
+    }
+    this.journalMessage(buffered);
+    this.notifyPushListeners(message);
+    if (Online) {
+      // We went online while buffering, do not leave it behind
+      this.flushOfflineBuffer();
+    }
+    return true;
+  }
+
+  /**
+   * Tell the push listeners of a message's type it was pushed.
+   *
+   * @param message The pushed message.
+   */
+  private void notifyPushListeners(final OCPPMessage message) {
+    Optional.ofNullable(this.onPushMessage.get(message.getClass()))
+        .ifPresent(
+            listeners ->
+                listeners.forEach(
+                    listener -> {
+                      listener.onPush(new OnPushOCPPMessage(message, this));
+                    }));
+  }
+
+  /**
+   * Tell the send listeners of a message's type it was written to the connection.
+   *
+   * @param message The sent message.
+   */
+  private void notifySendListeners(final OCPPMessage message) {
+    Optional.ofNullable(this.onSendMessage.get(message.getClass()))
+        .ifPresent(
+            listeners ->
+                listeners.forEach(
+                    listener -> {
+                      listener.onPush(new OnPushOCPPMessage(message, this));
+                    }));
+  }
+
+  /** Queue the messages buffered while offline, in the order they were pushed. */
+  private void flushOfflineBuffer() {
+    List<OCPPMessage> buffered = offlineBuffer.drain();
+    if (buffered.isEmpty()) {
+      return;
+    }
+    for (OCPPMessage message : buffered) {
+      queue.pushMessage(message);
+    }
+    log.info(
+        "Sending {} messages buffered while offline to {}, dropped so far: {}",
+        buffered.size(),
+        getURI(),
+        offlineBuffer.getDropped());
+    signalWork();
+  }
+
   /**
    * Add a OCPPMessage to the front of our send queue.
    *
    * @param prioMessage the message to be sent.
    */
   public boolean pushPriorityMessage(final OCPPMessage prioMessage) {
-    return queue.pushPriorityMessage(prioMessage);
+    boolean success = queue.pushPriorityMessage(prioMessage);
+    if (success) {
+      this.journalMessage(prioMessage);
+      signalWork();
+    }
+    return success;
+  }
+
+  /**
+   * Journal a pushed message if it is a transaction message and we keep a journal.
+   *
+   * @param message The pushed message.
+   */
+  private void journalMessage(final OCPPMessage message) {
+    OutboundJournal current = journal;
+    if (current == null) {
+      return;
+    }
+    try {
+      current.append(message);
+    } catch (UncheckedIOException e) {
+      log.error("Failed to journal {}: ", message.getMessageID(), e);
+    }
+  }
+
+  /**
+   * Queue every journalled message that was not answered, in the order they were pushed, ahead of
+   * the transaction messages queued since. A pending message still queued is moved into its place
+   * in that order, so a transaction's MeterValues or StopTransaction are never sent before its
+   * StartTransaction. Messages in flight on the current connection are left to their answer. A
+   * replayed message keeps its message ID, so the ID is forgotten by {@link #receivedIds} in case a
+   * late answer to an earlier send of it was received, or its real answer would be rejected as a
+   * duplicate.
+   */
+  public void replayJournal() {
+    OutboundJournal current = journal;
+    if (current == null) {
+      return;
+    }
+    List<OCPPMessage> pending = current.getPending();
+    Set<String> queued = queue.getQueuedMessageIds();
+    int replayed = 0;
+    // Each replayed message goes in front of the ones after it
+    for (int i = pending.size() - 1; i >= 0; i--) {
+      OCPPMessage message = pending.get(i);
+      String messageId = message.getMessageID();
+      if (queue.getPreviousMessage(messageId) != null) {
+        continue;
+      }
+      if (queued.contains(messageId)) {
+        OCPPMessage withdrawn = queue.withdraw(messageId);
+        if (withdrawn == null) {
+          // It is being sent right now
+          continue;
+        }
+        message = withdrawn;
+      }
+      if (queue.pushPriorityMessage(message)) {
+        receivedIds.remove(messageId);
+        replayed++;
+      }
+    }
+    if (replayed > 0) {
+      log.info("Replaying {} journalled messages to {}", replayed, getURI());
+      signalWork();
+    }
+  }
+
+  /**
+   * Stop waiting for the answers to the journalled messages in flight, as they were lost with our
+   * connection, so {@link #replayJournal()} sends them again.
+   */
+  private void releaseJournalledInFlight() {
+    OutboundJournal current = journal;
+    if (current == null) {
+      return;
+    }
+    for (String messageId : current.getPendingIds()) {
+      queue.getInFlight().remove(messageId);
+    }
+  }
+
+  /** Wake the charger loop so it processes our queue and scheduler. */
+  public void signalWork() {
+    wakeup.signal();
   }
 
   /**
@@ -696,24 +1412,137 @@ public class OCPPWebSocketClient extends WebSocketClient {
     return queue.isBusy();
   }
 
+  /**
+   * Return the number of queued messages of every priority.
+   *
+   * @return The depth of each priority.
+   */
+  public Map<MessagePriority, Integer> getQueueDepths() {
+    return queue.getQueueDepths();
+  }
+
+  /**
+   * Return the number of requests waiting for an answer.
+   *
+   * @return The number of requests in flight.
+   */
+  public int getInFlightCount() {
+    return queue.getInFlightCount();
+  }
+
+  /**
+   * Return how long the oldest request in flight has waited for its answer.
+   *
+   * @return The age, zero if no request is in flight.
+   */
+  public Duration getOldestInFlightAge() {
+    return queue.getOldestInFlightAge();
+  }
+
+  /**
+   * Return the number of calls we send before waiting for an answer.
+   *
+   * @return The pipelining window, one under OCPP 1.6.
+   */
+  public int getPipelineWindow() {
+    return queue.getPipelineWindow();
+  }
+
+  /**
+   * Set the number of calls we send before waiting for an answer. Anything above one breaks OCPP
+   * 1.6's single outstanding call and is only meant for stress testing a Central System.
+   *
+   * @param window The pipelining window.
+   */
+  public void setPipelineWindow(int window) {
+    queue.setPipelineWindow(window);
+    signalWork();
+  }
+
+  /**
+   * Return the sizes of what we keep by message ID, which must stay level over a long run.
+   *
+   * @return The number of entries of each, by name.
+   */
+  public Map<String, Integer> getCorrelationSizes() {
+    Map<String, Integer> sizes = new LinkedHashMap<>();
+    sizes.put("requestNames", rxRequestNames.size());
+    sizes.put("heartbeats", scheduler.getTime().getPendingHeartbeatCount());
+    sizes.put("inFlight", queue.getInFlightCount());
+    sizes.put("receivedIds", receivedIds.size());
+    return sizes;
+  }
+
+  /**
+   * Return the answer latencies of our calls, by the pipelining window they were sent under.
+   *
+   * @return The latency statistics.
+   */
+  public SortedMap<Integer, LatencyHistogram.Snapshot> getLatencyStatistics() {
+    return queue.getLatencyStatistics();
+  }
+
   /**
    * Pop and send the message on top of the send queue.
    *
    * @return The Send OCPP Message.
    */
   public OCPPMessage popMessage() throws OCPPMessageFailure, InterruptedException {
-    if (!this.isOnline()) {
+    if (!this.isOnline() || this.isConnecting() || this.isReconnecting()) {
       return null;
     }
     return queue.popMessage(this);
   }
 
-  /** Pop the entire send queue. */
+  /**
+   * Pop the entire send queue. With {@link #isBatchedFlush()} the frames are collected as they are
+   * popped and written together once the pass ends, so a burst costs one write instead of one per
+   * frame. Which messages are popped is unchanged, a call still waits for the window.
+   */
   public void popAllMessages() throws OCPPMessageFailure, InterruptedException {
-    if (!this.isOnline()) {
+    if (!this.isOnline() || this.isConnecting() || this.isReconnecting()) {
+      return;
+    }
+    if (!batchedFlush) {
+      queue.popAllMessages(this);
+      return;
+    }
+    List<String> frames = new ArrayList<>();
+    List<OCPPMessage> sent;
+    batch.set(frames);
+    try {
+      sent = queue.popAllMessages(this);
+    } finally {
+      batch.remove();
+    }
+    flushBatch(frames, sent);
+  }
+
+  /**
+   * Write the frames of a pass and record its messages as sent, or put them back in the queue if we
+   * are not connected.
+   *
+   * @param frames The frames of the pass.
+   * @param sent The messages they belong to.
+   * @throws OCPPMessageFailure If a message put back ran out of tries.
+   */
+  private void flushBatch(List<String> frames, List<OCPPMessage> sent) throws OCPPMessageFailure {
+    if (frames.isEmpty()) {
+      return;
+    }
+    try {
+      sendBatch(frames);
+    } catch (WebsocketNotConnectedException ex) {
+      log.warn("Connection lost before writing {} batched frames, requeueing them", frames.size());
+      flushStatistics.recordFailure();
+      scheduleReconnect();
+      queue.requeue(sent, ex);
       return;
     }
-    queue.popAllMessages(this);
+    flushStatistics.record(frames.size());
+    for (OCPPMessage message : sent) {
+      this.recordTxMessage(message);
+    }
   }
 
   /**
@@ -732,6 +1561,16 @@ public class OCPPWebSocketClient extends WebSocketClient {
    */
   public void clearPreviousMessage(final OCPPMessage msg) {
     queue.clearPreviousMessage(msg);
+    OutboundJournal current = journal;
+    if (current != null) {
+      try {
+        current.acknowledge(msg.getMessageID());
+      } catch (UncheckedIOException e) {
+        log.error("Failed to acknowledge {} in the journal: ", msg.getMessageID(), e);
+      }
+    }
+    // A response may have freed the queue from waiting on a busy request
+    signalWork();
   }
 
   /** Take the websocket client offline. */
@@ -742,8 +1581,12 @@ public class OCPPWebSocketClient extends WebSocketClient {
 
   /** Take our websocket client back online */
   public void goOnline() {
-    statusNotificationObserver.onClientGoOnline();
     this.startConnectionLostTimer();
     this.Online = true;
+    this.flushOfflineBuffer();
+    // Answers that arrived while offline were dropped
+    this.releaseJournalledInFlight();
+    replayJournal();
+    signalWork();
   }
 }
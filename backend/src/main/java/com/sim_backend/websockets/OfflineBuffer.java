@@ -0,0 +1,220 @@
+package com.sim_backend.websockets;
+
+import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.types.DedupKey;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.Getter;
+
+/**
+ * The messages pushed while the client is offline, bounded so a long outage does not grow the send
+ * queue without limit. Each type has its own policy:
+ *
+ * <ul>
+ *   <li>MeterValues coalesce into the latest buffered frame of the same connector and transaction,
+ *       as one frame with several {@code meterValue} entries, up to {@link
+ *       #DEFAULT_MAX_METER_VALUES_PER_FRAME}.
+ *   <li>Messages whose {@link DedupKey} keeps the latest, such as the StatusNotifications of a
+ *       connector, collapse to the latest.
+ *   <li>Anything else is kept as it is, once per key.
+ * </ul>
+ *
+ * <p>Once full, the oldest message that is not a transaction message is dropped to make room, or
+ * the oldest message if all are. Collapsed and dropped messages are counted by type.
+ */
+public class OfflineBuffer {
+
+  /** The default number of messages buffered. */
+  public static final int DEFAULT_CAPACITY = 1000;
+
+  /** The default number of samples coalesced into one MeterValues frame. */
+  public static final int DEFAULT_MAX_METER_VALUES_PER_FRAME = 50;
+
+  /** The number of messages buffered. */
+  @Getter private final int capacity;
+
+  /** The number of samples coalesced into one MeterValues frame. */
+  @Getter private final int maxMeterValuesPerFrame;
+
+  /** The buffered messages in the order they were pushed. */
+  private final List<OCPPMessage> messages = new ArrayList<>();
+
+  /** The keys of the buffered messages. */
+  private final Set<DedupKey> keys = new HashSet<>();
+
+  /** The messages never sent, by message name. */
+  private final Map<String, Long> dropped = new TreeMap<>();
+
+  /** The number of MeterValues merged into an earlier frame. */
+  private long coalesced;
+
+  /** Create a buffer with the default limits. */
+  public OfflineBuffer() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_METER_VALUES_PER_FRAME);
+  }
+
+  /**
+   * Create a buffer.
+   *
+   * @param capacity The number of messages buffered.
+   * @param maxMeterValuesPerFrame The number of samples coalesced into one MeterValues frame.
+   */
+  public OfflineBuffer(int capacity, int maxMeterValuesPerFrame) {
+    if (capacity < 1 || maxMeterValuesPerFrame < 1) {
+      throw new IllegalArgumentException("Offline buffer limits must be positive");
+    }
+    this.capacity = capacity;
+    this.maxMeterValuesPerFrame = maxMeterValuesPerFrame;
+  }
+
+  /**
+   * Buffer a message.
+   *
+   * @param message The pushed message.
+   * @return The message as buffered, a coalesced MeterValues frame keeps the message ID of the
+   *     frame it was merged into, or null if a message of its key is already buffered.
+   */
+  public synchronized OCPPMessage offer(OCPPMessage message) {
+    DedupKey key = message.getDedupKey();
+    if (key.latest()) {
+      this.collapse(key);
+    } else if (keys.contains(key)) {
+      return null;
+    }
+    if (message instanceof MeterValues meterValues) {
+      OCPPMessage merged = this.coalesce(meterValues);
+      if (merged != null) {
+        return merged;
+      }
+    }
+
+    messages.add(message);
+    keys.add(key);
+    if (messages.size() > capacity) {
+      this.evict();
+    }
+    return message;
+  }
+
+  /**
+   * Take every buffered message.
+   *
+   * @return The messages in the order they were pushed.
+   */
+  public synchronized List<OCPPMessage> drain() {
+    List<OCPPMessage> drained = new ArrayList<>(messages);
+    messages.clear();
+    keys.clear();
+    return drained;
+  }
+
+  /**
+   * Get the number of buffered messages.
+   *
+   * @return The number of messages.
+   */
+  public synchronized int size() {
+    return messages.size();
+  }
+
+  /**
+   * Get the messages dropped so far.
+   *
+   * @return The number of dropped messages by message name.
+   */
+  public synchronized Map<String, Long> getDropped() {
+    return new TreeMap<>(dropped);
+  }
+
+  /**
+   * Get the number of MeterValues merged into an earlier frame so far.
+   *
+   * @return The number of coalesced MeterValues.
+   */
+  public synchronized long getCoalesced() {
+    return coalesced;
+  }
+
+  /**
+   * Merge MeterValues into the latest buffered frame of its connector and transaction.
+   *
+   * @param meterValues The pushed MeterValues.
+   * @return The merged frame, or null if there is none to merge into or it is full.
+   */
+  private OCPPMessage coalesce(MeterValues meterValues) {
+    for (int i = messages.size() - 1; i >= 0; i--) {
+      if (!(messages.get(i) instanceof MeterValues latest)
+          || latest.getConnectorId() != meterValues.getConnectorId()
+          || !Objects.equals(latest.getTransactionId(), meterValues.getTransactionId())) {
+        continue;
+      }
+      int samples = latest.getMeterValue().size() + meterValues.getMeterValue().size();
+      if (samples > maxMeterValuesPerFrame) {
+        return null;
+      }
+      List<MeterValues.MeterValue> combined = new ArrayList<>(samples);
+      combined.addAll(latest.getMeterValue());
+      combined.addAll(meterValues.getMeterValue());
+      MeterValues merged =
+          new MeterValues(latest.getConnectorId(), latest.getTransactionId(), combined);
+      merged.setMessageID(latest.getMessageID());
+      messages.set(i, merged);
+      coalesced++;
+      return merged;
+    }
+    return null;
+  }
+
+  /**
+   * Drop the buffered message of a key, a newer one replaces it.
+   *
+   * @param key The key of the pushed message.
+   */
+  private void collapse(DedupKey key) {
+    if (!keys.remove(key)) {
+      return;
+    }
+    Iterator<OCPPMessage> iterator = messages.iterator();
+    while (iterator.hasNext()) {
+      OCPPMessage buffered = iterator.next();
+      if (key.equals(buffered.getDedupKey())) {
+        iterator.remove();
+        this.countDrop(buffered);
+        return;
+      }
+    }
+  }
+
+  /** Drop the oldest message that is not a transaction message, or the oldest if all are. */
+  private void evict() {
+    int victim = 0;
+    for (int i = 0; i < messages.size(); i++) {
+      if (!OutboundJournal.isJournalled(messages.get(i))) {
+        victim = i;
+        break;
+      }
+    }
+    OCPPMessage evicted = messages.remove(victim);
+    keys.remove(evicted.getDedupKey());
+    this.countDrop(evicted);
+  }
+
+  /**
+   * Count a message that will never be sent.
+   *
+   * @param message The dropped message.
+   */
+  private void countDrop(OCPPMessage message) {
+    OCPPMessageInfo info = OCPPMessageRegistry.getShared().getInfo(message.getClass());
+    String name = info != null ? info.messageName() : message.getClass().getSimpleName();
+    dropped.merge(name, 1L, Long::sum);
+  }
+}
@@ -0,0 +1,440 @@
+package com.sim_backend.websockets;
+
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.messages.StartTransaction;
+import com.sim_backend.websockets.messages.StopTransaction;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A durable journal of the transaction messages a charger pushed and has not had an answer to, so
+ * they are delivered after a reconnect or reboot as a real charger must.
+ *
+ * <p>The journal is an append-only file mapped into memory. Pushing a StartTransaction,
+ * StopTransaction or transaction MeterValues appends its frame, and its answer appends an
+ * acknowledgement of its message ID. A record is written body first and its length last, and
+ * carries a CRC32C of its type and body, so a record torn or corrupted by a crash reads as the end
+ * of the journal. Reopening the file reads back the messages that were not acknowledged, in the
+ * order they were pushed. Once acknowledged records take up as much space as the pending ones, the
+ * journal is compacted into a new file holding only the pending messages.
+ *
+ * <p>Every record survives the simulator crashing, as the mapped pages belong to the file.
+ * Appending a StartTransaction or StopTransaction also forces the journal up to it to disk, so it
+ * and every record before it survive a power loss or kernel crash as well. MeterValues and
+ * acknowledgements alone are not forced, a power loss can lose those written since the last
+ * StartTransaction or StopTransaction, so lost MeterValues are not delivered and lost
+ * acknowledgements deliver their message again.
+ */
+@Slf4j
+public class OutboundJournal implements Closeable {
+
+  /** The size a new journal is mapped with. */
+  public static final int INITIAL_SIZE = 64 * 1024;
+
+  /** A record of a pushed message, its body is the frame. */
+  private static final byte APPEND = 'A';
+
+  /** A record of an answered message, its body is the message ID. */
+  private static final byte ACKNOWLEDGE = 'K';
+
+  /** The length, checksum and type preceding the body of a record. */
+  private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Byte.BYTES;
+
+  /** Where the checksum of a record is. */
+  private static final int CHECKSUM_OFFSET = Integer.BYTES;
+
+  /** Where the type of a record is. */
+  private static final int TYPE_OFFSET = Integer.BYTES + Integer.BYTES;
+
+  /** The journal file. */
+  @Getter private final Path path;
+
+  /** The frames of the pending messages by message ID, in the order they were pushed. */
+  private final Map<String, String> pending = new LinkedHashMap<>();
+
+  /** The open journal file. */
+  private FileChannel channel;
+
+  /** The journal file mapped into memory. */
+  private MappedByteBuffer buffer;
+
+  /** Where the next record is written. */
+  private int writePosition;
+
+  /** Where the records forced to disk end. */
+  private int forcedPosition;
+
+  /** The bytes taken by the records of pending messages. */
+  private long liveBytes;
+
+  /**
+   * Create a journal, use {@link #open(Path)}.
+   *
+   * @param path The journal file.
+   */
+  private OutboundJournal(Path path) {
+    this.path = path;
+  }
+
+  /**
+   * Open a journal, creating it if it does not exist, and read back its pending messages.
+   *
+   * @param path The journal file.
+   * @return The open journal.
+   * @throws IOException If the journal cannot be opened.
+   */
+  public static OutboundJournal open(Path path) throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    OutboundJournal journal = new OutboundJournal(path);
+    journal.map(path, INITIAL_SIZE);
+    journal.readRecords();
+    return journal;
+  }
+
+  /**
+   * Check if a message is journalled, the transaction messages a Central System must receive.
+   *
+   * @param message The message.
+   * @return True for StartTransaction, StopTransaction and MeterValues of a transaction.
+   */
+  public static boolean isJournalled(OCPPMessage message) {
+    return message instanceof StartTransaction
+        || message instanceof StopTransaction
+        || (message instanceof MeterValues meterValues && meterValues.getTransactionId() != null);
+  }
+
+  /**
+   * Journal a pushed message. A pending message with the same message ID is updated to the new
+   * frame and keeps its place, as when MeterValues are coalesced.
+   *
+   * @param message The message.
+   * @return True if it was journalled, false if it is not journalled or is already pending as is.
+   * @throws UncheckedIOException If the journal cannot grow.
+   */
+  public synchronized boolean append(OCPPMessage message) {
+    if (!isJournalled(message)) {
+      return false;
+    }
+    String messageId = message.getMessageID();
+    String frame = message.toJsonString();
+    String previous = pending.get(messageId);
+    if (frame.equals(previous)) {
+      return false;
+    }
+    int size = this.write(APPEND, frame);
+    if (previous != null) {
+      liveBytes -= recordSize(previous);
+    }
+    liveBytes += size;
+    pending.put(messageId, frame);
+    if (message instanceof StartTransaction || message instanceof StopTransaction) {
+      this.force();
+    }
+    return true;
+  }
+
+  /**
+   * Acknowledge a message has been answered, so it is not delivered again.
+   *
+   * @param messageId The message ID.
+   * @return True if the message was pending.
+   * @throws UncheckedIOException If the journal cannot grow.
+   */
+  public synchronized boolean acknowledge(String messageId) {
+    String frame = pending.remove(messageId);
+    if (frame == null) {
+      return false;
+    }
+    liveBytes -= recordSize(frame);
+    this.write(ACKNOWLEDGE, messageId);
+    return true;
+  }
+
+  /**
+   * Get the pending messages, decoded from their frames with their message IDs.
+   *
+   * @return The messages in the order they were pushed.
+   */
+  public synchronized List<OCPPMessage> getPending() {
+    List<OCPPMessage> messages = new ArrayList<>(pending.size());
+    for (String frame : pending.values()) {
+      OCPPFrameDecoder.DecodedFrame decoded = OCPPFrameDecoder.decode(frame, messageId -> null);
+      if (decoded == null) {
+        log.warn("Skipping a journalled frame that cannot be decoded: {}", frame);
+        continue;
+      }
+      OCPPMessage message = decoded.getMessage();
+      message.setMessageID(decoded.getMessageId());
+      messages.add(message);
+    }
+    return messages;
+  }
+
+  /**
+   * Get the message IDs of the pending messages.
+   *
+   * @return The message IDs in the order their messages were pushed.
+   */
+  public synchronized List<String> getPendingIds() {
+    return new ArrayList<>(pending.keySet());
+  }
+
+  /**
+   * Get the number of pending messages.
+   *
+   * @return The number of messages that were not answered.
+   */
+  public synchronized int size() {
+    return pending.size();
+  }
+
+  /**
+   * Get the bytes taken by the journal's records.
+   *
+   * @return The bytes written, including acknowledged records not compacted yet.
+   */
+  public synchronized int getUsedBytes() {
+    return writePosition;
+  }
+
+  /**
+   * Get the bytes of the journal's records forced to disk.
+   *
+   * @return The bytes that survive a power loss.
+   */
+  public synchronized int getForcedBytes() {
+    return forcedPosition;
+  }
+
+  /**
+   * Rewrite the journal with only its pending messages, dropping every acknowledged record.
+   *
+   * @throws IOException If the journal cannot be rewritten.
+   */
+  public synchronized void compact() throws IOException {
+    Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+    int size = INITIAL_SIZE;
+    while (size < liveBytes + Integer.BYTES) {
+      size *= 2;
+    }
+    try (FileChannel out =
+        FileChannel.open(
+            compacted,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      for (String frame : pending.values()) {
+        out.write(encode(APPEND, frame));
+      }
+      out.force(true);
+    }
+
+    channel.close();
+    Files.move(
+        compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    // The old mapping is released once it is collected
+    this.map(path, size);
+    writePosition = (int) liveBytes;
+    forcedPosition = writePosition;
+  }
+
+  /**
+   * Flush the journal to disk and close it.
+   *
+   * @throws IOException If the journal cannot be flushed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel.isOpen()) {
+      buffer.force();
+      channel.close();
+    }
+  }
+
+  /**
+   * Open and map the journal file.
+   *
+   * @param file The journal file.
+   * @param minimumSize The least size to map it with.
+   * @throws IOException If the file cannot be mapped.
+   */
+  private void map(Path file, int minimumSize) throws IOException {
+    channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long size = Math.max(channel.size(), minimumSize);
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Journal " + file + " is too large: " + size);
+    }
+    buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+  }
+
+  /** Read the records of the journal, rebuilding the pending messages. */
+  private void readRecords() {
+    int position = 0;
+    while (position + HEADER_SIZE <= buffer.capacity()) {
+      int length = buffer.getInt(position);
+      if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+        break;
+      }
+      int checksum = buffer.getInt(position + CHECKSUM_OFFSET);
+      byte type = buffer.get(position + TYPE_OFFSET);
+      byte[] body = new byte[length];
+      buffer.get(position + HEADER_SIZE, body);
+      if (checksum(type, body) != checksum) {
+        break;
+      }
+      String text = new String(body, StandardCharsets.UTF_8);
+      if (type == APPEND) {
+        String messageId = messageIdOf(text);
+        if (messageId != null) {
+          // A later frame of a pending message replaces it in place
+          String previous = pending.put(messageId, text);
+          if (previous != null) {
+            liveBytes -= recordSize(previous);
+          }
+          liveBytes += HEADER_SIZE + length;
+        }
+      } else if (type == ACKNOWLEDGE) {
+        String frame = pending.remove(text);
+        if (frame != null) {
+          liveBytes -= recordSize(frame);
+        }
+      } else {
+        break;
+      }
+      position += HEADER_SIZE + length;
+    }
+    writePosition = position;
+    forcedPosition = position;
+  }
+
+  /**
+   * Write a record at the end of the journal, compacting or growing it if it is full.
+   *
+   * @param type The type of the record.
+   * @param text The body of the record.
+   * @return The size of the record.
+   */
+  private int write(byte type, String text) {
+    byte[] body = text.getBytes(StandardCharsets.UTF_8);
+    int size = HEADER_SIZE + body.length;
+    try {
+      this.ensureCapacity(size);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to grow journal " + path, e);
+    }
+    buffer.put(writePosition + HEADER_SIZE, body);
+    buffer.put(writePosition + TYPE_OFFSET, type);
+    buffer.putInt(writePosition + CHECKSUM_OFFSET, checksum(type, body));
+    // The length commits the record
+    buffer.putInt(writePosition, body.length);
+    writePosition += size;
+    return size;
+  }
+
+  /** Force the records written since the last force to disk. */
+  private void force() {
+    if (writePosition > forcedPosition) {
+      // Every mapping shares the file's pages, so this also covers records written before a grow
+      buffer.force(forcedPosition, writePosition - forcedPosition);
+      forcedPosition = writePosition;
+    }
+  }
+
+  /**
+   * Make room for a record and the empty length ending the journal.
+   *
+   * @param size The size of the record.
+   * @throws IOException If the journal cannot be compacted or grown.
+   */
+  private void ensureCapacity(int size) throws IOException {
+    long needed = (long) writePosition + size + Integer.BYTES;
+    if (needed <= buffer.capacity()) {
+      return;
+    }
+    if (writePosition - liveBytes >= liveBytes) {
+      this.compact();
+      needed = (long) writePosition + size + Integer.BYTES;
+      if (needed <= buffer.capacity()) {
+        return;
+      }
+    }
+    long grown = Math.max((long) buffer.capacity() * 2, needed);
+    if (grown > Integer.MAX_VALUE) {
+      throw new IOException("Journal " + path + " is full");
+    }
+    // The old mapping shares its pages with the file, so nothing written is lost
+    channel.close();
+    this.map(path, (int) grown);
+  }
+
+  /**
+   * Encode a record.
+   *
+   * @param type The type of the record.
+   * @param text The body of the record.
+   * @return The record, ready to be written.
+   */
+  private static ByteBuffer encode(byte type, String text) {
+    byte[] body = text.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + body.length);
+    record.putInt(body.length).putInt(checksum(type, body)).put(type).put(body).flip();
+    return record;
+  }
+
+  /**
+   * Compute the checksum of a record.
+   *
+   * @param type The type of the record.
+   * @param body The body of the record.
+   * @return The CRC32C of its type and body.
+   */
+  private static int checksum(byte type, byte[] body) {
+    CRC32C crc = new CRC32C();
+    crc.update(type);
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Get the size of the append record of a frame.
+   *
+   * @param frame The frame.
+   * @return Its record size.
+   */
+  private static int recordSize(String frame) {
+    return HEADER_SIZE + frame.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  /**
+   * Read the message ID of a CALL frame.
+   *
+   * @param frame The frame.
+   * @return Its message ID, or null if it is not a CALL.
+   */
+  private static String messageIdOf(String frame) {
+    OCPPFrameDecoder.DecodedFrame decoded = OCPPFrameDecoder.decode(frame, messageId -> null);
+    return decoded == null ? null : decoded.getMessageId();
+  }
+}
@@ -0,0 +1,85 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+import lombok.Getter;
+
+/**
+ * The delays between a client's reconnect attempts: exponential backoff with full jitter. The n-th
+ * attempt waits a random time between zero and {@code min(cap, base * 2^n)}, so a fleet that lost
+ * its Central System at once spreads its reconnects out instead of retrying in lock-step.
+ */
+public class ReconnectBackoff {
+
+  /** The default ceiling of the first delay. */
+  public static final Duration DEFAULT_BASE = Duration.ofSeconds(1);
+
+  /** The default largest ceiling of a delay. */
+  public static final Duration DEFAULT_CAP = Duration.ofSeconds(60);
+
+  /** The ceiling of the first delay, in nanoseconds. */
+  private final long baseNanos;
+
+  /** The largest ceiling of a delay, in nanoseconds. */
+  private final long capNanos;
+
+  /** Picks a random delay from zero up to and including a ceiling. */
+  private final LongUnaryOperator jitter;
+
+  /** The number of delays handed out since the last reset. */
+  @Getter private int attempts;
+
+  /** Create a backoff with the default base and cap. */
+  public ReconnectBackoff() {
+    this(DEFAULT_BASE, DEFAULT_CAP);
+  }
+
+  /**
+   * Create a backoff.
+   *
+   * @param base The ceiling of the first delay.
+   * @param cap The largest ceiling of a delay.
+   */
+  public ReconnectBackoff(Duration base, Duration cap) {
+    this(base, cap, ceiling -> ThreadLocalRandom.current().nextLong(ceiling + 1));
+  }
+
+  /**
+   * Create a backoff with its own jitter.
+   *
+   * @param base The ceiling of the first delay.
+   * @param cap The largest ceiling of a delay.
+   * @param jitter Picks a random delay from zero up to and including a ceiling.
+   */
+  @VisibleForTesting
+  ReconnectBackoff(Duration base, Duration cap, LongUnaryOperator jitter) {
+    if (base.isNegative() || base.isZero() || cap.compareTo(base) < 0) {
+      throw new IllegalArgumentException("The base must be positive and at most the cap");
+    }
+    this.baseNanos = base.toNanos();
+    this.capNanos = cap.toNanos();
+    this.jitter = jitter;
+  }
+
+  /**
+   * Get the delay before the next attempt.
+   *
+   * @return The delay in nanoseconds.
+   */
+  public synchronized long nextDelayNanos() {
+    long ceiling = capNanos;
+    // Shifting further would pass the cap for any base
+    if (attempts < Long.numberOfLeadingZeros(baseNanos) - 1) {
+      ceiling = Math.min(capNanos, baseNanos << attempts);
+    }
+    attempts++;
+    return jitter.applyAsLong(ceiling);
+  }
+
+  /** Start over from the base once connected. */
+  public synchronized void reset() {
+    attempts = 0;
+  }
+}
@@ -0,0 +1,139 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Counts the reconnects of every client in the process, to show how a fleet rides out a Central
+ * System restart: how many chargers are waiting to reconnect and how hard they retry at once.
+ */
+public class ReconnectMetrics {
+
+  /** Lazily created metrics shared by every client. */
+  private static final class SharedMetrics {
+    private static final ReconnectMetrics INSTANCE = new ReconnectMetrics(System::nanoTime);
+  }
+
+  /** A snapshot of the metrics. */
+  @Getter
+  @AllArgsConstructor
+  public static class Snapshot {
+    /** The number of clients waiting to reconnect. */
+    private final int disconnected;
+
+    /** The number of times a client lost or failed to open its connection. */
+    private final long disconnects;
+
+    /** The number of reconnect attempts. */
+    private final long attempts;
+
+    /** The number of attempts that connected. */
+    private final long successes;
+
+    /** The number of attempts that failed. */
+    private final long failures;
+
+    /** The most attempts started within one second. */
+    private final int peakAttemptsPerSecond;
+  }
+
+  /** Our clock, in nanoseconds. */
+  private final LongSupplier clock;
+
+  private final AtomicInteger disconnected = new AtomicInteger();
+
+  private final AtomicLong disconnects = new AtomicLong();
+
+  private final AtomicLong attempts = new AtomicLong();
+
+  private final AtomicLong successes = new AtomicLong();
+
+  private final AtomicLong failures = new AtomicLong();
+
+  /** The second the attempts are being counted for. */
+  private long second = Long.MIN_VALUE;
+
+  /** The attempts started in the current second. */
+  private int attemptsThisSecond;
+
+  /** The most attempts started within one second. */
+  private int peakAttemptsPerSecond;
+
+  /**
+   * Create the metrics, use {@link #getShared()}.
+   *
+   * @param clock Our clock, in nanoseconds.
+   */
+  @VisibleForTesting
+  ReconnectMetrics(LongSupplier clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Get the metrics shared by every client.
+   *
+   * @return The shared metrics.
+   */
+  public static ReconnectMetrics getShared() {
+    return SharedMetrics.INSTANCE;
+  }
+
+  /** Count a client that lost or failed to open its connection and starts reconnecting. */
+  public void connectionLost() {
+    disconnects.incrementAndGet();
+    disconnected.incrementAndGet();
+  }
+
+  /** Count a client that reconnected. */
+  public void reconnected() {
+    disconnected.decrementAndGet();
+  }
+
+  /** Count a client that was shut down while waiting to reconnect, so it stops waiting. */
+  public void reconnectAbandoned() {
+    disconnected.decrementAndGet();
+  }
+
+  /** Count a reconnect attempt starting. */
+  public void attemptStarted() {
+    attempts.incrementAndGet();
+    long now = TimeUnit.NANOSECONDS.toSeconds(clock.getAsLong());
+    synchronized (this) {
+      if (now != second) {
+        second = now;
+        attemptsThisSecond = 0;
+      }
+      attemptsThisSecond++;
+      peakAttemptsPerSecond = Math.max(peakAttemptsPerSecond, attemptsThisSecond);
+    }
+  }
+
+  /**
+   * Count a reconnect attempt finishing.
+   *
+   * @param connected If it connected.
+   */
+  public void attemptFinished(boolean connected) {
+    (connected ? successes : failures).incrementAndGet();
+  }
+
+  /**
+   * Get the metrics so far.
+   *
+   * @return A snapshot of the metrics.
+   */
+  public synchronized Snapshot snapshot() {
+    return new Snapshot(
+        disconnected.get(),
+        disconnects.get(),
+        attempts.get(),
+        successes.get(),
+        failures.get(),
+        peakAttemptsPerSecond);
+  }
+}
@@ -0,0 +1,297 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A hashed timing wheel shared by every charger in the process. Inserting and cancelling a timeout
+ * is O(1): new and cancelled timeouts are handed to the wheel's thread through lock-free queues,
+ * and each tick only visits the bucket the wheel is pointing at.
+ *
+ * <p>Expiry callbacks run on the wheel's thread, so they must be short. The {@link
+ * MessageScheduler} only uses them to hand due tasks back to the owning charger.
+ */
+@Slf4j
+public class TimerWheel {
+  /** The default duration of a single tick. */
+  public static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** The default number of buckets in the wheel. */
+  public static final int DEFAULT_WHEEL_SIZE = 1024;
+
+  /** Lazily created wheel shared by every scheduler. */
+  private static final class SharedWheel {
+    private static final TimerWheel INSTANCE =
+        new TimerWheel(DEFAULT_TICK_NANOS, DEFAULT_WHEEL_SIZE, System::nanoTime).start();
+  }
+
+  /** A handle to a task scheduled on the wheel. */
+  public static final class Timeout {
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final TimerWheel wheel;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(ST_INIT);
+
+    private long remainingRounds;
+    private Timeout next;
+    private Timeout prev;
+    private Bucket bucket;
+
+    private Timeout(TimerWheel wheel, Runnable task, long deadline) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancel this timeout.
+     *
+     * @return true if the timeout was cancelled before it expired.
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+      wheel.pendingCount.decrementAndGet();
+      wheel.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    /**
+     * Check if this timeout was cancelled.
+     *
+     * @return true if cancelled.
+     */
+    public boolean isCancelled() {
+      return state.get() == ST_CANCELLED;
+    }
+
+    /**
+     * Check if this timeout already ran.
+     *
+     * @return true if expired.
+     */
+    public boolean isExpired() {
+      return state.get() == ST_EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+        return;
+      }
+      wheel.pendingCount.decrementAndGet();
+      try {
+        task.run();
+      } catch (Exception exception) {
+        log.error("Timer task failed: ", exception);
+      }
+    }
+  }
+
+  /** A doubly linked list of the timeouts hashed to one slot. */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    private Timeout remove(Timeout timeout) {
+      Timeout next = timeout.next;
+      if (timeout.prev != null) {
+        timeout.prev.next = next;
+      }
+      if (timeout.next != null) {
+        timeout.next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+      return next;
+    }
+
+    private void expireTimeouts(long deadline) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0) {
+          next = remove(timeout);
+          if (timeout.deadline <= deadline) {
+            timeout.expire();
+          }
+        } else if (timeout.isCancelled()) {
+          next = remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+
+  /** The duration of a single tick in nanoseconds. */
+  @Getter private final long tickNanos;
+
+  private final Bucket[] wheel;
+  private final int mask;
+  private final LongSupplier clock;
+  private final long startTime;
+  private long tick = 0;
+
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  /**
+   * Create a timer wheel, it will not tick until started.
+   *
+   * @param tickNanos The duration of a single tick.
+   * @param wheelSize The number of buckets, rounded up to a power of two.
+   * @param clock A monotonic nanosecond clock.
+   */
+  @VisibleForTesting
+  TimerWheel(long tickNanos, int wheelSize, LongSupplier clock) {
+    if (tickNanos <= 0 || wheelSize <= 0) {
+      throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+    }
+    this.tickNanos = tickNanos;
+    int size = Integer.highestOneBit(wheelSize - 1) << 1;
+    if (size <= 0) {
+      size = 1;
+    }
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.mask = size - 1;
+    this.clock = clock;
+    this.startTime = clock.getAsLong();
+  }
+
+  /**
+   * Get the wheel shared by all schedulers in this process.
+   *
+   * @return The shared wheel.
+   */
+  public static TimerWheel getShared() {
+    return SharedWheel.INSTANCE;
+  }
+
+  /**
+   * Start this wheel's worker thread.
+   *
+   * @return This wheel.
+   */
+  private TimerWheel start() {
+    Thread worker = new Thread(this::run, "ocpp-timer-wheel");
+    worker.setDaemon(true);
+    worker.start();
+    return this;
+  }
+
+  /**
+   * Schedule a task to run once after a delay.
+   *
+   * @param task The task to run on the wheel's thread.
+   * @param delay The delay before running the task.
+   * @param unit The unit of the delay.
+   * @return The handle to cancel the task with.
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    if (task == null) {
+      throw new IllegalArgumentException("Task must not be null");
+    }
+    long deadline = clock.getAsLong() - startTime + Math.max(0, unit.toNanos(delay));
+    Timeout timeout = new Timeout(this, task, deadline);
+    pendingCount.incrementAndGet();
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Get the number of timeouts that have not expired or been cancelled yet.
+   *
+   * @return The number of pending timeouts.
+   */
+  public int pendingTimeouts() {
+    return pendingCount.get();
+  }
+
+  /** Process every tick that has elapsed according to our clock. */
+  @VisibleForTesting
+  void advance() {
+    long elapsed = clock.getAsLong() - startTime;
+    while ((tick + 1) * tickNanos <= elapsed) {
+      processTick((tick + 1) * tickNanos);
+    }
+  }
+
+  private void processTick(long deadline) {
+    removeCancelled();
+    transferPending();
+    wheel[(int) (tick & mask)].expireTimeouts(deadline);
+    tick++;
+  }
+
+  private void transferPending() {
+    // Bound the transfer so a burst of new timeouts cannot stall the wheel
+    for (int i = 0; i < 100_000; i++) {
+      Timeout timeout = pendingTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long calculated = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (calculated - tick) / wheel.length;
+      long ticks = Math.max(calculated, tick);
+      wheel[(int) (ticks & mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      long sleepNanos = startTime + (tick + 1) * tickNanos - clock.getAsLong();
+      if (sleepNanos > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+        continue;
+      }
+      advance();
+    }
+  }
+}
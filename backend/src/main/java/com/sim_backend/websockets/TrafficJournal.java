@@ -0,0 +1,1044 @@
+package com.sim_backend.websockets;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A durable journal of every frame a charger sent and received, kept for hours rather than the last
+ * frames of the {@link MessageLog}, and queried a page at a time by time range, action and message
+ * ID.
+ *
+ * <p>The journal is a directory of append-only segment files. Once a segment is full the next frame
+ * starts a new one, and once there are more segments than allowed the oldest is deleted. Each
+ * segment has two indexes kept in memory: a sparse time index holding the position of every {@link
+ * #TIME_INDEX_INTERVAL}th record, and a message-ID index holding the hash and position of every
+ * record. A query seeks to a time through the first and to a message ID through the second, then
+ * reads the records through a small window, reading a frame only when its record matches, so no
+ * segment is ever read into memory whole. Reopening the journal rebuilds the indexes from the
+ * segments and cuts off a record torn by a crash.
+ */
+@Slf4j
+public class TrafficJournal implements Closeable {
+
+  /** The default size a segment is rolled over at. */
+  public static final int DEFAULT_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+  /**
+   * The default number of segments kept, the oldest is deleted beyond it. With the default size a
+   * charger keeps 64 MiB, every charger of a fleet as much.
+   */
+  public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+  /** The most records a page holds. */
+  public static final int MAX_PAGE_SIZE = 1000;
+
+  /** The number of records between two entries of the sparse time index. */
+  static final int TIME_INDEX_INTERVAL = 64;
+
+  /** The size of the window records are read through. */
+  static final int READ_BUFFER_SIZE = 64 * 1024;
+
+  /** The file name extension of a segment. */
+  private static final String SEGMENT_SUFFIX = ".seg";
+
+  /** The length and checksum preceding the body of a record. */
+  private static final int PREFIX_SIZE = Integer.BYTES + Integer.BYTES;
+
+  /** The time, direction, message type and the lengths of the action and message ID. */
+  private static final int FIXED_SIZE =
+      Long.BYTES + Byte.BYTES + Byte.BYTES + Short.BYTES + Short.BYTES;
+
+  /** The part of a record read before deciding if it matches, without the action and ID. */
+  private static final int HEADER_SIZE = PREFIX_SIZE + FIXED_SIZE;
+
+  /** The message type stored for a frame that cannot be parsed. */
+  private static final byte UNKNOWN_TYPE = 0;
+
+  /** The action stored when it is not known. */
+  private static final String UNKNOWN_ACTION = "Unknown";
+
+  /** Nanoseconds in a second. */
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+  /** The direction of a frame. */
+  public enum Direction {
+    /** A frame the charger sent. */
+    SENT,
+    /** A frame the charger received. */
+    RECEIVED
+  }
+
+  /** A journalled frame. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Entry {
+    /** When the frame was journalled, in ISO-8601 UTC. */
+    private final String timestamp;
+
+    /** If the frame was sent or received. */
+    private final Direction direction;
+
+    /** The OCPP message type, 2 for a CALL, 3 for a CALLRESULT and 4 for a CALLERROR. */
+    private final int messageType;
+
+    /** The action of the frame, for a CALLRESULT or CALLERROR that of its request. */
+    private final String action;
+
+    /** The message ID of the frame. */
+    private final String messageId;
+
+    /** The frame as it was sent or received. */
+    private final String frame;
+  }
+
+  /** A page of journalled frames. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Page {
+    /** The matching frames, oldest first. */
+    private final List<Entry> entries;
+
+    /** The cursor the next page starts at, null if this is the last page. */
+    private final String nextCursor;
+  }
+
+  /** A summary of what the journal holds. */
+  @Getter
+  @AllArgsConstructor
+  public static final class Summary {
+    /** The number of segments. */
+    private final int segments;
+
+    /** The number of journalled frames. */
+    private final long records;
+
+    /** The bytes the segments take. */
+    private final long bytes;
+
+    /** When the oldest frame was journalled, null if there is none. */
+    private final String oldest;
+
+    /** When the newest frame was journalled, null if there is none. */
+    private final String newest;
+  }
+
+  /** The directory of the segments. */
+  @Getter private final Path directory;
+
+  /** The size a segment is rolled over at. */
+  @Getter private final int segmentBytes;
+
+  /** The number of segments kept. */
+  @Getter private final int maxSegments;
+
+  /** Where the timestamps come from. */
+  private final Clock clock;
+
+  /** The segments, oldest first, the last one is appended to. */
+  private final List<Segment> segments = new ArrayList<>();
+
+  /** The open last segment. */
+  private FileChannel channel;
+
+  /** The time of the newest record, so the times of a segment never go back. */
+  private long lastNanos;
+
+  /**
+   * Create a journal, use {@link #open(Path)}.
+   *
+   * @param directory The directory of the segments.
+   * @param segmentBytes The size a segment is rolled over at.
+   * @param maxSegments The number of segments kept.
+   * @param clock Where the timestamps come from.
+   */
+  private TrafficJournal(Path directory, int segmentBytes, int maxSegments, Clock clock) {
+    if (segmentBytes < 1 || maxSegments < 1) {
+      throw new IllegalArgumentException(
+          "Traffic journal limits must be positive: " + segmentBytes + ", " + maxSegments);
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.maxSegments = maxSegments;
+    this.clock = clock;
+  }
+
+  /**
+   * Open a journal with the default limits, creating it if it does not exist.
+   *
+   * @param directory The directory of the segments.
+   * @return The open journal.
+   * @throws IOException If the journal cannot be opened.
+   */
+  public static TrafficJournal open(Path directory) throws IOException {
+    return open(directory, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_SEGMENTS);
+  }
+
+  /**
+   * Open a journal, creating it if it does not exist.
+   *
+   * @param directory The directory of the segments.
+   * @param segmentBytes The size a segment is rolled over at.
+   * @param maxSegments The number of segments kept.
+   * @return The open journal.
+   * @throws IOException If the journal cannot be opened.
+   */
+  public static TrafficJournal open(Path directory, int segmentBytes, int maxSegments)
+      throws IOException {
+    return open(directory, segmentBytes, maxSegments, Clock.systemUTC());
+  }
+
+  /**
+   * Open a journal with its own clock.
+   *
+   * @param directory The directory of the segments.
+   * @param segmentBytes The size a segment is rolled over at.
+   * @param maxSegments The number of segments kept.
+   * @param clock Where the timestamps come from.
+   * @return The open journal.
+   * @throws IOException If the journal cannot be opened.
+   */
+  @VisibleForTesting
+  static TrafficJournal open(Path directory, int segmentBytes, int maxSegments, Clock clock)
+      throws IOException {
+    Files.createDirectories(directory);
+    TrafficJournal journal = new TrafficJournal(directory, segmentBytes, maxSegments, clock);
+    journal.readSegments();
+    return journal;
+  }
+
+  /**
+   * Journal a frame. Its message type and ID are read from the frame, as is the action of a CALL.
+   *
+   * @param direction If the frame was sent or received.
+   * @param frame The frame.
+   * @param action The action of the frame, or null to read it from a CALL. A CALLRESULT or
+   *     CALLERROR is journalled with the action of its request when it is given.
+   * @throws UncheckedIOException If the frame cannot be written.
+   */
+  public void append(Direction direction, String frame, String action) {
+    FrameInfo info = FrameInfo.of(frame);
+    if (action == null) {
+      action = info.action() != null ? info.action() : UNKNOWN_ACTION;
+    }
+    Instant now = clock.instant();
+    long nanos = now.getEpochSecond() * NANOS_PER_SECOND + now.getNano();
+
+    byte[] actionBytes = truncate(action.getBytes(StandardCharsets.UTF_8));
+    byte[] idBytes = truncate(info.messageId().getBytes(StandardCharsets.UTF_8));
+    byte[] frameBytes = frame.getBytes(StandardCharsets.UTF_8);
+    int bodySize = FIXED_SIZE + actionBytes.length + idBytes.length + frameBytes.length;
+    ByteBuffer record = ByteBuffer.allocate(PREFIX_SIZE + bodySize);
+    record.putInt(bodySize).putInt(0);
+    synchronized (this) {
+      nanos = Math.max(nanos, lastNanos);
+      record
+          .putLong(nanos)
+          .put((byte) direction.ordinal())
+          .put(info.messageType())
+          .putShort((short) actionBytes.length)
+          .putShort((short) idBytes.length)
+          .put(actionBytes)
+          .put(idBytes)
+          .put(frameBytes);
+      CRC32C crc = new CRC32C();
+      crc.update(record.array(), PREFIX_SIZE, bodySize);
+      record.putInt(Integer.BYTES, (int) crc.getValue()).flip();
+
+      try {
+        Segment segment = this.segmentFor(record.remaining());
+        int offset = segment.size;
+        while (record.hasRemaining()) {
+          channel.write(record, offset + record.position());
+        }
+        segment.add(nanos, info.messageId().hashCode(), offset, record.limit());
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to journal traffic in " + directory, e);
+      }
+      lastNanos = nanos;
+    }
+  }
+
+  /**
+   * Read a page of journalled frames, oldest first. Every filter is optional.
+   *
+   * @param from The earliest time of a frame, or null.
+   * @param to The latest time of a frame, or null.
+   * @param action The action of a frame, or null.
+   * @param messageId The message ID of a frame, or null.
+   * @param cursor Where the page starts, the next cursor of the previous page, or null for the
+   *     first page.
+   * @param limit The most frames on the page, at most {@link #MAX_PAGE_SIZE}.
+   * @return The page.
+   * @throws IllegalArgumentException If the cursor or limit is not valid.
+   * @throws UncheckedIOException If a segment cannot be read.
+   */
+  public Page query(
+      Instant from, Instant to, String action, String messageId, String cursor, int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("The limit must be positive: " + limit);
+    }
+    Filter filter =
+        new Filter(
+            from == null ? Long.MIN_VALUE : toNanos(from),
+            to == null ? Long.MAX_VALUE : toNanos(to),
+            action,
+            messageId,
+            Math.min(limit, MAX_PAGE_SIZE));
+    long[] start = parseCursor(cursor);
+
+    List<Entry> entries = new ArrayList<>();
+    for (SegmentView view : this.views()) {
+      if (view.id() < start[0] || view.lastNanos() < filter.from()) {
+        continue;
+      }
+      if (view.firstNanos() > filter.to()) {
+        break;
+      }
+      int offset = view.id() == start[0] ? (int) start[1] : 0;
+      String next;
+      try {
+        next = this.readSegment(view, offset, filter, entries);
+      } catch (NoSuchFileException e) {
+        // Deleted as the journal rolled over since the views were taken
+        continue;
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to read traffic journal " + view.path(), e);
+      }
+      if (next != null) {
+        return new Page(entries, next);
+      }
+    }
+    return new Page(entries, null);
+  }
+
+  /**
+   * Summarize what the journal holds.
+   *
+   * @return The summary.
+   */
+  public synchronized Summary getSummary() {
+    long records = 0;
+    long bytes = 0;
+    Segment oldest = null;
+    Segment newest = null;
+    for (Segment segment : segments) {
+      records += segment.count;
+      bytes += segment.size;
+      if (segment.count > 0) {
+        oldest = oldest == null ? segment : oldest;
+        newest = segment;
+      }
+    }
+    return new Summary(
+        segments.size(),
+        records,
+        bytes,
+        oldest == null ? null : formatTimestamp(oldest.firstNanos),
+        newest == null ? null : formatTimestamp(newest.lastNanos));
+  }
+
+  /**
+   * Flush the journal to disk and close it.
+   *
+   * @throws IOException If the journal cannot be flushed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel.isOpen()) {
+      channel.force(true);
+      channel.close();
+    }
+  }
+
+  /**
+   * Get the segment a record is appended to, starting a new one if the last one is full.
+   *
+   * @param recordSize The size of the record.
+   * @return The last segment.
+   * @throws IOException If a new segment cannot be started.
+   */
+  private Segment segmentFor(int recordSize) throws IOException {
+    Segment last = segments.get(segments.size() - 1);
+    if (last.size == 0 || (long) last.size + recordSize <= segmentBytes) {
+      return last;
+    }
+    channel.force(true);
+    channel.close();
+    Segment next = new Segment(last.id + 1, directory.resolve(segmentName(last.id + 1)));
+    channel =
+        FileChannel.open(
+            next.path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE);
+    segments.add(next);
+    while (segments.size() > maxSegments) {
+      Files.deleteIfExists(segments.remove(0).path);
+    }
+    return next;
+  }
+
+  /** Read the segments in the directory, rebuilding their indexes, and open the last one. */
+  private void readSegments() throws IOException {
+    List<Long> ids = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path path : stream) {
+        String name = path.getFileName().toString();
+        try {
+          ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          log.warn("Ignoring {} in traffic journal {}", name, directory);
+        }
+      }
+    }
+    ids.sort(null);
+    if (ids.isEmpty()) {
+      ids.add(0L);
+    }
+
+    for (long id : ids) {
+      Segment segment = new Segment(id, directory.resolve(segmentName(id)));
+      segments.add(segment);
+      channel =
+          FileChannel.open(
+              segment.path,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      this.rebuild(segment);
+      if (id != ids.get(ids.size() - 1)) {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Rebuild the indexes of a segment from its records, cutting off a torn record at its end.
+   *
+   * @param segment The segment, its file is the open channel.
+   * @throws IOException If the segment cannot be read.
+   */
+  private void rebuild(Segment segment) throws IOException {
+    long fileSize = channel.size();
+    Window window = new Window(channel, fileSize);
+    int offset = 0;
+    while (offset + HEADER_SIZE <= fileSize) {
+      ByteBuffer header = window.read(offset, HEADER_SIZE);
+      int bodySize = header.getInt();
+      int checksum = header.getInt();
+      if (bodySize < FIXED_SIZE || offset + PREFIX_SIZE + (long) bodySize > fileSize) {
+        break;
+      }
+      ByteBuffer body = window.read(offset + PREFIX_SIZE, bodySize);
+      CRC32C crc = new CRC32C();
+      crc.update(body.duplicate());
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      long nanos = body.getLong();
+      body.position(body.position() + Byte.BYTES + Byte.BYTES);
+      int actionLength = Short.toUnsignedInt(body.getShort());
+      int idLength = Short.toUnsignedInt(body.getShort());
+      body.position(body.position() + actionLength);
+      String messageId = readString(body, idLength);
+      segment.add(nanos, messageId.hashCode(), offset, PREFIX_SIZE + bodySize);
+      lastNanos = Math.max(lastNanos, nanos);
+      offset += PREFIX_SIZE + bodySize;
+    }
+    if (offset < fileSize) {
+      log.warn("Cutting off a torn record at {} of {}", offset, segment.path);
+      channel.truncate(offset);
+    }
+  }
+
+  /**
+   * Take a view of every segment, so they can be read while frames are journalled.
+   *
+   * @return The views, oldest first.
+   */
+  private synchronized List<SegmentView> views() {
+    List<SegmentView> views = new ArrayList<>(segments.size());
+    for (Segment segment : segments) {
+      views.add(segment.view());
+    }
+    return views;
+  }
+
+  /**
+   * Find the positions of the records of a message ID in a segment.
+   *
+   * @param view The segment.
+   * @param messageId The message ID.
+   * @return The positions, in order, of the records whose message ID has the same hash.
+   */
+  private synchronized int[] positionsOf(SegmentView view, String messageId) {
+    return view.segment().ids.find(messageId.hashCode(), view.count());
+  }
+
+  /**
+   * Read the matching records of a segment.
+   *
+   * @param view The segment.
+   * @param start Where to start reading.
+   * @param filter The filter records must match.
+   * @param entries Where the matching records are added.
+   * @return The cursor of the next page if the page is full, null otherwise.
+   * @throws IOException If the segment cannot be read.
+   */
+  private String readSegment(SegmentView view, int start, Filter filter, List<Entry> entries)
+      throws IOException {
+    if (filter.from() != Long.MIN_VALUE) {
+      start = Math.max(start, view.floor(filter.from()));
+    }
+    int[] positions = null;
+    if (filter.messageId() != null) {
+      positions = this.positionsOf(view, filter.messageId());
+      if (positions.length == 0 || positions[positions.length - 1] < start) {
+        // The segment is not even opened when the index has no record of the message ID
+        return null;
+      }
+    }
+    try (FileChannel reader = FileChannel.open(view.path(), StandardOpenOption.READ)) {
+      Window window = new Window(reader, view.size());
+      if (positions != null) {
+        for (int position : positions) {
+          if (position < start) {
+            continue;
+          }
+          int size = this.readRecord(window, position, filter, entries);
+          if (size < 0) {
+            return null;
+          }
+          if (entries.size() == filter.limit()) {
+            return formatCursor(view.id(), position + size);
+          }
+        }
+        return null;
+      }
+
+      int position = start;
+      while (position < view.size()) {
+        int size = this.readRecord(window, position, filter, entries);
+        if (size < 0) {
+          return null;
+        }
+        position += size;
+        if (entries.size() == filter.limit()) {
+          return formatCursor(view.id(), position);
+        }
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Read a record, adding it to the page if it matches. Its frame is only read if it does.
+   *
+   * @param window The window over the segment.
+   * @param position Where the record starts.
+   * @param filter The filter it must match.
+   * @param entries Where it is added.
+   * @return The size of the record, or -1 if it is past the end of the time range.
+   * @throws IOException If the record cannot be read.
+   */
+  private int readRecord(Window window, int position, Filter filter, List<Entry> entries)
+      throws IOException {
+    ByteBuffer header = window.read(position, HEADER_SIZE);
+    int size = PREFIX_SIZE + header.getInt();
+    header.getInt();
+    long nanos = header.getLong();
+    if (nanos > filter.to()) {
+      return -1;
+    }
+    byte direction = header.get();
+    byte messageType = header.get();
+    int actionLength = Short.toUnsignedInt(header.getShort());
+    int idLength = Short.toUnsignedInt(header.getShort());
+    if (nanos < filter.from()) {
+      return size;
+    }
+
+    ByteBuffer names = window.read(position + HEADER_SIZE, actionLength + idLength);
+    String action = readString(names, actionLength);
+    String messageId = readString(names, idLength);
+    if ((filter.action() != null && !filter.action().equals(action))
+        || (filter.messageId() != null && !filter.messageId().equals(messageId))) {
+      return size;
+    }
+
+    int frameOffset = HEADER_SIZE + actionLength + idLength;
+    ByteBuffer frame = window.read(position + frameOffset, size - frameOffset);
+    entries.add(
+        new Entry(
+            formatTimestamp(nanos),
+            Direction.values()[direction],
+            messageType,
+            action,
+            messageId,
+            readString(frame, frame.remaining())));
+    return size;
+  }
+
+  /**
+   * Read a UTF-8 string.
+   *
+   * @param buffer The buffer, positioned at the string, which it is moved past.
+   * @param length The length of the string in bytes.
+   * @return The string.
+   */
+  private static String readString(ByteBuffer buffer, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Cut a UTF-8 string that does not fit its length field, which only a broken frame does.
+   *
+   * @param bytes The string.
+   * @return The string, at most the largest length.
+   */
+  private static byte[] truncate(byte[] bytes) {
+    int max = Short.toUnsignedInt((short) -1);
+    return bytes.length <= max ? bytes : Arrays.copyOf(bytes, max);
+  }
+
+  /**
+   * Get the file name of a segment.
+   *
+   * @param id The segment's number.
+   * @return Its file name, numbered so they sort in order.
+   */
+  private static String segmentName(long id) {
+    return String.format("%020d%s", id, SEGMENT_SUFFIX);
+  }
+
+  /**
+   * Format a cursor.
+   *
+   * @param segmentId The segment the next page starts in.
+   * @param position Where it starts in it.
+   * @return The cursor.
+   */
+  private static String formatCursor(long segmentId, int position) {
+    return segmentId + ":" + position;
+  }
+
+  /**
+   * Parse a cursor.
+   *
+   * @param cursor The cursor, or null for the start of the journal.
+   * @return The segment and position it points at.
+   * @throws IllegalArgumentException If it is not a cursor.
+   */
+  private static long[] parseCursor(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return new long[] {Long.MIN_VALUE, 0};
+    }
+    int separator = cursor.indexOf(':');
+    try {
+      long segmentId = Long.parseLong(cursor.substring(0, separator));
+      long position = Integer.parseInt(cursor.substring(separator + 1));
+      if (segmentId >= 0 && position >= 0) {
+        return new long[] {segmentId, position};
+      }
+    } catch (NumberFormatException | IndexOutOfBoundsException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+  }
+
+  /**
+   * Convert a time to nanoseconds since the epoch.
+   *
+   * @param instant The time.
+   * @return The nanoseconds, saturated at the ends of the range.
+   */
+  private static long toNanos(Instant instant) {
+    try {
+      return Math.addExact(
+          Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    } catch (ArithmeticException e) {
+      return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Format a timestamp as a journalled frame shows it.
+   *
+   * @param epochNanos The time in nanoseconds since the epoch.
+   * @return The ISO-8601 time in UTC.
+   */
+  private static String formatTimestamp(long epochNanos) {
+    return Instant.ofEpochSecond(0, epochNanos).atZone(ZoneOffset.UTC).toString();
+  }
+
+  /**
+   * What a query matches.
+   *
+   * @param from The earliest time in nanoseconds.
+   * @param to The latest time in nanoseconds.
+   * @param action The action, or null for any.
+   * @param messageId The message ID, or null for any.
+   * @param limit The most records on the page.
+   */
+  private record Filter(long from, long to, String action, String messageId, int limit) {}
+
+  /**
+   * The message type, message ID and action of a frame, read without parsing its payload.
+   *
+   * @param messageType The message type, 0 if the frame cannot be parsed.
+   * @param messageId The message ID, empty if the frame cannot be parsed.
+   * @param action The action of a CALL, null otherwise.
+   */
+  private record FrameInfo(byte messageType, String messageId, String action) {
+
+    /**
+     * Read the start of a frame.
+     *
+     * @param frame The frame.
+     * @return What could be read of it.
+     */
+    static FrameInfo of(String frame) {
+      try (JsonReader reader = new JsonReader(new StringReader(frame))) {
+        reader.beginArray();
+        byte messageType = (byte) reader.nextInt();
+        String messageId = reader.nextString();
+        String action = null;
+        if (messageType == OCPPMessage.CALL_ID_REQUEST && reader.peek() == JsonToken.STRING) {
+          action = reader.nextString();
+        }
+        return new FrameInfo(messageType, messageId, action);
+      } catch (IOException | RuntimeException e) {
+        return new FrameInfo(UNKNOWN_TYPE, "", null);
+      }
+    }
+  }
+
+  /**
+   * The state of a segment at one point in time, read without holding the journal's lock.
+   *
+   * @param segment The segment.
+   * @param id The segment's number.
+   * @param path The segment file.
+   * @param size The bytes of its records.
+   * @param count The number of its records.
+   * @param firstNanos The time of its first record.
+   * @param lastNanos The time of its last record.
+   * @param indexTimes The times of the sparse time index.
+   * @param indexPositions The positions of the sparse time index.
+   * @param indexCount The number of entries of the sparse time index.
+   */
+  private record SegmentView(
+      Segment segment,
+      long id,
+      Path path,
+      int size,
+      int count,
+      long firstNanos,
+      long lastNanos,
+      long[] indexTimes,
+      int[] indexPositions,
+      int indexCount) {
+
+    /**
+     * Find where to start reading for a time.
+     *
+     * @param nanos The time in nanoseconds.
+     * @return The position of the last indexed record before the time, no later record before it
+     *     can be at or after the time.
+     */
+    int floor(long nanos) {
+      int index = Arrays.binarySearch(indexTimes, 0, indexCount, nanos);
+      if (index < 0) {
+        index = -index - 1;
+      } else {
+        // Step back over records of the same time, the first of them may not be indexed
+        while (index > 0 && indexTimes[index - 1] == nanos) {
+          index--;
+        }
+      }
+      return index == 0 ? 0 : indexPositions[index - 1];
+    }
+  }
+
+  /** A segment file and its indexes. */
+  private static final class Segment {
+    /** The segment's number, which orders segments. */
+    private final long id;
+
+    /** The segment file. */
+    private final Path path;
+
+    /** The message-ID index. */
+    private final IdIndex ids = new IdIndex();
+
+    /** The times of every {@link #TIME_INDEX_INTERVAL}th record. */
+    private long[] indexTimes = new long[16];
+
+    /** The positions of those records. */
+    private int[] indexPositions = new int[16];
+
+    /** The number of entries of the sparse time index. */
+    private int indexCount;
+
+    /** The bytes of the records. */
+    private int size;
+
+    /** The number of records. */
+    private int count;
+
+    /** The time of the first record. */
+    private long firstNanos;
+
+    /** The time of the last record. */
+    private long lastNanos;
+
+    /**
+     * Create an empty segment.
+     *
+     * @param id The segment's number.
+     * @param path The segment file.
+     */
+    Segment(long id, Path path) {
+      this.id = id;
+      this.path = path;
+    }
+
+    /**
+     * Index an appended record.
+     *
+     * @param nanos Its time.
+     * @param idHash The hash of its message ID.
+     * @param position Where it starts.
+     * @param recordSize Its size.
+     */
+    void add(long nanos, int idHash, int position, int recordSize) {
+      if (count % TIME_INDEX_INTERVAL == 0) {
+        if (indexCount == indexTimes.length) {
+          indexTimes = Arrays.copyOf(indexTimes, indexCount * 2);
+          indexPositions = Arrays.copyOf(indexPositions, indexCount * 2);
+        }
+        indexTimes[indexCount] = nanos;
+        indexPositions[indexCount] = position;
+        indexCount++;
+      }
+      if (count == 0) {
+        firstNanos = nanos;
+      }
+      ids.add(idHash, position);
+      lastNanos = nanos;
+      size = position + recordSize;
+      count++;
+    }
+
+    /**
+     * Take a view of the segment. The index arrays are only ever appended to or replaced, so the
+     * view shares them.
+     *
+     * @return The view.
+     */
+    SegmentView view() {
+      return new SegmentView(
+          this,
+          id,
+          path,
+          size,
+          count,
+          firstNanos,
+          lastNanos,
+          indexTimes,
+          indexPositions,
+          indexCount);
+    }
+  }
+
+  /**
+   * The positions of a segment's records by the hash of their message ID, as chains through arrays
+   * so an index costs a few ints per record rather than an object.
+   */
+  private static final class IdIndex {
+    /** The last entry of each bucket's chain, -1 if it is empty. */
+    private int[] buckets = newBuckets(64);
+
+    /** The hashes of the entries. */
+    private int[] hashes = new int[64];
+
+    /** The record positions of the entries. */
+    private int[] positions = new int[64];
+
+    /** The entry before each entry in its bucket's chain, -1 at the start. */
+    private int[] previous = new int[64];
+
+    /** The number of entries, one per record. */
+    private int size;
+
+    /**
+     * Index a record.
+     *
+     * @param hash The hash of its message ID.
+     * @param position Where it starts.
+     */
+    void add(int hash, int position) {
+      if (size == hashes.length) {
+        hashes = Arrays.copyOf(hashes, size * 2);
+        positions = Arrays.copyOf(positions, size * 2);
+        previous = Arrays.copyOf(previous, size * 2);
+        buckets = newBuckets(size * 2);
+        for (int i = 0; i < size; i++) {
+          this.link(i);
+        }
+      }
+      hashes[size] = hash;
+      positions[size] = position;
+      this.link(size);
+      size++;
+    }
+
+    /**
+     * Find the records of a hash.
+     *
+     * @param hash The hash of a message ID.
+     * @param count Only the records indexed before this many are looked at.
+     * @return Their positions, in order.
+     */
+    int[] find(int hash, int count) {
+      int[] found = new int[4];
+      int length = 0;
+      for (int i = buckets[hash & (buckets.length - 1)]; i >= 0; i = previous[i]) {
+        if (hashes[i] == hash && i < count) {
+          if (length == found.length) {
+            found = Arrays.copyOf(found, length * 2);
+          }
+          found[length++] = positions[i];
+        }
+      }
+      found = Arrays.copyOf(found, length);
+      // The chains run from the newest record back
+      for (int i = 0; i < length / 2; i++) {
+        int swap = found[i];
+        found[i] = found[length - 1 - i];
+        found[length - 1 - i] = swap;
+      }
+      return found;
+    }
+
+    /**
+     * Put an entry at the end of its bucket's chain.
+     *
+     * @param entry The entry.
+     */
+    private void link(int entry) {
+      int bucket = hashes[entry] & (buckets.length - 1);
+      previous[entry] = buckets[bucket];
+      buckets[bucket] = entry;
+    }
+
+    /**
+     * Create empty buckets.
+     *
+     * @param count The number of buckets, a power of two.
+     * @return The buckets.
+     */
+    private static int[] newBuckets(int count) {
+      int[] buckets = new int[count];
+      Arrays.fill(buckets, -1);
+      return buckets;
+    }
+  }
+
+  /** A window of a segment file a record is read through, so a segment is read a part at once. */
+  private static final class Window {
+    /** The segment file. */
+    private final FileChannel channel;
+
+    /** The bytes of the segment's records. */
+    private final long end;
+
+    /** The bytes read. */
+    private final ByteBuffer buffer;
+
+    /** Where in the file the bytes read start. */
+    private long start;
+
+    /**
+     * Create a window.
+     *
+     * @param channel The segment file.
+     * @param end The bytes of the segment's records.
+     */
+    Window(FileChannel channel, long end) {
+      this.channel = channel;
+      this.end = end;
+      // A small segment does not need a whole window
+      buffer = ByteBuffer.allocate((int) Math.max(HEADER_SIZE, Math.min(READ_BUFFER_SIZE, end)));
+      buffer.limit(0);
+    }
+
+    /**
+     * Read part of the segment.
+     *
+     * @param position Where the part starts.
+     * @param length Its size.
+     * @return A buffer holding the part from its position to its limit.
+     * @throws IOException If the part cannot be read.
+     */
+    ByteBuffer read(long position, int length) throws IOException {
+      if (length > buffer.capacity()) {
+        // A frame larger than the window is read on its own
+        ByteBuffer large = ByteBuffer.allocate(length);
+        this.fill(large, position);
+        return large.flip();
+      }
+      if (position < start || position + length > start + buffer.limit()) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+        this.fill(buffer, position);
+        buffer.flip();
+        start = position;
+      }
+      int offset = (int) (position - start);
+      return buffer.duplicate().position(offset).limit(offset + length);
+    }
+
+    /**
+     * Fill a buffer from the file.
+     *
+     * @param target The buffer.
+     * @param position Where in the file to read from.
+     * @throws IOException If the file ends first.
+     */
+    private void fill(ByteBuffer target, long position) throws IOException {
+      while (target.hasRemaining()) {
+        int read = channel.read(target, position + target.position());
+        if (read < 0) {
+          throw new IOException("Unexpected end of traffic journal segment");
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.sim_backend.websockets;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single consumer wakeup signal. Producers call {@link #signal()} whenever there is new work, the
+ * consumer parks in {@link #await(long)} until it is signalled. A signal sent while the consumer is
+ * busy is remembered, so the consumer never misses work that arrived between two checks.
+ */
+public class WakeupSignal {
+  /** Whether work has been signalled since the consumer last woke up. */
+  private final AtomicBoolean pending = new AtomicBoolean(false);
+
+  /** The thread currently parked waiting for a signal. */
+  private volatile Thread waiter;
+
+  /** Signal that there is work, unparking the waiting consumer. */
+  public void signal() {
+    if (pending.compareAndSet(false, true)) {
+      Thread thread = waiter;
+      if (thread != null) {
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+
+  /**
+   * Park until signalled, interrupted or the timeout elapses.
+   *
+   * @param timeoutNanos The longest time to park for.
+   * @return true if we were signalled.
+   */
+  public boolean await(long timeoutNanos) {
+    if (pending.getAndSet(false)) {
+      return true;
+    }
+
+    waiter = Thread.currentThread();
+    try {
+      long deadline = System.nanoTime() + timeoutNanos;
+      while (!pending.get() && !Thread.currentThread().isInterrupted()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          break;
+        }
+        LockSupport.parkNanos(this, remaining);
+      }
+    } finally {
+      waiter = null;
+    }
+    return pending.getAndSet(false);
+  }
+}
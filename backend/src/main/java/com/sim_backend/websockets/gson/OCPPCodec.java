@@ -0,0 +1,248 @@
+package com.sim_backend.websockets.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * The base of the codecs generated for every {@code @OCPPMessageInfo} message. A codec reads and
+ * writes the fields of its message directly, without Gson's reflective binding, and writes the
+ * whole OCPP-J frame without building a {@link com.google.gson.JsonArray} first. A message that the
+ * generated code cannot construct or set the fields of is read through Gson's reflective adapter
+ * instead.
+ *
+ * @param <T> The message class.
+ */
+public abstract class OCPPCodec<T extends OCPPMessage> extends TypeAdapter<T> {
+  /** The Gson this codec belongs to. */
+  protected final Gson gson;
+
+  /** Gson's reflective adapter for the message, used when the codec cannot construct it. */
+  private final TypeAdapter<T> fallback;
+
+  /** The call ID of the message. */
+  private final int callId;
+
+  /** The message name of a request, or null for a response. */
+  private final String action;
+
+  /**
+   * Create a codec.
+   *
+   * @param gson The Gson this codec belongs to.
+   * @param fallback Gson's reflective adapter for the message.
+   * @param callId The call ID of the message.
+   * @param messageName The message name of the message.
+   */
+  protected OCPPCodec(Gson gson, TypeAdapter<T> fallback, int callId, String messageName) {
+    this.gson = gson;
+    this.fallback = fallback;
+    this.callId = callId;
+    this.action = callId == OCPPMessage.CALL_ID_REQUEST ? messageName : null;
+  }
+
+  /**
+   * Write the fields of a message as a json object.
+   *
+   * @param out The writer.
+   * @param value The message.
+   * @throws IOException If writing fails.
+   */
+  protected abstract void writePayload(JsonWriter out, T value) throws IOException;
+
+  /**
+   * Read a message from a json object.
+   *
+   * @param in The reader, positioned at the object.
+   * @return The message.
+   * @throws IOException If reading fails.
+   */
+  protected abstract T readPayload(JsonReader in) throws IOException;
+
+  /**
+   * If the codec can construct its message itself.
+   *
+   * @return False if messages are read through the reflective fallback.
+   */
+  public abstract boolean isDecodable();
+
+  @Override
+  public void write(JsonWriter out, T value) throws IOException {
+    if (value == null) {
+      out.nullValue();
+      return;
+    }
+    this.writePayload(out, value);
+  }
+
+  @Override
+  public T read(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.NULL) {
+      in.nextNull();
+      return null;
+    }
+    if (!this.isDecodable()) {
+      return fallback.read(in);
+    }
+    return this.readPayload(in);
+  }
+
+  /**
+   * Write a message as its OCPP-J frame, {@code [2,"id","Action",{...}]} for a request or {@code
+   * [3,"id",{...}]} for a response.
+   *
+   * @param message The message.
+   * @return The frame.
+   */
+  public String encodeFrame(T message) {
+    StringWriter buffer = new StringWriter();
+    try (JsonWriter out = gson.newJsonWriter(buffer)) {
+      out.beginArray();
+      out.value(callId);
+      out.value(message.getMessageID());
+      if (action != null) {
+        out.value(action);
+      }
+      this.writePayload(out, message);
+      out.endArray();
+    } catch (IOException exception) {
+      // A StringWriter does not throw
+      throw new IllegalStateException(exception);
+    }
+    return buffer.toString();
+  }
+
+  /**
+   * Find how to allocate a message, the way Gson does: through its no-argument constructor if it
+   * has one, otherwise without running any constructor.
+   *
+   * @param lookup A lookup with private access to the class.
+   * @param type The message class.
+   * @return A {@code ()Object} handle creating a message, or null if there is none.
+   */
+  protected static MethodHandle findAllocator(MethodHandles.Lookup lookup, Class<?> type) {
+    try {
+      return lookup
+          .findConstructor(type, MethodType.methodType(void.class))
+          .asType(MethodType.methodType(Object.class));
+    } catch (NoSuchMethodException | IllegalAccessException exception) {
+      // Fall through to allocating it without a constructor
+    }
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Method allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+      return MethodHandles.publicLookup()
+          .unreflect(allocateInstance)
+          .bindTo(theUnsafe.get(null))
+          .bindTo(type);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Find a setter for a field of a message, including a final one, as Gson sets them.
+   *
+   * @param lookup A lookup with private access to the class declaring the field.
+   * @param owner The class declaring the field.
+   * @param name The name of the field.
+   * @return A {@code (owner, type)void} handle setting the field, or null if it cannot be set.
+   */
+  protected static MethodHandle findSetter(
+      MethodHandles.Lookup lookup, Class<?> owner, String name) {
+    try {
+      Field field = owner.getDeclaredField(name);
+      field.setAccessible(true);
+      return lookup.unreflectSetter(field);
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Read an int the way Gson does.
+   *
+   * @param in The reader.
+   * @return The value.
+   * @throws IOException If reading fails.
+   */
+  protected static int readInt(JsonReader in) throws IOException {
+    try {
+      return in.nextInt();
+    } catch (NumberFormatException exception) {
+      throw new JsonSyntaxException(exception);
+    }
+  }
+
+  /**
+   * Read a long the way Gson does.
+   *
+   * @param in The reader.
+   * @return The value.
+   * @throws IOException If reading fails.
+   */
+  protected static long readLong(JsonReader in) throws IOException {
+    try {
+      return in.nextLong();
+    } catch (NumberFormatException exception) {
+      throw new JsonSyntaxException(exception);
+    }
+  }
+
+  /**
+   * Read a boolean the way Gson does, accepting "true" and "false" strings.
+   *
+   * @param in The reader.
+   * @return The value.
+   * @throws IOException If reading fails.
+   */
+  protected static boolean readBoolean(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.STRING) {
+      return Boolean.parseBoolean(in.nextString());
+    }
+    return in.nextBoolean();
+  }
+
+  /**
+   * Read a string the way Gson does, accepting booleans and numbers.
+   *
+   * @param in The reader.
+   * @return The value.
+   * @throws IOException If reading fails.
+   */
+  protected static String readString(JsonReader in) throws IOException {
+    if (in.peek() == JsonToken.BOOLEAN) {
+      return Boolean.toString(in.nextBoolean());
+    }
+    return in.nextString();
+  }
+
+  /**
+   * Wrap a failure to construct a message.
+   *
+   * @param cause The failure.
+   * @return An exception to throw.
+   */
+  protected static JsonSyntaxException constructionFailed(Throwable cause) {
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    if (cause instanceof JsonSyntaxException syntax) {
+      return syntax;
+    }
+    return new JsonSyntaxException(cause);
+  }
+}
@@ -0,0 +1,51 @@
+package com.sim_backend.websockets.gson;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import java.lang.reflect.InvocationTargetException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands Gson the codec generated for a message class, so every message is bound by generated code.
+ * A message class without a generated codec, e.g. when the sources were compiled without the
+ * annotation processor, keeps Gson's reflective binding.
+ */
+@Slf4j
+public class OCPPCodecFactory implements TypeAdapterFactory {
+  /** The suffix the annotation processor gives a generated codec. */
+  public static final String CODEC_SUFFIX = "Codec";
+
+  @Override
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    Class<? super T> rawType = type.getRawType();
+    if (!rawType.isAnnotationPresent(OCPPMessageInfo.class) || rawType != type.getType()) {
+      return null;
+    }
+
+    Class<?> codecClass;
+    try {
+      codecClass = Class.forName(rawType.getName() + CODEC_SUFFIX, true, rawType.getClassLoader());
+    } catch (ClassNotFoundException exception) {
+      log.debug("No generated codec for {}, binding it reflectively", rawType);
+      return null;
+    }
+
+    TypeAdapter<T> fallback = gson.getDelegateAdapter(this, type);
+    try {
+      @SuppressWarnings("unchecked")
+      TypeAdapter<T> codec =
+          (TypeAdapter<T>)
+              codecClass.getConstructor(Gson.class, TypeAdapter.class).newInstance(gson, fallback);
+      return codec;
+    } catch (NoSuchMethodException
+        | InstantiationException
+        | IllegalAccessException
+        | InvocationTargetException exception) {
+      log.warn("Could not create the generated codec for {}", rawType, exception);
+      return null;
+    }
+  }
+}
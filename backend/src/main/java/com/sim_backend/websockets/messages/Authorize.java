@@ -2,6 +2,7 @@ package com.sim_backend.websockets.messages;
 
 import com.google.gson.annotations.SerializedName;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.types.DedupKey;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageRequest;
 import jakarta.validation.constraints.NotBlank;
@@ -43,6 +44,12 @@ public class Authorize extends OCPPMessageRequest implements Cloneable {
     return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
   }
 
+  /** An idTag is only authorized once at a time. */
+  @Override
+  public DedupKey getDedupKey() {
+    return DedupKey.of(Authorize.class, idTag);
+  }
+
   @Override
   protected Authorize clone() {
     return (Authorize) super.clone();
@@ -7,6 +7,7 @@ package com.sim_backend.websockets.messages;
 import com.google.gson.annotations.SerializedName;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
 import com.sim_backend.websockets.constants.BootNotificationConstants;
+import com.sim_backend.websockets.types.DedupKey;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageRequest;
 import jakarta.validation.constraints.NotBlank;
@@ -91,4 +92,10 @@ public final class BootNotification extends OCPPMessageRequest implements Clonea
   protected BootNotification clone() {
     return (BootNotification) super.clone();
   }
+
+  /** Only one BootNotification is queued at a time. */
+  @Override
+  public DedupKey getDedupKey() {
+    return DedupKey.of(BootNotification.class, null);
+  }
 }
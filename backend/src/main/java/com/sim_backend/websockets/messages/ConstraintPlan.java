@@ -0,0 +1,362 @@
+package com.sim_backend.websockets.messages;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Null;
+import jakarta.validation.constraints.Size;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The jakarta constraints of a class compiled into a list of checks, built once per class. A check
+ * reads a field through a method handle and tests it the way Hibernate Validator does, so a valid
+ * message is confirmed without going through the validator.
+ *
+ * <p>Only plain field constraints of the types below are compiled. A class with anything else, a
+ * cascaded {@code @Valid}, a getter, class or container element constraint, constraint groups or
+ * another constraint, is not compiled and is left to Hibernate Validator.
+ */
+final class ConstraintPlan {
+
+  /** The constraints a plan can check. */
+  private static final Set<Class<? extends Annotation>> SUPPORTED =
+      Set.of(
+          NotNull.class,
+          Null.class,
+          NotBlank.class,
+          NotEmpty.class,
+          Size.class,
+          Min.class,
+          Max.class);
+
+  /** The plan of every class, compiled on first use. */
+  private static final ClassValue<ConstraintPlan> PLANS =
+      new ClassValue<>() {
+        @Override
+        protected ConstraintPlan computeValue(Class<?> type) {
+          return compile(type);
+        }
+      };
+
+  /** A plan for a class that cannot be compiled. */
+  private static final ConstraintPlan NOT_COMPILED = new ConstraintPlan(null);
+
+  /** A single constraint of a field. */
+  private record Check(MethodHandle getter, Predicate<Object> test) {}
+
+  /** The checks of the class, or null if it is not compiled. */
+  private final List<Check> checks;
+
+  /**
+   * Create a plan.
+   *
+   * @param checks The checks, or null if the class is not compiled.
+   */
+  private ConstraintPlan(List<Check> checks) {
+    this.checks = checks;
+  }
+
+  /**
+   * Get the plan of a class.
+   *
+   * @param type The class.
+   * @return Its plan.
+   */
+  static ConstraintPlan forClass(Class<?> type) {
+    return PLANS.get(type);
+  }
+
+  /**
+   * If this plan can check its class, rather than leaving it to Hibernate Validator.
+   *
+   * @return True if the constraints of the class were compiled.
+   */
+  boolean isCompiled() {
+    return checks != null;
+  }
+
+  /**
+   * Check an object against this plan.
+   *
+   * @param object An instance of the planned class.
+   * @return True if no constraint is violated.
+   * @throws IllegalStateException If the plan is not compiled.
+   */
+  boolean isValid(Object object) {
+    if (checks == null) {
+      throw new IllegalStateException("Constraints of " + object.getClass() + " not compiled");
+    }
+    try {
+      for (Check check : checks) {
+        if (!check.test().test(check.getter().invokeExact(object))) {
+          return false;
+        }
+      }
+    } catch (Throwable exception) {
+      throw new IllegalStateException("Could not read " + object.getClass(), exception);
+    }
+    return true;
+  }
+
+  /**
+   * Compile the constraints of a class.
+   *
+   * @param type The class.
+   * @return Its plan, or {@link #NOT_COMPILED} if it has constraints a plan cannot check.
+   */
+  private static ConstraintPlan compile(Class<?> type) {
+    if (hasConstraints(type.getAnnotations()) || hasConstrainedMethods(type)) {
+      return NOT_COMPILED;
+    }
+
+    List<Check> checks = new ArrayList<>();
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers())) {
+          continue;
+        }
+        if (hasContainerConstraints(field.getAnnotatedType())) {
+          return NOT_COMPILED;
+        }
+
+        Annotation[] annotations = field.getAnnotations();
+        if (!hasConstraints(annotations)) {
+          continue;
+        }
+        MethodHandle getter = getter(field);
+        if (getter == null) {
+          return NOT_COMPILED;
+        }
+        for (Annotation annotation : annotations) {
+          if (!isConstraint(annotation)) {
+            continue;
+          }
+          Predicate<Object> test = test(annotation, field.getType());
+          if (test == null) {
+            return NOT_COMPILED;
+          }
+          checks.add(new Check(getter, test));
+        }
+      }
+    }
+    return new ConstraintPlan(List.copyOf(checks));
+  }
+
+  /**
+   * Build the test of a constraint.
+   *
+   * @param annotation The constraint.
+   * @param type The declared type of the field.
+   * @return The test, or null if a plan cannot check it.
+   */
+  private static Predicate<Object> test(Annotation annotation, Class<?> type) {
+    if (!SUPPORTED.contains(annotation.annotationType()) || hasGroups(annotation)) {
+      return null;
+    }
+    return switch (annotation) {
+      case NotNull ignored -> value -> value != null;
+      case Null ignored -> value -> value == null;
+      case NotBlank ignored ->
+          CharSequence.class.isAssignableFrom(type)
+              ? value -> value != null && !value.toString().trim().isEmpty()
+              : null;
+      case NotEmpty ignored -> hasSize(type) ? value -> value != null && size(value) > 0 : null;
+      case Size size -> {
+        int min = size.min();
+        int max = size.max();
+        yield hasSize(type)
+            ? value -> {
+              if (value == null) {
+                return true;
+              }
+              int length = size(value);
+              return length >= min && length <= max;
+            }
+            : null;
+      }
+      case Min min -> {
+        long bound = min.value();
+        yield isIntegral(type)
+            ? value -> value == null || ((Number) value).longValue() >= bound
+            : null;
+      }
+      case Max max -> {
+        long bound = max.value();
+        yield isIntegral(type)
+            ? value -> value == null || ((Number) value).longValue() <= bound
+            : null;
+      }
+      default -> null;
+    };
+  }
+
+  /**
+   * Look up a getter for a field.
+   *
+   * @param field The field.
+   * @return A {@code (Object)Object} handle reading it, or null if it cannot be read.
+   */
+  private static MethodHandle getter(Field field) {
+    try {
+      field.setAccessible(true);
+      return MethodHandles.lookup()
+          .unreflectGetter(field)
+          .asType(MethodType.methodType(Object.class, Object.class));
+    } catch (ReflectiveOperationException | RuntimeException exception) {
+      return null;
+    }
+  }
+
+  /**
+   * Check if an annotation is a bean validation constraint, or a validation annotation such as
+   * {@code @Valid} that changes what is validated.
+   *
+   * @param annotation The annotation.
+   * @return True if it is.
+   */
+  private static boolean isConstraint(Annotation annotation) {
+    Class<? extends Annotation> annotationType = annotation.annotationType();
+    return annotationType.isAnnotationPresent(Constraint.class)
+        || annotationType.getName().startsWith("jakarta.validation.")
+        || annotationType.getName().startsWith("org.hibernate.validator.");
+  }
+
+  /**
+   * Check if any of some annotations is a constraint.
+   *
+   * @param annotations The annotations.
+   * @return True if one is.
+   */
+  private static boolean hasConstraints(Annotation[] annotations) {
+    for (Annotation annotation : annotations) {
+      if (isConstraint(annotation)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Check if a class or one of its supertypes constrains a method, which Hibernate Validator treats
+   * as a property when it is a getter.
+   *
+   * @param type The class.
+   * @return True if a method is constrained.
+   */
+  private static boolean hasConstrainedMethods(Class<?> type) {
+    if (type == null || type == Object.class) {
+      return false;
+    }
+    for (Method method : type.getDeclaredMethods()) {
+      if (!Modifier.isStatic(method.getModifiers()) && hasConstraints(method.getAnnotations())) {
+        return true;
+      }
+    }
+    for (Class<?> implemented : type.getInterfaces()) {
+      if (hasConstraints(implemented.getAnnotations()) || hasConstrainedMethods(implemented)) {
+        return true;
+      }
+    }
+    return hasConstrainedMethods(type.getSuperclass());
+  }
+
+  /**
+   * Check if the type arguments or components of a field's type are constrained, such as {@code
+   * List<@NotNull String>}.
+   *
+   * @param type The annotated type of the field.
+   * @return True if they are.
+   */
+  private static boolean hasContainerConstraints(AnnotatedType type) {
+    if (type instanceof AnnotatedParameterizedType parameterized) {
+      for (AnnotatedType argument : parameterized.getAnnotatedActualTypeArguments()) {
+        if (hasConstraints(argument.getAnnotations()) || hasContainerConstraints(argument)) {
+          return true;
+        }
+      }
+    } else if (type instanceof AnnotatedArrayType array) {
+      AnnotatedType component = array.getAnnotatedGenericComponentType();
+      return hasConstraints(component.getAnnotations()) || hasContainerConstraints(component);
+    }
+    return false;
+  }
+
+  /**
+   * Check if a constraint is limited to some groups, which the default validation skips.
+   *
+   * @param annotation The constraint.
+   * @return True if it names any group.
+   */
+  private static boolean hasGroups(Annotation annotation) {
+    try {
+      Object groups = annotation.annotationType().getMethod("groups").invoke(annotation);
+      return groups instanceof Class<?>[] classes && classes.length > 0;
+    } catch (ReflectiveOperationException exception) {
+      return false;
+    }
+  }
+
+  /**
+   * Check if a type has a size Hibernate Validator can check.
+   *
+   * @param type The declared type.
+   * @return True for character sequences, collections, maps and arrays.
+   */
+  private static boolean hasSize(Class<?> type) {
+    return CharSequence.class.isAssignableFrom(type)
+        || Collection.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type)
+        || type.isArray();
+  }
+
+  /**
+   * Get the size of a value of a type accepted by {@link #hasSize(Class)}.
+   *
+   * @param value The value.
+   * @return Its length or number of elements.
+   */
+  private static int size(Object value) {
+    return switch (value) {
+      case CharSequence text -> text.length();
+      case Collection<?> collection -> collection.size();
+      case Map<?, ?> map -> map.size();
+      default -> Array.getLength(value);
+    };
+  }
+
+  /**
+   * Check if a type is a whole number Hibernate Validator compares as a long.
+   *
+   * @param type The declared type.
+   * @return True for byte, short, int and long, boxed or not.
+   */
+  private static boolean isIntegral(Class<?> type) {
+    return type == int.class
+        || type == long.class
+        || type == short.class
+        || type == byte.class
+        || type == Integer.class
+        || type == Long.class
+        || type == Short.class
+        || type == Byte.class;
+  }
+}
@@ -1,6 +1,7 @@
 package com.sim_backend.websockets.messages;
 
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.types.DedupKey;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageRequest;
 import lombok.EqualsAndHashCode;
@@ -19,6 +20,12 @@ public final class Heartbeat extends OCPPMessageRequest implements Cloneable {
     super();
   }
 
+  /** Only one Heartbeat is queued at a time. */
+  @Override
+  public DedupKey getDedupKey() {
+    return DedupKey.of(Heartbeat.class, null);
+  }
+
   @Override
   protected Heartbeat clone() {
     return (Heartbeat) super.clone();
@@ -10,6 +10,10 @@ import java.util.stream.Collectors;
 /**
  * Utility class for validating objects using Jakarta Bean Validation (JSR-380). It provides methods
  * to check whether an object is valid and retrieve validation messages.
+ *
+ * <p>The constraints of each class are compiled into a {@link ConstraintPlan} on first use, which
+ * checks valid objects without running the validator. Violations are still described by the
+ * validator, and classes a plan cannot check are always validated by it.
  */
 public class MessageValidator {
 
@@ -53,6 +57,27 @@ public class MessageValidator {
    * @return true if the object is valid, false otherwise.
    */
   public static <T> boolean isValid(T object) {
+    ConstraintPlan plan = ConstraintPlan.forClass(object.getClass());
+    if (plan.isCompiled()) {
+      return plan.isValid(object);
+    }
     return validator.validate(object).isEmpty(); // Returns true if no violations
   }
+
+  /**
+   * Validates the given object once, describing its violations only if it is invalid.
+   *
+   * @param object The object to be validated.
+   * @param <T> The type of the object.
+   * @return null if the object is valid, otherwise its validation messages as {@link
+   *     #log_message(Object)} formats them.
+   */
+  public static <T> String findViolations(T object) {
+    ConstraintPlan plan = ConstraintPlan.forClass(object.getClass());
+    if (plan.isCompiled() && plan.isValid(object)) {
+      return null;
+    }
+    String violations = log_message(object);
+    return violations.equals("Valid") ? null : violations;
+  }
 }
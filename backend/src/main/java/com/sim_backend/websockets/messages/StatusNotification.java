@@ -4,6 +4,7 @@ import com.google.gson.annotations.SerializedName;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
 import com.sim_backend.websockets.enums.ChargePointErrorCode;
 import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.types.DedupKey;
 import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageRequest;
 import jakarta.validation.constraints.Min;
@@ -64,6 +65,12 @@ public final class StatusNotification extends OCPPMessageRequest implements Clon
         (vendorErrorCode == null || vendorErrorCode.isEmpty()) ? null : vendorErrorCode;
   }
 
+  /** Only the latest status of a connector is queued, a newer one replaces it. */
+  @Override
+  public DedupKey getDedupKey() {
+    return DedupKey.latestOf(StatusNotification.class, connectorId);
+  }
+
   @Override
   protected StatusNotification clone() {
     return (StatusNotification) super.clone();
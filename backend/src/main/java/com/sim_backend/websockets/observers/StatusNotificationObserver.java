@@ -7,27 +7,23 @@ import com.sim_backend.websockets.enums.ChargePointErrorCode;
 import com.sim_backend.websockets.enums.ChargePointStatus;
 import com.sim_backend.websockets.messages.StatusNotification;
 import java.time.ZonedDateTime;
-import lombok.AllArgsConstructor;
 import lombok.Setter;
 
 /** Observer that handles StatusNotification requests when charger state changes. */
-@AllArgsConstructor
 @Setter
 public class StatusNotificationObserver implements StateObserver {
 
   private OCPPWebSocketClient client;
-  private StatusNotification statusNotificationQueue;
 
   public StatusNotificationObserver() {}
 
   public StatusNotificationObserver(OCPPWebSocketClient client) {
     this.client = client;
-    this.statusNotificationQueue = null;
   }
 
   /**
-   * This sends a StatusNotification when State changes. If the client is offline it queues, when
-   * client is back online the last StatusNotification message to be sent.
+   * This sends a StatusNotification when State changes. If the client is offline it buffers it,
+   * keeping only the latest StatusNotification of each connector until it is back online.
    *
    * @param newState the new ChargerState after a transition.
    */
@@ -55,13 +51,7 @@ public class StatusNotificationObserver implements StateObserver {
         new StatusNotification(
             connectorId, errorCode, info, status, timestamp, vendorId, vendorErrorCode);
 
-    if (client.isOnline()) {
-      client.pushMessage(notification);
-      statusNotificationQueue = null;
-    } else {
-      System.out.println("Client is Offine... Failed to Send StatusNotification");
-      statusNotificationQueue = notification;
-    }
+    client.pushMessage(notification);
   }
 
   /**
@@ -79,13 +69,4 @@ public class StatusNotificationObserver implements StateObserver {
       default -> null;
     };
   }
-
-  /** Called in client goOnline() function. */
-  public void onClientGoOnline() {
-    if (statusNotificationQueue != null) {
-      System.out.println("Client is back online. Send latest StatusNotification.");
-      client.pushMessage(statusNotificationQueue);
-      statusNotificationQueue = null;
-    }
-  }
 }
@@ -0,0 +1,103 @@
+package com.sim_backend.websockets.transport;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+
+/**
+ * A pool of equally sized buffers shared by every connection of a transport, so memory use follows
+ * the number of busy connections rather than the number of open ones. The buffers are heap backed
+ * since Java-WebSocket's frame decoder needs access to their array.
+ */
+public class BufferPool {
+  /** The default size of a pooled buffer. */
+  public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+  /** The default number of idle buffers kept. */
+  public static final int DEFAULT_MAX_POOLED = 64;
+
+  /** The size of each buffer. */
+  @Getter private final int bufferSize;
+
+  /** The most idle buffers we keep around. */
+  private final int maxPooled;
+
+  /** Idle buffers ready to be handed out. */
+  private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+
+  /** The number of idle buffers. */
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  /** The number of buffers we ever allocated. */
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  /** Create a pool with the default sizes. */
+  public BufferPool() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+  }
+
+  /**
+   * Create a buffer pool.
+   *
+   * @param bufferSize The size of each buffer.
+   * @param maxPooled The most idle buffers to keep.
+   */
+  public BufferPool(int bufferSize, int maxPooled) {
+    if (bufferSize <= 0 || maxPooled < 0) {
+      throw new IllegalArgumentException("Buffer size must be positive");
+    }
+    this.bufferSize = bufferSize;
+    this.maxPooled = maxPooled;
+  }
+
+  /**
+   * Take a cleared buffer from the pool, allocating one if the pool is empty.
+   *
+   * @return A cleared buffer.
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = pool.poll();
+    if (buffer == null) {
+      allocated.incrementAndGet();
+      return ByteBuffer.allocate(bufferSize);
+    }
+    pooled.decrementAndGet();
+    return buffer.clear();
+  }
+
+  /**
+   * Return a buffer to the pool.
+   *
+   * @param buffer The buffer to return, buffers of a different size are dropped.
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer == null || buffer.capacity() != bufferSize || !buffer.hasArray()) {
+      return;
+    }
+    if (pooled.incrementAndGet() > maxPooled) {
+      pooled.decrementAndGet();
+      return;
+    }
+    pool.add(buffer);
+  }
+
+  /**
+   * Get the number of buffers ever allocated by this pool.
+   *
+   * @return The number of allocations.
+   */
+  public int getAllocatedCount() {
+    return allocated.get();
+  }
+
+  /**
+   * Get the number of idle buffers in the pool.
+   *
+   * @return The number of idle buffers.
+   */
+  public int getPooledCount() {
+    return pooled.get();
+  }
+}
@@ -0,0 +1,492 @@
+package com.sim_backend.websockets.transport;
+
+import com.sim_backend.websockets.TimerWheel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.enums.HandshakeState;
+import org.java_websocket.enums.Role;
+import org.java_websocket.exceptions.IncompleteHandshakeException;
+import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.exceptions.InvalidHandshakeException;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.PingFrame;
+import org.java_websocket.framing.PongFrame;
+import org.java_websocket.handshake.HandshakeImpl1Client;
+import org.java_websocket.handshake.Handshakedata;
+import org.java_websocket.handshake.ServerHandshake;
+
+/**
+ * A websocket connection driven by a {@link SelectorLoop}. The handshake and framing are delegated
+ * to Java-WebSocket's {@link Draft_6455}, only the socket handling differs from the default client.
+ */
+@Slf4j
+class NioConnection implements TransportConnection {
+  /** How long we wait for the server to answer our close frame. */
+  private static final long CLOSE_TIMEOUT_SECONDS = 2;
+
+  private enum State {
+    CONNECTING,
+    HANDSHAKING,
+    OPEN,
+    CLOSING,
+    CLOSED
+  }
+
+  private final NioWebSocketTransport transport;
+  private final SelectorLoop loop;
+  private final InetSocketAddress address;
+  private final TransportListener listener;
+  private final HandshakeImpl1Client request = new HandshakeImpl1Client();
+
+  /** Encodes our outgoing frames, may be used from any thread. */
+  private final Draft_6455 encoder = new Draft_6455();
+
+  /** Decodes incoming frames, only used on the loop's thread. */
+  private final Draft_6455 decoder = new Draft_6455();
+
+  /** Encoded frames waiting to be written. */
+  private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+
+  /** Whether a flush has been handed to the loop. */
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+  /** Released once the handshake completed or failed. */
+  private final CountDownLatch opened = new CountDownLatch(1);
+
+  private volatile State state = State.CONNECTING;
+  private SocketChannel channel;
+  private SelectionKey key;
+
+  /** The partially received handshake response, a pooled buffer. */
+  private ByteBuffer handshakeBuffer;
+
+  /** The payload of a fragmented text message. */
+  private ByteArrayOutputStream fragments;
+
+  private int closeCode = CloseFrame.NORMAL;
+  private String closeReason = "";
+
+  /**
+   * Create a connection, it is opened by {@link #start()} on the loop's thread.
+   *
+   * @param transport The transport that owns this connection.
+   * @param loop The loop serving this connection.
+   * @param uri The websocket address.
+   * @param address The resolved address to connect to.
+   * @param headers The headers to send with the handshake.
+   * @param listener The listener notified of our events.
+   */
+  NioConnection(
+      NioWebSocketTransport transport,
+      SelectorLoop loop,
+      URI uri,
+      InetSocketAddress address,
+      Map<String, String> headers,
+      TransportListener listener) {
+    this.transport = transport;
+    this.loop = loop;
+    this.address = address;
+    this.listener = listener;
+    this.encoder.setParseMode(Role.CLIENT);
+    this.decoder.setParseMode(Role.CLIENT);
+
+    String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+    if (uri.getRawQuery() != null) {
+      path += "?" + uri.getRawQuery();
+    }
+    request.setResourceDescriptor(path);
+    int port = uri.getPort();
+    request.put("Host", uri.getHost() + (port == -1 || port == 80 ? "" : ":" + port));
+    if (headers != null) {
+      headers.forEach(request::put);
+    }
+  }
+
+  /**
+   * Wait until the handshake completed or failed.
+   *
+   * @param timeout The longest time to wait.
+   * @param unit The unit of the timeout.
+   * @return true if the handshake finished in time.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  boolean awaitOpen(long timeout, TimeUnit unit) throws InterruptedException {
+    return opened.await(timeout, unit);
+  }
+
+  /** Open the socket, runs on the loop's thread. */
+  void start() {
+    try {
+      channel = SocketChannel.open();
+      channel.configureBlocking(false);
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+      boolean connected = channel.connect(address);
+      key = channel.register(loop.selector(), SelectionKey.OP_CONNECT, this);
+      if (connected) {
+        onConnected();
+      }
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Finish a pending connect.
+   *
+   * @throws IOException If the connect failed.
+   */
+  void finishConnect() throws IOException {
+    if (channel.finishConnect()) {
+      onConnected();
+    }
+  }
+
+  /** Send our handshake once the socket is connected. */
+  private void onConnected() {
+    state = State.HANDSHAKING;
+    key.interestOps(SelectionKey.OP_READ);
+    encoder.postProcessHandshakeRequestAsClient(request);
+    outbound.addAll(encoder.createHandshake(request));
+    flush();
+  }
+
+  /**
+   * Read what is available from the socket.
+   *
+   * @throws IOException If the read failed.
+   */
+  void read() throws IOException {
+    ByteBuffer buffer = transport.getBufferPool().acquire();
+    try {
+      int read = channel.read(buffer);
+      if (read < 0) {
+        terminate(
+            state == State.CLOSING ? closeCode : CloseFrame.ABNORMAL_CLOSE, closeReason, true);
+        return;
+      }
+      if (read == 0) {
+        return;
+      }
+      buffer.flip();
+      if (state == State.HANDSHAKING) {
+        readHandshake(buffer);
+      } else {
+        readFrames(buffer);
+      }
+    } finally {
+      transport.getBufferPool().release(buffer);
+    }
+  }
+
+  /**
+   * Collect the server's handshake response.
+   *
+   * @param data The bytes read.
+   */
+  private void readHandshake(ByteBuffer data) {
+    if (handshakeBuffer == null) {
+      handshakeBuffer = transport.getBufferPool().acquire();
+    }
+    if (handshakeBuffer.remaining() < data.remaining()) {
+      fail(new InvalidHandshakeException("Handshake response too large"));
+      return;
+    }
+    handshakeBuffer.put(data);
+
+    ByteBuffer view = handshakeBuffer.duplicate().flip();
+    Handshakedata response;
+    try {
+      response = decoder.translateHandshake(view);
+    } catch (IncompleteHandshakeException e) {
+      return;
+    } catch (InvalidHandshakeException e) {
+      fail(e);
+      return;
+    }
+
+    try {
+      if (!(response instanceof ServerHandshake serverHandshake)
+          || decoder.acceptHandshakeAsClient(request, serverHandshake) != HandshakeState.MATCHED) {
+        fail(new InvalidHandshakeException("Handshake response was not accepted"));
+        return;
+      }
+
+      // The server may have sent frames right behind its handshake
+      ByteBuffer rest = ByteBuffer.allocate(view.remaining()).put(view).flip();
+      transport.getBufferPool().release(handshakeBuffer);
+      handshakeBuffer = null;
+
+      state = State.OPEN;
+      listener.onOpen(serverHandshake);
+      opened.countDown();
+      if (rest.hasRemaining()) {
+        readFrames(rest);
+      }
+    } catch (Exception e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Decode and dispatch received frames.
+   *
+   * @param data The bytes read.
+   */
+  private void readFrames(ByteBuffer data) {
+    List<Framedata> frames;
+    try {
+      frames = decoder.translateFrame(data);
+    } catch (InvalidDataException e) {
+      fail(e);
+      return;
+    }
+
+    for (Framedata frame : frames) {
+      switch (frame.getOpcode()) {
+        case TEXT -> {
+          if (frame.isFin()) {
+            deliver(StandardCharsets.UTF_8.decode(frame.getPayloadData()).toString());
+          } else {
+            fragments = new ByteArrayOutputStream();
+            appendFragment(frame);
+          }
+        }
+        case CONTINUOUS -> {
+          if (fragments == null) {
+            log.warn("Received a continuation frame without a start frame");
+            continue;
+          }
+          appendFragment(frame);
+          if (frame.isFin()) {
+            String text = fragments.toString(StandardCharsets.UTF_8);
+            fragments = null;
+            deliver(text);
+          }
+        }
+        case PING -> queueFrame(new PongFrame((PingFrame) frame));
+        case CLOSING -> onCloseFrame((CloseFrame) frame);
+        case PONG -> listener.onPong();
+        default -> log.warn("Ignoring unsupported frame {}", frame.getOpcode());
+      }
+    }
+    flush();
+  }
+
+  private void appendFragment(Framedata frame) {
+    ByteBuffer payload = frame.getPayloadData();
+    byte[] bytes = new byte[payload.remaining()];
+    payload.get(bytes);
+    fragments.writeBytes(bytes);
+  }
+
+  private void deliver(String text) {
+    try {
+      listener.onMessage(text);
+    } catch (Exception e) {
+      log.error("Listener failed handling a message: ", e);
+    }
+  }
+
+  private void onCloseFrame(CloseFrame frame) {
+    if (state == State.OPEN) {
+      // Echo the server's close before dropping the connection
+      queueFrame(closeFrame(frame.getCloseCode(), frame.getMessage()));
+      flush();
+      terminate(frame.getCloseCode(), frame.getMessage(), true);
+    } else {
+      terminate(closeCode, closeReason, false);
+    }
+  }
+
+  @Override
+  public void send(String text) {
+    if (state != State.OPEN) {
+      throw new WebsocketNotConnectedException();
+    }
+    synchronized (encoder) {
+      for (Framedata frame : encoder.createFrames(text, true)) {
+        outbound.add(encoder.createBinaryFrame(frame));
+      }
+    }
+    scheduleFlush();
+  }
+
+  @Override
+  public void sendBatch(List<String> texts) {
+    if (state != State.OPEN) {
+      throw new WebsocketNotConnectedException();
+    }
+    synchronized (encoder) {
+      List<ByteBuffer> frames = new ArrayList<>();
+      int size = 0;
+      for (String text : texts) {
+        for (Framedata frame : encoder.createFrames(text, true)) {
+          ByteBuffer encoded = encoder.createBinaryFrame(frame);
+          size += encoded.remaining();
+          frames.add(encoded);
+        }
+      }
+      // One buffer so the batch leaves in a single write
+      ByteBuffer batch = ByteBuffer.allocate(size);
+      frames.forEach(batch::put);
+      outbound.add(batch.flip());
+    }
+    scheduleFlush();
+  }
+
+  @Override
+  public void sendPing() {
+    if (state != State.OPEN) {
+      throw new WebsocketNotConnectedException();
+    }
+    queueFrame(new PingFrame());
+    scheduleFlush();
+  }
+
+  private void queueFrame(Framedata frame) {
+    synchronized (encoder) {
+      outbound.add(encoder.createBinaryFrame(frame));
+    }
+  }
+
+  private static CloseFrame closeFrame(int code, String reason) {
+    CloseFrame frame = new CloseFrame();
+    frame.setCode(code);
+    frame.setReason(reason == null ? "" : reason);
+    return frame;
+  }
+
+  private void scheduleFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      loop.execute(
+          () -> {
+            flushScheduled.set(false);
+            flush();
+          });
+    }
+  }
+
+  /** Write queued frames, runs on the loop's thread. */
+  void flush() {
+    if (state == State.CLOSED || state == State.CONNECTING) {
+      return;
+    }
+    try {
+      ByteBuffer buffer;
+      while ((buffer = outbound.peek()) != null) {
+        channel.write(buffer);
+        if (buffer.hasRemaining()) {
+          // The socket is full, continue once it is writable again
+          key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+          return;
+        }
+        outbound.poll();
+      }
+      key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+    } catch (IOException e) {
+      fail(e);
+    }
+  }
+
+  @Override
+  public void close(int code, String reason) {
+    loop.execute(() -> closeInLoop(code, reason));
+  }
+
+  private void closeInLoop(int code, String reason) {
+    if (state == State.CLOSED || state == State.CLOSING) {
+      return;
+    }
+    if (state != State.OPEN) {
+      terminate(code, reason, false);
+      return;
+    }
+    state = State.CLOSING;
+    closeCode = code;
+    closeReason = reason == null ? "" : reason;
+    queueFrame(closeFrame(code, closeReason));
+    flush();
+    TimerWheel.getShared()
+        .newTimeout(
+            () -> loop.execute(() -> terminate(code, closeReason, false)),
+            CLOSE_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS);
+  }
+
+  @Override
+  public boolean isOpen() {
+    return state == State.OPEN;
+  }
+
+  /**
+   * Fail the connection.
+   *
+   * @param exception The cause of the failure.
+   */
+  void fail(Exception exception) {
+    if (state == State.CLOSED) {
+      return;
+    }
+    try {
+      listener.onError(exception);
+    } catch (Exception e) {
+      log.error("Listener failed handling an error: ", e);
+    }
+    terminate(CloseFrame.ABNORMAL_CLOSE, String.valueOf(exception.getMessage()), false);
+  }
+
+  /**
+   * Close the socket and notify our listener, runs on the loop's thread.
+   *
+   * @param code The websocket close code.
+   * @param reason The close reason.
+   * @param remote true if the server closed the connection.
+   */
+  void terminate(int code, String reason, boolean remote) {
+    if (state == State.CLOSED) {
+      return;
+    }
+    state = State.CLOSED;
+    if (key != null) {
+      key.cancel();
+    }
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Failed to close channel: ", e);
+      }
+    }
+    if (handshakeBuffer != null) {
+      transport.getBufferPool().release(handshakeBuffer);
+      handshakeBuffer = null;
+    }
+    outbound.clear();
+    transport.onTerminated(this);
+    opened.countDown();
+    try {
+      listener.onClose(code, reason, remote);
+    } catch (Exception e) {
+      log.error("Listener failed handling a close: ", e);
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.sim_backend.websockets.transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.java_websocket.framing.CloseFrame;
+
+/**
+ * A transport multiplexing every connection over a few NIO selector threads. A charger using it
+ * costs one socket and no threads of its own, and read buffers come from a pool shared by all
+ * connections. Only plain {@code ws://} connections are supported.
+ */
+@Slf4j
+public class NioWebSocketTransport implements WebSocketTransport {
+  /** The default number of selector threads. */
+  public static final int DEFAULT_SELECTOR_THREADS =
+      Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+  /** How long we wait for a connection's handshake. */
+  public static final long HANDSHAKE_TIMEOUT_SECONDS = 10;
+
+  /** Lazily created transport shared by every charger. */
+  private static final class SharedTransport {
+    private static final NioWebSocketTransport INSTANCE =
+        new NioWebSocketTransport(DEFAULT_SELECTOR_THREADS, new BufferPool());
+  }
+
+  /** Our selector loops, connections are spread over them round robin. */
+  private final SelectorLoop[] loops;
+
+  /** The next loop to hand a connection to. */
+  private final AtomicInteger nextLoop = new AtomicInteger();
+
+  /** The number of connections not yet closed. */
+  private final AtomicInteger connectionCount = new AtomicInteger();
+
+  /** The buffers shared by our connections. */
+  @Getter private final BufferPool bufferPool;
+
+  /**
+   * Create a transport.
+   *
+   * @param selectorThreads The number of selector threads.
+   * @param bufferPool The buffers shared by our connections.
+   */
+  public NioWebSocketTransport(int selectorThreads, BufferPool bufferPool) {
+    if (selectorThreads <= 0) {
+      throw new IllegalArgumentException("Selector thread count must be positive");
+    }
+    this.bufferPool = bufferPool;
+    this.loops = new SelectorLoop[selectorThreads];
+    try {
+      for (int i = 0; i < selectorThreads; i++) {
+        loops[i] = new SelectorLoop("ocpp-nio-selector-" + i);
+      }
+    } catch (IOException e) {
+      shutdown();
+      throw new UncheckedIOException("Failed to open selector", e);
+    }
+  }
+
+  /**
+   * Get the transport shared by every charger in this process.
+   *
+   * @return The shared transport.
+   */
+  public static NioWebSocketTransport getShared() {
+    return SharedTransport.INSTANCE;
+  }
+
+  /**
+   * Check if a websocket address can be served by this transport.
+   *
+   * @param uri The websocket address.
+   * @return true for plain {@code ws://} addresses.
+   */
+  public static boolean supports(URI uri) {
+    return "ws".equalsIgnoreCase(uri.getScheme());
+  }
+
+  @Override
+  public TransportConnection connect(
+      URI uri, Map<String, String> headers, TransportListener listener)
+      throws InterruptedException {
+    if (!supports(uri)) {
+      throw new IllegalArgumentException("Unsupported websocket scheme: " + uri);
+    }
+
+    int port = uri.getPort() == -1 ? 80 : uri.getPort();
+    SelectorLoop loop = loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    NioConnection connection =
+        new NioConnection(
+            this, loop, uri, new InetSocketAddress(uri.getHost(), port), headers, listener);
+
+    connectionCount.incrementAndGet();
+    loop.execute(connection::start);
+    if (!connection.awaitOpen(HANDSHAKE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      log.warn("Handshake with {} timed out", uri);
+      connection.close(CloseFrame.NEVER_CONNECTED, "Handshake timed out");
+    }
+    return connection;
+  }
+
+  /**
+   * Called by a connection once it closed.
+   *
+   * @param connection The closed connection.
+   */
+  void onTerminated(NioConnection connection) {
+    connectionCount.decrementAndGet();
+  }
+
+  /**
+   * Get the number of connections that have not closed yet.
+   *
+   * @return The number of connections.
+   */
+  public int getConnectionCount() {
+    return connectionCount.get();
+  }
+
+  /**
+   * Get the number of selector threads serving all connections.
+   *
+   * @return The number of threads.
+   */
+  public int getSelectorThreadCount() {
+    return loops.length;
+  }
+
+  /** Stop every selector thread, closing their connections. */
+  public void shutdown() {
+    for (SelectorLoop loop : loops) {
+      if (loop != null) {
+        loop.shutdown();
+      }
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package com.sim_backend.websockets.transport;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A single NIO selector thread serving many connections. Everything that touches a connection's
+ * channel runs on this thread, other threads hand work over with {@link #execute(Runnable)}.
+ */
+@Slf4j
+class SelectorLoop implements Runnable {
+  /** The selector our connections are registered with. */
+  private final Selector selector;
+
+  /** Work handed over by other threads. */
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+  /** The thread running this loop. */
+  private final Thread thread;
+
+  /** Whether the loop should keep running. */
+  private volatile boolean running = true;
+
+  /**
+   * Create and start a selector loop.
+   *
+   * @param name The name of the loop's thread.
+   * @throws IOException If the selector could not be opened.
+   */
+  SelectorLoop(String name) throws IOException {
+    this.selector = Selector.open();
+    this.thread = new Thread(this, name);
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Get our selector.
+   *
+   * @return The selector.
+   */
+  Selector selector() {
+    return selector;
+  }
+
+  /**
+   * Run a task on the loop's thread.
+   *
+   * @param task The task to run.
+   */
+  void execute(Runnable task) {
+    tasks.add(task);
+    selector.wakeup();
+  }
+
+  /** Stop the loop, closing every connection still registered. */
+  void shutdown() {
+    running = false;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      try {
+        selector.select();
+      } catch (IOException e) {
+        log.error("Selector failed: ", e);
+        continue;
+      }
+      runTasks();
+
+      Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+      while (keys.hasNext()) {
+        SelectionKey key = keys.next();
+        keys.remove();
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+          if (key.isValid() && key.isConnectable()) {
+            connection.finishConnect();
+          }
+          if (key.isValid() && key.isReadable()) {
+            connection.read();
+          }
+          if (key.isValid() && key.isWritable()) {
+            connection.flush();
+          }
+        } catch (Exception e) {
+          connection.fail(e);
+        }
+      }
+    }
+
+    runTasks();
+    for (SelectionKey key : selector.keys()) {
+      ((NioConnection) key.attachment()).terminate(1001, "Transport shut down", false);
+    }
+    try {
+      selector.close();
+    } catch (IOException e) {
+      log.warn("Failed to close selector: ", e);
+    }
+  }
+
+  /** Run the tasks handed over since the last select. */
+  private void runTasks() {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      try {
+        task.run();
+      } catch (Exception e) {
+        log.error("Selector task failed: ", e);
+      }
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.sim_backend.websockets.transport;
+
+import java.util.List;
+
+/** A single websocket connection opened by a {@link WebSocketTransport}. */
+public interface TransportConnection {
+  /**
+   * Send a text frame.
+   *
+   * @param text The text to send.
+   * @throws org.java_websocket.exceptions.WebsocketNotConnectedException If the connection is not
+   *     open.
+   */
+  void send(String text);
+
+  /**
+   * Send text frames together, in one write where the transport can.
+   *
+   * @param texts The texts to send, in order.
+   * @throws org.java_websocket.exceptions.WebsocketNotConnectedException If the connection is not
+   *     open.
+   */
+  default void sendBatch(List<String> texts) {
+    for (String text : texts) {
+      send(text);
+    }
+  }
+
+  /**
+   * Send a ping, the answer is reported through {@link TransportListener#onPong()}.
+   *
+   * @throws org.java_websocket.exceptions.WebsocketNotConnectedException If the connection is not
+   *     open.
+   */
+  void sendPing();
+
+  /**
+   * Start closing the connection.
+   *
+   * @param code The websocket close code.
+   * @param reason The close reason.
+   */
+  void close(int code, String reason);
+
+  /**
+   * Check if the connection is open.
+   *
+   * @return true if frames can be sent.
+   */
+  boolean isOpen();
+}
@@ -0,0 +1,42 @@
+package com.sim_backend.websockets.transport;
+
+import org.java_websocket.handshake.ServerHandshake;
+
+/**
+ * Receives the events of a {@link TransportConnection}. The methods match those of Java-WebSocket's
+ * {@code WebSocketClient}, so a client can listen to either transport.
+ */
+public interface TransportListener {
+  /**
+   * Called once the handshake completed.
+   *
+   * @param handshake The server's handshake response.
+   */
+  void onOpen(ServerHandshake handshake);
+
+  /**
+   * Called for every received text message.
+   *
+   * @param message The received message.
+   */
+  void onMessage(String message);
+
+  /** Called for every received pong. */
+  default void onPong() {}
+
+  /**
+   * Called once the connection closed.
+   *
+   * @param code The websocket close code.
+   * @param reason The close reason.
+   * @param remote true if the server closed the connection.
+   */
+  void onClose(int code, String reason, boolean remote);
+
+  /**
+   * Called when the connection failed.
+   *
+   * @param exception The failure.
+   */
+  void onError(Exception exception);
+}
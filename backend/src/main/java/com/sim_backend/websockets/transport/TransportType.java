@@ -0,0 +1,9 @@
+package com.sim_backend.websockets.transport;
+
+/** The websocket transports a charger can use. */
+public enum TransportType {
+  /** Java-WebSocket, with its own threads for every connection. */
+  DEFAULT,
+  /** All connections multiplexed over a few shared NIO selector threads. */
+  NIO
+}
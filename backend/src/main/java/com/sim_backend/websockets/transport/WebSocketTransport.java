@@ -0,0 +1,22 @@
+package com.sim_backend.websockets.transport;
+
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * A transport that carries the websocket connections of OCPPWebSocketClients. When a client has no
+ * transport it uses the Java-WebSocket connection it inherits from {@code WebSocketClient}.
+ */
+public interface WebSocketTransport {
+  /**
+   * Open a websocket connection, blocking until the handshake completed or failed.
+   *
+   * @param uri The websocket address.
+   * @param headers The headers to send with the handshake.
+   * @param listener The listener notified of the connection's events.
+   * @return The connection, which is not open if the handshake failed.
+   * @throws InterruptedException If interrupted while waiting for the handshake.
+   */
+  TransportConnection connect(URI uri, Map<String, String> headers, TransportListener listener)
+      throws InterruptedException;
+}
@@ -0,0 +1,2 @@
+/** This package contains the pluggable websocket transports for the EV Charger Simulator. */
+package com.sim_backend.websockets.transport;
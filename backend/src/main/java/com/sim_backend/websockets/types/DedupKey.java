@@ -0,0 +1,34 @@
+package com.sim_backend.websockets.types;
+
+/**
+ * The key the send queue deduplicates a message by, so pushing a message never hashes or compares
+ * its payload. Only one message of a key is queued at a time.
+ *
+ * @param type The message type.
+ * @param value What tells messages of the type apart, such as the message ID or the connector.
+ * @param latest If a newer message replaces the queued one of its key, rather than being dropped.
+ */
+public record DedupKey(Class<? extends OCPPMessage> type, Object value, boolean latest) {
+
+  /**
+   * Create a key whose queued message is kept, a later message of the key is dropped.
+   *
+   * @param type The message type.
+   * @param value What tells messages of the type apart.
+   * @return The key.
+   */
+  public static DedupKey of(Class<? extends OCPPMessage> type, Object value) {
+    return new DedupKey(type, value, false);
+  }
+
+  /**
+   * Create a key whose latest message is sent, a later message of the key replaces the queued one.
+   *
+   * @param type The message type.
+   * @param value What tells messages of the type apart.
+   * @return The key.
+   */
+  public static DedupKey latestOf(Class<? extends OCPPMessage> type, Object value) {
+    return new DedupKey(type, value, true);
+  }
+}
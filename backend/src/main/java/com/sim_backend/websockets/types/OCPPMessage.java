@@ -1,17 +1,13 @@
 package com.sim_backend.websockets.types;
 
-import static com.sim_backend.websockets.OCPPWebSocketClient.MESSAGE_PACKAGE;
-
 import com.google.gson.JsonArray;
 import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.OCPPMessageRegistry;
 import com.sim_backend.websockets.OCPPWebSocketClient;
-import com.sim_backend.websockets.annotations.OCPPMessageInfo;
-import java.util.Set;
 import java.util.UUID;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
-import org.reflections.Reflections;
 
 /** An OCPP message. */
 @Slf4j
@@ -33,7 +29,10 @@ public abstract class OCPPMessage implements Cloneable {
   @Getter @Setter private transient boolean errored;
 
   /** The Message ID we send this message with. */
-  @Getter @Setter protected transient String messageID;
+  @Getter protected transient String messageID;
+
+  /** The frame this message was sent as, so sending and logging serialize it only once. */
+  private transient volatile String frame;
 
   /** The constructor for an OCPP message. */
   protected OCPPMessage() {
@@ -62,7 +61,12 @@ public abstract class OCPPMessage implements Cloneable {
    * @param client The websocket client.
    */
   public void sendMessage(final OCPPWebSocketClient client) {
-    client.send(this.toJsonString());
+    String json = this.frame;
+    if (json == null) {
+      json = GsonUtilities.toFrame(this);
+      this.frame = json;
+    }
+    client.send(json);
     if (this instanceof OCPPMessageRequest) {
       client.addPreviousMessage(this);
     }
@@ -88,10 +92,30 @@ public abstract class OCPPMessage implements Cloneable {
     return UUID.randomUUID().toString();
   }
 
+  /**
+   * Set the Message ID we send this message with.
+   *
+   * @param messageID The new message ID.
+   */
+  public void setMessageID(String messageID) {
+    this.messageID = messageID;
+    this.frame = null;
+  }
+
+  /**
+   * Get the key the send queue deduplicates this message by. By default a message is only a
+   * duplicate of a message of the same type and message ID, such as one pushed again.
+   *
+   * @return The key.
+   */
+  public DedupKey getDedupKey() {
+    return DedupKey.of(this.getClass(), messageID);
+  }
+
   /** Clones a message and changes its ID. */
   public OCPPMessage cloneMessage() {
     OCPPMessage message = this.clone();
-    message.messageID = generateMessageID();
+    message.setMessageID(generateMessageID());
     return message;
   }
 
@@ -99,35 +123,24 @@ public abstract class OCPPMessage implements Cloneable {
    * Get a message Class by the message Name.
    *
    * @param messageName The message class name we are looking for.
-   * @return The Found OCPPMessage Class or throws an exception if not found.
+   * @return The Found OCPPMessage Class or null if not found.
    */
   public static Class<?> getMessageByName(final String messageName) {
-    Reflections reflections = new Reflections(MESSAGE_PACKAGE);
-
-    // Get all classes in our messages package,
-    // that are annotated with OCPPMessageInfo.
-    Set<Class<?>> classes = reflections.getTypesAnnotatedWith(OCPPMessageInfo.class);
-
-    // Find the one that matches the received message Type.
-    for (Class<?> messageClass : classes) {
-      OCPPMessageInfo annotation = messageClass.getAnnotation(OCPPMessageInfo.class);
-      // Check if it's a has a parent class of OCPPMessage.
-      if (OCPPMessage.class.isAssignableFrom(messageClass)
-          && annotation.messageName().equals(messageName)) {
-        // Convert the payload String into the found class.
-        return messageClass;
-      }
-    }
-    return null;
+    return OCPPMessageRegistry.getShared().getMessageClass(messageName);
   }
 
   /**
-   * Get a JSON representation of a OCPP Message.
+   * Get a JSON representation of a OCPP Message. Once the message is sent this is the frame it was
+   * sent as.
    *
    * @return The message in a json string.
    */
   public String toJsonString() {
-    return GsonUtilities.toString(this.generateMessage());
+    String json = this.frame;
+    if (json != null) {
+      return json;
+    }
+    return GsonUtilities.toFrame(this);
   }
 
   /**
@@ -143,7 +156,9 @@ public abstract class OCPPMessage implements Cloneable {
   @Override
   protected OCPPMessage clone() {
     try {
-      return (OCPPMessage) super.clone();
+      OCPPMessage message = (OCPPMessage) super.clone();
+      message.frame = null;
+      return message;
     } catch (CloneNotSupportedException e) {
       log.error("Failed clone", e);
       throw new AssertionError();
@@ -2,6 +2,7 @@ package com.sim_backend.websockets.types;
 
 import com.google.gson.JsonArray;
 import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.OCPPMessageRegistry;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
@@ -18,8 +19,8 @@ public class OCPPMessageRequest extends OCPPMessage implements Cloneable {
    */
   @Override
   public JsonArray generateMessage() {
-    assert this.getClass().isAnnotationPresent(OCPPMessageInfo.class);
-    OCPPMessageInfo messageInfo = this.getClass().getAnnotation(OCPPMessageInfo.class);
+    OCPPMessageInfo messageInfo = OCPPMessageRegistry.getShared().getInfo(this.getClass());
+    assert messageInfo != null;
     JsonArray array = new JsonArray();
     array.add(messageInfo.messageCallID());
     array.add(this.getMessageID());
@@ -2,6 +2,7 @@ package com.sim_backend.websockets.types;
 
 import com.google.gson.JsonArray;
 import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.OCPPMessageRegistry;
 import com.sim_backend.websockets.annotations.OCPPMessageInfo;
 import lombok.EqualsAndHashCode;
 import lombok.extern.slf4j.Slf4j;
@@ -22,8 +23,8 @@ public class OCPPMessageResponse extends OCPPMessage implements Cloneable {
    */
   @Override
   public JsonArray generateMessage() {
-    assert this.getClass().isAnnotationPresent(OCPPMessageInfo.class);
-    OCPPMessageInfo messageInfo = this.getClass().getAnnotation(OCPPMessageInfo.class);
+    OCPPMessageInfo messageInfo = OCPPMessageRegistry.getShared().getInfo(this.getClass());
+    assert messageInfo != null;
     JsonArray array = new JsonArray();
     array.add(messageInfo.messageCallID());
     array.add(this.getMessageID());
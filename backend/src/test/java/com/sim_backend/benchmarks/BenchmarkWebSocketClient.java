@@ -0,0 +1,45 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.observers.StatusNotificationObserver;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.net.URI;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * An OCPPWebSocketClient that never touches the network. Sent frames are dropped and every request
+ * is treated as answered immediately, so benchmarks only measure the simulator's own overhead.
+ */
+public class BenchmarkWebSocketClient extends OCPPWebSocketClient {
+  /** The nanoTime of every frame we have sent. */
+  public final BlockingQueue<Long> sentAt = new LinkedBlockingQueue<>();
+
+  /** Create a client that is not connected to anything. */
+  public BenchmarkWebSocketClient() {
+    super(URI.create("ws://localhost:1/benchmark"), new StatusNotificationObserver());
+  }
+
+  @Override
+  public boolean connectBlocking() {
+    return true;
+  }
+
+  @Override
+  public boolean reconnectBlocking() {
+    return true;
+  }
+
+  @Override
+  public void startConnectionLostTimer() {}
+
+  @Override
+  public void send(String text) {
+    sentAt.add(System.nanoTime());
+  }
+
+  @Override
+  public void addPreviousMessage(OCPPMessage msg) {
+    // Requests are answered instantly, so the queue is never busy
+  }
+}
@@ -0,0 +1,105 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.charger.Charger;
+import com.sim_backend.charger.ChargerLoop;
+import com.sim_backend.config.ConfigurationRegistry;
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.messages.Authorize;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the time from {@link OCPPWebSocketClient#pushMessage} until the charger loop sends the
+ * frame, for the old 100ms polling loop and the event driven {@link ChargerLoop}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ChargerLoopLatencyBenchmark {
+
+  /** How the charger loop waits for work. */
+  public enum LoopMode {
+    /** The previous loop, sleeping 100ms between iterations. */
+    POLLING,
+    /** The current loop, parked until work is signalled. */
+    EVENT_DRIVEN
+  }
+
+  @Param({"POLLING", "EVENT_DRIVEN"})
+  public LoopMode mode;
+
+  private BenchmarkWebSocketClient client;
+  private ChargerLoop loop;
+  private Thread loopThread;
+  private volatile boolean polling;
+  private long counter = 0;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    client = new BenchmarkWebSocketClient();
+    Charger charger =
+        new Charger(1, new ConfigurationRegistry("CP1", "ws://localhost:1")) {
+          @Override
+          public OCPPWebSocketClient getWsClient() {
+            return client;
+          }
+        };
+    loop = new ChargerLoop(charger);
+
+    if (mode == LoopMode.POLLING) {
+      polling = true;
+      loopThread =
+          Thread.ofVirtual()
+              .start(
+                  () -> {
+                    while (polling && loop.process()) {
+                      try {
+                        Thread.sleep(100);
+                      } catch (InterruptedException e) {
+                        return;
+                      }
+                    }
+                  });
+    } else {
+      loopThread = Thread.ofVirtual().start(loop);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    polling = false;
+    loop.requestStop();
+    loopThread.interrupt();
+    loopThread.join();
+  }
+
+  /**
+   * Push a request and wait for the loop to send it.
+   *
+   * @return The nanoTime the frame was sent at.
+   */
+  @Benchmark
+  public long pushToSend() throws InterruptedException {
+    client.pushMessage(new Authorize("BENCH" + (counter++)));
+    return client.sentAt.take();
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(ChargerLoopLatencyBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,109 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.types.DedupKey;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures deduplicating a MeterValues frame as the send queue does on every push and send, by the
+ * whole message as before and by its {@link DedupKey}, for frames of 1 to 50 samples.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class DedupKeyBenchmark {
+
+  /** The number of distinct messages cycled through. */
+  private static final int MESSAGES = 1024;
+
+  @Param({"1", "10", "50"})
+  public int samples;
+
+  private final Set<OCPPMessage> queueSet = ConcurrentHashMap.newKeySet();
+
+  private final Map<DedupKey, OCPPMessage> claimed = new ConcurrentHashMap<>();
+
+  private final MeterValues[] messages = new MeterValues[MESSAGES];
+
+  private int next;
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < MESSAGES; i++) {
+      List<MeterValues.MeterValue> meterValues = new ArrayList<>(samples);
+      for (int j = 0; j < samples; j++) {
+        List<MeterValues.SampledValue> sampledValues = new ArrayList<>();
+        for (MeterValuesSampledData measurand :
+            List.of(
+                MeterValuesSampledData.CURRENT_IMPORT,
+                MeterValuesSampledData.POWER_ACTIVE_IMPORT,
+                MeterValuesSampledData.ENERGY_ACTIVE_IMPORT_REGISTER)) {
+          sampledValues.add(
+              new MeterValues.SampledValue(
+                  String.valueOf(i * samples + j),
+                  ReadingContext.SAMPLE_PERIODIC,
+                  measurand,
+                  UnitOfMeasure.WH));
+        }
+        meterValues.add(new MeterValues.MeterValue(ZonedDateTime.now(), sampledValues));
+      }
+      messages[i] = new MeterValues(1, 42, meterValues);
+    }
+  }
+
+  /**
+   * Claim and release a frame in a set of whole messages, hashing and comparing its payload.
+   *
+   * @return If the frame was claimed.
+   */
+  @Benchmark
+  public boolean wholeMessage() {
+    MeterValues message = messages[next++ & (MESSAGES - 1)];
+    boolean added = queueSet.add(message);
+    queueSet.remove(message);
+    return added;
+  }
+
+  /**
+   * Claim and release a frame by its key, the message type and ID.
+   *
+   * @return If the frame was claimed.
+   */
+  @Benchmark
+  public boolean dedupKey() {
+    MeterValues message = messages[next++ & (MESSAGES - 1)];
+    DedupKey key = message.getDedupKey();
+    boolean added = claimed.putIfAbsent(key, message) == null;
+    claimed.remove(key, message);
+    return added;
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder().include(DedupKeyBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,98 @@
+package com.sim_backend.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.gson.ZonedDateTimeDeserializer;
+import com.sim_backend.websockets.gson.ZonedDateTimeSerializer;
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.BootNotificationResponse;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures encoding a BootNotification frame and decoding a BootNotificationResponse frame, when
+ * every step builds its own Gson as before and when every step uses the shared {@link
+ * GsonUtilities#getGson()}. Each frame looks up Gson twice, as sending and receiving do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class GsonCodecBenchmark {
+
+  /** Where each step gets its Gson from. */
+  public enum CodecMode {
+    /** The previous behaviour, a new Gson for every call. */
+    PER_CALL,
+    /** The current behaviour, one Gson shared by every call. */
+    SHARED
+  }
+
+  @Param({"PER_CALL", "SHARED"})
+  public CodecMode mode;
+
+  private final BootNotification request = new BootNotification();
+
+  private final String responseFrame =
+      "[3,\"b1\",{\"status\":\"Accepted\",\"currentTime\":\"2025-01-02T03:04:05Z\","
+          + "\"interval\":30}]";
+
+  private Gson gson() {
+    if (mode == CodecMode.SHARED) {
+      return GsonUtilities.getGson();
+    }
+    GsonBuilder gsonBuilder = new GsonBuilder();
+    gsonBuilder.registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeSerializer());
+    gsonBuilder.registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer());
+    return gsonBuilder.create();
+  }
+
+  /**
+   * Encode a request frame.
+   *
+   * @return The encoded frame.
+   */
+  @Benchmark
+  public String encodeRequest() {
+    JsonArray array = new JsonArray();
+    array.add(new JsonPrimitive(2));
+    array.add(new JsonPrimitive(request.getMessageID()));
+    array.add(new JsonPrimitive("BootNotification"));
+    array.add(gson().toJsonTree(request));
+    return gson().toJson(array, JsonElement.class);
+  }
+
+  /**
+   * Decode a response frame.
+   *
+   * @return The decoded response.
+   */
+  @Benchmark
+  public BootNotificationResponse decodeResponse() {
+    JsonArray array = gson().fromJson(responseFrame, JsonArray.class);
+    return gson().fromJson(array.get(2), BootNotificationResponse.class);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(GsonCodecBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,109 @@
+package com.sim_backend.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.gson.ZonedDateTimeDeserializer;
+import com.sim_backend.websockets.gson.ZonedDateTimeSerializer;
+import com.sim_backend.websockets.messages.StatusNotification;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures encoding a StatusNotification frame and decoding a StatusNotification payload with
+ * Gson's reflective binding and with the codecs generated at compile time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+  /** How messages are bound. */
+  public enum BindingMode {
+    /** The previous behaviour, Gson's reflective adapters and a JsonArray per frame. */
+    REFLECTIVE,
+    /** The current behaviour, the generated codecs writing the frame directly. */
+    GENERATED
+  }
+
+  @Param({"REFLECTIVE", "GENERATED"})
+  public BindingMode mode;
+
+  private final Gson reflective =
+      new GsonBuilder()
+          .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeSerializer())
+          .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
+          .create();
+
+  private StatusNotification request;
+
+  private String payload;
+
+  @Setup
+  public void setup() {
+    request =
+        new StatusNotification(
+            1,
+            ChargePointErrorCode.NoError,
+            "",
+            ChargePointStatus.Charging,
+            ZonedDateTime.parse("2025-03-04T21:53:04Z"),
+            "vendor",
+            "E1");
+    payload = reflective.toJson(request);
+  }
+
+  /**
+   * Encode a request frame.
+   *
+   * @return The encoded frame.
+   */
+  @Benchmark
+  public String encodeFrame() {
+    if (mode == BindingMode.GENERATED) {
+      return GsonUtilities.toFrame(request);
+    }
+    JsonArray array = new JsonArray();
+    array.add(new JsonPrimitive(2));
+    array.add(new JsonPrimitive(request.getMessageID()));
+    array.add(new JsonPrimitive("StatusNotification"));
+    array.add(reflective.toJsonTree(request));
+    return reflective.toJson(array, JsonElement.class);
+  }
+
+  /**
+   * Decode a request payload.
+   *
+   * @return The decoded request.
+   */
+  @Benchmark
+  public StatusNotification decodePayload() {
+    Gson gson = mode == BindingMode.GENERATED ? GsonUtilities.getGson() : reflective;
+    return gson.fromJson(payload, StatusNotification.class);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(MessageCodecBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,77 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.MessageLog;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures recording a sent frame in the message log, timestamped and formatted into a copy on
+ * write list trimmed to its capacity as before, and into the {@link MessageLog} ring, for logs of
+ * 50 to 1000 frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MessageLogBenchmark {
+
+  private static final String FRAME =
+      "[2,\"3f2a6c1e-8d4b-4f1a-9c3e-2b7d5e6f8a90\",\"MeterValues\",{\"connectorId\":1,"
+          + "\"transactionId\":42,\"meterValue\":[{\"timestamp\":\"2025-01-01T00:00:00Z\","
+          + "\"sampledValue\":[{\"value\":\"12.34\",\"measurand\":\"Current.Import\"}]}]}]";
+
+  @Param({"50", "1000"})
+  public int capacity;
+
+  private List<String> list;
+
+  private MessageLog ring;
+
+  @Setup
+  public void setup() {
+    list = new CopyOnWriteArrayList<>();
+    ring = new MessageLog(capacity);
+    for (int i = 0; i < capacity; i++) {
+      copyOnWriteList();
+      ringBuffer();
+    }
+  }
+
+  /** Format the frame with its timestamp and add it to a full copy on write list. */
+  @Benchmark
+  public void copyOnWriteList() {
+    String timestamp = ZonedDateTime.now(ZoneOffset.UTC).toString();
+    list.add("[\"" + timestamp + "\", " + FRAME.substring(1));
+    if (list.size() > capacity) {
+      list.removeFirst();
+    }
+  }
+
+  /** Record the frame in a full ring, formatting it only when the log is read. */
+  @Benchmark
+  public void ringBuffer() {
+    ring.recordSent(FRAME, null);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(MessageLogBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
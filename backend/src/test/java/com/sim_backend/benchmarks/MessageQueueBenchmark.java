@@ -0,0 +1,94 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.MessageQueue;
+import com.sim_backend.websockets.exceptions.OCPPMessageFailure;
+import com.sim_backend.websockets.messages.Authorize;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the throughput of a MessageQueue with three threads pushing messages, as the WebSocket
+ * read thread, REST handlers and timers do, while the charger loop pops and sends them.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MessageQueueBenchmark {
+
+  /** The number of distinct messages the producers cycle through. */
+  private static final int MESSAGES = 1024;
+
+  private final MessageQueue queue = new MessageQueue();
+
+  private final BenchmarkWebSocketClient client =
+      new BenchmarkWebSocketClient() {
+        @Override
+        public void send(String text) {}
+
+        @Override
+        public void recordTxMessage(OCPPMessage message) {}
+      };
+
+  private final OCPPMessage[] messages = new OCPPMessage[MESSAGES];
+
+  @Setup
+  public void setup() {
+    for (int i = 0; i < MESSAGES; i++) {
+      messages[i] = new Authorize("tag-" + i);
+    }
+  }
+
+  /** The position of a producer in the messages. */
+  @State(Scope.Thread)
+  public static class Producer {
+    int next;
+  }
+
+  /**
+   * Push the next message, refused while an equal one is still queued.
+   *
+   * @param producer The position of this producer.
+   * @return If the message was queued.
+   */
+  @Benchmark
+  @Group("queue")
+  @GroupThreads(3)
+  public boolean push(Producer producer) {
+    OCPPMessage message = messages[producer.next++ & (MESSAGES - 1)];
+    return producer.next % 8 == 0 ? queue.pushPriorityMessage(message) : queue.pushMessage(message);
+  }
+
+  /**
+   * Pop and send a message.
+   *
+   * @return The sent message, or null if the queue was empty.
+   * @throws OCPPMessageFailure If sending fails.
+   * @throws InterruptedException If interrupted while reconnecting.
+   */
+  @Benchmark
+  @Group("queue")
+  @GroupThreads(1)
+  public OCPPMessage pop() throws OCPPMessageFailure, InterruptedException {
+    return queue.popMessage(client);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(MessageQueueBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,98 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.MessageValidator;
+import com.sim_backend.websockets.messages.StatusNotification;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures validating a valid outbound BootNotification and rejecting an invalid inbound
+ * StatusNotification, with Hibernate Validator on every call as before, with the compiled
+ * constraint plans, and in the trusted outbound mode that skips validating outbound messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class MessageValidationBenchmark {
+
+  /** How messages are validated. */
+  public enum ValidationMode {
+    /** The previous behaviour, the validator on every check and again to describe violations. */
+    HIBERNATE,
+    /** The current behaviour, the compiled plans and the validator only to describe violations. */
+    COMPILED,
+    /** The compiled plans, with outbound messages trusted. */
+    TRUSTED
+  }
+
+  @Param({"HIBERNATE", "COMPILED", "TRUSTED"})
+  public ValidationMode mode;
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  private final BootNotification outbound = new BootNotification();
+
+  private final StatusNotification invalidInbound =
+      new StatusNotification(
+          -1,
+          ChargePointErrorCode.NoError,
+          "",
+          ChargePointStatus.Available,
+          ZonedDateTime.parse("2025-03-04T21:53:04Z"),
+          null,
+          null);
+
+  /**
+   * Validate a message before pushing it.
+   *
+   * @return The violations, or null if there are none.
+   */
+  @Benchmark
+  public String validateOutbound() {
+    return switch (mode) {
+      case HIBERNATE -> validator.validate(outbound).isEmpty() ? null : "invalid";
+      case COMPILED -> MessageValidator.findViolations(outbound);
+      case TRUSTED -> null;
+    };
+  }
+
+  /**
+   * Validate a received message that breaks a constraint.
+   *
+   * @return The violations.
+   */
+  @Benchmark
+  public String rejectInbound() {
+    if (mode == ValidationMode.HIBERNATE) {
+      return validator.validate(invalidInbound).isEmpty()
+          ? null
+          : MessageValidator.log_message(invalidInbound);
+    }
+    return MessageValidator.findViolations(invalidInbound);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(MessageValidationBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,126 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.OutboundJournal;
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
+import com.sim_backend.websockets.messages.MeterValues;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the append throughput of the outbound journals of a fleet, with four threads pushing
+ * transaction MeterValues to the chargers in turn and each answer acknowledging the charger's
+ * previous message, so the journals keep compacting as they would in a long run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(1)
+public class OutboundJournalBenchmark {
+
+  @Param({"1", "100", "1000"})
+  public int chargers;
+
+  private Path directory;
+
+  private OutboundJournal[] journals;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("journal-benchmark");
+    journals = new OutboundJournal[chargers];
+    for (int i = 0; i < chargers; i++) {
+      journals[i] = OutboundJournal.open(directory.resolve("charger-" + i + ".journal"));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    for (OutboundJournal journal : journals) {
+      journal.close();
+    }
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  /** The message a pushing thread journals and the messages it waits on per charger. */
+  @State(Scope.Thread)
+  public static class Pusher {
+    final String prefix = UUID.randomUUID() + "-";
+
+    MeterValues message;
+
+    String[] previous;
+
+    long next;
+
+    @Setup
+    public void setup(OutboundJournalBenchmark benchmark) {
+      MeterValues.SampledValue sampledValue =
+          new MeterValues.SampledValue(
+              "12.34",
+              ReadingContext.SAMPLE_PERIODIC,
+              MeterValuesSampledData.ENERGY_ACTIVE_IMPORT_REGISTER,
+              UnitOfMeasure.WH);
+      message =
+          new MeterValues(
+              1,
+              42,
+              List.of(new MeterValues.MeterValue(ZonedDateTime.now(), List.of(sampledValue))));
+      previous = new String[benchmark.chargers];
+    }
+  }
+
+  /**
+   * Journal a message to the next charger and acknowledge that charger's previous one.
+   *
+   * @param pusher The state of this thread.
+   * @return If the message was journalled.
+   */
+  @Benchmark
+  public boolean append(Pusher pusher) {
+    int charger = (int) (pusher.next % chargers);
+    String messageId = pusher.prefix + pusher.next++;
+    pusher.message.setMessageID(messageId);
+
+    OutboundJournal journal = journals[charger];
+    boolean appended = journal.append(pusher.message);
+    String previous = pusher.previous[charger];
+    if (previous != null) {
+      journal.acknowledge(previous);
+    }
+    pusher.previous[charger] = messageId;
+    return appended;
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(OutboundJournalBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,104 @@
+package com.sim_backend.benchmarks;
+
+import com.sim_backend.websockets.TrafficJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the {@link TrafficJournal} of a charger holding 10,000 and 100,000 frames: appending a
+ * frame, finding an exchange by message ID and reading a page of 100 frames from a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class TrafficJournalBenchmark {
+
+  private static final String PAYLOAD =
+      "{\"connectorId\":1,\"transactionId\":42,\"meterValue\":[{\"timestamp\":"
+          + "\"2025-01-01T00:00:00Z\",\"sampledValue\":[{\"value\":\"12.34\","
+          + "\"measurand\":\"Current.Import\"}]}]}";
+
+  @Param({"10000", "100000"})
+  public int frames;
+
+  private Path directory;
+
+  private TrafficJournal journal;
+
+  private Instant first;
+
+  private Instant last;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("traffic-benchmark");
+    journal = TrafficJournal.open(directory, 1024 * 1024, Integer.MAX_VALUE);
+    for (int i = 0; i < frames; i++) {
+      append(i);
+    }
+    first = Instant.parse(journal.getSummary().getOldest());
+    last = Instant.parse(journal.getSummary().getNewest());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private void append(int id) {
+    journal.append(
+        TrafficJournal.Direction.SENT, "[2,\"" + id + "\",\"MeterValues\"," + PAYLOAD + "]", null);
+  }
+
+  /** Journal a frame. */
+  @Benchmark
+  public void append() {
+    append(ThreadLocalRandom.current().nextInt(frames));
+  }
+
+  /** Find the frames of a message ID through the message-ID index. */
+  @Benchmark
+  public TrafficJournal.Page queryByMessageId() {
+    String messageId = String.valueOf(ThreadLocalRandom.current().nextInt(frames));
+    return journal.query(null, null, null, messageId, null, 10);
+  }
+
+  /** Read a page of frames from a time through the sparse time index. */
+  @Benchmark
+  public TrafficJournal.Page queryPageByTime() {
+    long span = last.toEpochMilli() - first.toEpochMilli();
+    Instant from = first.plusMillis(ThreadLocalRandom.current().nextLong(span + 1));
+    return journal.query(from, null, null, null, null, 100);
+  }
+
+  /**
+   * Run the benchmark, e.g. after {@code mvn test-compile}.
+   *
+   * @param args Unused.
+   * @throws RunnerException If the benchmark fails.
+   */
+  public static void main(String[] args) throws RunnerException {
+    Options options =
+        new OptionsBuilder().include(TrafficJournalBenchmark.class.getSimpleName()).build();
+    new Runner(options).run();
+  }
+}
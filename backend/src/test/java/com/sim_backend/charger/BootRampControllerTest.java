@@ -0,0 +1,184 @@
+package com.sim_backend.charger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.sim_backend.config.BootRampConfiguration;
+import com.sim_backend.state.ChargerState;
+import com.sim_backend.state.ChargerStateMachine;
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+public class BootRampControllerTest {
+
+  private final List<CompletableFuture<Boolean>> connects = new ArrayList<>();
+  private final List<ChargerStateMachine> stateMachines = new ArrayList<>();
+
+  private Charger[] createChargers(int count) {
+    Charger[] chargers = new Charger[count];
+    for (int i = 0; i < count; i++) {
+      CompletableFuture<Boolean> connect = new CompletableFuture<>();
+      ChargerStateMachine stateMachine = new ChargerStateMachine(ChargerState.BootingUp);
+      OCPPWebSocketClient client = mock(OCPPWebSocketClient.class);
+      when(client.getConnectFuture()).thenReturn(connect);
+
+      chargers[i] = mock(Charger.class);
+      when(chargers[i].getWsClient()).thenReturn(client);
+      when(chargers[i].getStateMachine()).thenReturn(stateMachine);
+
+      connects.add(connect);
+      stateMachines.add(stateMachine);
+    }
+    return chargers;
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+      Thread.sleep(5);
+    }
+  }
+
+  @Test
+  public void testBootsEveryChargerAndReportsProgress() throws InterruptedException {
+    Charger[] chargers = createChargers(3);
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(0, 0, 0));
+
+    ramp.start().join();
+    for (Charger charger : chargers) {
+      verify(charger).boot();
+    }
+    assertEquals(3, ramp.getProgress().getBooted());
+    assertEquals(0, ramp.getProgress().getConnected());
+
+    connects.get(0).complete(true);
+    connects.get(1).complete(true);
+    connects.get(2).complete(false);
+    assertEquals(2, ramp.getProgress().getConnected());
+    assertEquals(1, ramp.getProgress().getFailed());
+
+    stateMachines.get(0).transition(ChargerState.Available);
+    stateMachines.get(1).transition(ChargerState.Available);
+    assertEquals(2, ramp.getProgress().getAvailable());
+    assertNull(ramp.getProgress().getTimeToAllAvailableMillis());
+
+    stateMachines.get(2).transition(ChargerState.Available);
+    BootRampController.BootProgress progress = ramp.getProgress();
+    assertEquals(3, progress.getTotal());
+    assertEquals(3, progress.getAvailable());
+    assertNotNull(progress.getTimeToAllAvailableMillis());
+    assertTrue(progress.getTimeToAllAvailableMillis() <= progress.getElapsedMillis());
+  }
+
+  @Test
+  public void testAvailableCountedOnce() throws InterruptedException {
+    Charger[] chargers = createChargers(2);
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(0, 0, 0));
+    ramp.start().join();
+
+    ChargerStateMachine stateMachine = stateMachines.get(0);
+    stateMachine.transition(ChargerState.Available);
+    stateMachine.transition(ChargerState.Unavailable);
+    stateMachine.transition(ChargerState.Available);
+
+    assertEquals(1, ramp.getProgress().getAvailable());
+    assertNull(ramp.getProgress().getTimeToAllAvailableMillis());
+  }
+
+  @Test
+  public void testReconnectedChargerCountsAsConnected() throws InterruptedException {
+    Charger[] chargers = createChargers(1);
+    ChargerStateMachine stateMachine = spy(stateMachines.get(0));
+    when(chargers[0].getStateMachine()).thenReturn(stateMachine);
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(0, 0, 0));
+    ramp.start().join();
+
+    connects.get(0).complete(false);
+    assertEquals(0, ramp.getProgress().getConnected());
+    assertEquals(1, ramp.getProgress().getFailed());
+
+    // The scheduler's reconnect got it through its BootNotification
+    stateMachine.transition(ChargerState.Available);
+    assertEquals(1, ramp.getProgress().getConnected());
+    assertEquals(0, ramp.getProgress().getFailed());
+    assertEquals(1, ramp.getProgress().getAvailable());
+    verify(stateMachine).removeObserver(any());
+  }
+
+  @Test
+  public void testLimitsConcurrentHandshakes() throws InterruptedException {
+    Charger[] chargers = createChargers(4);
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(0, 0, 2));
+    Thread thread = ramp.start();
+
+    awaitCondition(() -> ramp.getProgress().getBooted() == 2);
+    Thread.sleep(50);
+    assertEquals(2, ramp.getProgress().getBooted());
+
+    connects.get(0).complete(true);
+    awaitCondition(() -> ramp.getProgress().getBooted() == 3);
+    connects.get(1).complete(false);
+    thread.join(5000);
+
+    assertEquals(4, ramp.getProgress().getBooted());
+  }
+
+  @Test
+  public void testPacesBootsByRate() throws InterruptedException {
+    Charger[] chargers = createChargers(3);
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(20, 0, 0));
+
+    long start = System.nanoTime();
+    ramp.start().join();
+
+    // Three chargers at 20 per second start 0, 50 and 100ms in
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    assertEquals(3, ramp.getProgress().getBooted());
+  }
+
+  @Test
+  public void testChargerWithoutClientCountsAsFailed() throws InterruptedException {
+    Charger charger = mock(Charger.class);
+    BootRampController ramp =
+        new BootRampController(new Charger[] {charger}, new BootRampConfiguration(0, 0, 1));
+
+    ramp.start().join();
+
+    assertEquals(1, ramp.getProgress().getBooted());
+    assertEquals(1, ramp.getProgress().getFailed());
+  }
+
+  @Test
+  public void testFailedBootReleasesHandshakeAndContinues() throws InterruptedException {
+    Charger[] chargers = createChargers(3);
+    doThrow(new IllegalArgumentException("Malformed URL")).when(chargers[0]).boot();
+    BootRampController ramp = new BootRampController(chargers, new BootRampConfiguration(0, 0, 1));
+    Thread thread = ramp.start();
+
+    // The only handshake permit went back, so the next charger boots
+    awaitCondition(() -> ramp.getProgress().getBooted() == 1);
+    connects.get(1).complete(true);
+    awaitCondition(() -> ramp.getProgress().getBooted() == 2);
+    connects.get(2).complete(true);
+    thread.join(5000);
+
+    verify(chargers[2]).boot();
+    assertEquals(2, ramp.getProgress().getConnected());
+    assertEquals(1, ramp.getProgress().getFailed());
+  }
+
+  @Test
+  public void testStartOnlyOnce() throws InterruptedException {
+    BootRampController ramp =
+        new BootRampController(createChargers(1), new BootRampConfiguration(0, 0, 0));
+    ramp.start().join();
+
+    assertThrows(IllegalStateException.class, ramp::start);
+  }
+}
@@ -0,0 +1,104 @@
+package com.sim_backend.charger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.sim_backend.websockets.MessageQueue;
+import com.sim_backend.websockets.MessageScheduler;
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.WakeupSignal;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ChargerLoopTest {
+
+  private Charger charger;
+  private OCPPWebSocketClient client;
+  private WakeupSignal wakeup;
+  private ChargerLoop loop;
+  private Thread thread;
+
+  @BeforeEach
+  void setUp() {
+    charger = mock(Charger.class);
+    client = mock(OCPPWebSocketClient.class);
+    wakeup = new WakeupSignal();
+
+    when(charger.getWsClient()).thenReturn(client);
+    when(client.getWakeup()).thenReturn(wakeup);
+    doAnswer(
+            invocation -> {
+              wakeup.signal();
+              return null;
+            })
+        .when(client)
+        .signalWork();
+    when(client.getScheduler()).thenReturn(mock(MessageScheduler.class));
+    MessageQueue queue = mock(MessageQueue.class);
+    when(queue.getNanosUntilNextTimeout()).thenReturn(Long.MAX_VALUE);
+    when(client.getQueue()).thenReturn(queue);
+
+    loop = new ChargerLoop(charger);
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    if (thread != null) {
+      thread.interrupt();
+      thread.join();
+    }
+  }
+
+  @Test
+  void testProcess() throws Exception {
+    assertTrue(loop.process());
+
+    verify(client.getScheduler()).tick();
+    verify(client.getQueue()).checkTimeouts(client);
+    verify(client).popAllMessages();
+  }
+
+  @Test
+  void testProcessStopsWhenInterrupted() throws Exception {
+    doThrow(new InterruptedException()).when(client).popAllMessages();
+
+    assertFalse(loop.process());
+  }
+
+  @Test
+  void testLoopParksUntilSignalled() throws Exception {
+    thread = Thread.ofVirtual().start(loop);
+    verify(client, timeout(5000).times(1)).popAllMessages();
+
+    // With no work the loop stays parked
+    Thread.sleep(200);
+    verify(client, times(1)).popAllMessages();
+
+    wakeup.signal();
+    verify(client, timeout(5000).times(2)).popAllMessages();
+  }
+
+  @Test
+  void testLoopWakesWhenRequestTimesOut() throws Exception {
+    when(client.getQueue().getNanosUntilNextTimeout())
+        .thenReturn(TimeUnit.MILLISECONDS.toNanos(50), Long.MAX_VALUE);
+    thread = Thread.ofVirtual().start(loop);
+
+    // Well before the idle tick
+    verify(client, timeout(ChargerLoop.MAX_IDLE_NANOS / 2_000_000).times(2)).popAllMessages();
+    verify(client.getQueue(), times(2)).checkTimeouts(client);
+  }
+
+  @Test
+  void testRequestStopWakesLoop() throws Exception {
+    thread = Thread.ofVirtual().start(loop);
+    verify(client, timeout(5000).times(1)).popAllMessages();
+
+    loop.requestStop();
+    thread.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertFalse(thread.isAlive());
+  }
+}
@@ -154,6 +154,7 @@ class ChargerTest {
     assertNotNull(charger.getChargerThread(), "Charger thread should be initialized");
     Thread.sleep(50); // Give the thread time to start
     assertTrue(charger.getChargerThread().isAlive(), "Charger thread should be alive");
+    assertTrue(charger.getChargerThread().isVirtual(), "Charger loop should run virtually");
 
     charger.getChargerLoop().requestStop();
     charger.getChargerThread().interrupt();
@@ -208,8 +209,8 @@ class ChargerTest {
     charger.reboot();
     Thread.sleep(2100); // Allow time for the reboot to complete
 
-    // Verify that the old wsClient was closed with code 1001 and proper message
-    verify(oldWsClient, atLeastOnce()).close(1001, "Charger rebooting");
+    // Verify that the old wsClient was shut down with code 1001 and proper message
+    verify(oldWsClient, atLeastOnce()).shutdown(1001, "Charger rebooting");
 
     // Verify that new component instances were created
     assertNotNull(charger.getWsClient(), "WebSocket client should be reinitialized after reboot");
@@ -252,6 +253,44 @@ class ChargerTest {
     charger.getChargerThread().join();
   }
 
+  /** This test confirms that shutdown() stops the charger loop and closes the WebSocket client */
+  @Test
+  void testShutdown() throws Exception {
+    wsClientConstruction =
+        Mockito.mockConstruction(
+            OCPPWebSocketClient.class,
+            (mock, context) -> {
+              doNothing().when(mock).close(anyInt(), anyString());
+            });
+    chargerLoopConstruction =
+        Mockito.mockConstruction(
+            ChargerLoop.class,
+            (mock, context) -> {
+              doNothing().when(mock).requestStop();
+              doAnswer(
+                      invocation -> {
+                        while (!Thread.currentThread().isInterrupted()) {
+                          try {
+                            Thread.sleep(100);
+                          } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                          }
+                        }
+                        return null;
+                      })
+                  .when(mock)
+                  .run();
+            });
+
+    Charger charger = new Charger(0);
+    charger.boot();
+    charger.shutdown();
+
+    verify(charger.getWsClient()).shutdown(1001, "Charger shutting down");
+    verify(charger.getChargerLoop()).requestStop();
+    assertFalse(charger.getChargerThread().isAlive(), "Charger thread should have ended");
+  }
+
   @Test
   void testIsRebootInProgress() throws Exception {
     Charger charger = new Charger(0);
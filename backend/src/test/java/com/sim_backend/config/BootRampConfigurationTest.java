@@ -0,0 +1,69 @@
+package com.sim_backend.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BootRampConfigurationTest {
+
+  private static final String PROP_CHARGERS_PER_SECOND = "bootRate";
+  private static final String PROP_JITTER_MILLIS = "bootJitterMillis";
+  private static final String PROP_MAX_CONCURRENT_HANDSHAKES = "bootMaxHandshakes";
+
+  @BeforeEach
+  @AfterEach
+  public void clearProperties() {
+    System.clearProperty(PROP_CHARGERS_PER_SECOND);
+    System.clearProperty(PROP_JITTER_MILLIS);
+    System.clearProperty(PROP_MAX_CONCURRENT_HANDSHAKES);
+  }
+
+  @Test
+  public void testDefaults() {
+    BootRampConfiguration ramp = BootRampConfiguration.loadConfiguration();
+
+    assertEquals(BootRampConfiguration.DEFAULT_CHARGERS_PER_SECOND, ramp.getChargersPerSecond());
+    assertEquals(BootRampConfiguration.DEFAULT_JITTER_MILLIS, ramp.getJitterMillis());
+    assertEquals(
+        BootRampConfiguration.DEFAULT_MAX_CONCURRENT_HANDSHAKES, ramp.getMaxConcurrentHandshakes());
+  }
+
+  @Test
+  public void testLoadFromProperties() {
+    System.setProperty(PROP_CHARGERS_PER_SECOND, "2.5");
+    System.setProperty(PROP_JITTER_MILLIS, "0");
+    System.setProperty(PROP_MAX_CONCURRENT_HANDSHAKES, "10");
+
+    BootRampConfiguration ramp = BootRampConfiguration.loadConfiguration();
+
+    assertEquals(2.5, ramp.getChargersPerSecond());
+    assertEquals(0, ramp.getJitterMillis());
+    assertEquals(10, ramp.getMaxConcurrentHandshakes());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(400), ramp.getBootIntervalNanos());
+  }
+
+  @Test
+  public void testUnlimitedRate() {
+    assertEquals(0, new BootRampConfiguration(0, 0, 0).getBootIntervalNanos());
+  }
+
+  @Test
+  public void testInvalidProperties() {
+    System.setProperty(PROP_CHARGERS_PER_SECOND, "fast");
+    assertThrows(IllegalArgumentException.class, BootRampConfiguration::loadConfiguration);
+
+    System.setProperty(PROP_CHARGERS_PER_SECOND, "-1");
+    assertThrows(IllegalArgumentException.class, BootRampConfiguration::loadConfiguration);
+
+    System.clearProperty(PROP_CHARGERS_PER_SECOND);
+    System.setProperty(PROP_JITTER_MILLIS, "-5");
+    assertThrows(IllegalArgumentException.class, BootRampConfiguration::loadConfiguration);
+
+    System.clearProperty(PROP_JITTER_MILLIS);
+    System.setProperty(PROP_MAX_CONCURRENT_HANDSHAKES, "many");
+    assertThrows(IllegalArgumentException.class, BootRampConfiguration::loadConfiguration);
+  }
+}
@@ -0,0 +1,251 @@
+package com.sim_backend.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.DuplicateIdFilter;
+import com.sim_backend.websockets.MessageLog;
+import com.sim_backend.websockets.MessageQueue;
+import com.sim_backend.websockets.TrafficJournal;
+import com.sim_backend.websockets.transport.TransportType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FleetConfigurationTest {
+
+  private static final String PROP_FLEET_SIZE = "fleetSize";
+  private static final String PROP_ID_TAG_TEMPLATE = "fleetIdTagTemplate";
+  private static final String PROP_CENTRAL_SYSTEM_URL_TEMPLATE = "fleetCentralSystemUrlTemplate";
+  private static final String PROP_TRANSPORT = "transport";
+  private static final String PROP_PIPELINE_WINDOW = "pipelineWindow";
+  private static final String PROP_JOURNAL_DIR = "journalDir";
+  private static final String PROP_BATCHED_FLUSH = "batchedFlush";
+  private static final String PROP_MESSAGE_LOG_CAPACITY = "messageLogCapacity";
+  private static final String PROP_TRAFFIC_DIR = "trafficDir";
+  private static final String PROP_TRAFFIC_SEGMENT_BYTES = "trafficSegmentBytes";
+  private static final String PROP_TRAFFIC_SEGMENTS = "trafficSegments";
+  private static final String PROP_TRUST_OUTBOUND = "trustOutbound";
+  private static final String PROP_DUPLICATE_ID_WINDOW = "duplicateIdWindow";
+  private static final String PROP_DUPLICATE_ID_CAPACITY = "duplicateIdCapacity";
+
+  @BeforeEach
+  @AfterEach
+  public void clearProperties() {
+    System.clearProperty(PROP_FLEET_SIZE);
+    System.clearProperty(PROP_ID_TAG_TEMPLATE);
+    System.clearProperty(PROP_CENTRAL_SYSTEM_URL_TEMPLATE);
+    System.clearProperty(PROP_TRANSPORT);
+    System.clearProperty(PROP_PIPELINE_WINDOW);
+    System.clearProperty(PROP_JOURNAL_DIR);
+    System.clearProperty(PROP_BATCHED_FLUSH);
+    System.clearProperty(PROP_MESSAGE_LOG_CAPACITY);
+    System.clearProperty(PROP_TRAFFIC_DIR);
+    System.clearProperty(PROP_TRAFFIC_SEGMENT_BYTES);
+    System.clearProperty(PROP_TRAFFIC_SEGMENTS);
+    System.clearProperty(PROP_TRUST_OUTBOUND);
+    System.clearProperty(PROP_DUPLICATE_ID_WINDOW);
+    System.clearProperty(PROP_DUPLICATE_ID_CAPACITY);
+  }
+
+  @Test
+  public void testDefaultsWithoutFleetSize() {
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+
+    assertFalse(fleet.isFleetMode());
+    assertEquals(FleetConfiguration.DEFAULT_CHARGER_COUNT, fleet.getChargerCount());
+    assertEquals(TransportType.DEFAULT, fleet.getTransport());
+    assertEquals(MessageQueue.DEFAULT_PIPELINE_WINDOW, fleet.getPipelineWindow());
+    assertNull(fleet.getJournalDirectory());
+    assertFalse(fleet.isBatchedFlush());
+    assertEquals(MessageLog.DEFAULT_CAPACITY, fleet.getMessageLogCapacity());
+    assertNull(fleet.getTrafficDirectory());
+    assertEquals(TrafficJournal.DEFAULT_SEGMENT_BYTES, fleet.getTrafficSegmentBytes());
+    assertEquals(TrafficJournal.DEFAULT_MAX_SEGMENTS, fleet.getTrafficSegments());
+    assertFalse(fleet.isTrustOutbound());
+    assertEquals(DuplicateIdFilter.DEFAULT_WINDOW, fleet.getDuplicateIdWindow());
+    assertEquals(DuplicateIdFilter.DEFAULT_CAPACITY, fleet.getDuplicateIdCapacity());
+  }
+
+  @Test
+  public void testLoadTrafficSegments() {
+    System.setProperty(PROP_TRAFFIC_SEGMENT_BYTES, "1048576");
+    System.setProperty(PROP_TRAFFIC_SEGMENTS, "4");
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+    assertEquals(1048576, fleet.getTrafficSegmentBytes());
+    assertEquals(4, fleet.getTrafficSegments());
+
+    System.setProperty(PROP_TRAFFIC_SEGMENTS, "0");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+
+    System.setProperty(PROP_TRAFFIC_SEGMENTS, "4");
+    System.setProperty(PROP_TRAFFIC_SEGMENT_BYTES, "big");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testLoadTrustOutbound() {
+    System.setProperty(PROP_TRUST_OUTBOUND, "true");
+    assertTrue(FleetConfiguration.loadConfiguration().isTrustOutbound());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertTrue(FleetConfiguration.loadConfiguration().isTrustOutbound());
+  }
+
+  @Test
+  public void testLoadDuplicateIdLimits() {
+    System.setProperty(PROP_DUPLICATE_ID_WINDOW, "60");
+    System.setProperty(PROP_DUPLICATE_ID_CAPACITY, "500");
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+    assertEquals(Duration.ofSeconds(60), fleet.getDuplicateIdWindow());
+    assertEquals(500, fleet.getDuplicateIdCapacity());
+
+    System.setProperty(PROP_DUPLICATE_ID_WINDOW, "0");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+
+    System.setProperty(PROP_DUPLICATE_ID_WINDOW, "60");
+    System.setProperty(PROP_DUPLICATE_ID_CAPACITY, "-1");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testLoadMessageLogCapacity() {
+    System.setProperty(PROP_MESSAGE_LOG_CAPACITY, "500");
+    assertEquals(500, FleetConfiguration.loadConfiguration().getMessageLogCapacity());
+
+    System.setProperty(PROP_MESSAGE_LOG_CAPACITY, "0");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testLoadBatchedFlush() {
+    System.setProperty(PROP_BATCHED_FLUSH, "true");
+    assertTrue(FleetConfiguration.loadConfiguration().isBatchedFlush());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertTrue(FleetConfiguration.loadConfiguration().isBatchedFlush());
+  }
+
+  @Test
+  public void testLoadJournalDirectory() {
+    System.setProperty(PROP_JOURNAL_DIR, "journal");
+    assertEquals("journal", FleetConfiguration.loadConfiguration().getJournalDirectory());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertEquals("journal", FleetConfiguration.loadConfiguration().getJournalDirectory());
+
+    System.setProperty(PROP_JOURNAL_DIR, " ");
+    assertNull(FleetConfiguration.loadConfiguration().getJournalDirectory());
+  }
+
+  @Test
+  public void testLoadTrafficDirectory() {
+    System.setProperty(PROP_TRAFFIC_DIR, "traffic");
+    assertEquals("traffic", FleetConfiguration.loadConfiguration().getTrafficDirectory());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertEquals("traffic", FleetConfiguration.loadConfiguration().getTrafficDirectory());
+
+    System.setProperty(PROP_TRAFFIC_DIR, " ");
+    assertNull(FleetConfiguration.loadConfiguration().getTrafficDirectory());
+  }
+
+  @Test
+  public void testLoadPipelineWindow() {
+    System.setProperty(PROP_PIPELINE_WINDOW, "8");
+    assertEquals(8, FleetConfiguration.loadConfiguration().getPipelineWindow());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertEquals(8, FleetConfiguration.loadConfiguration().getPipelineWindow());
+
+    System.setProperty(PROP_PIPELINE_WINDOW, "0");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+
+    System.setProperty(PROP_PIPELINE_WINDOW, "wide");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testLoadTransport() {
+    System.setProperty(PROP_TRANSPORT, "nio");
+    assertEquals(TransportType.NIO, FleetConfiguration.loadConfiguration().getTransport());
+
+    System.setProperty(PROP_FLEET_SIZE, "10");
+    assertEquals(TransportType.NIO, FleetConfiguration.loadConfiguration().getTransport());
+
+    System.setProperty(PROP_TRANSPORT, "carrier-pigeon");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testLoadFleetFromProperties() {
+    System.setProperty(PROP_FLEET_SIZE, "5000");
+    System.setProperty(PROP_ID_TAG_TEMPLATE, "SIM-{id}");
+    System.setProperty(PROP_CENTRAL_SYSTEM_URL_TEMPLATE, "ws://csms-{id}.example.com:9000");
+
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+
+    assertTrue(fleet.isFleetMode());
+    assertEquals(5000, fleet.getChargerCount());
+    assertEquals("SIM-{id}", fleet.getIdTagTemplate());
+    assertEquals("ws://csms-{id}.example.com:9000", fleet.getCentralSystemUrlTemplate());
+  }
+
+  @Test
+  public void testDefaultTemplates() {
+    System.setProperty(PROP_FLEET_SIZE, "10");
+
+    FleetConfiguration fleet = FleetConfiguration.loadConfiguration();
+
+    assertEquals(FleetConfiguration.DEFAULT_ID_TAG_TEMPLATE, fleet.getIdTagTemplate());
+    assertEquals(
+        FleetConfiguration.DEFAULT_CENTRAL_SYSTEM_URL_TEMPLATE,
+        fleet.getCentralSystemUrlTemplate());
+  }
+
+  @Test
+  public void testInvalidFleetSize() {
+    System.setProperty(PROP_FLEET_SIZE, "many");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+
+    System.setProperty(PROP_FLEET_SIZE, "0");
+    assertThrows(IllegalArgumentException.class, FleetConfiguration::loadConfiguration);
+  }
+
+  @Test
+  public void testCreateConfiguration() {
+    FleetConfiguration fleet =
+        FleetConfiguration.builder()
+            .fleetMode(true)
+            .chargerCount(2)
+            .idTagTemplate("CP{id}")
+            .centralSystemUrlTemplate("ws://localhost:9000/fleet{id}")
+            .build();
+
+    ConfigurationRegistry first = fleet.createConfiguration(1);
+    ConfigurationRegistry second = fleet.createConfiguration(2);
+
+    assertEquals("CP1", first.getIdTag());
+    assertEquals("ws://localhost:9000/fleet1", first.getCentralSystemUrl());
+    assertEquals("CP2", second.getIdTag());
+    assertEquals("ws://localhost:9000/fleet2", second.getCentralSystemUrl());
+  }
+
+  @Test
+  public void testCreateConfigurationDoesNotWriteConfigFile() throws Exception {
+    Path configPath = Path.of("config.properties");
+    boolean existedBefore = Files.exists(configPath);
+
+    FleetConfiguration.builder()
+        .fleetMode(true)
+        .chargerCount(1)
+        .idTagTemplate("CP{id}")
+        .centralSystemUrlTemplate("ws://localhost:9000")
+        .build()
+        .createConfiguration(1);
+
+    assertEquals(existedBefore, Files.exists(configPath));
+  }
+}
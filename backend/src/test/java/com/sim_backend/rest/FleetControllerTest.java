@@ -0,0 +1,56 @@
+package com.sim_backend.rest;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.sim_backend.charger.BootRampController;
+import com.sim_backend.rest.controllers.FleetController;
+import com.sim_backend.websockets.ReconnectMetrics;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+class FleetControllerTest {
+
+  @Mock private Javalin mockApp;
+  @Mock private BootRampController mockBootRamp;
+  @Mock private Context mockContext;
+
+  private FleetController fleetController;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    MockitoAnnotations.openMocks(this);
+    fleetController = new FleetController(mockApp, mockBootRamp);
+  }
+
+  @Test
+  void testBootProgress() {
+    BootRampController.BootProgress progress =
+        new BootRampController.BootProgress(10, 10, 9, 1, 9, 1500, null);
+    when(mockBootRamp.getProgress()).thenReturn(progress);
+
+    fleetController.bootProgress(mockContext);
+
+    verify(mockContext).json(progress);
+  }
+
+  @Test
+  void testReconnects() {
+    fleetController.reconnects(mockContext);
+
+    verify(mockContext).json(any(ReconnectMetrics.Snapshot.class));
+  }
+
+  @Test
+  void testRegisterRoutes() {
+    fleetController.registerRoutes(mockApp);
+
+    verify(mockApp).get(eq("/api/fleet/boot-progress"), any());
+    verify(mockApp).get(eq("/api/fleet/reconnects"), any());
+  }
+}
@@ -12,7 +12,11 @@ import com.sim_backend.rest.controllers.MessageController;
 import com.sim_backend.state.ChargerState;
 import com.sim_backend.state.ChargerStateMachine;
 import com.sim_backend.transactions.TransactionHandler;
+import com.sim_backend.websockets.FlushStatistics;
+import com.sim_backend.websockets.LatencyHistogram;
+import com.sim_backend.websockets.MessagePriority;
 import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.TrafficJournal;
 import com.sim_backend.websockets.enums.ChargePointErrorCode;
 import com.sim_backend.websockets.enums.ChargePointStatus;
 import com.sim_backend.websockets.messages.Authorize;
@@ -22,7 +26,13 @@ import com.sim_backend.websockets.messages.StatusNotification;
 import com.sim_backend.websockets.observers.StatusNotificationObserver;
 import io.javalin.Javalin;
 import io.javalin.http.Context;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InOrder;
@@ -365,6 +375,142 @@ class MessageControllerTest {
     verify(mockContext).json(receivedMessages);
   }
 
+  @Test
+  void testGetPipeline() {
+    // Arrange
+    SortedMap<Integer, LatencyHistogram.Snapshot> latency =
+        new TreeMap<>(Map.of(4, new LatencyHistogram.Snapshot(2, 0, 1, 2, 2, 3, 3, 3)));
+    when(mockWsClient.getPipelineWindow()).thenReturn(4);
+    when(mockWsClient.getInFlightCount()).thenReturn(3);
+    when(mockWsClient.getOldestInFlightAge()).thenReturn(Duration.ofMillis(250));
+    when(mockWsClient.getLatencyStatistics()).thenReturn(latency);
+    Map<MessagePriority, Integer> depths = Map.of(MessagePriority.TELEMETRY, 2);
+    when(mockWsClient.getQueueDepths()).thenReturn(depths);
+    when(mockWsClient.isBatchedFlush()).thenReturn(true);
+    FlushStatistics.Snapshot flush = new FlushStatistics.Snapshot(2, 5, 2.5, 3, 0);
+    FlushStatistics flushStatistics = mock(FlushStatistics.class);
+    when(flushStatistics.snapshot()).thenReturn(flush);
+    when(mockWsClient.getFlushStatistics()).thenReturn(flushStatistics);
+
+    // Act
+    messageController.getPipeline(mockContext);
+
+    // Assert
+    Map<String, Object> expected = new LinkedHashMap<>();
+    expected.put("window", 4);
+    expected.put("inFlight", 3);
+    expected.put("oldestInFlightMillis", 250L);
+    expected.put("latency", latency);
+    expected.put("queueDepths", depths);
+    expected.put("batchedFlush", true);
+    expected.put("flush", flush);
+    verify(mockContext).json(expected);
+  }
+
+  @Test
+  void testGetCorrelations() {
+    // Arrange
+    Map<String, Integer> sizes = Map.of("requestNames", 1, "heartbeats", 0);
+    when(mockWsClient.getCorrelationSizes()).thenReturn(sizes);
+
+    // Act
+    messageController.getCorrelations(mockContext);
+
+    // Assert
+    verify(mockContext).json(sizes);
+  }
+
+  @Test
+  void testGetTraffic() {
+    // Arrange
+    TrafficJournal journal = mock(TrafficJournal.class);
+    TrafficJournal.Page page = new TrafficJournal.Page(List.of(), null);
+    when(mockCharger.getTrafficJournal()).thenReturn(journal);
+    when(mockContext.queryParam("from")).thenReturn("2025-01-01T00:00:00Z");
+    when(mockContext.queryParam("action")).thenReturn("Heartbeat");
+    when(mockContext.queryParam("limit")).thenReturn("20");
+    when(journal.query(Instant.parse("2025-01-01T00:00:00Z"), null, "Heartbeat", null, null, 20))
+        .thenReturn(page);
+
+    // Act
+    messageController.getTraffic(mockContext);
+
+    // Assert
+    verify(mockContext).json(page);
+  }
+
+  @Test
+  void testGetTrafficInvalidTime() {
+    // Arrange
+    when(mockCharger.getTrafficJournal()).thenReturn(mock(TrafficJournal.class));
+    when(mockContext.queryParam("to")).thenReturn("yesterday");
+
+    // Act
+    messageController.getTraffic(mockContext);
+
+    // Assert
+    verify(mockContext).status(400);
+    verify(mockContext, never()).json(any());
+  }
+
+  @Test
+  void testGetTrafficNotEnabled() {
+    // Act
+    messageController.getTraffic(mockContext);
+    messageController.getTrafficSummary(mockContext);
+
+    // Assert
+    verify(mockContext, times(2)).status(404);
+    verify(mockContext, times(2)).result("Traffic journal is not enabled");
+  }
+
+  @Test
+  void testGetTrafficSummary() {
+    // Arrange
+    TrafficJournal journal = mock(TrafficJournal.class);
+    TrafficJournal.Summary summary = new TrafficJournal.Summary(1, 2, 100, null, null);
+    when(mockCharger.getTrafficJournal()).thenReturn(journal);
+    when(journal.getSummary()).thenReturn(summary);
+
+    // Act
+    messageController.getTrafficSummary(mockContext);
+
+    // Assert
+    verify(mockContext).json(summary);
+  }
+
+  @Test
+  void testSetPipelineWindow() {
+    // Arrange
+    when(mockContext.body()).thenReturn("{\"window\": 8}");
+
+    // Act
+    messageController.setPipelineWindow(mockContext);
+
+    // Assert
+    verify(mockCharger).setPipelineWindow(8);
+    verify(mockWsClient).setPipelineWindow(8);
+    verify(mockContext).result("OK");
+  }
+
+  @Test
+  void testSetPipelineWindow_invalid() {
+    // Arrange
+    when(mockContext.body())
+        .thenReturn("{\"window\": 0}", "{\"size\": 2}", "{\"window\": \"wide\"}");
+
+    // Act
+    messageController.setPipelineWindow(mockContext);
+    messageController.setPipelineWindow(mockContext);
+    messageController.setPipelineWindow(mockContext);
+
+    // Assert
+    verify(mockContext).result("Error: window must be at least 1.");
+    verify(mockContext, times(2)).result("Error: Missing or invalid window.");
+    verify(mockContext, times(3)).status(400);
+    verify(mockWsClient, never()).setPipelineWindow(anyInt());
+  }
+
   @Test
   void testGetIdTagCSurl() {
     // Arrange
@@ -461,6 +607,11 @@ class MessageControllerTest {
     verify(mockApp).get(eq("/api/{chargerId}/electrical/meter-value"), any());
     verify(mockApp).get(eq("/api/{chargerId}/electrical/max-current"), any());
     verify(mockApp).get(eq("/api/{chargerId}/electrical/current-import"), any());
+    verify(mockApp).get(eq("/api/{chargerId}/pipeline"), any());
+    verify(mockApp).post(eq("/api/{chargerId}/pipeline/window"), any());
+    verify(mockApp).get(eq("/api/{chargerId}/correlations"), any());
+    verify(mockApp).get(eq("/api/{chargerId}/traffic"), any());
+    verify(mockApp).get(eq("/api/{chargerId}/traffic/summary"), any());
     verify(mockApp).get(eq("/api/{chargerId}/get-idtag-csurl"), any());
     verify(mockApp).post(eq("/api/{chargerId}/update-idtag-csurl"), any());
   }
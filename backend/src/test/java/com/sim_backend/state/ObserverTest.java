@@ -22,6 +22,13 @@ public class ObserverTest {
     assertEquals(null, testObserver.getLastState(), "Last State in Observer is not null");
   }
 
+  @Test
+  void testRemove() {
+    testStateMachine.removeObserver(testObserver);
+    testStateMachine.transition(ChargerState.BootingUp);
+    assertEquals(null, testObserver.getLastState(), "Removed Observer was notified");
+  }
+
   @Test
   void testLog() {
     testStateMachine.transition(ChargerState.BootingUp);
@@ -0,0 +1,66 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class CorrelationMapTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  private final CorrelationMap<String> map = new CorrelationMap<>(Duration.ofSeconds(10), now::get);
+
+  @Test
+  public void testPutGetRemove() {
+    map.put("1", "Reset");
+
+    assertEquals("Reset", map.get("1"));
+    assertTrue(map.containsKey("1"));
+    assertEquals("Reset", map.remove("1"));
+    assertNull(map.get("1"));
+    assertNull(map.remove("1"));
+    assertEquals(0, map.size());
+  }
+
+  @Test
+  public void testEntriesExpire() {
+    map.put("old", "Reset");
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    map.put("new", "DataTransfer");
+
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    assertNull(map.get("old"));
+    assertEquals("DataTransfer", map.get("new"));
+    assertEquals(1, map.size());
+    assertEquals(1, map.getExpired());
+  }
+
+  @Test
+  public void testPutRestartsLifetime() {
+    map.put("1", "Reset");
+    map.put("2", "Reset");
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    map.put("1", "UnlockConnector");
+
+    now.addAndGet(Duration.ofSeconds(5).toNanos());
+    assertEquals(1, map.size());
+    assertEquals("UnlockConnector", map.get("1"));
+  }
+
+  @Test
+  public void testSizeIsBoundedByLifetime() {
+    // One request a second that is never answered
+    for (int i = 0; i < 10_000; i++) {
+      map.put(Integer.toString(i), "Reset");
+      now.addAndGet(Duration.ofSeconds(1).toNanos());
+      assertTrue(map.size() <= 10);
+    }
+  }
+
+  @Test
+  public void testInvalidLifetime() {
+    assertThrows(IllegalArgumentException.class, () -> new CorrelationMap<>(Duration.ZERO));
+  }
+}
@@ -0,0 +1,89 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class DuplicateIdFilterTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  public void testRejectsDuplicates() {
+    DuplicateIdFilter filter = new DuplicateIdFilter(Duration.ofMinutes(1), 10, now::get);
+
+    assertTrue(filter.add("a"));
+    assertTrue(filter.add("b"));
+    assertFalse(filter.add("a"));
+    assertTrue(filter.contains("b"));
+    assertFalse(filter.contains("c"));
+  }
+
+  @Test
+  public void testRemove() {
+    DuplicateIdFilter filter = new DuplicateIdFilter(Duration.ofMinutes(1), 2, now::get);
+    filter.add("a");
+    filter.add("b");
+    // Rotates, so "a" is in the previous window
+    filter.add("c");
+
+    assertTrue(filter.remove("a"));
+    assertTrue(filter.remove("c"));
+    assertFalse(filter.remove("missing"));
+    assertEquals(1, filter.size());
+    assertTrue(filter.add("a"));
+    assertTrue(filter.add("c"));
+  }
+
+  @Test
+  public void testCountWindow() {
+    DuplicateIdFilter filter = new DuplicateIdFilter(Duration.ofMinutes(1), 3, now::get);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.add("id-" + i));
+    }
+
+    // The previous window is remembered while the current one fills
+    assertFalse(filter.add("id-0"));
+    assertTrue(filter.add("id-5"));
+    assertFalse(filter.add("id-3"));
+    // Once the current one is full the window before is forgotten
+    assertTrue(filter.add("id-0"));
+  }
+
+  @Test
+  public void testTimeWindow() {
+    DuplicateIdFilter filter = new DuplicateIdFilter(Duration.ofSeconds(10), 100, now::get);
+    filter.add("old");
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertFalse(filter.add("old"));
+    filter.add("new");
+
+    now.addAndGet(Duration.ofSeconds(10).toNanos());
+    assertTrue(filter.add("old"));
+    assertFalse(filter.add("new"));
+
+    // After a quiet spell of two windows nothing is remembered
+    now.addAndGet(Duration.ofSeconds(20).toNanos());
+    assertTrue(filter.add("new"));
+    assertEquals(1, filter.size());
+  }
+
+  @Test
+  public void testMemoryIsBounded() {
+    DuplicateIdFilter filter = new DuplicateIdFilter(Duration.ofHours(1), 1_000, now::get);
+    for (int i = 0; i < 100_000; i++) {
+      filter.add("id-" + i);
+      assertTrue(filter.size() <= 2 * filter.getCapacity());
+    }
+  }
+
+  @Test
+  public void testInvalidLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new DuplicateIdFilter(Duration.ZERO, 1));
+    assertThrows(
+        IllegalArgumentException.class, () -> new DuplicateIdFilter(Duration.ofSeconds(1), 0));
+  }
+}
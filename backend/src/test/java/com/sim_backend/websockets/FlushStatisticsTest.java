@@ -0,0 +1,34 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class FlushStatisticsTest {
+
+  @Test
+  public void testEmpty() {
+    FlushStatistics.Snapshot snapshot = new FlushStatistics().snapshot();
+
+    assertEquals(0, snapshot.getFlushes());
+    assertEquals(0, snapshot.getFrames());
+    assertEquals(0, snapshot.getMeanFramesPerFlush());
+    assertEquals(0, snapshot.getMaxFramesPerFlush());
+  }
+
+  @Test
+  public void testRecord() {
+    FlushStatistics statistics = new FlushStatistics();
+    statistics.record(1);
+    statistics.record(5);
+    statistics.record(3);
+    statistics.recordFailure();
+
+    FlushStatistics.Snapshot snapshot = statistics.snapshot();
+    assertEquals(3, snapshot.getFlushes());
+    assertEquals(9, snapshot.getFrames());
+    assertEquals(3.0, snapshot.getMeanFramesPerFlush());
+    assertEquals(5, snapshot.getMaxFramesPerFlush());
+    assertEquals(1, snapshot.getFailures());
+  }
+}
@@ -1,7 +1,12 @@
 package com.sim_backend.websockets;
 
+import static org.junit.jupiter.api.Assertions.*;
+
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.sim_backend.websockets.messages.BootNotificationResponse;
+import com.sim_backend.websockets.messages.Heartbeat;
+import java.time.ZonedDateTime;
 import org.junit.jupiter.api.Test;
 
 public class GsonUtilitiesTest {
@@ -14,4 +19,29 @@ public class GsonUtilitiesTest {
     jsonObject.addProperty("foo", "bar");
     assert GsonUtilities.toString(jsonObject).equals("{\"foo\":\"bar\"}");
   }
+
+  @Test
+  public void testGsonIsShared() {
+    assertSame(GsonUtilities.getGson(), GsonUtilities.getGson());
+  }
+
+  @Test
+  public void testWarmUp() {
+    int warmed = GsonUtilities.warmUp();
+
+    assertTrue(warmed > 0);
+    assertNotNull(GsonUtilities.getGson().getAdapter(Heartbeat.class));
+  }
+
+  @Test
+  public void testZonedDateTimeRoundTrip() {
+    String json =
+        "{\"status\":\"Accepted\",\"currentTime\":\"2025-01-02T03:04:05Z\",\"interval\":30}";
+
+    BootNotificationResponse response =
+        GsonUtilities.getGson().fromJson(json, BootNotificationResponse.class);
+
+    assertEquals(ZonedDateTime.parse("2025-01-02T03:04:05Z"), response.getCurrentTime());
+    assertTrue(GsonUtilities.getGson().toJson(response).contains("2025-01-02T03:04:05Z"));
+  }
 }
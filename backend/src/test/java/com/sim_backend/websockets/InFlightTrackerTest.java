@@ -0,0 +1,101 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.messages.Authorize;
+import com.sim_backend.websockets.messages.Heartbeat;
+import org.junit.jupiter.api.Test;
+
+public class InFlightTrackerTest {
+
+  private static final long TIMEOUT = 1_000;
+
+  @Test
+  public void testExpiresInDeadlineOrder() {
+    InFlightTracker tracker = new InFlightTracker(TIMEOUT);
+    Heartbeat second = new Heartbeat();
+    Heartbeat first = new Heartbeat();
+    Heartbeat third = new Heartbeat();
+    tracker.add(second, 1, 200);
+    tracker.add(first, 1, 100);
+    tracker.add(third, 1, 300);
+
+    assertNull(tracker.pollExpired(1_100));
+    assertSame(first, tracker.pollExpired(1_101).getMessage());
+    assertNull(tracker.pollExpired(1_101));
+
+    InFlightTracker.InFlight expired = tracker.pollExpired(5_000);
+    assertSame(second, expired.getMessage());
+    assertEquals(200, expired.getSentAtNanos());
+    assertEquals(1_200, expired.getDeadlineNanos());
+    assertSame(third, tracker.pollExpired(5_000).getMessage());
+    assertNull(tracker.pollExpired(5_000));
+    assertEquals(0, tracker.size());
+  }
+
+  @Test
+  public void testNanosUntilFirstExpiry() {
+    InFlightTracker tracker = new InFlightTracker(TIMEOUT);
+    assertEquals(Long.MAX_VALUE, tracker.getNanosUntilFirstExpiry(0));
+
+    tracker.add(new Heartbeat(), 1, 200);
+    tracker.add(new Heartbeat(), 1, 100);
+    assertEquals(601, tracker.getNanosUntilFirstExpiry(500));
+    assertNull(tracker.pollExpired(1_100));
+    assertEquals(1, tracker.getNanosUntilFirstExpiry(1_100));
+    assertEquals(0, tracker.getNanosUntilFirstExpiry(2_000));
+  }
+
+  @Test
+  public void testRemoveAndReplace() {
+    InFlightTracker tracker = new InFlightTracker(TIMEOUT);
+    Heartbeat heartbeat = new Heartbeat();
+    Authorize authorize = new Authorize("tag");
+    tracker.add(heartbeat, 1, 0);
+    tracker.add(authorize, 1, 10);
+
+    tracker.remove(heartbeat.getMessageID());
+    tracker.remove("unknown");
+    assertNull(tracker.get(heartbeat.getMessageID()));
+    assertSame(authorize, tracker.get(authorize.getMessageID()));
+
+    // Sending a request again restarts its deadline
+    tracker.add(authorize, 1, 500);
+    assertEquals(1, tracker.size());
+    assertNull(tracker.pollExpired(1_011));
+    assertSame(authorize, tracker.pollExpired(1_501).getMessage());
+  }
+
+  @Test
+  public void testPendingAndAge() {
+    InFlightTracker tracker = new InFlightTracker(TIMEOUT);
+    assertFalse(tracker.hasPending(0));
+    assertEquals(0, tracker.getOldestAgeNanos(0));
+
+    tracker.add(new Heartbeat(), 1, 0);
+    tracker.add(new Authorize("tag"), 1, 600);
+
+    assertTrue(tracker.hasPending(1_000));
+    assertTrue(tracker.hasPending(1_600));
+    assertFalse(tracker.hasPending(1_601));
+    assertEquals(700, tracker.getOldestAgeNanos(700));
+    assertEquals(2, tracker.size());
+    assertEquals(2, tracker.countPending(1_000, 5));
+    assertEquals(1, tracker.countPending(1_000, 1));
+    assertEquals(1, tracker.countPending(1_001, 5));
+    assertEquals(0, tracker.countPending(1_601, 5));
+  }
+
+  @Test
+  public void testDeadlinesAcrossNanoTimeOverflow() {
+    InFlightTracker tracker = new InFlightTracker(TIMEOUT);
+    Heartbeat before = new Heartbeat();
+    Heartbeat after = new Heartbeat();
+    tracker.add(after, 1, Long.MAX_VALUE - 100);
+    tracker.add(before, 1, Long.MAX_VALUE - 500);
+
+    assertNull(tracker.pollExpired(Long.MAX_VALUE));
+    assertSame(before, tracker.pollExpired(Long.MAX_VALUE + 600).getMessage());
+    assertSame(after, tracker.pollExpired(Long.MAX_VALUE + 1_000).getMessage());
+  }
+}
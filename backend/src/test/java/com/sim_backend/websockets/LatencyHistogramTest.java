@@ -0,0 +1,53 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testEmptySnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.recordTimeout();
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(0, snapshot.getCount());
+    assertEquals(1, snapshot.getTimeouts());
+    assertEquals(0, snapshot.getMaxMillis());
+  }
+
+  @Test
+  public void testPercentilesAreWithinTheirBucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int millis = 1; millis <= 100; millis++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(100, snapshot.getCount());
+    assertEquals(1, snapshot.getMinMillis());
+    assertEquals(100, snapshot.getMaxMillis());
+    assertEquals(50.5, snapshot.getMeanMillis(), 1e-9);
+    assertTrue(snapshot.getP50Millis() >= 50 && snapshot.getP50Millis() <= 100);
+    assertTrue(snapshot.getP90Millis() >= 90 && snapshot.getP90Millis() <= 100);
+    assertTrue(snapshot.getP99Millis() >= 99 && snapshot.getP99Millis() <= 100);
+  }
+
+  @Test
+  public void testExtremeLatenciesAreClamped() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(2, snapshot.getCount());
+    assertEquals(0, snapshot.getMinMillis());
+    assertEquals(Long.MAX_VALUE / 1_000_000.0, snapshot.getMaxMillis());
+    assertEquals(snapshot.getMaxMillis(), snapshot.getP99Millis());
+  }
+}
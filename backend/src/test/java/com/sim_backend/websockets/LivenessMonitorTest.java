@@ -0,0 +1,191 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LivenessMonitorTest {
+
+  private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+  /** Four slots over 80ms, so a slot is visited every other tick. */
+  private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(80);
+
+  /** A connection that records the monitor's calls. */
+  static class FakeTarget implements LivenessMonitor.Target {
+    final AtomicInteger pings = new AtomicInteger();
+    final AtomicInteger lost = new AtomicInteger();
+    volatile boolean open = true;
+    volatile boolean answers = false;
+    LivenessMonitor.Registration registration;
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void sendPing() {
+      pings.incrementAndGet();
+      if (answers) {
+        registration.alive();
+      }
+    }
+
+    @Override
+    public void onLivenessLost() {
+      lost.incrementAndGet();
+      open = false;
+    }
+  }
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  private TimerWheel wheel;
+  private LivenessMonitor monitor;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new TimerWheel(TICK, 8, nanoTime::get);
+    monitor = new LivenessMonitor(INTERVAL, 4, wheel, nanoTime::get);
+  }
+
+  private FakeTarget register() {
+    FakeTarget target = new FakeTarget();
+    target.registration = monitor.register(target);
+    return target;
+  }
+
+  private void advance(long millis) {
+    for (long i = 0; i < millis; i += 10) {
+      nanoTime.addAndGet(TICK);
+      wheel.advance();
+    }
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new LivenessMonitor(0, 4, wheel, nanoTime::get));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new LivenessMonitor(INTERVAL, 0, wheel, nanoTime::get));
+  }
+
+  @Test
+  void testUsesSingleTimer() {
+    for (int i = 0; i < 100; i++) {
+      register();
+    }
+
+    assertEquals(100, monitor.getRegisteredCount());
+    assertEquals(1, wheel.pendingTimeouts());
+  }
+
+  @Test
+  void testPingsAreSpreadAcrossTheInterval() {
+    List<FakeTarget> targets = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      FakeTarget target = register();
+      target.answers = true;
+      targets.add(target);
+    }
+
+    int previous = 0;
+    for (int step = 0; step < 8; step++) {
+      advance(10);
+      int pinged = targets.stream().mapToInt(target -> target.pings.get()).sum();
+      assertTrue(pinged - previous <= 1, "At most one slot is visited per tick");
+      previous = pinged;
+    }
+
+    advance(20);
+    for (FakeTarget target : targets) {
+      assertEquals(1, target.pings.get());
+    }
+  }
+
+  @Test
+  void testAnsweringConnectionIsKept() {
+    FakeTarget target = register();
+    target.answers = true;
+
+    advance(1000);
+
+    assertTrue(target.pings.get() >= 11);
+    assertEquals(0, target.lost.get());
+  }
+
+  @Test
+  void testSilentConnectionIsReportedLost() {
+    FakeTarget target = register();
+
+    advance(110);
+    assertEquals(0, target.lost.get());
+    assertEquals(2, target.pings.get());
+
+    advance(90);
+    assertEquals(1, target.lost.get());
+
+    advance(400);
+    assertEquals(1, target.lost.get(), "A closed connection is not reported again");
+  }
+
+  @Test
+  void testClosedConnectionIsSkipped() {
+    FakeTarget target = register();
+    target.open = false;
+
+    advance(500);
+    assertEquals(0, target.pings.get());
+    assertEquals(0, target.lost.get());
+
+    // The silence while closed does not count against the reopened connection
+    target.open = true;
+    target.answers = true;
+    advance(200);
+    assertEquals(0, target.lost.get());
+    assertTrue(target.pings.get() >= 1);
+  }
+
+  @Test
+  void testCancelStopsPings() {
+    FakeTarget target = register();
+    target.registration.cancel();
+
+    advance(500);
+
+    assertEquals(0, monitor.getRegisteredCount());
+    assertEquals(0, target.pings.get());
+    assertEquals(0, target.lost.get());
+  }
+
+  @Test
+  void testActionsAreHandedToTheTarget() {
+    List<Runnable> handed = new ArrayList<>();
+    FakeTarget target =
+        new FakeTarget() {
+          @Override
+          public void execute(Runnable action) {
+            handed.add(action);
+          }
+        };
+    target.registration = monitor.register(target);
+
+    advance(200);
+
+    // Nothing ran on the wheel's thread
+    assertEquals(0, target.pings.get());
+    assertEquals(0, target.lost.get());
+    assertFalse(handed.isEmpty());
+    handed.forEach(Runnable::run);
+    assertTrue(target.pings.get() > 0);
+    assertEquals(1, target.lost.get());
+  }
+}
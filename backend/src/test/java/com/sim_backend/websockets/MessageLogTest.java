@@ -0,0 +1,70 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MessageLogTest {
+
+  private static final Clock CLOCK =
+      Clock.fixed(Instant.parse("2025-01-01T12:00:00.123456789Z"), ZoneOffset.UTC);
+
+  @Test
+  public void testSentMessagesAreFormatted() {
+    MessageLog log = new MessageLog(10, CLOCK);
+    log.recordSent("[2,\"1\",\"Heartbeat\",{}]", null);
+    log.recordSent("[3,\"2\",{\"status\":\"Accepted\"}]", "Reset");
+
+    assertEquals(
+        List.of(
+            "[\"2025-01-01T12:00:00.123456789Z\", 2,\"1\",\"Heartbeat\",{}]",
+            "[\"2025-01-01T12:00:00.123456789Z\", 3,\"2\",\"Reset\",{\"status\":\"Accepted\"}]"),
+        log.getSentMessages());
+  }
+
+  @Test
+  public void testReceivedMessagesAreFormatted() {
+    MessageLog log = new MessageLog(10, CLOCK);
+    log.recordReceived("[2,\"1\",\"Reset\",{\"type\":\"Soft\"}]", "Reset");
+    log.recordReceived("[3,\"2\",{\"currentTime\":\"now\"}]", "Heartbeat");
+    log.recordReceived("not json", "Unknown");
+
+    assertEquals(
+        List.of(
+            "[\"Reset\", \"2025-01-01T12:00:00.123456789Z\", 2,\"1\",{\"type\":\"Soft\"}]",
+            "[\"Heartbeat\", \"2025-01-01T12:00:00.123456789Z\", 3,\"2\",{\"currentTime\":\"now\"}]"),
+        log.getReceivedMessages());
+  }
+
+  @Test
+  public void testOldestFramesAreOverwritten() {
+    MessageLog log = new MessageLog(3, CLOCK);
+    for (int i = 0; i < 5; i++) {
+      log.recordSent("[2,\"" + i + "\",\"Heartbeat\",{}]", null);
+    }
+    log.recordReceived("[3,\"4\",{}]", "Heartbeat");
+
+    assertEquals(3, log.size());
+    List<String> sent = log.getSentMessages();
+    assertEquals(2, sent.size());
+    assertTrue(sent.get(0).contains("\"3\""));
+    assertTrue(sent.get(1).contains("\"4\""));
+    assertEquals(1, log.getReceivedMessages().size());
+  }
+
+  @Test
+  public void testSetCapacity() {
+    MessageLog log = new MessageLog(3, CLOCK);
+    log.recordSent("[2,\"1\",\"Heartbeat\",{}]", null);
+
+    log.setCapacity(500);
+
+    assertEquals(500, log.getCapacity());
+    assertEquals(0, log.size());
+    assertThrows(IllegalArgumentException.class, () -> log.setCapacity(0));
+  }
+}
@@ -0,0 +1,361 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.exceptions.OCPPMessageFailure;
+import com.sim_backend.websockets.messages.Authorize;
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.HeartbeatResponse;
+import com.sim_backend.websockets.messages.StartTransaction;
+import com.sim_backend.websockets.messages.StatusNotification;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MessageQueueTest {
+
+  private static final int PRODUCERS = 4;
+
+  private static final int MESSAGES_PER_PRODUCER = 2_000;
+
+  private MessageQueue queue;
+
+  private OCPPWebSocketClient client;
+
+  private Queue<String> sent;
+
+  @BeforeEach
+  void setUp() {
+    queue = new MessageQueue();
+    client = mock(OCPPWebSocketClient.class);
+    sent = new ConcurrentLinkedQueue<>();
+    doAnswer(invocation -> sent.add(invocation.getArgument(0))).when(client).send(anyString());
+  }
+
+  @Test
+  public void testPriorityMessagesGoFirst() throws Exception {
+    Authorize first = new Authorize("first");
+    Authorize second = new Authorize("second");
+    Authorize priority = new Authorize("priority");
+
+    assertTrue(queue.pushMessage(first));
+    assertTrue(queue.pushMessage(second));
+    assertTrue(queue.pushPriorityMessage(priority));
+    assertFalse(queue.pushMessage(new Authorize("second")));
+    assertFalse(queue.pushPriorityMessage(first));
+
+    assertSame(priority, queue.popMessage(client));
+    assertSame(first, queue.popMessage(client));
+    assertSame(second, queue.popMessage(client));
+    assertTrue(queue.isEmpty());
+    assertTrue(queue.getQueuedKeys().isEmpty());
+  }
+
+  @Test
+  public void testPrioritiesAreSentInOrder() throws Exception {
+    Heartbeat heartbeat = new Heartbeat();
+    Authorize first = new Authorize("first");
+    Authorize second = new Authorize("second");
+    BootNotification boot = new BootNotification();
+    HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
+
+    for (OCPPMessage message : List.of(heartbeat, first, second, boot, response)) {
+      assertTrue(queue.pushMessage(message));
+    }
+    Map<MessagePriority, Integer> depths = queue.getQueueDepths();
+    assertEquals(1, depths.get(MessagePriority.RESPONSE));
+    assertEquals(1, depths.get(MessagePriority.CONTROL));
+    assertEquals(2, depths.get(MessagePriority.TRANSACTION));
+    assertEquals(1, depths.get(MessagePriority.TELEMETRY));
+
+    // Keep the calls from waiting on each other
+    queue.setPipelineWindow(8);
+    assertSame(response, queue.popMessage(client));
+    assertSame(boot, queue.popMessage(client));
+    assertSame(first, queue.popMessage(client));
+    assertSame(second, queue.popMessage(client));
+    assertSame(heartbeat, queue.popMessage(client));
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  public void testWaitingMessagesAreRaised() throws Exception {
+    queue = new MessageQueue(TimeUnit.MILLISECONDS.toNanos(10));
+    queue.setPipelineWindow(8);
+    Heartbeat heartbeat = new Heartbeat();
+    assertTrue(queue.pushMessage(heartbeat));
+    Thread.sleep(50);
+    BootNotification boot = new BootNotification();
+    assertTrue(queue.pushMessage(boot));
+
+    assertSame(heartbeat, queue.peekMessage());
+    assertSame(heartbeat, queue.popMessage(client));
+    assertSame(boot, queue.popMessage(client));
+  }
+
+  @Test
+  public void testBusyCallsKeepTheirOrder() throws Exception {
+    Authorize inFlight = new Authorize("in-flight");
+    queue.addPreviousMessage(inFlight);
+    Authorize first = new Authorize("first");
+    Authorize second = new Authorize("second");
+    HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
+    assertTrue(queue.pushMessage(first));
+    assertTrue(queue.pushMessage(second));
+    assertTrue(queue.pushMessage(response));
+
+    // Only the answer passes the held calls
+    assertSame(response, queue.popMessage(client));
+    assertNull(queue.popMessage(client));
+    assertSame(first, queue.peekMessage());
+
+    queue.clearPreviousMessage(inFlight);
+    assertSame(first, queue.popMessage(client));
+    queue.addPreviousMessage(first);
+    assertNull(queue.popMessage(client));
+    queue.clearPreviousMessage(first);
+    assertSame(second, queue.popMessage(client));
+  }
+
+  @Test
+  public void testSentMessageCanBePushedAgain() throws Exception {
+    Heartbeat heartbeat = new Heartbeat();
+
+    assertTrue(queue.pushMessage(heartbeat));
+    assertFalse(queue.pushMessage(new Heartbeat()));
+    queue.popMessage(client);
+
+    assertTrue(queue.pushMessage(new Heartbeat()));
+  }
+
+  @Test
+  public void testTransactionMessagesAreKeyedByMessageId() throws Exception {
+    StartTransaction first = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    StartTransaction second = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    StartTransaction copy = new StartTransaction(1, "tag", 5, "2025-01-01T00:00:00Z");
+    copy.setMessageID(first.getMessageID());
+
+    assertTrue(queue.pushMessage(first));
+    assertTrue(queue.pushMessage(second));
+    assertFalse(queue.pushMessage(copy));
+    assertEquals(Set.of(first.getDedupKey(), second.getDedupKey()), queue.getQueuedKeys());
+  }
+
+  @Test
+  public void testNewerStatusReplacesQueuedOne() throws Exception {
+    StatusNotification charging = status(ChargePointStatus.Charging);
+    assertTrue(queue.pushMessage(status(ChargePointStatus.Preparing)));
+    assertTrue(queue.pushMessage(charging));
+    assertEquals(1, queue.size());
+
+    // A status pushed while the queued one is being sent is sent after it
+    StatusNotification available = status(ChargePointStatus.Available);
+    doAnswer(invocation -> queue.pushMessage(available)).when(client).send(anyString());
+    assertSame(charging, queue.popMessage(client));
+    assertEquals(Set.of(available.getDedupKey()), queue.getQueuedKeys());
+
+    doAnswer(invocation -> null).when(client).send(anyString());
+    queue.clearPreviousMessage(charging);
+    assertSame(available, queue.popMessage(client));
+    assertTrue(queue.getQueuedKeys().isEmpty());
+  }
+
+  private static StatusNotification status(ChargePointStatus status) {
+    return new StatusNotification(
+        1, ChargePointErrorCode.NoError, "", status, ZonedDateTime.now(), "", "");
+  }
+
+  @Test
+  public void testRequeuePutsMessagesBackFirst() throws Exception {
+    Authorize authorize = new Authorize("tag");
+    StatusNotification preparing = status(ChargePointStatus.Preparing);
+    queue.pushMessage(authorize);
+    queue.pushMessage(preparing);
+    List<OCPPMessage> popped = queue.popAllMessages(client);
+    assertEquals(List.of(preparing, authorize), popped);
+    queue.addPreviousMessage(authorize);
+
+    // A newer status pushed since wins over the requeued one
+    StatusNotification charging = status(ChargePointStatus.Charging);
+    queue.pushMessage(charging);
+    queue.pushMessage(new Heartbeat());
+    queue.requeue(popped, new WebsocketNotConnectedException());
+
+    assertEquals(0, queue.getInFlightCount());
+    assertEquals(3, queue.size());
+    assertSame(charging, queue.popMessage(client));
+    assertSame(authorize, queue.popMessage(client));
+  }
+
+  @Test
+  public void testRequeueCountsTries() throws Exception {
+    Authorize authorize = new Authorize("tag");
+    queue.pushMessage(authorize);
+    for (int i = 1; i < MessageQueue.MAX_REATTEMPTS; i++) {
+      List<OCPPMessage> popped = queue.popAllMessages(client);
+      queue.requeue(popped, new WebsocketNotConnectedException());
+      assertEquals(1, queue.size());
+    }
+
+    // Out of tries, it is dropped rather than retried forever
+    List<OCPPMessage> popped = queue.popAllMessages(client);
+    OCPPMessageFailure failure =
+        assertThrows(
+            OCPPMessageFailure.class,
+            () -> queue.requeue(popped, new WebsocketNotConnectedException()));
+    assertSame(authorize, failure.getFailedMessage());
+    assertTrue(queue.isEmpty());
+    assertTrue(queue.getQueuedKeys().isEmpty());
+  }
+
+  @Test
+  public void testPipelineWindowLimitsCallsInFlight() throws Exception {
+    queue.setPipelineWindow(3);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.pushMessage(new Authorize("tag-" + i)));
+    }
+
+    List<OCPPMessage> sentCalls = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      assertFalse(queue.isBusy());
+      OCPPMessage call = queue.popMessage(client);
+      queue.addPreviousMessage(call);
+      sentCalls.add(call);
+    }
+    assertTrue(queue.isBusy());
+    assertNull(queue.popMessage(client));
+    assertEquals(3, queue.getInFlightCount());
+
+    // An answer frees a slot in the window
+    queue.clearPreviousMessage(sentCalls.get(0));
+    assertFalse(queue.isBusy());
+    assertNotNull(queue.popMessage(client));
+  }
+
+  @Test
+  public void testLatencyIsRecordedPerWindow() throws Exception {
+    Authorize single = new Authorize("single");
+    queue.addPreviousMessage(single);
+    queue.clearPreviousMessage(single);
+
+    queue.setPipelineWindow(4);
+    Authorize first = new Authorize("first");
+    Authorize second = new Authorize("second");
+    queue.addPreviousMessage(first);
+    queue.addPreviousMessage(second);
+    queue.clearPreviousMessage(first);
+    queue.clearPreviousMessage(second);
+    queue.clearPreviousMessage(second);
+
+    SortedMap<Integer, LatencyHistogram.Snapshot> statistics = queue.getLatencyStatistics();
+    assertEquals(List.of(1, 4), List.copyOf(statistics.keySet()));
+    assertEquals(1, statistics.get(1).getCount());
+    assertEquals(2, statistics.get(4).getCount());
+    assertThrows(IllegalArgumentException.class, () -> queue.setPipelineWindow(0));
+  }
+
+  @Test
+  public void testConcurrentPushesOfEqualMessagesQueueOne() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+    try {
+      for (int round = 0; round < 200; round++) {
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Future<?>> pushes = new ArrayList<>();
+        for (int i = 0; i < PRODUCERS; i++) {
+          boolean priority = i % 2 == 0;
+          pushes.add(
+              executor.submit(
+                  () -> {
+                    start.await();
+                    Authorize message = new Authorize("tag");
+                    boolean pushed =
+                        priority ? queue.pushPriorityMessage(message) : queue.pushMessage(message);
+                    if (pushed) {
+                      accepted.incrementAndGet();
+                    }
+                    return null;
+                  }));
+        }
+        start.countDown();
+        for (Future<?> push : pushes) {
+          push.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, accepted.get());
+        assertEquals(1, queue.size());
+        assertNotNull(queue.popMessage(client));
+        assertTrue(queue.isEmpty());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testConcurrentProducersLoseAndDuplicateNothing() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+    Set<String> pushed = ConcurrentHashMap.newKeySet();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> producers = new ArrayList<>();
+    for (int p = 0; p < PRODUCERS; p++) {
+      int producer = p;
+      producers.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                  OCPPMessage message = new Authorize(producer + "-" + i);
+                  boolean accepted =
+                      i % 10 == 0 ? queue.pushPriorityMessage(message) : queue.pushMessage(message);
+                  assertTrue(accepted);
+                  pushed.add(message.getMessageID());
+                }
+                return null;
+              }));
+    }
+
+    // Drain on this thread while the producers push, as the charger loop does
+    start.countDown();
+    List<String> popped = new ArrayList<>();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!producers.stream().allMatch(Future::isDone) || !queue.isEmpty()) {
+      OCPPMessage message = queue.popMessage(client);
+      if (message != null) {
+        popped.add(message.getMessageID());
+      }
+      assertTrue(System.nanoTime() < deadline, "Timed out draining the queue");
+    }
+    for (Future<?> producer : producers) {
+      producer.get();
+    }
+    executor.shutdown();
+
+    assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, popped.size());
+    assertEquals(pushed, new HashSet<>(popped));
+    assertEquals(popped.size(), sent.size());
+    assertTrue(queue.getQueuedKeys().isEmpty());
+  }
+}
@@ -21,6 +21,7 @@ import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -41,6 +42,10 @@ public class MessageSchedulerTest {
 
   private MessageScheduler scheduler;
 
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  private TimerWheel wheel;
+
   public MessageSchedulerTest() throws URISyntaxException {}
 
   @BeforeEach
@@ -53,8 +58,9 @@ public class MessageSchedulerTest {
             new TestOCPPWebSocketClient(
                 new URI("ws://localhost:8080/sim_backend"), statusNotificationObserver));
 
+    wheel = new TimerWheel(TimeUnit.MILLISECONDS.toNanos(10), 64, nanoTime::get);
     scheduler =
-        new MessageScheduler(client) {
+        new MessageScheduler(client, wheel) {
           @Override
           public OCPPTime getTime() {
             return time;
@@ -169,8 +175,9 @@ public class MessageSchedulerTest {
     OCPPTimedTask task = new OCPPTimedTask(futureTime, new Heartbeat(), client);
 
     // Add the task manually
-    scheduler.tasks.add(task);
+    scheduler.schedule(task);
     when(time.getSynchronizedTime()).thenReturn(ZonedDateTime.now().plusSeconds(20));
+    advanceWheel(20, TimeUnit.SECONDS);
 
     // Perform a tick
     scheduler.tick();
@@ -189,7 +196,7 @@ public class MessageSchedulerTest {
     OCPPTimedTask task = new OCPPTimedTask(futureTime, new Heartbeat(), client);
 
     // Add the task manually
-    scheduler.tasks.add(task);
+    scheduler.schedule(task);
 
     // Perform a tick before the task is due
     scheduler.tick();
@@ -214,7 +221,7 @@ public class MessageSchedulerTest {
             fixedTime.minusSeconds(1), repeatDelay, ChronoUnit.SECONDS, new Heartbeat(), client);
 
     // Add the task manually
-    scheduler.tasks.add(repeatingTask);
+    scheduler.schedule(repeatingTask);
 
     // Perform a tick
     scheduler.tick();
@@ -224,7 +231,7 @@ public class MessageSchedulerTest {
 
     // Verify that the task is rescheduled with the repeat delay from the fixed time
     ZonedDateTime expectedNextExecutionTime = fixedTime.plusSeconds(repeatDelay);
-    ZonedDateTime actualNextExecutionTime = scheduler.tasks.get(0).time;
+    ZonedDateTime actualNextExecutionTime = scheduler.tasks.iterator().next().time;
     assertEquals(expectedNextExecutionTime, actualNextExecutionTime);
   }
 
@@ -285,6 +292,25 @@ public class MessageSchedulerTest {
         expectedTime.truncatedTo(ChronoUnit.SECONDS), task.time.truncatedTo(ChronoUnit.SECONDS));
   }
 
+  @Test
+  void testRegisterFunctionJob() {
+    AtomicBoolean ran = new AtomicBoolean();
+    ZonedDateTime now = ZonedDateTime.now();
+    when(time.getSynchronizedTime()).thenReturn(now);
+
+    TimedTask task = scheduler.registerFunctionJob(3, TimeUnit.SECONDS, () -> ran.set(true));
+    assertEquals(now.plusSeconds(3), task.time);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> scheduler.registerFunctionJob(-1, TimeUnit.SECONDS, () -> {}));
+
+    when(time.getSynchronizedTime()).thenReturn(now.plusSeconds(5));
+    advanceWheel(5, TimeUnit.SECONDS);
+    scheduler.tick();
+    assertTrue(ran.get());
+    assertFalse(scheduler.tasks.contains(task));
+  }
+
   @Test
   void testKillJob_NonRepeating() {
     // Register a non-repeating job, then kill it and verify it is removed from the scheduler
@@ -329,7 +355,7 @@ public class MessageSchedulerTest {
 
     // Cancel the task so it should not run
     repeatingTask.cancel();
-    scheduler.tasks.add(repeatingTask);
+    scheduler.schedule(repeatingTask);
 
     scheduler.tick();
 
@@ -349,7 +375,7 @@ public class MessageSchedulerTest {
 
     // Cancel the task so that repeatTask() returns null
     repeatingTask.cancel();
-    scheduler.tasks.add(repeatingTask);
+    scheduler.schedule(repeatingTask);
 
     scheduler.tick();
 
@@ -360,4 +386,71 @@ public class MessageSchedulerTest {
     // Verify that the task was not rescheduled
     assertFalse(foundRescheduled);
   }
+
+  @Test
+  void testTaskNotHandedBackBeforeDue() {
+    OCPPTimedTask task = scheduler.registerJob(5, TimeUnit.SECONDS, new Heartbeat());
+
+    advanceWheel(4, TimeUnit.SECONDS);
+    scheduler.tick();
+    verify(client, never()).pushMessage(any(OCPPMessage.class));
+
+    advanceWheel(2, TimeUnit.SECONDS);
+    scheduler.tick();
+    verify(client, times(1)).pushMessage(any(OCPPMessage.class));
+    assertFalse(scheduler.tasks.contains(task));
+  }
+
+  @Test
+  void testKillJobCancelsWheelTimeout() {
+    OCPPTimedTask task = scheduler.registerJob(5, TimeUnit.SECONDS, new Heartbeat());
+    wheel.advance();
+    assertEquals(1, wheel.pendingTimeouts());
+
+    scheduler.killJob(task);
+    assertEquals(0, wheel.pendingTimeouts());
+
+    advanceWheel(10, TimeUnit.SECONDS);
+    scheduler.tick();
+    verify(client, never()).pushMessage(any(OCPPMessage.class));
+  }
+
+  @Test
+  void testDueTasksWaitWhileOffline() {
+    when(client.isOnline()).thenReturn(false);
+    OCPPTimedTask task = scheduler.registerJob(1, TimeUnit.SECONDS, new Heartbeat());
+    advanceWheel(2, TimeUnit.SECONDS);
+    scheduler.tick();
+    verify(client, never()).pushMessage(any(OCPPMessage.class));
+    assertTrue(scheduler.tasks.contains(task));
+
+    when(client.isOnline()).thenReturn(true);
+    scheduler.tick();
+    verify(client, times(1)).pushMessage(any(OCPPMessage.class));
+  }
+
+  @Test
+  void testSynchronizeTimeReschedulesPendingTasks() throws Exception {
+    ZonedDateTime now = ZonedDateTime.parse("2025-03-12T12:00:00Z");
+    when(time.getSynchronizedTime()).thenReturn(now);
+    OCPPTimedTask task = scheduler.registerJob(now.plusSeconds(10), new Heartbeat());
+
+    Field timeField = MessageScheduler.class.getDeclaredField("time");
+    timeField.setAccessible(true);
+    timeField.set(scheduler, time);
+
+    // The Central System is 8 seconds ahead of us, so the task is due in 2 seconds
+    when(time.getSynchronizedTime()).thenReturn(now.plusSeconds(8));
+    scheduler.synchronizeTime(now.plusSeconds(8));
+
+    advanceWheel(3, TimeUnit.SECONDS);
+    scheduler.tick();
+    verify(client, times(1)).pushMessage(any(OCPPMessage.class));
+    assertFalse(scheduler.tasks.contains(task));
+  }
+
+  private void advanceWheel(long duration, TimeUnit unit) {
+    nanoTime.addAndGet(unit.toNanos(duration));
+    wheel.advance();
+  }
 }
@@ -0,0 +1,71 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.enums.RegistrationStatus;
+import com.sim_backend.websockets.messages.BootNotificationResponse;
+import com.sim_backend.websockets.messages.ChangeAvailability;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.time.ZonedDateTime;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+public class OCPPFrameDecoderTest {
+
+  private static final Function<String, Class<? extends OCPPMessage>> NO_RESPONSES = id -> null;
+
+  @Test
+  public void testDecodeRequest() {
+    OCPPFrameDecoder.DecodedFrame frame =
+        OCPPFrameDecoder.decode(
+            "[2, \"r1\", \"ChangeAvailability\", {\"connectorId\": 1, \"type\": \"Operative\"}]",
+            NO_RESPONSES);
+
+    assertNotNull(frame);
+    assertEquals(OCPPMessage.CALL_ID_REQUEST, frame.getCallId());
+    assertEquals("r1", frame.getMessageId());
+    assertEquals("ChangeAvailability", frame.getAction());
+    assertEquals(ChangeAvailability.class, frame.getMessageClass());
+    assertEquals(1, ((ChangeAvailability) frame.getMessage()).getConnectorID());
+  }
+
+  @Test
+  public void testDecodeResponse() {
+    OCPPFrameDecoder.DecodedFrame frame =
+        OCPPFrameDecoder.decode(
+            "[3,\"b1\",{\"status\":\"Accepted\",\"currentTime\":\"2025-01-02T03:04:05Z\","
+                + "\"interval\":30}]",
+            id -> id.equals("b1") ? BootNotificationResponse.class : null);
+
+    assertNotNull(frame);
+    assertEquals(OCPPMessage.CALL_ID_RESPONSE, frame.getCallId());
+    assertNull(frame.getAction());
+    BootNotificationResponse response = (BootNotificationResponse) frame.getMessage();
+    assertEquals(RegistrationStatus.ACCEPTED, response.getStatus());
+    assertEquals(ZonedDateTime.parse("2025-01-02T03:04:05Z"), response.getCurrentTime());
+    assertEquals(30, response.getInterval());
+  }
+
+  @Test
+  public void testLeavesOtherFramesToTheCaller() {
+    String[] frames = {
+      "",
+      "{}",
+      "[]",
+      "[2,\"r1\"",
+      "[2,\"r1\",\"ChangeAvailability\"]",
+      "[2,\"r1\",\"ChangeAvailability\",[]]",
+      "[2,\"r1\",\"ChangeAvailability\",{},{}]",
+      "[2,\"r1\",\"ChangeAvailability\",{}] []",
+      "[2,\"r1\",\"NotAnAction\",{}]",
+      "[2,\"r1\",\"ChangeAvailability\",{\"connectorId\":\"one\"}]",
+      "[3,\"unknown\",{}]",
+      "[4,\"e1\",\"NotImplemented\",\"\",{}]",
+      "[7,\"r1\",{}]",
+    };
+
+    for (String frame : frames) {
+      assertNull(OCPPFrameDecoder.decode(frame, NO_RESPONSES), frame);
+    }
+  }
+}
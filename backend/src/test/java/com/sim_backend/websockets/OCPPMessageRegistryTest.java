@@ -0,0 +1,85 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.BootNotificationResponse;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.HeartbeatResponse;
+import com.sim_backend.websockets.types.OCPPMessage;
+import com.sim_backend.websockets.types.OCPPMessageRequest;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class OCPPMessageRegistryTest {
+
+  @OCPPMessageInfo(messageCallID = OCPPMessage.CALL_ID_REQUEST, messageName = "Heartbeat")
+  static class DuplicateHeartbeat extends OCPPMessageRequest {}
+
+  @OCPPMessageInfo(messageCallID = OCPPMessage.CALL_ID_REQUEST, messageName = "Lonely")
+  static class Lonely extends OCPPMessageRequest {}
+
+  @Test
+  public void testSharedRegistry() {
+    assertSame(OCPPMessageRegistry.getShared(), OCPPMessageRegistry.getShared());
+  }
+
+  @Test
+  public void testLookupByName() {
+    OCPPMessageRegistry registry = OCPPMessageRegistry.getShared();
+
+    assertEquals(Heartbeat.class, registry.getMessageClass("Heartbeat"));
+    assertEquals(HeartbeatResponse.class, registry.getMessageClass("HeartbeatResponse"));
+    assertNull(registry.getMessageClass("NotAMessage"));
+    assertNull(registry.getMessageClass(null));
+    assertEquals(BootNotification.class, OCPPMessage.getMessageByName("BootNotification"));
+  }
+
+  @Test
+  public void testInfo() {
+    OCPPMessageRegistry registry = OCPPMessageRegistry.getShared();
+
+    OCPPMessageInfo info = registry.getInfo(BootNotificationResponse.class);
+    assertEquals("BootNotificationResponse", info.messageName());
+    assertEquals(OCPPMessage.CALL_ID_RESPONSE, info.messageCallID());
+    assertNull(registry.getInfo(String.class));
+  }
+
+  @Test
+  public void testComplementBothWays() {
+    OCPPMessageRegistry registry = OCPPMessageRegistry.getShared();
+
+    assertEquals(HeartbeatResponse.class, registry.getComplement(Heartbeat.class));
+    assertEquals(Heartbeat.class, registry.getComplement(HeartbeatResponse.class));
+    assertNull(registry.getComplement(String.class));
+  }
+
+  @Test
+  public void testEveryMessageIsPaired() {
+    OCPPMessageRegistry registry = OCPPMessageRegistry.getShared();
+
+    assertFalse(registry.getMessageClasses().isEmpty());
+    for (Class<?> messageClass : registry.getMessageClasses()) {
+      assertNotNull(registry.getComplement(messageClass), messageClass + " has no complement");
+    }
+    assertThrows(
+        UnsupportedOperationException.class, () -> registry.getMessageClasses().add(Object.class));
+  }
+
+  @Test
+  public void testUnpairedAndIgnoredClasses() {
+    OCPPMessageRegistry registry = new OCPPMessageRegistry(List.of(Lonely.class, String.class));
+
+    assertEquals(Lonely.class, registry.getMessageClass("Lonely"));
+    assertNull(registry.getComplement(Lonely.class));
+    assertEquals(1, registry.getMessageClasses().size());
+  }
+
+  @Test
+  public void testDuplicateNamesRejected() {
+    assertThrows(
+        IllegalStateException.class,
+        () -> new OCPPMessageRegistry(List.of(Heartbeat.class, DuplicateHeartbeat.class)));
+  }
+}
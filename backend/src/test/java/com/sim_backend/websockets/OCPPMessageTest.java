@@ -49,4 +49,32 @@ public class OCPPMessageTest {
     StopTransactionResponse stopTransRes2 = (StopTransactionResponse) stopTransRes1.cloneMessage();
     assertEquals(AuthorizationStatus.ACCEPTED, stopTransRes2.getIdTagInfo().getStatus());
   }
+
+  @Test
+  void testSentFrameIsReused() {
+    OCPPWebSocketClient client = mock(OCPPWebSocketClient.class);
+    Heartbeat heartbeat = new Heartbeat();
+
+    heartbeat.sendMessage(client);
+    String frame = heartbeat.toJsonString();
+    heartbeat.sendMessage(client);
+
+    verify(client, times(2)).send(same(frame));
+    assertSame(frame, heartbeat.toJsonString());
+  }
+
+  @Test
+  void testNewIdDropsSentFrame() {
+    OCPPWebSocketClient client = mock(OCPPWebSocketClient.class);
+    Heartbeat heartbeat = new Heartbeat();
+    heartbeat.sendMessage(client);
+    String frame = heartbeat.toJsonString();
+
+    OCPPMessage cloned = heartbeat.cloneMessage();
+    assertTrue(cloned.toJsonString().contains(cloned.getMessageID()));
+
+    heartbeat.setMessageID("new-id");
+    assertNotEquals(frame, heartbeat.toJsonString());
+    assertTrue(heartbeat.toJsonString().contains("new-id"));
+  }
 }
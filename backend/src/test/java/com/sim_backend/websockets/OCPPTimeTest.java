@@ -8,6 +8,7 @@ import com.sim_backend.websockets.OCPPWebSocketClientTest.TestOCPPWebSocketClien
 import com.sim_backend.websockets.enums.ErrorCode;
 import com.sim_backend.websockets.events.OnOCPPMessage;
 import com.sim_backend.websockets.events.OnOCPPMessageListener;
+import com.sim_backend.websockets.events.OnPushOCPPMessage;
 import com.sim_backend.websockets.exceptions.OCPPMessageFailure;
 import com.sim_backend.websockets.messages.Heartbeat;
 import com.sim_backend.websockets.messages.HeartbeatResponse;
@@ -91,7 +92,7 @@ public class OCPPTimeTest {
     ZonedDateTime currentTime = ZonedDateTime.now(ZoneId.of("UTC")); // Ensure UTC time
     when(heartbeatResponse.getCurrentTime()).thenReturn(currentTime);
 
-    this.ocppTime.heartbeats.add(heartbeatResponse.getMessageID());
+    this.ocppTime.heartbeats.put(heartbeatResponse.getMessageID(), Boolean.TRUE);
     // Simulate receiving a heartbeat response
     ocppTime.listener.onMessageReceived(new OnOCPPMessage(heartbeatResponse, client));
 
@@ -116,7 +117,11 @@ public class OCPPTimeTest {
     when(heartbeatResponse1.getCurrentTime()).thenReturn(currentTime1);
     when(heartbeatResponse1.getMessageID())
         .thenReturn(ocppTime.heartbeat.getMessage().getMessageID());
-    this.client.getScheduler().getTime().heartbeats.add(heartbeatResponse1.getMessageID());
+    this.client
+        .getScheduler()
+        .getTime()
+        .heartbeats
+        .put(heartbeatResponse1.getMessageID(), Boolean.TRUE);
     ocppTime.listener.onMessageReceived(new OnOCPPMessage(heartbeatResponse1, client));
 
     ZonedDateTime synchronizedTime1 = ocppTime.getSynchronizedTime();
@@ -129,7 +134,7 @@ public class OCPPTimeTest {
     when(heartbeatResponse2.getCurrentTime()).thenReturn(currentTime2);
     when(heartbeatResponse2.getMessageID())
         .thenReturn(ocppTime.heartbeat.getMessage().getMessageID());
-    ocppTime.heartbeats.add(heartbeatResponse2.getMessageID());
+    ocppTime.heartbeats.put(heartbeatResponse2.getMessageID(), Boolean.TRUE);
     ocppTime.lastHeartbeat = heartbeatResponse2.getMessageID();
 
     ocppTime.listener.onMessageReceived(new OnOCPPMessage(heartbeatResponse2, client));
@@ -153,7 +158,7 @@ public class OCPPTimeTest {
     when(heartbeatResponse.getMessageID())
         .thenReturn(ocppTime.heartbeat.getMessage().getMessageID());
 
-    this.ocppTime.heartbeats.add(heartbeatResponse.getMessageID());
+    this.ocppTime.heartbeats.put(heartbeatResponse.getMessageID(), Boolean.TRUE);
     this.ocppTime.lastHeartbeat = heartbeatResponse.getMessageID();
     ocppTime.listener.onMessageReceived(new OnOCPPMessage(heartbeatResponse, client));
 
@@ -164,6 +169,48 @@ public class OCPPTimeTest {
     assertTrue(diff < 100, "Synchronized time should be adjusted by approximately 30 seconds.");
   }
 
+  @Test
+  void testLateAnswerToSupersededHeartbeat() {
+    Heartbeat first = new Heartbeat();
+    Heartbeat second = new Heartbeat();
+    ocppTime.sendListener.onPush(new OnPushOCPPMessage(first, client));
+    ocppTime.sendListener.onPush(new OnPushOCPPMessage(second, client));
+    assertEquals(2, ocppTime.heartbeats.size());
+
+    HeartbeatResponse late = new HeartbeatResponse(first, ZonedDateTime.now(UTC));
+    ocppTime.listener.onMessageReceived(new OnOCPPMessage(late, client));
+
+    // Answered, so it is forgotten without a CALLERROR, and the offset is left alone
+    assertEquals(1, ocppTime.heartbeats.size());
+    assertFalse(ocppTime.heartbeats.containsKey(first.getMessageID()));
+    assertEquals(0, client.size());
+
+    HeartbeatResponse current = new HeartbeatResponse(second, ZonedDateTime.now(UTC));
+    ocppTime.listener.onMessageReceived(new OnOCPPMessage(current, client));
+    assertEquals(0, ocppTime.heartbeats.size());
+  }
+
+  @Test
+  void testHeartbeatIsAwaitedFromWhenItIsSent() throws Exception {
+    doNothing().when(client).send(anyString());
+    Heartbeat beat = new Heartbeat();
+    client.pushMessage(beat);
+
+    // Still queued, so its answer is not awaited yet
+    assertEquals(0, ocppTime.heartbeats.size());
+
+    client.popAllMessages();
+    assertTrue(ocppTime.heartbeats.containsKey(beat.getMessageID()));
+    assertEquals(beat.getMessageID(), ocppTime.lastHeartbeat);
+
+    ZonedDateTime serverTime = ZonedDateTime.now(UTC).minusSeconds(30);
+    client.onMessage(new HeartbeatResponse(beat, serverTime).toJsonString());
+    assertEquals(0, ocppTime.heartbeats.size());
+    assertEquals(0, client.size());
+    Duration difference = Duration.between(serverTime, ocppTime.getSynchronizedTime());
+    assertTrue(difference.abs().toSeconds() < 5);
+  }
+
   @Test
   void testInvalidClientThrowsException() {
     // Assert
@@ -204,7 +251,7 @@ public class OCPPTimeTest {
     ocppTime.setOffset(ZonedDateTime.now().minusSeconds(20));
 
     ocppTime.lastHeartbeat = "abc";
-    ocppTime.heartbeats.add(response.getMessageID());
+    ocppTime.heartbeats.put(response.getMessageID(), Boolean.TRUE);
 
     client.onMessage(response.toJsonString());
 
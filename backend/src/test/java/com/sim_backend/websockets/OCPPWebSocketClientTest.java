@@ -1,28 +1,44 @@
 package com.sim_backend.websockets;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.sim_backend.websockets.enums.ErrorCode;
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
 import com.sim_backend.websockets.events.OnOCPPMessage;
 import com.sim_backend.websockets.events.OnOCPPMessageListener;
 import com.sim_backend.websockets.exceptions.*;
 import com.sim_backend.websockets.messages.*;
 import com.sim_backend.websockets.observers.StatusNotificationObserver;
+import com.sim_backend.websockets.types.OCPPMessage;
 import com.sim_backend.websockets.types.OCPPMessageError;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 import javax.net.SocketFactory;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.handshake.ServerHandshake;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class OCPPWebSocketClientTest {
 
@@ -72,6 +88,127 @@ public class OCPPWebSocketClientTest {
     assert client.popMessage() == heartbeat;
   }
 
+  @Test
+  public void testPushValidatesUnlessTrusted() {
+    Authorize invalid = new Authorize("x".repeat(21));
+
+    assertThrows(IllegalArgumentException.class, () -> client.pushMessage(invalid));
+    assertEquals(0, client.size());
+
+    client.setTrustOutbound(true);
+    assertTrue(client.pushMessage(invalid));
+    assertEquals(1, client.size());
+  }
+
+  @Test
+  public void testPushSignalsWakeup() {
+    client.getWakeup().await(0);
+    client.pushMessage(new Heartbeat());
+
+    assertTrue(client.getWakeup().await(0));
+  }
+
+  @Test
+  public void testGoOnlineSignalsWakeup() {
+    client =
+        spy(new TestOCPPWebSocketClient(URI.create(""), mock(StatusNotificationObserver.class)));
+    client.goOffline();
+    client.getWakeup().await(0);
+    client.goOnline();
+
+    assertTrue(client.getWakeup().await(0));
+  }
+
+  @Test
+  public void testConnectAsync() throws Exception {
+    CompletableFuture<Boolean> connect = client.connectAsync();
+
+    assertTrue(connect.get(5, TimeUnit.SECONDS));
+    assertSame(connect, client.getConnectFuture());
+    assertFalse(client.isConnecting());
+    // The loop is woken right after the connect completes
+    assertTrue(client.getWakeup().await(TimeUnit.SECONDS.toNanos(5)));
+  }
+
+  @Test
+  public void testMessagesHeldWhileConnecting() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    TestOCPPWebSocketClient slowClient =
+        spy(
+            new TestOCPPWebSocketClient(URI.create(""), mock(StatusNotificationObserver.class)) {
+              @Override
+              public boolean connectBlocking() throws InterruptedException {
+                return release.await(5, TimeUnit.SECONDS);
+              }
+            });
+    doNothing().when(slowClient).send(anyString());
+    slowClient.pushMessage(new Heartbeat());
+
+    CompletableFuture<Boolean> connect = slowClient.connectAsync();
+    assertTrue(slowClient.isConnecting());
+    assertNull(slowClient.popMessage());
+    verify(slowClient, never()).send(anyString());
+
+    release.countDown();
+    assertTrue(connect.get(5, TimeUnit.SECONDS));
+    assertNotNull(slowClient.popMessage());
+    verify(slowClient).send(anyString());
+  }
+
+  @Test
+  public void testLivenessUsesSharedMonitor() {
+    OCPPWebSocketClient watched =
+        new OCPPWebSocketClient(URI.create(""), mock(StatusNotificationObserver.class)) {
+          @Override
+          public boolean connectBlocking() {
+            return true;
+          }
+        };
+    assertNotNull(watched.liveness);
+
+    watched.goOffline();
+    assertNull(watched.liveness);
+
+    watched.goOnline();
+    assertNotNull(watched.liveness);
+    watched.goOffline();
+  }
+
+  @Test
+  public void testClosedConnectionIsNoLongerWatched() {
+    OCPPWebSocketClient watched =
+        new OCPPWebSocketClient(URI.create(""), mock(StatusNotificationObserver.class)) {
+          @Override
+          public void scheduleReconnect() {}
+        };
+    int count = LivenessMonitor.getShared().getRegisteredCount();
+    assertNotNull(watched.liveness);
+
+    // As a closed NIO connection reports it
+    watched.onClose(CloseFrame.ABNORMAL_CLOSE, "gone", true);
+    assertNull(watched.liveness);
+    assertEquals(count - 1, LivenessMonitor.getShared().getRegisteredCount());
+  }
+
+  @Test
+  public void testLivenessActionsRunOnTheChargerLoop() {
+    AtomicBoolean ran = new AtomicBoolean();
+    client.execute(() -> ran.set(true));
+    assertFalse(ran.get());
+
+    client.getScheduler().tick();
+    assertTrue(ran.get());
+  }
+
+  @Test
+  public void testLivenessLostClosesConnection() {
+    doNothing().when(client).closeConnection(anyInt(), anyString());
+
+    client.onLivenessLost();
+
+    verify(client).closeConnection(eq(CloseFrame.ABNORMAL_CLOSE), anyString());
+  }
+
   @Test
   public void testPopMessage() throws OCPPMessageFailure, InterruptedException {
     Pattern pattern = Pattern.compile("^\\[2,\\s*\".*?\",\\s*\"Heartbeat\",\\s*\\{}]$");
@@ -358,14 +495,28 @@ public class OCPPWebSocketClientTest {
     assert err.getFullMessage().equals(msgToSend);
   }
 
+  /**
+   * Run the client's scheduled reconnect attempt and wait for it.
+   *
+   * @return If it connected.
+   */
+  private boolean reconnect() throws Exception {
+    assertTrue(client.isReconnecting());
+    client.attemptReconnect();
+    return client.getConnectFuture().get(5, TimeUnit.SECONDS);
+  }
+
   @Test
-  public void testAllThrowsException() throws OCPPMessageFailure, InterruptedException {
-    doAnswer(invocation -> false).when(client).reconnectBlocking();
+  public void testAllThrowsException() throws Exception {
     Heartbeat beat = new Heartbeat();
 
     client.pushMessage(beat);
     assert client.size() == 1;
 
+    for (int i = 1; i < MessageQueue.MAX_REATTEMPTS; i++) {
+      client.popAllMessages();
+      assertTrue(reconnect());
+    }
     OCPPMessageFailure exception =
         assertThrows(
             OCPPMessageFailure.class,
@@ -380,28 +531,26 @@ public class OCPPWebSocketClientTest {
   }
 
   @Test
-  public void testThrowsException() throws OCPPMessageFailure, InterruptedException {
+  public void testSendFailureSchedulesReconnect() throws Exception {
     doAnswer(invocation -> false).when(client).reconnectBlocking();
     Heartbeat beat = new Heartbeat();
 
     client.pushMessage(beat);
-    assert client.size() == 1;
-
-    OCPPMessageFailure exception =
-        assertThrows(
-            OCPPMessageFailure.class,
-            () -> {
-              client.popMessage();
-            });
-    assert exception != null;
-    assert exception.getFailedMessage() == beat;
-    assert exception.getFailedMessage().incrementTries() == MessageQueue.MAX_REATTEMPTS + 1;
-    assert exception.getInnerException() != null;
+    assertNull(client.popMessage());
+    verify(client, never()).reconnectBlocking();
+
+    // The message waits, and nothing is sent, until a reconnect connected
+    assertEquals(1, client.size());
+    assertEquals(1, client.getBackoff().getAttempts());
+    assertFalse(reconnect());
+    assertEquals(2, client.getBackoff().getAttempts());
+    assertTrue(client.isReconnecting());
+    assertNull(client.popMessage());
+    verify(client, times(1)).send(anyString());
   }
 
   @Test
   public void testRetryAfterFirstAttempt() throws Exception {
-    doAnswer(invocation -> false).when(client).reconnectBlocking();
     Heartbeat beat = new Heartbeat();
 
     client.pushMessage(beat);
@@ -413,26 +562,80 @@ public class OCPPWebSocketClientTest {
           assert message.getMessage() instanceof HeartbeatResponse;
         });
 
+    assertNull(client.popMessage());
+    doAnswer(
+            invocation2 -> {
+              this.client.addPreviousMessage(beat);
+              HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
+              response.setMessageID(beat.getMessageID());
+              client.handleMessage(response.toJsonString());
+              return null;
+            })
+        .when(client)
+        .send(anyString());
+    assertTrue(reconnect());
+    assertFalse(client.isReconnecting());
+    assertEquals(0, client.getBackoff().getAttempts());
+
+    assertSame(beat, client.popMessage());
+    verify(client, times(2)).send(anyString());
+    verify(client, times(1)).handleMessage(anyString());
+  }
+
+  @Test
+  public void testUnexpectedCloseSchedulesReconnect() {
+    client.onClose(CloseFrame.GOING_AWAY, "Charger rebooting", false);
+    assertFalse(client.isReconnecting());
+
+    client.onClose(CloseFrame.GOING_AWAY, "Server restarting", true);
+    assertTrue(client.isReconnecting());
+  }
+
+  @Test
+  public void testShutdownStopsReconnecting() throws Exception {
+    doNothing().when(client).close(anyInt(), anyString());
+    int disconnected = ReconnectMetrics.getShared().snapshot().getDisconnected();
+    client.onClose(CloseFrame.ABNORMAL_CLOSE, "Server gone", true);
+    assertTrue(client.isReconnecting());
+    assertEquals(disconnected + 1, ReconnectMetrics.getShared().snapshot().getDisconnected());
+
+    client.shutdown(CloseFrame.GOING_AWAY, "Charger rebooting");
+    assertTrue(client.isShutDown());
+    assertFalse(client.isReconnecting());
+    assertEquals(disconnected, ReconnectMetrics.getShared().snapshot().getDisconnected());
+    assertNull(client.liveness);
+    verify(client).close(CloseFrame.GOING_AWAY, "Charger rebooting");
+
+    // Neither a late close nor a stale attempt brings it back
+    client.onClose(CloseFrame.ABNORMAL_CLOSE, "Server gone", true);
+    assertFalse(client.isReconnecting());
+    client.attemptReconnect();
+    verify(client, never()).reconnectBlocking();
+  }
+
+  @Test
+  public void testConnectFinishingAfterShutdownIsClosed() throws Exception {
+    CountDownLatch connecting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
     doAnswer(
             invocation -> {
-              doAnswer(
-                      invocation2 -> {
-                        this.client.addPreviousMessage(beat);
-                        HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
-                        response.setMessageID(beat.getMessageID());
-                        client.handleMessage(response.toJsonString());
-                        return null;
-                      })
-                  .when(client)
-                  .send(anyString());
+              connecting.countDown();
+              release.await();
               return true;
             })
         .when(client)
         .reconnectBlocking();
+    doNothing().when(client).close(anyInt(), anyString());
+    client.onClose(CloseFrame.ABNORMAL_CLOSE, "Server gone", true);
+    client.attemptReconnect();
+    assertTrue(connecting.await(5, TimeUnit.SECONDS));
 
-    client.popMessage();
-    verify(client, times(2)).send(anyString());
-    verify(client, times(1)).handleMessage(anyString());
+    client.shutdown(CloseFrame.GOING_AWAY, "Charger rebooting");
+    release.countDown();
+
+    assertTrue(client.getConnectFuture().get(5, TimeUnit.SECONDS));
+    verify(client).close(CloseFrame.GOING_AWAY, "Client shut down");
+    assertFalse(client.isReconnecting());
   }
 
   @Test
@@ -500,6 +703,18 @@ public class OCPPWebSocketClientTest {
     assertEquals(-1, client.onReceiveMessage.get(Heartbeat.class).indexOf(listener));
   }
 
+  private static MeterValues meterValues(Integer transactionId) {
+    MeterValues.SampledValue sampledValue =
+        new MeterValues.SampledValue(
+            "12.34",
+            ReadingContext.SAMPLE_PERIODIC,
+            MeterValuesSampledData.CURRENT_OFFERED,
+            UnitOfMeasure.A);
+    MeterValues.MeterValue meterValue =
+        new MeterValues.MeterValue(ZonedDateTime.now(), List.of(sampledValue));
+    return new MeterValues(1, transactionId, List.of(meterValue));
+  }
+
   @Test
   void testRequestSynchronicity() throws Exception {
     doAnswer(invocation -> null).when(client).send(anyString());
@@ -508,14 +723,15 @@ public class OCPPWebSocketClientTest {
     HeartbeatResponse beatResponse = new HeartbeatResponse(new Heartbeat());
     beatResponse.setMessageID(beat.getMessageID());
 
-    StartTransaction beat2 = new StartTransaction(2, "abc", 1, "123");
+    // Queued behind the heartbeat, both are telemetry
+    MeterValues beat2 = meterValues(null);
 
     client.pushMessage(beat);
     assert client.size() == 1;
     client.pushMessage(beat2);
     assert client.size() == 2;
 
-    this.client.getScheduler().getTime().heartbeats.add(beat.getMessageID());
+    this.client.getScheduler().getTime().heartbeats.put(beat.getMessageID(), Boolean.TRUE);
 
     client.popAllMessages();
     assertFalse(client.isEmpty());
@@ -537,7 +753,8 @@ public class OCPPWebSocketClientTest {
     HeartbeatResponse beatResponse = new HeartbeatResponse(new Heartbeat());
     beatResponse.setMessageID(beat.getMessageID());
 
-    StartTransaction beat2 = new StartTransaction(2, "abc", 1, "123");
+    // Queued behind the heartbeat, both are telemetry
+    MeterValues beat2 = meterValues(null);
 
     client.pushMessage(beat);
     assert client.size() == 1;
@@ -558,6 +775,66 @@ public class OCPPWebSocketClientTest {
     assertTrue(client.isEmpty());
   }
 
+  @Test
+  void testBatchedFlushWritesPassTogether() throws Exception {
+    client.setBatchedFlush(true);
+    doReturn(true).when(client).isOpen();
+    doNothing().when(client).sendBatch(anyList());
+
+    Heartbeat beat = new Heartbeat();
+    HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
+    client.rxRequestNames.put(response.getMessageID(), "Heartbeat");
+    // Held back, the heartbeat is the one outstanding call
+    MeterValues meter = meterValues(null);
+    client.pushMessage(beat);
+    client.pushMessage(response);
+    client.pushMessage(meter);
+
+    client.popAllMessages();
+
+    verify(client, times(1)).sendBatch(List.of(response.toJsonString(), beat.toJsonString()));
+    assertEquals(1, client.size());
+    assertTrue(client.isBusy());
+    assertEquals(2, client.getMessageLog().getSentMessages().size());
+
+    client.clearPreviousMessage(beat);
+    client.popAllMessages();
+    verify(client, times(1)).sendBatch(List.of(meter.toJsonString()));
+
+    FlushStatistics.Snapshot flush = client.getFlushStatistics().snapshot();
+    assertEquals(2, flush.getFlushes());
+    assertEquals(3, flush.getFrames());
+    assertEquals(2, flush.getMaxFramesPerFlush());
+  }
+
+  @Test
+  void testBatchedFlushRequeuesWhenDisconnected() throws Exception {
+    client.setBatchedFlush(true);
+    doReturn(true).when(client).isOpen();
+    doThrow(new WebsocketNotConnectedException()).when(client).sendBatch(anyList());
+
+    Heartbeat beat = new Heartbeat();
+    HeartbeatResponse response = new HeartbeatResponse(new Heartbeat());
+    client.rxRequestNames.put(response.getMessageID(), "Heartbeat");
+    client.pushMessage(beat);
+    client.pushMessage(response);
+
+    client.popAllMessages();
+
+    // Both wait first in line for the reconnect, and the call is no longer in flight
+    assertEquals(2, client.size());
+    assertFalse(client.isBusy());
+    assertTrue(client.isReconnecting());
+    assertEquals(1, client.getFlushStatistics().snapshot().getFailures());
+    assertEquals(0, client.getFlushStatistics().snapshot().getFlushes());
+
+    // Nothing reached the wire, so nothing is recorded as sent
+    assertTrue(client.getMessageLog().getSentMessages().isEmpty());
+    assertEquals(0, client.getScheduler().getTime().getPendingHeartbeatCount());
+    assertEquals("Heartbeat", client.rxRequestNames.get(response.getMessageID()));
+    assertEquals(2, beat.incrementTries());
+  }
+
   @Test
   void testDuplicateAdd() {
     doAnswer(invocation -> null).when(client).send(anyString());
@@ -587,37 +864,52 @@ public class OCPPWebSocketClientTest {
   }
 
   @Test
-  public void testPushPriorityMessageSuccess() {
-    // Clear the internal queue for a clean start
-    client.queue.getQueue().clear();
-    client.queue.getQueueSet().clear();
+  void testOfflineMessagesFlushedOnGoOnline() throws Exception {
+    doAnswer(invocation -> null).when(client).send(anyString());
+    client.goOffline();
+    Authorize authorize = new Authorize("tag");
+    MeterValues first = meterValues(7);
+    assertTrue(client.pushMessage(authorize));
+    assertTrue(client.pushMessage(first));
+    assertTrue(client.pushMessage(meterValues(7)));
+    assertFalse(client.pushMessage(authorize));
 
+    assertTrue(client.isEmpty());
+    assertEquals(2, client.getOfflineBuffer().size());
+
+    client.goOnline();
+    assertEquals(0, client.getOfflineBuffer().size());
+    assertSame(authorize, client.popMessage());
+    client.clearPreviousMessage(authorize);
+    MeterValues coalesced = (MeterValues) client.popMessage();
+    assertEquals(first.getMessageID(), coalesced.getMessageID());
+    assertEquals(2, coalesced.getMeterValue().size());
+  }
+
+  @Test
+  public void testPushPriorityMessageSuccess() {
     // Start the queue with a single message
-    client.pushMessage(new BootNotification());
+    client.pushMessage(new Authorize("first"));
 
-    Heartbeat heartbeat = new Heartbeat();
+    Authorize priority = new Authorize("priority");
 
     // Push a priority message; should return true
-    boolean result = client.pushPriorityMessage(heartbeat);
+    boolean result = client.pushPriorityMessage(priority);
     assertTrue(result, "Push priority message should return true when message is not in the queue");
 
     // Verify the message is now at the front of the queue
     assertFalse(client.isEmpty(), "Queue should not be empty after push");
     assertEquals(
-        heartbeat,
-        client.queue.getQueue().peekFirst(),
+        priority,
+        client.queue.peekMessage(),
         "Priority message should be at the front of the queue");
     assertTrue(
-        client.queue.getQueueSet().contains(heartbeat),
-        "Queue set should contain the pushed message");
+        client.queue.getQueuedKeys().contains(priority.getDedupKey()),
+        "Queue should hold the key of the pushed message");
   }
 
   @Test
   public void testPushPriorityMessageDuplicate() {
-    // Clear the internal queue for a clean start
-    client.queue.getQueue().clear();
-    client.queue.getQueueSet().clear();
-
     Heartbeat heartbeat = new Heartbeat();
 
     // First push should succeed
@@ -631,7 +923,7 @@ public class OCPPWebSocketClientTest {
     // The queue should only contain one instance of the message
     assertEquals(
         1,
-        client.queue.getQueue().size(),
+        client.queue.size(),
         "Queue should contain only one message after duplicate push attempt");
   }
 
@@ -646,18 +938,15 @@ public class OCPPWebSocketClientTest {
     TestOCPPWebSocketClient client =
         new TestOCPPWebSocketClient(new java.net.URI("ws://dummy"), statusNotificationObserver);
 
-    // Access previousMessages
-    Field previousMessagesField = MessageQueue.class.getDeclaredField("previousMessages");
-    previousMessagesField.setAccessible(true);
-    @SuppressWarnings("unchecked")
-    Map<String, MessageQueue.TimedMessage> previousMessages =
-        (Map<String, MessageQueue.TimedMessage>) previousMessagesField.get(client.getQueue());
-
-    // Insert the message with a timestamp older than RESPONSE_TIME_OUT seconds
-    MessageQueue.TimedMessage timedMessage =
-        new MessageQueue.TimedMessage(
-            heartbeat, Instant.now().minus(Duration.ofSeconds(MessageQueue.RESPONSE_TIME_OUT + 5)));
-    previousMessages.put(heartbeat.getMessageID(), timedMessage);
+    // Track the message as sent longer than RESPONSE_TIME_OUT seconds ago
+    InFlightTracker inFlight = client.getQueue().getInFlight();
+    inFlight.add(
+        heartbeat,
+        1,
+        System.nanoTime() - TimeUnit.SECONDS.toNanos(MessageQueue.RESPONSE_TIME_OUT + 5));
+    assertEquals(1, client.getInFlightCount());
+    assertTrue(client.getOldestInFlightAge().getSeconds() >= MessageQueue.RESPONSE_TIME_OUT + 5);
+    assertFalse(client.isBusy());
 
     // Register a listener for the complementary message type
     OnOCPPMessageListener listener = mock(OnOCPPMessageListener.class);
@@ -669,10 +958,120 @@ public class OCPPWebSocketClientTest {
     // Verify that the onTimeout method was called once.
     verify(listener, times(1)).onTimeout();
 
-    // Verify that the timed-out message was removed from previousMessages
-    assertFalse(
-        previousMessages.containsKey(testMsgId),
-        "Timed-out message should be removed from previousMessages");
+    // Verify that the timed-out message is no longer in flight
+    assertNull(inFlight.get(testMsgId), "Timed-out message should no longer be in flight");
+    assertEquals(0, client.getInFlightCount());
+  }
+
+  @Test
+  void testJournalReplaysUnansweredMessages(@TempDir Path directory) throws Exception {
+    doAnswer(invocation -> null).when(client).send(anyString());
+    OutboundJournal journal = OutboundJournal.open(directory.resolve("journal"));
+    client.setJournal(journal);
+
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    MeterValues meter = meterValues(7);
+    client.pushMessage(start);
+    client.pushMessage(new Heartbeat());
+    assertEquals(1, journal.size());
+
+    // The start is sent and times out, the meter values queue behind it
+    assertSame(start, client.popMessage());
+    client.pushMessage(meter);
+    assertNotNull(client.getQueue().getInFlight().remove(start.getMessageID()));
+    assertEquals(2, journal.size());
+
+    client.replayJournal();
+    OCPPMessage replayed = client.popMessage();
+    assertEquals(start.getMessageID(), replayed.getMessageID());
+    assertEquals(start, replayed);
+
+    // Once answered it is not replayed again
+    client.clearPreviousMessage(replayed);
+    assertEquals(List.of(meter.getMessageID()), journalIds(journal));
+    client.replayJournal();
+    assertEquals(2, client.size());
+  }
+
+  @Test
+  void testReplayedMessageAcceptsItsAnswer(@TempDir Path directory) throws Exception {
+    doAnswer(invocation -> null).when(client).send(anyString());
+    OutboundJournal journal = OutboundJournal.open(directory.resolve("journal"));
+    client.setJournal(journal);
+
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    client.pushMessage(start);
+    assertSame(start, client.popMessage());
+    // It timed out, and its ID was received since as a late answer would be
+    assertNotNull(client.getQueue().getInFlight().remove(start.getMessageID()));
+    client.getReceivedIds().add(start.getMessageID());
+
+    client.replayJournal();
+    assertFalse(client.getReceivedIds().contains(start.getMessageID()));
+    assertEquals(start.getMessageID(), client.popMessage().getMessageID());
+
+    client.onMessage(new StartTransactionResponse(start, 1, "Accepted").toJsonString());
+    assertEquals(0, journal.size());
+    assertEquals(0, client.getInFlightCount());
+  }
+
+  @Test
+  void testDroppedConnectionResendsJournalInOrder(@TempDir Path directory) throws Exception {
+    doAnswer(invocation -> null).when(client).send(anyString());
+    OutboundJournal journal = OutboundJournal.open(directory.resolve("journal"));
+    client.setJournal(journal);
+
+    // The start is in flight when the connection drops, the rest queue behind it
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    client.pushMessage(start);
+    assertSame(start, client.popMessage());
+    MeterValues meter = meterValues(7);
+    StopTransaction stop = new StopTransaction("tag", 7, 10, "2025-01-01T01:00:00Z");
+    client.pushMessage(meter);
+    client.pushMessage(stop);
+
+    client.onClose(CloseFrame.ABNORMAL_CLOSE, "dropped", true);
+    assertEquals(0, client.getInFlightCount());
+    assertTrue(reconnect());
+    ServerHandshake handshake = mock(ServerHandshake.class);
+    when(handshake.getFieldValue("Sec-WebSocket-Protocol")).thenReturn("ocpp1.6");
+    client.onOpen(handshake);
+
+    List<String> sent = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      OCPPMessage message = client.popMessage();
+      sent.add(message.getMessageID());
+      client.clearPreviousMessage(message);
+    }
+    assertEquals(List.of(start.getMessageID(), meter.getMessageID(), stop.getMessageID()), sent);
+    assertEquals(0, client.size());
+  }
+
+  @Test
+  void testTrafficJournalRecordsExchange(@TempDir Path directory) throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory)) {
+      client.setTrafficJournal(journal);
+
+      GetConfiguration request = new GetConfiguration(List.of());
+      GetConfigurationResponse response =
+          new GetConfigurationResponse(request, List.of(), List.of());
+      client.recordRxMessage(request.toJsonString(), "GetConfiguration");
+      client.rxRequestNames.put(request.getMessageID(), "GetConfiguration");
+      client.recordTxMessage(response);
+
+      List<TrafficJournal.Entry> entries =
+          journal
+              .query(null, null, "GetConfiguration", request.getMessageID(), null, 10)
+              .getEntries();
+      assertEquals(2, entries.size());
+      assertEquals(TrafficJournal.Direction.RECEIVED, entries.get(0).getDirection());
+      assertEquals(TrafficJournal.Direction.SENT, entries.get(1).getDirection());
+      assertEquals(response.toJsonString(), entries.get(1).getFrame());
+    }
+  }
+
+  private static List<String> journalIds(OutboundJournal journal) {
+    return journal.getPending().stream().map(OCPPMessage::getMessageID).toList();
   }
 
   @Test
@@ -781,28 +1180,83 @@ public class OCPPWebSocketClientTest {
 
   @Test
   public void testRecordTxMessageWithStoredRequestName() throws Exception {
-    String message = "[3,\"63301\",{\"status\":\"Accepted\"}]";
+    ChangeConfiguration request = new ChangeConfiguration("HeartbeatInterval", "60");
 
     // Simulate previously storing a request name for this message ID
-    client.rxRequestNames.put("63301", "GetConfiguration");
+    client.rxRequestNames.put(request.getMessageID(), "ChangeConfiguration");
 
-    client.recordTxMessage(message);
+    client.recordTxMessage(new ChangeConfigurationResponse(request, "Accepted"));
 
     assertEquals(1, client.getSentMessages().size());
     String recordedMessage = client.getSentMessages().get(0);
-    assertTrue(recordedMessage.contains("GetConfiguration"));
+    assertTrue(recordedMessage.contains("ChangeConfiguration"));
     assertTrue(recordedMessage.contains("status"));
   }
 
   @Test
   public void testRecordTxMessageWithoutStoredRequestName() {
-    String message = "[3,\"unknown_id\",{\"status\":\"Accepted\"}]";
+    ChangeConfiguration request = new ChangeConfiguration("HeartbeatInterval", "60");
 
-    client.recordTxMessage(message);
+    client.recordTxMessage(new ChangeConfigurationResponse(request, "Accepted"));
 
     assertEquals(0, client.getSentMessages().size());
   }
 
+  @Test
+  public void testRecordTxMessageFromSentResponse() {
+    GetConfiguration request = new GetConfiguration(List.of());
+    GetConfigurationResponse response = new GetConfigurationResponse(request, List.of(), List.of());
+    client.rxRequestNames.put(request.getMessageID(), "GetConfiguration");
+
+    client.recordTxMessage(response);
+
+    String recordedMessage = client.getSentMessages().get(0);
+    assertTrue(
+        recordedMessage.endsWith(
+            ", 3,\""
+                + request.getMessageID()
+                + "\",\"GetConfiguration\",{"
+                + "\"configurationKey\":[],\"unknownKey\":[]}]"),
+        recordedMessage);
+  }
+
+  @Test
+  public void testRequestNameDroppedOnceAnswered() {
+    GetConfiguration request = new GetConfiguration(List.of());
+    GetConfiguration failed = new GetConfiguration(List.of());
+    client.rxRequestNames.put(request.getMessageID(), "GetConfiguration");
+    client.rxRequestNames.put(failed.getMessageID(), "GetConfiguration");
+
+    client.recordTxMessage(new GetConfigurationResponse(request, List.of(), List.of()));
+    OCPPMessageError error = new OCPPMessageError(ErrorCode.InternalError, "", new JsonObject());
+    error.setMessageID(failed.getMessageID());
+    client.recordTxMessage(error);
+
+    assertEquals(0, client.rxRequestNames.size());
+    assertEquals(2, client.getSentMessages().size());
+  }
+
+  @Test
+  public void testSetDuplicateIdLimits() {
+    client.getReceivedIds().add("1");
+    client.setDuplicateIdLimits(Duration.ofMinutes(5), 50);
+
+    assertEquals(Duration.ofMinutes(5), client.getReceivedIds().getWindow());
+    assertEquals(50, client.getReceivedIds().getCapacity());
+    assertFalse(client.getReceivedIds().contains("1"));
+  }
+
+  @Test
+  public void testCorrelationSizes() {
+    client.rxRequestNames.put("1", "Reset");
+    client.getScheduler().getTime().heartbeats.put("2", Boolean.TRUE);
+    client.getReceivedIds().add("3");
+
+    assertEquals(
+        Map.of("requestNames", 1, "heartbeats", 1, "inFlight", 0, "receivedIds", 1),
+        client.getCorrelationSizes());
+  }
+
   @Test
   public void testrecordRxMessage() throws Exception {
     String message = "[2,\"12345\",\"GetConfiguration\",{\"key\":[\"MeterValueSampleInterval\"]}]";
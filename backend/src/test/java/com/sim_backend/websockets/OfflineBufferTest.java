@@ -0,0 +1,106 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.messages.StartTransaction;
+import com.sim_backend.websockets.messages.StatusNotification;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class OfflineBufferTest {
+
+  private static MeterValues meterValues(int connectorId, Integer transactionId) {
+    MeterValues.SampledValue sampledValue =
+        new MeterValues.SampledValue(
+            "12.34",
+            ReadingContext.SAMPLE_PERIODIC,
+            MeterValuesSampledData.CURRENT_OFFERED,
+            UnitOfMeasure.A);
+    MeterValues.MeterValue meterValue =
+        new MeterValues.MeterValue(ZonedDateTime.now(), List.of(sampledValue));
+    return new MeterValues(connectorId, transactionId, List.of(meterValue));
+  }
+
+  private static StatusNotification status(int connectorId, ChargePointStatus status) {
+    return new StatusNotification(
+        connectorId, ChargePointErrorCode.NoError, "", status, ZonedDateTime.now(), "", "");
+  }
+
+  @Test
+  public void testMeterValuesCoalesceUpToTheCap() {
+    OfflineBuffer buffer = new OfflineBuffer(10, 3);
+    MeterValues first = meterValues(1, 7);
+    assertSame(first, buffer.offer(first));
+    for (int i = 0; i < 2; i++) {
+      OCPPMessage merged = buffer.offer(meterValues(1, 7));
+      assertEquals(first.getMessageID(), merged.getMessageID());
+    }
+    // Another transaction, then a full frame starts a new one
+    buffer.offer(meterValues(1, 8));
+    MeterValues fourth = meterValues(1, 7);
+    assertSame(fourth, buffer.offer(fourth));
+
+    List<OCPPMessage> drained = buffer.drain();
+    assertEquals(3, drained.size());
+    assertEquals(3, ((MeterValues) drained.get(0)).getMeterValue().size());
+    assertEquals(2, buffer.getCoalesced());
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  public void testStatusNotificationsCollapsePerConnector() {
+    OfflineBuffer buffer = new OfflineBuffer();
+    buffer.offer(status(1, ChargePointStatus.Preparing));
+    buffer.offer(status(2, ChargePointStatus.Available));
+    StatusNotification latest = status(1, ChargePointStatus.Charging);
+    buffer.offer(latest);
+
+    List<OCPPMessage> drained = buffer.drain();
+    assertEquals(2, drained.size());
+    assertSame(latest, drained.get(1));
+    assertEquals(Map.of("StatusNotification", 1L), buffer.getDropped());
+  }
+
+  @Test
+  public void testEvictionKeepsTransactionMessages() {
+    OfflineBuffer buffer = new OfflineBuffer(2, 1);
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    MeterValues meter = meterValues(1, 7);
+    buffer.offer(start);
+    buffer.offer(new Heartbeat());
+    buffer.offer(meter);
+    assertEquals(List.of(start, meter), buffer.drain());
+
+    // When all are transaction messages the oldest goes
+    buffer.offer(start);
+    buffer.offer(meter);
+    MeterValues next = meterValues(1, 7);
+    buffer.offer(next);
+    assertEquals(List.of(meter, next), buffer.drain());
+    assertEquals(Map.of("Heartbeat", 1L, "StartTransaction", 1L), buffer.getDropped());
+  }
+
+  @Test
+  public void testEqualMessagesAreNotBufferedTwice() {
+    OfflineBuffer buffer = new OfflineBuffer();
+    assertNotNull(buffer.offer(new Heartbeat()));
+    assertNull(buffer.offer(new Heartbeat()));
+    assertEquals(1, buffer.size());
+  }
+
+  @Test
+  public void testLimitsMustBePositive() {
+    assertThrows(IllegalArgumentException.class, () -> new OfflineBuffer(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new OfflineBuffer(1, 0));
+  }
+}
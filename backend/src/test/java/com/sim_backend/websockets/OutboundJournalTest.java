@@ -0,0 +1,211 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.messages.StartTransaction;
+import com.sim_backend.websockets.messages.StopTransaction;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OutboundJournalTest {
+
+  @TempDir Path directory;
+
+  private static MeterValues meterValues(Integer transactionId) {
+    MeterValues.SampledValue sampledValue =
+        new MeterValues.SampledValue(
+            "12.34",
+            ReadingContext.SAMPLE_PERIODIC,
+            MeterValuesSampledData.CURRENT_OFFERED,
+            UnitOfMeasure.A);
+    MeterValues.MeterValue meterValue =
+        new MeterValues.MeterValue(ZonedDateTime.now(), List.of(sampledValue));
+    return new MeterValues(1, transactionId, List.of(meterValue));
+  }
+
+  private static List<String> messageIds(List<OCPPMessage> messages) {
+    return messages.stream().map(OCPPMessage::getMessageID).toList();
+  }
+
+  @Test
+  public void testPendingMessagesSurviveReopening() throws Exception {
+    Path path = directory.resolve("charger-1.journal");
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    MeterValues meter = meterValues(7);
+    StopTransaction stop = new StopTransaction("tag", 7, 10, "2025-01-01T01:00:00Z");
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      assertTrue(journal.append(start));
+      assertTrue(journal.append(meter));
+      assertTrue(journal.append(stop));
+      assertFalse(journal.append(stop));
+      assertTrue(journal.acknowledge(start.getMessageID()));
+      assertFalse(journal.acknowledge(start.getMessageID()));
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      List<OCPPMessage> pending = journal.getPending();
+      assertEquals(List.of(meter.getMessageID(), stop.getMessageID()), messageIds(pending));
+      assertEquals(meter.toJsonString(), pending.get(0).toJsonString());
+      assertEquals(stop, pending.get(1));
+    }
+  }
+
+  @Test
+  public void testAppendUpdatesPendingMessageInPlace() throws Exception {
+    Path path = directory.resolve("journal");
+    MeterValues meter = meterValues(7);
+    StopTransaction stop = new StopTransaction("tag", 7, 10, "2025-01-01T01:00:00Z");
+    MeterValues coalesced =
+        new MeterValues(
+            1, 7, List.of(meter.getMeterValue().get(0), meterValues(7).getMeterValue().get(0)));
+    coalesced.setMessageID(meter.getMessageID());
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      journal.append(meter);
+      journal.append(stop);
+      assertTrue(journal.append(coalesced));
+      assertFalse(journal.append(coalesced));
+      assertEquals(2, journal.size());
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      List<OCPPMessage> pending = journal.getPending();
+      assertEquals(List.of(meter.getMessageID(), stop.getMessageID()), messageIds(pending));
+      assertEquals(coalesced.toJsonString(), pending.get(0).toJsonString());
+    }
+  }
+
+  @Test
+  public void testStartAndStopForceTheRecordsBeforeThem() throws Exception {
+    try (OutboundJournal journal = OutboundJournal.open(directory.resolve("journal"))) {
+      journal.append(new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z"));
+      assertEquals(journal.getUsedBytes(), journal.getForcedBytes());
+
+      // MeterValues and acknowledgements wait for the next StartTransaction or StopTransaction
+      MeterValues meter = meterValues(7);
+      journal.append(meter);
+      journal.acknowledge(meter.getMessageID());
+      int forced = journal.getForcedBytes();
+      assertTrue(forced < journal.getUsedBytes());
+
+      journal.append(new StopTransaction("tag", 7, 10, "2025-01-01T01:00:00Z"));
+      assertEquals(journal.getUsedBytes(), journal.getForcedBytes());
+    }
+  }
+
+  @Test
+  public void testOnlyTransactionMessagesAreJournalled() throws Exception {
+    try (OutboundJournal journal = OutboundJournal.open(directory.resolve("journal"))) {
+      assertFalse(journal.append(new Heartbeat()));
+      assertFalse(journal.append(meterValues(null)));
+      assertTrue(journal.append(meterValues(3)));
+      assertEquals(1, journal.size());
+    }
+  }
+
+  @Test
+  public void testTornRecordEndsTheJournal() throws Exception {
+    Path path = directory.resolve("journal");
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    int end;
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      journal.append(start);
+      end = journal.getUsedBytes();
+    }
+    // A record whose body was never fully written
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.seek(end);
+      file.writeInt(OutboundJournal.INITIAL_SIZE);
+      file.writeByte('A');
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      assertEquals(List.of(start.getMessageID()), messageIds(journal.getPending()));
+      assertEquals(end, journal.getUsedBytes());
+
+      StartTransaction next = new StartTransaction(2, "tag", 0, "2025-01-01T00:00:00Z");
+      assertTrue(journal.append(next));
+    }
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      assertEquals(2, journal.size());
+    }
+  }
+
+  @Test
+  public void testCorruptRecordEndsTheJournal() throws Exception {
+    Path path = directory.resolve("journal");
+    StartTransaction start = new StartTransaction(1, "tag", 0, "2025-01-01T00:00:00Z");
+    int end;
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      journal.append(start);
+      end = journal.getUsedBytes();
+      journal.append(new StartTransaction(2, "tag", 0, "2025-01-01T00:00:00Z"));
+    }
+    // A record whose length was written but whose body was garbled
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.seek(end + 20);
+      file.writeByte('X');
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      assertEquals(List.of(start.getMessageID()), messageIds(journal.getPending()));
+      assertEquals(end, journal.getUsedBytes());
+    }
+  }
+
+  @Test
+  public void testCompactionKeepsOnlyPendingMessages() throws Exception {
+    Path path = directory.resolve("journal");
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      MeterValues kept = meterValues(1);
+      journal.append(kept);
+      // Far more than fits the initial mapping, answered as it goes
+      for (int i = 0; i < 5_000; i++) {
+        MeterValues meter = meterValues(1);
+        journal.append(meter);
+        journal.acknowledge(meter.getMessageID());
+      }
+      assertTrue(Files.size(path) <= 2L * OutboundJournal.INITIAL_SIZE);
+
+      journal.compact();
+      assertEquals(List.of(kept.getMessageID()), messageIds(journal.getPending()));
+      assertTrue(journal.getUsedBytes() < 1024);
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      assertEquals(1, journal.size());
+    }
+  }
+
+  @Test
+  public void testJournalGrowsForPendingMessages() throws Exception {
+    Path path = directory.resolve("journal");
+    int messages = 2_000;
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      for (int i = 0; i < messages; i++) {
+        assertTrue(journal.append(meterValues(i)));
+      }
+      assertTrue(Files.size(path) > OutboundJournal.INITIAL_SIZE);
+    }
+
+    try (OutboundJournal journal = OutboundJournal.open(path)) {
+      List<OCPPMessage> pending = journal.getPending();
+      assertEquals(messages, pending.size());
+      for (int i = 0; i < messages; i++) {
+        assertEquals(i, ((MeterValues) pending.get(i)).getTransactionId());
+      }
+    }
+  }
+}
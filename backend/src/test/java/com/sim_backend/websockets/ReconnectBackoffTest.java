@@ -0,0 +1,69 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+public class ReconnectBackoffTest {
+
+  @Test
+  public void testCeilingDoublesUpToTheCap() {
+    List<Long> ceilings = new ArrayList<>();
+    ReconnectBackoff backoff =
+        new ReconnectBackoff(
+            Duration.ofSeconds(1),
+            Duration.ofSeconds(10),
+            ceiling -> {
+              ceilings.add(ceiling);
+              return ceiling;
+            });
+
+    for (int i = 0; i < 6; i++) {
+      backoff.nextDelayNanos();
+    }
+    assertEquals(
+        List.of(1L, 2L, 4L, 8L, 10L, 10L),
+        ceilings.stream().map(nanos -> Duration.ofNanos(nanos).toSeconds()).toList());
+    assertEquals(6, backoff.getAttempts());
+
+    backoff.reset();
+    assertEquals(Duration.ofSeconds(1).toNanos(), backoff.nextDelayNanos());
+  }
+
+  @Test
+  public void testManyAttemptsStayAtTheCap() {
+    ReconnectBackoff backoff =
+        new ReconnectBackoff(Duration.ofSeconds(1), Duration.ofMinutes(1), ceiling -> ceiling);
+    long delay = 0;
+    for (int i = 0; i < 200; i++) {
+      delay = backoff.nextDelayNanos();
+    }
+    assertEquals(Duration.ofMinutes(1).toNanos(), delay);
+  }
+
+  @Test
+  public void testDelaysAreJitteredBelowTheCeiling() {
+    ReconnectBackoff backoff = new ReconnectBackoff(Duration.ofSeconds(1), Duration.ofSeconds(1));
+    long distinct =
+        LongStream.range(0, 100)
+            .map(i -> backoff.nextDelayNanos())
+            .peek(delay -> assertTrue(delay >= 0 && delay <= Duration.ofSeconds(1).toNanos()))
+            .distinct()
+            .count();
+    assertTrue(distinct > 1);
+  }
+
+  @Test
+  public void testBaseMustBePositiveAndAtMostTheCap() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ReconnectBackoff(Duration.ZERO, Duration.ofSeconds(1)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new ReconnectBackoff(Duration.ofSeconds(2), Duration.ofSeconds(1)));
+  }
+}
@@ -0,0 +1,37 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class ReconnectMetricsTest {
+
+  @Test
+  public void testCountsAStorm() {
+    AtomicLong nanoTime = new AtomicLong();
+    ReconnectMetrics metrics = new ReconnectMetrics(nanoTime::get);
+
+    for (int i = 0; i < 3; i++) {
+      metrics.connectionLost();
+      metrics.attemptStarted();
+    }
+    metrics.attemptFinished(false);
+    metrics.attemptFinished(true);
+    metrics.reconnected();
+    metrics.connectionLost();
+    metrics.reconnectAbandoned();
+
+    nanoTime.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    metrics.attemptStarted();
+
+    ReconnectMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(2, snapshot.getDisconnected());
+    assertEquals(4, snapshot.getDisconnects());
+    assertEquals(4, snapshot.getAttempts());
+    assertEquals(1, snapshot.getSuccesses());
+    assertEquals(1, snapshot.getFailures());
+    assertEquals(3, snapshot.getPeakAttemptsPerSecond());
+  }
+}
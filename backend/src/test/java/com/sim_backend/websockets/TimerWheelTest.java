@@ -0,0 +1,130 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class TimerWheelTest {
+
+  private static final long TICK = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final AtomicLong nanoTime = new AtomicLong();
+
+  private TimerWheel wheel;
+
+  @BeforeEach
+  void setUp() {
+    wheel = new TimerWheel(TICK, 8, nanoTime::get);
+  }
+
+  private void advance(long millis) {
+    nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    wheel.advance();
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(IllegalArgumentException.class, () -> new TimerWheel(0, 8, nanoTime::get));
+    assertThrows(IllegalArgumentException.class, () -> new TimerWheel(TICK, 0, nanoTime::get));
+    assertThrows(IllegalArgumentException.class, () -> wheel.newTimeout(null, 1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testFiresWhenDue() {
+    AtomicInteger fired = new AtomicInteger();
+    TimerWheel.Timeout timeout =
+        wheel.newTimeout(fired::incrementAndGet, 55, TimeUnit.MILLISECONDS);
+
+    advance(50);
+    assertEquals(0, fired.get());
+    assertEquals(1, wheel.pendingTimeouts());
+
+    advance(10);
+    assertEquals(1, fired.get());
+    assertTrue(timeout.isExpired());
+    assertEquals(0, wheel.pendingTimeouts());
+
+    advance(1000);
+    assertEquals(1, fired.get());
+  }
+
+  @Test
+  void testFiresAfterSeveralRounds() {
+    // 8 buckets of 10ms, so 500ms needs several trips around the wheel
+    AtomicInteger fired = new AtomicInteger();
+    wheel.newTimeout(fired::incrementAndGet, 500, TimeUnit.MILLISECONDS);
+
+    advance(490);
+    assertEquals(0, fired.get());
+    advance(20);
+    assertEquals(1, fired.get());
+  }
+
+  @Test
+  void testFiresInDeadlineOrder() {
+    List<Integer> order = new ArrayList<>();
+    wheel.newTimeout(() -> order.add(3), 300, TimeUnit.MILLISECONDS);
+    wheel.newTimeout(() -> order.add(1), 20, TimeUnit.MILLISECONDS);
+    wheel.newTimeout(() -> order.add(2), 150, TimeUnit.MILLISECONDS);
+
+    advance(1000);
+    assertEquals(List.of(1, 2, 3), order);
+  }
+
+  @Test
+  void testCancel() {
+    AtomicInteger fired = new AtomicInteger();
+    TimerWheel.Timeout timeout =
+        wheel.newTimeout(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+    advance(10);
+
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    assertFalse(timeout.cancel());
+    assertEquals(0, wheel.pendingTimeouts());
+
+    advance(100);
+    assertEquals(0, fired.get());
+    assertFalse(timeout.isExpired());
+  }
+
+  @Test
+  void testCancelAfterExpiry() {
+    TimerWheel.Timeout timeout = wheel.newTimeout(() -> {}, 10, TimeUnit.MILLISECONDS);
+    advance(20);
+
+    assertFalse(timeout.cancel());
+    assertTrue(timeout.isExpired());
+  }
+
+  @Test
+  void testFailingTaskDoesNotStopWheel() {
+    AtomicInteger fired = new AtomicInteger();
+    wheel.newTimeout(
+        () -> {
+          throw new IllegalStateException("boom");
+        },
+        10,
+        TimeUnit.MILLISECONDS);
+    wheel.newTimeout(fired::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+
+    advance(20);
+    assertEquals(1, fired.get());
+  }
+
+  @Test
+  void testSharedWheelRunsTasks() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(1);
+    TimerWheel.getShared().newTimeout(latch::countDown, 20, TimeUnit.MILLISECONDS);
+
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertSame(TimerWheel.getShared(), TimerWheel.getShared());
+  }
+}
@@ -0,0 +1,212 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TrafficJournalTest {
+
+  private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+  @TempDir Path directory;
+
+  /** A clock a second further on every time it is read. */
+  private static final class StepClock extends Clock {
+    private long seconds;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return START.plusSeconds(seconds++);
+    }
+  }
+
+  private static String call(int id, String action) {
+    return "[2,\"" + id + "\",\"" + action + "\",{}]";
+  }
+
+  private static List<String> messageIds(List<TrafficJournal.Entry> entries) {
+    return entries.stream().map(TrafficJournal.Entry::getMessageId).toList();
+  }
+
+  private static List<String> range(int from, int to) {
+    List<String> ids = new ArrayList<>();
+    for (int i = from; i < to; i++) {
+      ids.add(String.valueOf(i));
+    }
+    return ids;
+  }
+
+  private static long segmentFiles(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testPagesFollowCursors() throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory, 1024 * 1024, 4, new StepClock())) {
+      for (int i = 0; i < 10; i++) {
+        journal.append(TrafficJournal.Direction.SENT, call(i, "Heartbeat"), null);
+      }
+
+      TrafficJournal.Page first = journal.query(null, null, null, null, null, 4);
+      assertEquals(range(0, 4), messageIds(first.getEntries()));
+      assertNotNull(first.getNextCursor());
+      TrafficJournal.Page second = journal.query(null, null, null, null, first.getNextCursor(), 4);
+      assertEquals(range(4, 8), messageIds(second.getEntries()));
+      TrafficJournal.Page last = journal.query(null, null, null, null, second.getNextCursor(), 4);
+      assertEquals(range(8, 10), messageIds(last.getEntries()));
+      assertNull(last.getNextCursor());
+
+      TrafficJournal.Entry entry = first.getEntries().get(0);
+      assertEquals("2025-01-01T00:00Z", entry.getTimestamp());
+      assertEquals(TrafficJournal.Direction.SENT, entry.getDirection());
+      assertEquals(2, entry.getMessageType());
+      assertEquals("Heartbeat", entry.getAction());
+      assertEquals(call(0, "Heartbeat"), entry.getFrame());
+    }
+  }
+
+  @Test
+  public void testQueryByTimeRangeAcrossSegments() throws Exception {
+    // Small segments and more records than the sparse index interval
+    try (TrafficJournal journal = TrafficJournal.open(directory, 4096, 100, new StepClock())) {
+      for (int i = 0; i < 500; i++) {
+        journal.append(TrafficJournal.Direction.SENT, call(i, "Heartbeat"), null);
+      }
+      assertTrue(journal.getSummary().getSegments() > 1);
+
+      TrafficJournal.Page page =
+          journal.query(START.plusSeconds(130), START.plusSeconds(330), null, null, null, 1000);
+      assertEquals(range(130, 331), messageIds(page.getEntries()));
+      assertNull(page.getNextCursor());
+
+      List<String> paged = new ArrayList<>();
+      String cursor = null;
+      do {
+        TrafficJournal.Page next =
+            journal.query(START.plusSeconds(130), START.plusSeconds(330), null, null, cursor, 50);
+        paged.addAll(messageIds(next.getEntries()));
+        cursor = next.getNextCursor();
+      } while (cursor != null);
+      assertEquals(range(130, 331), paged);
+    }
+  }
+
+  @Test
+  public void testQueryByActionAndMessageId() throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory, 512, 100, new StepClock())) {
+      for (int i = 0; i < 50; i++) {
+        String action = i % 2 == 0 ? "Heartbeat" : "StatusNotification";
+        journal.append(TrafficJournal.Direction.SENT, call(i, action), null);
+        journal.append(TrafficJournal.Direction.RECEIVED, "[3,\"" + i + "\",{}]", action);
+      }
+
+      TrafficJournal.Page exchange = journal.query(null, null, null, "7", null, 100);
+      assertEquals(2, exchange.getEntries().size());
+      TrafficJournal.Entry result = exchange.getEntries().get(1);
+      assertEquals(TrafficJournal.Direction.RECEIVED, result.getDirection());
+      assertEquals(3, result.getMessageType());
+      assertEquals("StatusNotification", result.getAction());
+      assertEquals("[3,\"7\",{}]", result.getFrame());
+
+      TrafficJournal.Page statuses =
+          journal.query(null, null, "StatusNotification", null, null, 1000);
+      assertEquals(50, statuses.getEntries().size());
+      TrafficJournal.Page calls = journal.query(null, null, "Heartbeat", "8", null, 1000);
+      assertEquals(List.of("8", "8"), messageIds(calls.getEntries()));
+      assertTrue(journal.query(null, null, "Heartbeat", "7", null, 10).getEntries().isEmpty());
+      assertTrue(journal.query(null, null, null, "missing", null, 10).getEntries().isEmpty());
+    }
+  }
+
+  @Test
+  public void testOldestSegmentsAreDeleted() throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory, 256, 3, new StepClock())) {
+      for (int i = 0; i < 100; i++) {
+        journal.append(TrafficJournal.Direction.SENT, call(i, "Heartbeat"), null);
+      }
+
+      TrafficJournal.Summary summary = journal.getSummary();
+      assertEquals(3, summary.getSegments());
+      assertEquals(3, segmentFiles(directory));
+      List<String> kept =
+          messageIds(journal.query(null, null, null, null, null, 1000).getEntries());
+      assertEquals(summary.getRecords(), kept.size());
+      assertEquals("99", kept.get(kept.size() - 1));
+      assertTrue(journal.query(null, null, null, "0", null, 10).getEntries().isEmpty());
+      assertEquals(START.plusSeconds(99).atZone(ZoneOffset.UTC).toString(), summary.getNewest());
+    }
+  }
+
+  @Test
+  public void testReopenRebuildsIndexesAndCutsTornRecord() throws Exception {
+    StepClock clock = new StepClock();
+    try (TrafficJournal journal = TrafficJournal.open(directory, 512, 100, clock)) {
+      for (int i = 0; i < 20; i++) {
+        journal.append(TrafficJournal.Direction.SENT, call(i, "Heartbeat"), null);
+      }
+    }
+    Path last;
+    try (Stream<Path> files = Files.list(directory)) {
+      last = files.sorted().reduce((first, second) -> second).orElseThrow();
+    }
+    // A record torn by a crash, its length runs past the end of the file
+    Files.write(last, new byte[] {0, 0, 1, 0, 1, 2, 3}, StandardOpenOption.APPEND);
+
+    try (TrafficJournal journal = TrafficJournal.open(directory, 512, 100, clock)) {
+      assertEquals(20, journal.getSummary().getRecords());
+      journal.append(TrafficJournal.Direction.SENT, call(20, "Heartbeat"), null);
+      assertEquals(
+          range(0, 21), messageIds(journal.query(null, null, null, null, null, 100).getEntries()));
+      assertEquals(1, journal.query(null, null, null, "13", null, 10).getEntries().size());
+      assertEquals(1, journal.query(null, null, null, "20", null, 10).getEntries().size());
+    }
+  }
+
+  @Test
+  public void testUnparsableFrameIsJournalled() throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory, 512, 10, new StepClock())) {
+      journal.append(TrafficJournal.Direction.RECEIVED, "not json", null);
+
+      TrafficJournal.Entry entry =
+          journal.query(null, null, null, null, null, 10).getEntries().get(0);
+      assertEquals("Unknown", entry.getAction());
+      assertEquals("", entry.getMessageId());
+      assertEquals("not json", entry.getFrame());
+    }
+  }
+
+  @Test
+  public void testInvalidQuery() throws Exception {
+    try (TrafficJournal journal = TrafficJournal.open(directory)) {
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> journal.query(null, null, null, null, "nonsense", 10));
+      assertThrows(
+          IllegalArgumentException.class, () -> journal.query(null, null, null, null, null, 0));
+    }
+  }
+}
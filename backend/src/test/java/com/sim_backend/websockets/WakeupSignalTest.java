@@ -0,0 +1,62 @@
+package com.sim_backend.websockets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class WakeupSignalTest {
+
+  @Test
+  void testAwaitTimesOutWithoutSignal() {
+    WakeupSignal signal = new WakeupSignal();
+
+    long start = System.nanoTime();
+    assertFalse(signal.await(TimeUnit.MILLISECONDS.toNanos(50)));
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  void testSignalBeforeAwaitIsRemembered() {
+    WakeupSignal signal = new WakeupSignal();
+    signal.signal();
+    signal.signal();
+
+    assertTrue(signal.await(TimeUnit.SECONDS.toNanos(5)));
+    // Both signals were consumed by the first wakeup
+    assertFalse(signal.await(TimeUnit.MILLISECONDS.toNanos(10)));
+  }
+
+  @Test
+  void testSignalUnparksWaiter() throws InterruptedException {
+    WakeupSignal signal = new WakeupSignal();
+    CountDownLatch parked = new CountDownLatch(1);
+    AtomicBoolean signalled = new AtomicBoolean(false);
+
+    Thread waiter =
+        Thread.ofVirtual()
+            .start(
+                () -> {
+                  parked.countDown();
+                  signalled.set(signal.await(TimeUnit.SECONDS.toNanos(30)));
+                });
+    assertTrue(parked.await(5, TimeUnit.SECONDS));
+    signal.signal();
+    waiter.join(TimeUnit.SECONDS.toMillis(5));
+
+    assertFalse(waiter.isAlive());
+    assertTrue(signalled.get());
+  }
+
+  @Test
+  void testInterruptEndsAwait() throws InterruptedException {
+    WakeupSignal signal = new WakeupSignal();
+    Thread waiter = Thread.ofVirtual().start(() -> signal.await(TimeUnit.SECONDS.toNanos(30)));
+
+    waiter.interrupt();
+    waiter.join(TimeUnit.SECONDS.toMillis(5));
+    assertFalse(waiter.isAlive());
+  }
+}
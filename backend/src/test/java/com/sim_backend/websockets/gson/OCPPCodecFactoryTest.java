@@ -0,0 +1,184 @@
+package com.sim_backend.websockets.gson;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.sim_backend.websockets.GsonUtilities;
+import com.sim_backend.websockets.annotations.OCPPMessageInfo;
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import com.sim_backend.websockets.enums.MeterValuesSampledData;
+import com.sim_backend.websockets.enums.ReadingContext;
+import com.sim_backend.websockets.enums.UnitOfMeasure;
+import com.sim_backend.websockets.messages.Authorize;
+import com.sim_backend.websockets.messages.BootNotification;
+import com.sim_backend.websockets.messages.GetConfiguration;
+import com.sim_backend.websockets.messages.GetConfigurationResponse;
+import com.sim_backend.websockets.messages.Heartbeat;
+import com.sim_backend.websockets.messages.MeterValues;
+import com.sim_backend.websockets.messages.StartTransaction;
+import com.sim_backend.websockets.messages.StatusNotification;
+import com.sim_backend.websockets.types.OCPPMessage;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class OCPPCodecFactoryTest {
+
+  /** Gson as it was before the codecs, binding every message reflectively. */
+  private static final Gson REFLECTIVE =
+      new GsonBuilder()
+          .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeSerializer())
+          .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeDeserializer())
+          .create();
+
+  private static List<OCPPMessage> sampleMessages() {
+    ZonedDateTime timestamp = ZonedDateTime.parse("2025-03-04T21:53:04Z");
+    MeterValues.SampledValue sampledValue =
+        new MeterValues.SampledValue(
+            "12.34",
+            ReadingContext.SAMPLE_PERIODIC,
+            MeterValuesSampledData.CURRENT_OFFERED,
+            UnitOfMeasure.A);
+    GetConfiguration getConfiguration = new GetConfiguration(List.of("HeartbeatInterval"));
+
+    return List.of(
+        new Heartbeat(),
+        new BootNotification(),
+        new Authorize("tag <&>"),
+        new StartTransaction(1, "tag", 10, "2025-03-04T21:53:04Z"),
+        new MeterValues(
+            1, null, List.of(new MeterValues.MeterValue(timestamp, List.of(sampledValue)))),
+        new StatusNotification(
+            1,
+            ChargePointErrorCode.NoError,
+            "",
+            ChargePointStatus.Available,
+            timestamp,
+            null,
+            null),
+        getConfiguration,
+        new GetConfigurationResponse(
+            getConfiguration,
+            List.of(new GetConfigurationResponse.Configuration("HeartbeatInterval", "60", false)),
+            List.of("Unknown")));
+  }
+
+  private static String reflectiveFrame(OCPPMessage message) {
+    OCPPMessageInfo info = message.getClass().getAnnotation(OCPPMessageInfo.class);
+    JsonArray array = new JsonArray();
+    array.add(info.messageCallID());
+    array.add(message.getMessageID());
+    if (info.messageCallID() == OCPPMessage.CALL_ID_REQUEST) {
+      array.add(info.messageName());
+    }
+    array.add(REFLECTIVE.toJsonTree(message));
+    return REFLECTIVE.toJson(array, JsonElement.class);
+  }
+
+  @Test
+  public void testEveryMessageHasACodec() {
+    Gson gson = GsonUtilities.getGson();
+    for (OCPPMessage message : sampleMessages()) {
+      assertInstanceOf(OCPPCodec.class, gson.getAdapter(message.getClass()), message.toString());
+    }
+  }
+
+  @Test
+  public void testFramesMatchReflectiveGson() {
+    for (OCPPMessage message : sampleMessages()) {
+      assertEquals(reflectiveFrame(message), GsonUtilities.toFrame(message));
+      assertEquals(
+          REFLECTIVE.toJson(message), GsonUtilities.getGson().toJson(message), message.toString());
+    }
+  }
+
+  @Test
+  public void testDecodeMatchesReflectiveGson() {
+    for (OCPPMessage message : sampleMessages()) {
+      String payload = REFLECTIVE.toJson(message);
+
+      OCPPMessage decoded = GsonUtilities.getGson().fromJson(payload, message.getClass());
+
+      assertEquals(payload, REFLECTIVE.toJson(decoded), message.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  public void testDecodeLeavesAbsentAndNullFieldsAlone() {
+    StartTransaction decoded =
+        GsonUtilities.getGson()
+            .fromJson(
+                "{\"connectorId\":null,\"idTag\":\"tag\",\"unknown\":[1,{}]}",
+                StartTransaction.class);
+
+    assertEquals(0, decoded.getConnectorId());
+    assertEquals("tag", decoded.getIdTag());
+    assertNull(decoded.getTimestamp());
+  }
+
+  @Test
+  public void testDecodeErrors() {
+    Gson gson = GsonUtilities.getGson();
+
+    assertThrows(
+        JsonSyntaxException.class,
+        () -> gson.fromJson("{\"connectorId\":\"one\"}", StartTransaction.class));
+    assertNull(gson.fromJson("null", StartTransaction.class));
+  }
+
+  @Test
+  public void testEveryCodecCanDecode() {
+    Gson gson = GsonUtilities.getGson();
+    for (OCPPMessage message : sampleMessages()) {
+      OCPPCodec<?> codec = (OCPPCodec<?>) gson.getAdapter(message.getClass());
+      assertTrue(codec.isDecodable(), message.getClass().getSimpleName());
+    }
+  }
+
+  @Test
+  public void testFallsBackWhenTheCodecCannotConstruct() throws Exception {
+    Gson gson = GsonUtilities.getGson();
+    TypeAdapter<StatusNotification> reflective = REFLECTIVE.getAdapter(StatusNotification.class);
+    OCPPCodec<StatusNotification> codec =
+        new OCPPCodec<>(gson, reflective, OCPPMessage.CALL_ID_REQUEST, "StatusNotification") {
+          @Override
+          protected void writePayload(JsonWriter out, StatusNotification value) throws IOException {
+            reflective.write(out, value);
+          }
+
+          @Override
+          protected StatusNotification readPayload(JsonReader in) {
+            throw new AssertionError("Not decodable");
+          }
+
+          @Override
+          public boolean isDecodable() {
+            return false;
+          }
+        };
+
+    StatusNotification decoded =
+        codec.fromJson("{\"connectorId\":2,\"errorCode\":\"NoError\",\"status\":\"Charging\"}");
+
+    assertEquals(2, decoded.getConnectorId());
+    assertEquals(ChargePointStatus.Charging, decoded.getStatus());
+  }
+
+  @Test
+  public void testOtherTypesAreLeftToGson() {
+    OCPPCodecFactory factory = new OCPPCodecFactory();
+    Gson gson = GsonUtilities.getGson();
+
+    assertNull(factory.create(gson, com.google.gson.reflect.TypeToken.get(String.class)));
+    assertNull(factory.create(gson, com.google.gson.reflect.TypeToken.get(OCPPMessage.class)));
+  }
+}
@@ -0,0 +1,131 @@
+package com.sim_backend.websockets.messages;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.OCPPMessageRegistry;
+import com.sim_backend.websockets.enums.ChargePointErrorCode;
+import com.sim_backend.websockets.enums.ChargePointStatus;
+import jakarta.validation.Valid;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class ConstraintPlanTest {
+
+  private static final Validator VALIDATOR =
+      Validation.buildDefaultValidatorFactory().getValidator();
+
+  private static final String LONG = "x".repeat(300);
+
+  private static StatusNotification statusNotification(
+      int connectorId, ChargePointStatus status, String info) {
+    return new StatusNotification(
+        connectorId, ChargePointErrorCode.NoError, info, status, ZonedDateTime.now(), null, null);
+  }
+
+  private static List<Object> sampleObjects() {
+    return List.of(
+        new Heartbeat(),
+        new BootNotification(),
+        new BootNotification("", "Model", null, null, null, null, null, null, null),
+        new BootNotification("   ", "Model", null, null, null, null, null, null, null),
+        new BootNotification(LONG, "Model", null, null, null, null, null, null, null),
+        new BootNotification("Vendor", "Model", LONG, null, null, null, null, null, "x"),
+        statusNotification(1, ChargePointStatus.Available, "info"),
+        statusNotification(-1, ChargePointStatus.Available, "info"),
+        statusNotification(1, null, "info"),
+        statusNotification(1, ChargePointStatus.Available, LONG),
+        statusNotification(0, ChargePointStatus.Available, null),
+        new StartTransaction(1, "tag", 10, "2025-03-04T21:53:04Z"),
+        new StartTransaction(1, " ", 10, "2025-03-04T21:53:04Z"),
+        new StartTransaction(1, "tag", 10, null),
+        new RemoteStartTransaction("tag", null, null),
+        new RemoteStartTransaction("tag", -1, null),
+        new RemoteStartTransaction(LONG, 1, null),
+        new Authorize("tag"),
+        new Authorize(LONG),
+        new GetConfiguration(List.of("HeartbeatInterval")),
+        new GetConfiguration(null));
+  }
+
+  @Test
+  public void testEveryMessageIsCompiled() {
+    for (Class<?> messageClass : OCPPMessageRegistry.getShared().getMessageClasses()) {
+      assertTrue(ConstraintPlan.forClass(messageClass).isCompiled(), messageClass.getName());
+    }
+  }
+
+  @Test
+  public void testMatchesHibernateValidator() {
+    for (Object object : sampleObjects()) {
+      ConstraintPlan plan = ConstraintPlan.forClass(object.getClass());
+
+      assertEquals(VALIDATOR.validate(object).isEmpty(), plan.isValid(object), object.toString());
+    }
+  }
+
+  @Test
+  public void testFindViolations() {
+    assertNull(MessageValidator.findViolations(new Heartbeat()));
+    StatusNotification invalid = statusNotification(-1, ChargePointStatus.Available, null);
+
+    assertEquals(MessageValidator.log_message(invalid), MessageValidator.findViolations(invalid));
+  }
+
+  /** A cascaded constraint. */
+  private static class Cascading {
+    @Valid private final Constrained nested = new Constrained();
+  }
+
+  /** A constraint a plan cannot check. */
+  private static class Unsupported {
+    @Email private final String email = "not an email";
+  }
+
+  /** A constraint limited to a group. */
+  private static class Grouped {
+    @NotNull(groups = Grouped.class)
+    private final String value = null;
+  }
+
+  /** A constraint on the elements of a list. */
+  private static class ContainerElements {
+    private final List<@Size(max = 1) String> values = List.of("too long");
+  }
+
+  /** A getter constraint. */
+  private static class ConstrainedGetter {
+    @NotNull
+    public String getValue() {
+      return null;
+    }
+  }
+
+  /** Plain field constraints. */
+  private static class Constrained {
+    @NotNull private final String value = null;
+  }
+
+  @Test
+  public void testLeavesOtherConstraintsToHibernateValidator() {
+    assertFalse(ConstraintPlan.forClass(Cascading.class).isCompiled());
+    assertFalse(ConstraintPlan.forClass(Unsupported.class).isCompiled());
+    assertFalse(ConstraintPlan.forClass(Grouped.class).isCompiled());
+    assertFalse(ConstraintPlan.forClass(ContainerElements.class).isCompiled());
+    assertFalse(ConstraintPlan.forClass(ConstrainedGetter.class).isCompiled());
+    assertTrue(ConstraintPlan.forClass(Constrained.class).isCompiled());
+
+    assertFalse(MessageValidator.isValid(new Unsupported()));
+    assertFalse(MessageValidator.isValid(new ContainerElements()));
+    assertTrue(MessageValidator.isValid(new Grouped()));
+    assertFalse(MessageValidator.isValid(new Constrained()));
+    assertThrows(
+        IllegalStateException.class,
+        () -> ConstraintPlan.forClass(Grouped.class).isValid(new Grouped()));
+  }
+}
@@ -1,5 +1,6 @@
 package com.sim_backend.websockets.observers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -40,23 +41,8 @@ class StatusNotificationObserverTest {
 
   @Test
   void testOffline() {
+    // The client buffers it until it is back online
     when(client.isOnline()).thenReturn(false);
-    observer.sendStatusNotification(
-        1,
-        ChargePointErrorCode.NoError,
-        "",
-        ChargePointStatus.Available,
-        ZonedDateTime.now(),
-        "",
-        "");
-
-    verify(client, never()).pushMessage(any(StatusNotification.class));
-  }
-
-  @Test
-  void testOfflineToOnline() {
-    when(client.isOnline()).thenReturn(false);
-
     observer.sendStatusNotification(
         1,
         ChargePointErrorCode.NoError,
@@ -66,17 +52,13 @@ class StatusNotificationObserverTest {
         "",
         "");
 
-    verify(client, never()).pushMessage(any(StatusNotification.class));
-
-    when(client.isOnline()).thenReturn(true);
-    observer.onClientGoOnline();
-
     ArgumentCaptor<StatusNotification> captor = ArgumentCaptor.forClass(StatusNotification.class);
     verify(client, times(1)).pushMessage(captor.capture());
+    assertEquals(ChargePointStatus.Charging, captor.getValue().getStatus());
   }
 
   @Test
-  void testOnStateChangeOfflineToOnline() {
+  void testOnStateChangeOffline() {
     when(client.isOnline()).thenReturn(false);
 
     StatusNotification statusNotification =
@@ -102,9 +84,6 @@ class StatusNotificationObserverTest {
 
     observer.onStateChanged(ChargerState.Available);
 
-    when(client.isOnline()).thenReturn(true);
-    observer.onClientGoOnline();
-
     ArgumentCaptor<StatusNotification> captor = ArgumentCaptor.forClass(StatusNotification.class);
     verify(client, times(1)).pushMessage(captor.capture());
   }
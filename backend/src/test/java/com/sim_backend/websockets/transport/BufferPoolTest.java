@@ -0,0 +1,55 @@
+package com.sim_backend.websockets.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+public class BufferPoolTest {
+
+  @Test
+  void testInvalidSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new BufferPool(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new BufferPool(16, -1));
+  }
+
+  @Test
+  void testBuffersAreReused() {
+    BufferPool pool = new BufferPool(64, 4);
+
+    ByteBuffer first = pool.acquire();
+    assertEquals(64, first.capacity());
+    assertTrue(first.hasArray());
+    first.put((byte) 1);
+    pool.release(first);
+
+    ByteBuffer second = pool.acquire();
+    assertSame(first, second);
+    assertEquals(0, second.position());
+    assertEquals(64, second.remaining());
+    assertEquals(1, pool.getAllocatedCount());
+  }
+
+  @Test
+  void testPoolIsBounded() {
+    BufferPool pool = new BufferPool(64, 1);
+    ByteBuffer first = pool.acquire();
+    ByteBuffer second = pool.acquire();
+
+    pool.release(first);
+    pool.release(second);
+
+    assertEquals(1, pool.getPooledCount());
+  }
+
+  @Test
+  void testForeignBuffersAreDropped() {
+    BufferPool pool = new BufferPool(64, 4);
+
+    pool.release(ByteBuffer.allocate(32));
+    pool.release(ByteBuffer.allocateDirect(64));
+    pool.release(null);
+
+    assertEquals(0, pool.getPooledCount());
+  }
+}
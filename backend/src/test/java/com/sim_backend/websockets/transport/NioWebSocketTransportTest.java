@@ -0,0 +1,281 @@
+package com.sim_backend.websockets.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sim_backend.websockets.OCPPWebSocketClient;
+import com.sim_backend.websockets.observers.StatusNotificationObserver;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.java_websocket.WebSocket;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.handshake.ServerHandshake;
+import org.java_websocket.protocols.Protocol;
+import org.java_websocket.server.WebSocketServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NioWebSocketTransportTest {
+
+  /** A Central System stand in that echoes every message back. */
+  static class EchoServer extends WebSocketServer {
+    final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    final BlockingQueue<String> paths = new LinkedBlockingQueue<>();
+    final BlockingQueue<Integer> closeCodes = new LinkedBlockingQueue<>();
+    final CountDownLatch started = new CountDownLatch(1);
+
+    EchoServer() {
+      super(
+          new InetSocketAddress("127.0.0.1", 0),
+          List.of(new Draft_6455(Collections.emptyList(), List.of(new Protocol("ocpp1.6")))));
+      setReuseAddr(true);
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+      paths.add(handshake.getResourceDescriptor());
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+      closeCodes.add(code);
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+      received.add(message);
+      conn.send(message);
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {}
+
+    @Override
+    public void onStart() {
+      started.countDown();
+    }
+  }
+
+  /** Records everything a connection reports. */
+  static class RecordingListener implements TransportListener {
+    final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+    final CountDownLatch closed = new CountDownLatch(1);
+    volatile ServerHandshake handshake;
+    volatile boolean remoteClose;
+    final CountDownLatch ponged = new CountDownLatch(1);
+
+    @Override
+    public void onOpen(ServerHandshake handshake) {
+      this.handshake = handshake;
+    }
+
+    @Override
+    public void onMessage(String message) {
+      messages.add(message);
+    }
+
+    @Override
+    public void onPong() {
+      ponged.countDown();
+    }
+
+    @Override
+    public void onClose(int code, String reason, boolean remote) {
+      remoteClose = remote;
+      closed.countDown();
+    }
+
+    @Override
+    public void onError(Exception exception) {}
+  }
+
+  private EchoServer server;
+  private NioWebSocketTransport transport;
+  private URI uri;
+
+  @BeforeEach
+  void setUp() throws InterruptedException {
+    server = new EchoServer();
+    server.start();
+    assertTrue(server.started.await(5, TimeUnit.SECONDS));
+    uri = URI.create("ws://127.0.0.1:" + server.getPort() + "/CP1");
+    transport = new NioWebSocketTransport(1, new BufferPool(1024, 8));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    transport.shutdown();
+    server.stop(1000);
+  }
+
+  @Test
+  void testInvalidArguments() {
+    assertThrows(
+        IllegalArgumentException.class, () -> new NioWebSocketTransport(0, new BufferPool()));
+    assertThrows(
+        IllegalArgumentException.class,
+        () ->
+            transport.connect(
+                URI.create("wss://localhost/CP1"),
+                OCPPWebSocketClient.headers,
+                new RecordingListener()));
+  }
+
+  @Test
+  void testSupports() {
+    assertTrue(NioWebSocketTransport.supports(URI.create("ws://localhost:9000/CP1")));
+    assertFalse(NioWebSocketTransport.supports(URI.create("wss://localhost:9000/CP1")));
+  }
+
+  @Test
+  void testSendAndReceive() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    assertTrue(connection.isOpen());
+    assertEquals("/CP1", server.paths.poll(5, TimeUnit.SECONDS));
+    assertEquals("ocpp1.6", listener.handshake.getFieldValue("Sec-WebSocket-Protocol"));
+
+    connection.send("[2,\"1\",\"Heartbeat\",{}]");
+    assertEquals("[2,\"1\",\"Heartbeat\",{}]", server.received.poll(5, TimeUnit.SECONDS));
+    assertEquals("[2,\"1\",\"Heartbeat\",{}]", listener.messages.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testSendBatch() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    connection.sendBatch(List.of("first", "x".repeat(10_000), "third"));
+
+    assertEquals("first", server.received.poll(5, TimeUnit.SECONDS));
+    assertEquals("x".repeat(10_000), server.received.poll(5, TimeUnit.SECONDS));
+    assertEquals("third", server.received.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testPingIsAnswered() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    connection.sendPing();
+
+    assertTrue(listener.ponged.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testLargeMessage() throws InterruptedException {
+    // Larger than a pooled buffer, so it arrives over several reads
+    String large = "x".repeat(10_000);
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    connection.send(large);
+    assertEquals(large, listener.messages.poll(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testLocalClose() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    connection.close(1000, "bye");
+    assertTrue(listener.closed.await(5, TimeUnit.SECONDS));
+    assertFalse(listener.remoteClose);
+    assertFalse(connection.isOpen());
+    assertThrows(WebsocketNotConnectedException.class, () -> connection.send("late"));
+    assertEquals(0, transport.getConnectionCount());
+  }
+
+  @Test
+  void testRemoteClose() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+    server.paths.poll(5, TimeUnit.SECONDS);
+
+    for (WebSocket conn : server.getConnections()) {
+      conn.close(1001, "going away");
+    }
+
+    assertTrue(listener.closed.await(5, TimeUnit.SECONDS));
+    assertTrue(listener.remoteClose);
+    assertFalse(connection.isOpen());
+  }
+
+  @Test
+  void testConnectionRefused() throws InterruptedException {
+    RecordingListener listener = new RecordingListener();
+    server.stop(1000);
+
+    TransportConnection connection = transport.connect(uri, OCPPWebSocketClient.headers, listener);
+
+    assertFalse(connection.isOpen());
+    assertTrue(listener.closed.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testManyConnectionsShareOneThread() throws InterruptedException {
+    int threadsBefore = Thread.activeCount();
+    List<TransportConnection> connections = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      connections.add(transport.connect(uri, OCPPWebSocketClient.headers, new RecordingListener()));
+    }
+
+    assertEquals(50, transport.getConnectionCount());
+    assertTrue(connections.stream().allMatch(TransportConnection::isOpen));
+    assertEquals(1, transport.getSelectorThreadCount());
+    // The server runs one thread per core, the clients must not add any
+    assertTrue(Thread.activeCount() - threadsBefore < 10);
+  }
+
+  @Test
+  void testOCPPWebSocketClientOverTransport() throws Exception {
+    OCPPWebSocketClient client =
+        new OCPPWebSocketClient(uri, new StatusNotificationObserver(), transport);
+
+    assertSame(transport, client.getTransport());
+    assertFalse(client.isOpen());
+    assertTrue(client.connectAsync().get(5, TimeUnit.SECONDS));
+    assertTrue(client.isOpen());
+
+    client.send("[2,\"42\",\"Heartbeat\",{}]");
+    assertEquals("[2,\"42\",\"Heartbeat\",{}]", server.received.poll(5, TimeUnit.SECONDS));
+
+    client.close(1000, "done");
+    assertEquals(1000, server.closeCodes.poll(5, TimeUnit.SECONDS));
+    assertFalse(client.isOpen());
+    assertThrows(WebsocketNotConnectedException.class, () -> client.send("late"));
+  }
+
+  @Test
+  void testSendBatchOverDefaultConnection() throws Exception {
+    OCPPWebSocketClient client = new OCPPWebSocketClient(uri, new StatusNotificationObserver());
+    assertThrows(WebsocketNotConnectedException.class, () -> client.sendBatch(List.of("early")));
+    assertTrue(client.connectAsync().get(5, TimeUnit.SECONDS));
+
+    client.sendBatch(List.of("first", "x".repeat(10_000), "third"));
+
+    assertEquals("first", server.received.poll(5, TimeUnit.SECONDS));
+    assertEquals("x".repeat(10_000), server.received.poll(5, TimeUnit.SECONDS));
+    assertEquals("third", server.received.poll(5, TimeUnit.SECONDS));
+    client.closeBlocking();
+  }
+
+  @Test
+  void testSecureUrlFallsBackToDefaultTransport() {
+    OCPPWebSocketClient client =
+        new OCPPWebSocketClient(
+            URI.create("wss://127.0.0.1:1/CP1"), new StatusNotificationObserver(), transport);
+
+    assertNull(client.getTransport());
+  }
+}